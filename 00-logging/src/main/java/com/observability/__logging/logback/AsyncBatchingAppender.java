@@ -0,0 +1,358 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous appender handing events over to its delegate appenders through a lock-free {@link MpscRingBuffer}.
+ * <p>
+ * Logging threads only prepare the event and put it in the ring buffer, a single worker thread drains it in batches
+ * of up to {@code batchSize} events, as soon as a full batch is waiting or at the latest every {@code maxBatchDelay}
+ * ms, 10 by default, appends them to the delegates and then flushes the delegates that are
+ * {@link OutputStreamAppender}s configured with {@code immediateFlush=false}, once per batch rather than per event.
+ * A slow console or disk therefore only fills the buffer, what happens when it is full is the {@link OverflowPolicy}.
+ *
+ * <pre>{@code
+ * <appender name="ASYNC_FILE" class="com.observability.__logging.logback.AsyncBatchingAppender">
+ *     <queueSize>8192</queueSize>
+ *     <batchSize>256</batchSize>
+ *     <overflowPolicy>SAMPLE</overflowPolicy>
+ *     <maxBatchDelay>10</maxBatchDelay>
+ *     <appender-ref ref="FILE" />
+ * </appender>
+ * }</pre>
+ * The queue depth, dropped and sampled out events are published as Micrometer meters once bound to a registry, see
+ * {@link AsyncBatchingAppenderMetrics}.
+ * <p>
+ * An event is not handed to the worker as it is logged, waking the worker per event costs two context switches. A
+ * lone event therefore waits up to {@code maxBatchDelay} before it is written, lower it when the logs must follow the
+ * application closely at low volume, raise it to batch more.
+ */
+public class AsyncBatchingAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent>, MeterBinder {
+
+    public enum OverflowPolicy {
+        /**
+         * Drops the event when the buffer is full.
+         */
+        DROP,
+        /**
+         * Makes the logging thread wait until the buffer has room, nothing is lost.
+         */
+        BLOCK,
+        /**
+         * Once the buffer is filled above {@code sampleThreshold} percent, keeps only one in {@code sampleRate} events
+         * below WARN. Events that still find the buffer full are dropped.
+         */
+        SAMPLE
+    }
+
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_MAX_BATCH_DELAY = 10;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private int sampleRate = 10;
+    private int sampleThreshold = 75;
+    private boolean includeCallerData = false;
+    private int maxFlushTime = 1000;
+    private int maxBatchDelay = DEFAULT_MAX_BATCH_DELAY;
+
+    private MpscRingBuffer<ILoggingEvent> buffer;
+    private int sampleFrom;
+    private Worker worker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 2 || batchSize < 1 || sampleRate < 1 || sampleThreshold < 0 || sampleThreshold > 100
+                || maxBatchDelay < 1) {
+            addError("Invalid queueSize, batchSize, sampleRate, sampleThreshold or maxBatchDelay for [" + name + "]");
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender was attached to [" + name + "]");
+            return;
+        }
+        buffer = new MpscRingBuffer<>(queueSize);
+        sampleFrom = buffer.capacity() * sampleThreshold / 100;
+        worker = new Worker();
+        worker.setDaemon(true);
+        worker.setName("AsyncBatchingAppender-Worker-" + getName());
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Max flush time of " + maxFlushTime + " ms exceeded, " + buffer.size() + " events may be lost");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            addError("Interrupted while waiting for the worker of [" + name + "] to finish", e);
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (overflowPolicy == OverflowPolicy.SAMPLE && isSampledOut(event)) {
+            sampledOut.increment();
+            return;
+        }
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+        if (!buffer.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                putBlocking(event);
+            } else {
+                dropped.increment();
+            }
+        }
+        // a lone event waits up to maxBatchDelay for the worker
+        if (buffer.size() >= batchSize) {
+            worker.wakeUp();
+        }
+    }
+
+    private boolean isSampledOut(ILoggingEvent event) {
+        return event.getLevel().levelInt < Level.WARN_INT
+                && buffer.size() >= sampleFrom
+                && ThreadLocalRandom.current().nextInt(sampleRate) != 0;
+    }
+
+    private void putBlocking(ILoggingEvent event) {
+        long parkNanos = 1_000;
+        while (!buffer.offer(event)) {
+            if (!isStarted()) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(this, parkNanos);
+            parkNanos = Math.min(parkNanos << 1, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private final class Worker extends Thread {
+        private final AtomicBoolean waiting = new AtomicBoolean();
+
+        /**
+         * Unparks the worker if it is waiting for events, only the first producer to see it waiting pays the unpark.
+         */
+        void wakeUp() {
+            if (waiting.get() && waiting.compareAndSet(true, false)) {
+                LockSupport.unpark(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+            long idleParkNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelay);
+            Consumer<ILoggingEvent> collector = batch::add;
+            while (isStarted() || !buffer.isEmpty()) {
+                if (buffer.drain(collector, batchSize) == 0) {
+                    waiting.set(true);
+                    // re-check after publishing the flag, a producer may have added an event in between
+                    if (isStarted() && buffer.isEmpty()) {
+                        LockSupport.parkNanos(this, idleParkNanos);
+                    }
+                    waiting.set(false);
+                    continue;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    appenders.appendLoopOnAppenders(batch.get(i));
+                }
+                batch.clear();
+                flush();
+            }
+        }
+
+        private void flush() {
+            for (Iterator<Appender<ILoggingEvent>> it = appenders.iteratorForAppenders(); it.hasNext(); ) {
+                if (it.next() instanceof OutputStreamAppender<ILoggingEvent> outputStreamAppender
+                        && !outputStreamAppender.isImmediateFlush()
+                        && outputStreamAppender.getOutputStream() != null) {
+                    try {
+                        outputStreamAppender.getOutputStream().flush();
+                    } catch (IOException e) {
+                        addError("Failed to flush [" + outputStreamAppender.getName() + "]", e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("logback.async.queue.depth", this, AsyncBatchingAppender::getQueueDepth)
+                .description("Events waiting in the ring buffer of the async appender")
+                .tag("appender", getName())
+                .register(registry);
+        Gauge.builder("logback.async.queue.capacity", this, appender -> appender.buffer == null ? 0 : appender.buffer.capacity())
+                .tag("appender", getName())
+                .register(registry);
+        FunctionCounter.builder("logback.async.dropped", dropped, LongAdder::sum)
+                .description("Events dropped because the ring buffer was full")
+                .tag("appender", getName())
+                .register(registry);
+        FunctionCounter.builder("logback.async.sampled", sampledOut, LongAdder::sum)
+                .description("Events below WARN left out by the SAMPLE overflow policy")
+                .tag("appender", getName())
+                .register(registry);
+    }
+
+    public int getQueueDepth() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getSampleThreshold() {
+        return sampleThreshold;
+    }
+
+    public void setSampleThreshold(int sampleThreshold) {
+        this.sampleThreshold = sampleThreshold;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public int getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    /**
+     * @param maxBatchDelay how long, in milliseconds, the worker waits for a full batch before writing the events
+     *                      already in the buffer
+     */
+    public void setMaxBatchDelay(int maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
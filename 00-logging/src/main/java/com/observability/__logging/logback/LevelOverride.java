@@ -0,0 +1,70 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+
+import java.time.Instant;
+
+/**
+ * A temporary level for the events logged while the MDC attribute {@code attribute} is {@code value}, e.g. DEBUG for
+ * the requests of one {@code api-clientid}, applied by {@link LevelOverrideTurboFilter} until it expires.
+ */
+public final class LevelOverride {
+    private final String attribute;
+    private final String value;
+    private final Level level;
+    private final String logger;
+    private final long expiresAt;
+
+    /**
+     * @param logger logger name, the override also applies to its descendants, empty for all the loggers
+     */
+    public LevelOverride(String attribute, String value, Level level, String logger, long expiresAt) {
+        if (attribute == null || attribute.isBlank()) {
+            throw new IllegalArgumentException("attribute cant be empty");
+        }
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("value cant be empty");
+        }
+        if (level == null) {
+            throw new IllegalArgumentException("level cant be null");
+        }
+        this.attribute = attribute;
+        this.value = value;
+        this.level = level;
+        this.logger = logger == null || logger.equalsIgnoreCase(org.slf4j.Logger.ROOT_LOGGER_NAME) ? "" : logger;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return whether an event of the logger at the level is enabled by this override at the time
+     */
+    boolean enables(String loggerName, Level eventLevel, long now) {
+        return eventLevel.levelInt >= level.levelInt && now < expiresAt
+                && (logger.isEmpty() || loggerName.startsWith(logger)
+                && (loggerName.length() == logger.length() || loggerName.charAt(logger.length()) == '.'));
+    }
+
+    long expiresAtMillis() {
+        return expiresAt;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getLevel() {
+        return level.levelStr;
+    }
+
+    public String getLogger() {
+        return logger;
+    }
+
+    public Instant getExpiresAt() {
+        return Instant.ofEpochMilli(expiresAt);
+    }
+}
@@ -0,0 +1,41 @@
+package com.observability.__logging.logback;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Copies the {@code Correlation-Id} and {@code api-clientId} request headers to the MDC attributes
+ * {@value #CORRELATION_ID} and {@value #API_CLIENT_ID}, the same keys as the context of {@code sre-logging}, so
+ * {@link LevelOverride}s can select the requests to escalate.
+ */
+@Component
+public class LevelOverrideMdcFilter extends OncePerRequestFilter {
+    public static final String CORRELATION_ID = "correlation-id";
+    public static final String API_CLIENT_ID = "api-clientid";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String correlationId = request.getHeader("Correlation-Id");
+        String apiClientId = request.getHeader("api-clientId");
+        if (correlationId != null) {
+            MDC.put(CORRELATION_ID, correlationId);
+        }
+        if (apiClientId != null) {
+            MDC.put(API_CLIENT_ID, apiClientId);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CORRELATION_ID);
+            MDC.remove(API_CLIENT_ID);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggerContextListener;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turbo filter enabling the events of the requests that match a {@link LevelOverride}, whatever the level of their
+ * logger, e.g. DEBUG for one {@code correlation-id} or {@code api-clientid} only.
+ * <p>
+ * The overrides are kept in an immutable snapshot, replaced on every change: an event costs a single volatile read
+ * while there is no override, otherwise one MDC read and one hash lookup per attribute in use. Expired overrides are
+ * removed by a background thread, so the filter goes back to the single read by itself.
+ * <p>
+ * Spring Boot configures logback before the beans exist, so the filter is added to the logback context by
+ * {@link #install(LoggerContext)}, unless logback.xml declares it already. An installed filter adds itself back with
+ * its overrides when the context is reset, e.g. when logback.xml is scanned and reloaded:
+ *
+ * <pre>{@code
+ * <turboFilter class="com.observability.__logging.logback.LevelOverrideTurboFilter" />
+ * }</pre>
+ */
+public class LevelOverrideTurboFilter extends TurboFilter implements LoggerContextListener {
+    private static final Snapshot EMPTY = new Snapshot(List.of());
+
+    private volatile Snapshot snapshot = EMPTY;
+    private ScheduledExecutorService expiry;
+
+    /**
+     * @return the filter of the logback context, added and started if it has none
+     */
+    public static synchronized LevelOverrideTurboFilter install(LoggerContext loggerContext) {
+        for (TurboFilter turboFilter : loggerContext.getTurboFilterList()) {
+            if (turboFilter instanceof LevelOverrideTurboFilter installed) {
+                return installed;
+            }
+        }
+        LevelOverrideTurboFilter filter = new LevelOverrideTurboFilter();
+        filter.setName("LEVEL_OVERRIDES");
+        filter.setContext(loggerContext);
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+        loggerContext.addListener(filter);
+        return filter;
+    }
+
+    @Override
+    public synchronized void start() {
+        expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LevelOverrideTurboFilter-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the overrides kept through a reset
+        for (LevelOverride override : snapshot.overrides) {
+            scheduleExpiry(override);
+        }
+        super.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        super.stop();
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        Snapshot current = snapshot;
+        if (current.attributes.length == 0 || level == null) {
+            return FilterReply.NEUTRAL;
+        }
+        // read on every event, the adapter may be replaced after the filter started, e.g. by ContextMDCAdapter
+        MDCAdapter mdcAdapter = ((LoggerContext) getContext()).getMDCAdapter();
+        if (mdcAdapter == null) {
+            return FilterReply.NEUTRAL;
+        }
+        for (int i = 0; i < current.attributes.length; i++) {
+            String value = mdcAdapter.get(current.attributes[i]);
+            if (value != null) {
+                LevelOverride override = current.byValue[i].get(value);
+                if (override != null && override.enables(logger.getName(), level, System.currentTimeMillis())) {
+                    return FilterReply.ACCEPT;
+                }
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Adds the override, replacing the one of the same attribute and value if any, until it expires.
+     */
+    public synchronized void put(LevelOverride override) {
+        if (!isStarted()) {
+            throw new IllegalStateException("The level override filter is stopped");
+        }
+        List<LevelOverride> overrides = new ArrayList<>(snapshot.overrides);
+        overrides.removeIf(existing -> existing.getAttribute().equals(override.getAttribute())
+                && existing.getValue().equals(override.getValue()));
+        overrides.add(override);
+        snapshot = new Snapshot(overrides);
+        scheduleExpiry(override);
+    }
+
+    private void scheduleExpiry(LevelOverride override) {
+        long delay = Math.max(0, override.expiresAtMillis() - System.currentTimeMillis());
+        expiry.schedule(() -> expire(override), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return whether there was an override for the attribute and value
+     */
+    public synchronized boolean remove(String attribute, String value) {
+        List<LevelOverride> overrides = new ArrayList<>(snapshot.overrides);
+        boolean removed = overrides.removeIf(existing -> existing.getAttribute().equals(attribute)
+                && existing.getValue().equals(value));
+        if (removed) {
+            snapshot = overrides.isEmpty() ? EMPTY : new Snapshot(overrides);
+        }
+        return removed;
+    }
+
+    private synchronized void expire(LevelOverride override) {
+        List<LevelOverride> overrides = new ArrayList<>(snapshot.overrides);
+        // a replaced override is no longer in the snapshot
+        if (overrides.removeIf(existing -> existing == override)) {
+            snapshot = overrides.isEmpty() ? EMPTY : new Snapshot(overrides);
+        }
+    }
+
+    /**
+     * The reset stopped the filter and removed it from the context, adds it back before the configuration is reloaded.
+     */
+    @Override
+    public void onReset(LoggerContext loggerContext) {
+        start();
+        loggerContext.addTurboFilter(this);
+    }
+
+    @Override
+    public boolean isResetResistant() {
+        return true;
+    }
+
+    @Override
+    public void onStart(LoggerContext loggerContext) {
+    }
+
+    /**
+     * Undoes {@link #onReset(LoggerContext)}, which a stopping context goes through first.
+     */
+    @Override
+    public void onStop(LoggerContext loggerContext) {
+        stop();
+        loggerContext.getTurboFilterList().remove(this);
+    }
+
+    @Override
+    public void onLevelChange(Logger logger, Level level) {
+    }
+
+    /**
+     * @return the overrides that have not expired yet
+     */
+    public List<LevelOverride> getOverrides() {
+        return snapshot.overrides;
+    }
+
+    /**
+     * Immutable overrides, indexed by attribute and then by value.
+     */
+    private static final class Snapshot {
+        private final List<LevelOverride> overrides;
+        private final String[] attributes;
+        private final Map<String, LevelOverride>[] byValue;
+
+        @SuppressWarnings("unchecked")
+        Snapshot(List<LevelOverride> overrides) {
+            this.overrides = List.copyOf(overrides);
+            Map<String, Map<String, LevelOverride>> indexed = new HashMap<>();
+            for (LevelOverride override : overrides) {
+                indexed.computeIfAbsent(override.getAttribute(), attribute -> new HashMap<>())
+                        .put(override.getValue(), override);
+            }
+            this.attributes = indexed.keySet().toArray(new String[0]);
+            this.byValue = new Map[attributes.length];
+            for (int i = 0; i < attributes.length; i++) {
+                byValue[i] = Map.copyOf(indexed.get(attributes[i]));
+            }
+        }
+    }
+}
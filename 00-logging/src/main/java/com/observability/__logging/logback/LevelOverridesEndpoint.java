@@ -0,0 +1,98 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@code /actuator/leveloverrides}: temporary log levels for the requests of one client or correlation ID, next to the
+ * static levels of {@code /actuator/loggers}.
+ *
+ * <pre>
+ * POST   /actuator/leveloverrides {"attribute":"api-clientid","value":"client-42","level":"DEBUG","ttlSeconds":600}
+ * GET    /actuator/leveloverrides
+ * DELETE /actuator/leveloverrides/api-clientid/client-42
+ * </pre>
+ * An override can be narrowed to a {@code logger} and its descendants, and expires after {@code ttlSeconds}, 10
+ * minutes by default and 1 hour at most, so a forgotten override cannot flood the logs.
+ */
+@Component
+@Endpoint(id = "leveloverrides")
+public class LevelOverridesEndpoint {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(LevelOverridesEndpoint.class);
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    static final Duration MAX_TTL = Duration.ofHours(1);
+
+    private final LoggerContext loggerContext;
+
+    public LevelOverridesEndpoint() {
+        this(LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext ? loggerContext : null);
+    }
+
+    LevelOverridesEndpoint(LoggerContext loggerContext) {
+        this.loggerContext = loggerContext;
+        filter();
+    }
+
+    /**
+     * @return the filter of the logback context, resolved on every operation as a reconfiguration may replace it
+     */
+    private LevelOverrideTurboFilter filter() {
+        return loggerContext == null ? null : LevelOverrideTurboFilter.install(loggerContext);
+    }
+
+    @ReadOperation
+    public List<LevelOverride> overrides() {
+        LevelOverrideTurboFilter filter = filter();
+        return filter == null ? List.of() : filter.getOverrides();
+    }
+
+    @WriteOperation
+    public LevelOverride override(String attribute, String value, String level, @Nullable String logger,
+                                  @Nullable Long ttlSeconds) {
+        LevelOverrideTurboFilter filter = filter();
+        if (filter == null) {
+            throw new IllegalStateException("Level overrides require logback");
+        }
+        Level parsed = Level.toLevel(level, null);
+        if (parsed == null) {
+            throw new InvalidEndpointRequestException("Unknown level " + level, "Unknown level");
+        }
+        Duration ttl = ttlSeconds == null ? DEFAULT_TTL : Duration.ofSeconds(ttlSeconds);
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(MAX_TTL) > 0) {
+            throw new InvalidEndpointRequestException("ttlSeconds must be between 1 and " + MAX_TTL.toSeconds(),
+                    "Invalid ttlSeconds");
+        }
+        LevelOverride override;
+        try {
+            override = new LevelOverride(attribute, value, parsed, logger, System.currentTimeMillis() + ttl.toMillis());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        filter.put(override);
+        log.warn("Logging {} and above for {}={} on {} until {}", override.getLevel(), attribute, value,
+                override.getLogger().isEmpty() ? "all the loggers" : override.getLogger(), override.getExpiresAt());
+        return override;
+    }
+
+    @DeleteOperation
+    public boolean remove(@Selector String attribute, @Selector String value) {
+        LevelOverrideTurboFilter filter = filter();
+        boolean removed = filter != null && filter.remove(attribute, value);
+        if (removed) {
+            log.warn("Removed the level override for {}={}", attribute, value);
+        }
+        return removed;
+    }
+}
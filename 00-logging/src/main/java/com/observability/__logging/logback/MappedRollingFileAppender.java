@@ -0,0 +1,505 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.FileSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rolling file appender writing into pre-allocated, memory-mapped segments of {@code segmentSize} bytes.
+ * <p>
+ * Logging threads encode the event, claim room in the active {@link MappedSegment} and copy the bytes into the
+ * mapping, without any lock or system call. The thread whose event no longer fits, or the first one after midnight,
+ * switches to a spare segment mapped in advance by the background thread. The background thread then waits for the
+ * writers of the previous segment, truncates it to its content and moves it to
+ * {@code <file>.<yyyy-MM-dd>.<index>.log}, or compresses it to {@code .log.gz}, and maps the next spare.
+ * <p>
+ * The active segment is {@code <file>.<start>-<n>.part}, zero-padded up to its size while it is written. The events
+ * are in the page cache as soon as they are appended, so they survive a crash of the JVM but not of the host. The
+ * {@code .part} segments left behind by a crash, by a {@code stop()} exceeding {@code maxFlushTime}, or rolled over by
+ * a writer still running after {@code stop()}, are truncated to their content and rolled like the other ones on the
+ * next start.
+ * <p>
+ * Logging threads never allocate a segment. When no spare is mapped at a rollover, as the background thread is behind
+ * or no segment can be allocated, e.g. as the disk is full, the events are dropped until the background thread maps
+ * one, retrying every second, and the events are then written to it.
+ *
+ * <pre>{@code
+ * <appender name="FILE" class="com.observability.__logging.logback.MappedRollingFileAppender">
+ *     <file>${log-path}/${file-name}</file>
+ *     <segmentSize>5MB</segmentSize>
+ *     <compress>true</compress>
+ *     <maxHistory>30</maxHistory>
+ *     <totalSizeCap>2GB</totalSizeCap>
+ *     <encoder>
+ *         <pattern> %d{yyy-MM-dd HH:mm:ss} {%thread} %-5level %logger-- %msg %n %ex </pattern>
+ *     </encoder>
+ * </appender>
+ * }</pre>
+ */
+public class MappedRollingFileAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    // <file>.<startTime> of the started appenders, whose .part segments are not recovered
+    private static final Set<String> ACTIVE_PARTS = ConcurrentHashMap.newKeySet();
+
+    private Encoder<ILoggingEvent> encoder;
+    private String file;
+    private FileSize segmentSize = FileSize.valueOf("5MB");
+    private boolean compress = true;
+    private int maxHistory = 0;
+    private FileSize totalSizeCap = new FileSize(0);
+    private int maxFlushTime = 5000;
+
+    private final AtomicReference<MappedSegment> spare = new AtomicReference<>();
+    private final AtomicLong partSequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // sealed while stopping, finished by stop() once the background thread is done
+    private final Queue<MappedSegment> unfinished = new ConcurrentLinkedQueue<>();
+    private volatile MappedSegment current;
+    private volatile boolean failed;
+    private ScheduledThreadPoolExecutor background;
+    private long startTime;
+    private final ZoneId zone = ZoneId.systemDefault();
+    // used by the background thread only
+    private LocalDate rolledDate;
+    private int rolledIndex;
+    private boolean retrying;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + name + "]");
+            return;
+        }
+        if (file == null) {
+            addError("No file set for the appender named [" + name + "]");
+            return;
+        }
+        if (segmentSize.getSize() < 1024 || segmentSize.getSize() > MAX_SEGMENT_SIZE) {
+            addError("segmentSize of [" + name + "] must be between 1KB and 2GB");
+            return;
+        }
+        startTime = System.currentTimeMillis();
+        String parts = partPrefix(startTime);
+        try {
+            Path parent = Paths.get(file).toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            current = activate(allocateSegment());
+        } catch (IOException e) {
+            addError("Failed to create the first segment of [" + name + "]", e);
+            return;
+        }
+        failed = false;
+        ACTIVE_PARTS.add(parts);
+        background = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "MappedRollingFileAppender-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        super.start();
+        background.execute(this::recoverParts);
+        background.execute(this::prepareSpare);
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        byte[] bytes = encoder.encode(event);
+        if (bytes.length > segmentSize.getSize()) {
+            dropped.incrementAndGet();
+            addWarn("Event of " + bytes.length + " bytes does not fit in a segment of [" + name + "]");
+            return;
+        }
+        long timestamp = event.getTimeStamp();
+        while (true) {
+            MappedSegment segment = current;
+            if (!segment.enter()) {
+                // sealed, the thread rolling it over is about to switch to the spare or to drop the events
+                if (failed || !isStarted()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                Thread.yield();
+                continue;
+            }
+            try {
+                if (timestamp >= segment.rollAt()) {
+                    if (segment.sealNow()) {
+                        rollOver(segment);
+                    }
+                    continue;
+                }
+                long offset = segment.claim(bytes.length);
+                if (offset + bytes.length <= segment.capacity()) {
+                    segment.write(offset, bytes);
+                    return;
+                }
+                if (offset <= segment.capacity()) {
+                    segment.seal(offset);
+                    rollOver(segment);
+                }
+            } finally {
+                segment.exit();
+            }
+        }
+    }
+
+    /**
+     * Switches from the sealed segment to the spare one, from the only thread that sealed it. This thread is still in
+     * the sealed segment, so it never finishes it itself.
+     */
+    private void rollOver(MappedSegment sealed) {
+        MappedSegment next = spare.getAndSet(null);
+        if (next != null) {
+            current = activate(next);
+        } else {
+            // until the background thread maps a spare, rather than making every writer wait for an allocation
+            failed = true;
+            addWarn("No spare segment of [" + name + "] mapped yet, events are dropped");
+        }
+        if (!submit(() -> finish(sealed))) {
+            unfinished.add(sealed);
+        }
+        submit(this::prepareSpare);
+    }
+
+    private MappedSegment activate(MappedSegment segment) {
+        LocalDate today = LocalDate.now(zone);
+        segment.activate(today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        return segment;
+    }
+
+    private MappedSegment allocateSegment() throws IOException {
+        Path path = Paths.get(partPrefix(startTime) + "-" + partSequence.incrementAndGet() + ".part");
+        return MappedSegment.allocate(path, (int) segmentSize.getSize());
+    }
+
+    private String partPrefix(long startTime) {
+        return Paths.get(file).toAbsolutePath() + "." + startTime;
+    }
+
+    /**
+     * Maps the next spare segment, retried every second while it fails. After a failed rollover, the spare becomes the
+     * current segment.
+     */
+    private void prepareSpare() {
+        if (!isStarted()) {
+            return;
+        }
+        if (spare.get() == null) {
+            try {
+                MappedSegment segment = allocateSegment();
+                if (!spare.compareAndSet(null, segment)) {
+                    segment.discard();
+                }
+            } catch (IOException e) {
+                addWarn("Failed to prepare the next segment of [" + name + "], retrying in " + RETRY_DELAY_MILLIS
+                        + " ms", e);
+                if (!retrying) {
+                    retrying = true;
+                    background.schedule(this::retryPrepareSpare, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        if (failed) {
+            MappedSegment next = spare.getAndSet(null);
+            if (next != null) {
+                // nobody writes into the sealed segment nor rolls it over anymore
+                current = activate(next);
+                failed = false;
+                addInfo("Writing the events of [" + name + "] again, " + dropped.get() + " dropped so far");
+                prepareSpare();
+            }
+        }
+    }
+
+    private void retryPrepareSpare() {
+        retrying = false;
+        prepareSpare();
+    }
+
+    private void finish(MappedSegment segment) {
+        try {
+            segment.close();
+            archive(segment.path(), LocalDate.ofInstant(Instant.ofEpochMilli(segment.rollAt() - 1), zone));
+        } catch (IOException e) {
+            addError("Failed to finish the segment " + segment.path() + " of [" + name + "]", e);
+        }
+    }
+
+    /**
+     * Rolls the {@code .part} segments of the appenders which are not running anymore, truncated to their content.
+     */
+    private void recoverParts() {
+        Path base = Paths.get(file).toAbsolutePath();
+        String prefix = base.getFileName() + ".";
+        List<Path> parts = new ArrayList<>();
+        try (DirectoryStream<Path> found = Files.newDirectoryStream(base.getParent(), prefix + "*-*.part")) {
+            for (Path path : found) {
+                String partName = path.getFileName().toString();
+                try {
+                    long partStart = Long.parseLong(partName.substring(prefix.length(), partName.lastIndexOf('-')));
+                    if (!ACTIVE_PARTS.contains(partPrefix(partStart))) {
+                        parts.add(path);
+                    }
+                } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                    // not one of ours
+                }
+            }
+        } catch (IOException e) {
+            addWarn("Failed to list the segments left by a previous run of [" + name + "]", e);
+            return;
+        }
+        parts.sort(Comparator.naturalOrder());
+        for (Path part : parts) {
+            try {
+                LocalDate date = LocalDate.ofInstant(Files.getLastModifiedTime(part).toInstant(), zone);
+                if (MappedSegment.recover(part) == 0) {
+                    Files.delete(part);
+                } else {
+                    archive(part, date);
+                    addInfo("Recovered the segment " + part + " of [" + name + "]");
+                }
+            } catch (IOException e) {
+                addWarn("Failed to recover the segment " + part + " of [" + name + "]", e);
+            }
+        }
+    }
+
+    /**
+     * Moves or compresses a segment to the next {@code <file>.<date>.<index>.log} of its date.
+     */
+    private void archive(Path part, LocalDate date) throws IOException {
+        if (!date.equals(rolledDate)) {
+            rolledDate = date;
+            rolledIndex = 0;
+        }
+        Path target;
+        do {
+            target = Paths.get(file + "." + date + "." + rolledIndex++ + ".log" + (compress ? ".gz" : ""));
+        } while (Files.exists(target));
+        if (compress) {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024)) {
+                Files.copy(part, out);
+            }
+            Files.delete(part);
+        } else {
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        deleteHistory();
+    }
+
+    /**
+     * Deletes the rolled segments more than {@code maxHistory} days old, then the oldest ones past
+     * {@code totalSizeCap}.
+     */
+    private void deleteHistory() {
+        long sizeCap = totalSizeCap.getSize();
+        if (maxHistory <= 0 && sizeCap <= 0) {
+            return;
+        }
+        Path base = Paths.get(file).toAbsolutePath();
+        String prefix = base.getFileName() + ".";
+        LocalDate oldest = LocalDate.now(zone).minusDays(maxHistory);
+        List<RolledSegment> kept = new ArrayList<>();
+        try (DirectoryStream<Path> rolled = Files.newDirectoryStream(base.getParent(), prefix + "????-??-??.*.log*")) {
+            for (Path path : rolled) {
+                String rolledName = path.getFileName().toString();
+                try {
+                    LocalDate date = LocalDate.parse(rolledName.substring(prefix.length(), prefix.length() + 10));
+                    int index = Integer.parseInt(rolledName.substring(prefix.length() + 11,
+                            rolledName.indexOf(".log", prefix.length() + 11)));
+                    if (maxHistory > 0 && date.isBefore(oldest)) {
+                        Files.delete(path);
+                    } else {
+                        kept.add(new RolledSegment(path, date, index, Files.size(path)));
+                    }
+                } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                    // not one of ours
+                }
+            }
+            if (sizeCap > 0) {
+                kept.sort(Comparator.comparing(RolledSegment::date).thenComparingInt(RolledSegment::index).reversed());
+                long total = 0;
+                for (RolledSegment segment : kept) {
+                    total += segment.size();
+                    if (total > sizeCap) {
+                        Files.delete(segment.path());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            addWarn("Failed to delete the history of [" + name + "]", e);
+        }
+    }
+
+    private record RolledSegment(Path path, LocalDate date, int index, long size) {
+    }
+
+    /**
+     * @return false when stopping, the task is not run then
+     */
+    private boolean submit(Runnable task) {
+        try {
+            background.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        MappedSegment segment = current;
+        while (!segment.sealNow()) {
+            // a writer is rolling it over
+            while (current == segment && !failed) {
+                Thread.onSpinWait();
+            }
+            if (current == segment) {
+                // sealed by a rollover without spare, which finishes it
+                segment = null;
+                break;
+            }
+            segment = current;
+        }
+        MappedSegment last = segment;
+        String parts = partPrefix(startTime);
+        submit(() -> {
+            try {
+                if (last != null) {
+                    finish(last);
+                } else if (current.sealNow()) {
+                    // the background thread switched to a spare in the meantime
+                    finish(current);
+                }
+            } finally {
+                ACTIVE_PARTS.remove(parts);
+            }
+        });
+        background.shutdown();
+        try {
+            if (background.awaitTermination(maxFlushTime, TimeUnit.MILLISECONDS)) {
+                // rolled over by writers still running, which leave them right after
+                MappedSegment sealed;
+                while ((sealed = unfinished.poll()) != null) {
+                    finish(sealed);
+                }
+            } else {
+                addWarn("Max flush time of " + maxFlushTime + " ms exceeded while finishing the segments of [" + name + "]");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MappedSegment unused = spare.getAndSet(null);
+        if (unused != null) {
+            try {
+                unused.discard();
+            } catch (IOException e) {
+                addWarn("Failed to delete " + unused.path(), e);
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public FileSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(FileSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    /**
+     * @param maxHistory number of days of rolled segments to keep, 0 keeps them all
+     */
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+
+    public FileSize getTotalSizeCap() {
+        return totalSizeCap;
+    }
+
+    /**
+     * @param totalSizeCap total size of the rolled segments, past which the oldest ones are deleted, 0 for no cap
+     */
+    public void setTotalSizeCap(FileSize totalSizeCap) {
+        this.totalSizeCap = totalSizeCap;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+}
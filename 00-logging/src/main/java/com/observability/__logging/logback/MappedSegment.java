@@ -0,0 +1,218 @@
+package com.observability.__logging.logback;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A pre-allocated file mapped in memory, written concurrently by claiming byte ranges.
+ * <p>
+ * Writers claim a range with one {@code getAndAdd} on the position and copy their bytes into the mapping, the claims
+ * past the capacity fail. The only writer whose claim crosses the capacity seals the segment, after which no writer
+ * can enter it anymore, and the valid length is the start of that claim. Used by {@link MappedRollingFileAppender}.
+ */
+final class MappedSegment {
+    private static final int PAGE_SIZE = 4096;
+    private static final int SEALED = 1 << 30;
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong position = new AtomicLong();
+    // number of writers inside the segment, plus SEALED once sealed
+    private final AtomicInteger state = new AtomicInteger();
+    private volatile long length = -1;
+    private long rollAt = Long.MAX_VALUE;
+
+    private MappedSegment(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates the file and maps it, touching every page so that writers never wait for the file system.
+     */
+    static MappedSegment allocate(Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            for (int i = 0; i < capacity; i += PAGE_SIZE) {
+                buffer.put(i, (byte) 0);
+            }
+            return new MappedSegment(path, channel, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the time after which the segment rolls over whatever its size
+     */
+    long rollAt() {
+        return rollAt;
+    }
+
+    void activate(long rollAt) {
+        this.rollAt = rollAt;
+    }
+
+    /**
+     * Enters the segment as a writer.
+     *
+     * @return false once the segment is sealed
+     */
+    boolean enter() {
+        while (true) {
+            int current = state.get();
+            if ((current & SEALED) != 0) {
+                return false;
+            }
+            if (state.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void exit() {
+        state.decrementAndGet();
+    }
+
+    /**
+     * Claims {@code length} bytes, from a writer inside the segment.
+     *
+     * @return the offset of the claim, which only fits when at most {@code capacity - length}
+     */
+    long claim(int length) {
+        return position.getAndAdd(length);
+    }
+
+    void write(long offset, byte[] bytes) {
+        buffer.put((int) offset, bytes);
+    }
+
+    /**
+     * Seals the segment with its valid length, from the writer whose claim crossed the capacity.
+     */
+    void seal(long validLength) {
+        length = validLength;
+        state.getAndAdd(SEALED);
+    }
+
+    /**
+     * Seals the segment at its current position, e.g. when it rolls over on time, by claiming everything left.
+     *
+     * @return false if a writer crossed the capacity and sealed it already
+     */
+    boolean sealNow() {
+        long claimed = position.getAndAdd(capacity + 1L);
+        if (claimed > capacity) {
+            return false;
+        }
+        seal(claimed);
+        return true;
+    }
+
+    /**
+     * Waits for the writers still copying into the sealed segment, then unmaps it and truncates the file to the
+     * valid length.
+     */
+    void close() throws IOException {
+        while (state.get() != SEALED) {
+            LockSupport.parkNanos(10_000);
+        }
+        unmap(buffer);
+        try (channel) {
+            channel.truncate(length);
+        }
+    }
+
+    /**
+     * Closes and deletes an unused segment.
+     */
+    void discard() throws IOException {
+        unmap(buffer);
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Truncates a segment left unfinished, e.g. by a crash, to its content: everything up to its last non-zero byte.
+     *
+     * @return the length of the content
+     */
+    static long recover(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            long end = channel.size();
+            while (end > 0) {
+                int size = (int) Math.min(chunk.capacity(), end);
+                chunk.clear().limit(size);
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, end - size + chunk.position()) < 0) {
+                        throw new IOException("Unexpected end of " + path);
+                    }
+                }
+                for (int i = size - 1; i >= 0; i--) {
+                    if (chunk.get(i) != 0) {
+                        long length = end - size + i + 1;
+                        channel.truncate(length);
+                        return length;
+                    }
+                }
+                end -= size;
+            }
+            channel.truncate(0);
+            return 0;
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        // the mapping would otherwise live until the buffer is garbage collected, and a mapped file cannot be
+        // truncated or deleted on Windows
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            } catch (Throwable ignored) {
+                // left to the garbage collector
+            }
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
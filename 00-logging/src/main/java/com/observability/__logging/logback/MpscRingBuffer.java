@@ -0,0 +1,143 @@
+package com.observability.__logging.logback;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer.
+ * <p>
+ * Every slot carries a sequence number telling producers and the consumer whose turn it is: producers claim a slot
+ * with a CAS on the tail and publish the element by advancing the slot sequence, the single consumer takes it and
+ * hands the slot back to the producers of the next lap. Neither side ever takes a lock, and a full buffer is reported
+ * to the producer instead of making it wait.
+ *
+ * @param <E> the element type
+ */
+final class MpscRingBuffer<E> extends MpscRingBufferTail {
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(MpscRingBufferHead.class, "head", long.class);
+            TAIL = lookup.findVarHandle(MpscRingBufferTail.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] buffer;
+    private final long[] sequences;
+    private final int mask;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[size];
+        this.sequences = new long[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Adds the element, from any thread.
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = (long) TAIL.getVolatile(this);
+        while (true) {
+            int index = (int) position & mask;
+            long sequence = (long) SEQUENCES.getAcquire(sequences, index);
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (TAIL.compareAndSet(this, position, position + 1)) {
+                    buffer[index] = element;
+                    SEQUENCES.setRelease(sequences, index, position + 1);
+                    return true;
+                }
+                position = (long) TAIL.getVolatile(this);
+            } else if (difference < 0) {
+                // the consumer has not freed the slot of the previous lap yet
+                return false;
+            } else {
+                position = (long) TAIL.getVolatile(this);
+            }
+        }
+    }
+
+    /**
+     * Takes the next element, from the consumer thread only.
+     *
+     * @return the element, or null if the buffer is empty or the next element is not published yet
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        long sequence = (long) SEQUENCES.getAcquire(sequences, index);
+        if (sequence != position + 1) {
+            return null;
+        }
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        SEQUENCES.setRelease(sequences, index, position + buffer.length);
+        HEAD.setRelease(this, position + 1);
+        return element;
+    }
+
+    /**
+     * Takes up to {@code limit} elements, from the consumer thread only.
+     *
+     * @return the number of elements passed to the consumer
+     */
+    int drain(Consumer<? super E> consumer, int limit) {
+        int drained = 0;
+        E element;
+        while (drained < limit && (element = poll()) != null) {
+            consumer.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * @return the approximate number of elements in the buffer
+     */
+    int size() {
+        long size = (long) TAIL.getVolatile(this) - (long) HEAD.getVolatile(this);
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
+
+// The consumer and the producers update head and tail independently, the padding keeps them on separate cache lines.
+abstract class MpscRingBufferPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class MpscRingBufferHead extends MpscRingBufferPad0 {
+    volatile long head;
+}
+
+abstract class MpscRingBufferPad1 extends MpscRingBufferHead {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpscRingBufferTail extends MpscRingBufferPad1 {
+    volatile long tail;
+}
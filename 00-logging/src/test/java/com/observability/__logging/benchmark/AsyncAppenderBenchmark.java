@@ -0,0 +1,111 @@
+package com.observability.__logging.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import com.observability.__logging.logback.AsyncBatchingAppender;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency distribution of {@code log.info} seen by 4 logging threads when the appender behind it formats the message
+ * and stalls for 1 ms every 1000 events, like a console or a disk does: written synchronously, through logback's
+ * {@link AsyncAppender} (blocking queue, discards below WARN when 80% full) and through the {@link AsyncBatchingAppender}
+ * with each {@link AsyncBatchingAppender.OverflowPolicy}. Compare the p0.99 and p0.9999 rather than the mean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AsyncAppenderBenchmark {
+
+    static class HiccupAppender extends AppenderBase<ILoggingEvent> {
+        private long appended;
+        private int length;
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            length += event.getFormattedMessage().length();
+            if (++appended % 1000 == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    @Param({"sync", "logbackAsync", "DROP", "SAMPLE", "BLOCK"})
+    private String appender;
+
+    private LoggerContext loggerContext;
+    private Logger logger;
+
+    @Setup
+    public void setup() {
+        loggerContext = new LoggerContext();
+        // needed by prepareForDeferredProcessing, the context is not created through slf4j
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        logger = loggerContext.getLogger(AsyncAppenderBenchmark.class);
+        logger.setLevel(Level.INFO);
+
+        HiccupAppender delegate = new HiccupAppender();
+        delegate.setContext(loggerContext);
+        delegate.setName("HICCUP");
+        delegate.start();
+
+        logger.addAppender(switch (appender) {
+            case "sync" -> delegate;
+            case "logbackAsync" -> {
+                AsyncAppender asyncAppender = new AsyncAppender();
+                asyncAppender.setContext(loggerContext);
+                asyncAppender.setQueueSize(AsyncBatchingAppender.DEFAULT_QUEUE_SIZE);
+                asyncAppender.addAppender(delegate);
+                asyncAppender.start();
+                yield asyncAppender;
+            }
+            default -> {
+                AsyncBatchingAppender batchingAppender = new AsyncBatchingAppender();
+                batchingAppender.setContext(loggerContext);
+                batchingAppender.setName("ASYNC");
+                batchingAppender.setOverflowPolicy(AsyncBatchingAppender.OverflowPolicy.valueOf(appender));
+                batchingAppender.addAppender(delegate);
+                batchingAppender.start();
+                yield batchingAppender;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        Appender<ILoggingEvent> attached = logger.iteratorForAppenders().next();
+        if (attached instanceof AsyncBatchingAppender batchingAppender) {
+            System.out.println("dropped=" + batchingAppender.getDroppedCount()
+                    + " sampled=" + batchingAppender.getSampledOutCount());
+        }
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public void info() {
+        logger.info("Order {} accepted for customer {}", 42L, "customer-42");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AsyncAppenderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.observability.__logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.observability.__logging.logback.LevelOverride;
+import com.observability.__logging.logback.LevelOverrideMdcFilter;
+import com.observability.__logging.logback.LevelOverrideTurboFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a DEBUG call on an INFO logger for a request that is not escalated: without any turbo filter, with the
+ * {@link LevelOverrideTurboFilter} and no override, and with 100 {@code api-clientid} overrides none of which
+ * matches the request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelOverrideBenchmark {
+    @Param({"none", "noOverride", "otherClients"})
+    private String filter;
+
+    private LoggerContext loggerContext;
+    private Logger logger;
+
+    @Setup
+    public void setup() {
+        loggerContext = new LoggerContext();
+        LogbackMDCAdapter mdcAdapter = new LogbackMDCAdapter();
+        loggerContext.setMDCAdapter(mdcAdapter);
+        logger = loggerContext.getLogger("com.observability.orders.OrderService");
+        logger.setLevel(Level.INFO);
+        if (!filter.equals("none")) {
+            LevelOverrideTurboFilter turboFilter = LevelOverrideTurboFilter.install(loggerContext);
+            if (filter.equals("otherClients")) {
+                for (int i = 0; i < 100; i++) {
+                    turboFilter.put(new LevelOverride(LevelOverrideMdcFilter.API_CLIENT_ID, "client-" + i, Level.DEBUG,
+                            "", System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+                }
+            }
+        }
+        mdcAdapter.put(LevelOverrideMdcFilter.API_CLIENT_ID, "client-1000");
+        mdcAdapter.put(LevelOverrideMdcFilter.CORRELATION_ID, "6f1c2a9e-4b7d-4c1a-9a57-0d2b9e3f8c11");
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public void debug() {
+        logger.debug("Order {} accepted for customer {}", 42L, "customer-42");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LevelOverrideBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
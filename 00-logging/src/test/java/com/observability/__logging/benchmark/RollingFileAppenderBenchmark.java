@@ -0,0 +1,116 @@
+package com.observability.__logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import com.observability.__logging.logback.MappedRollingFileAppender;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Events per second written by 2 logging threads to 5 MB rolling files with the {@code FILE} pattern of
+ * {@code logback__1.xml}: by the stock {@link RollingFileAppender} with a {@link SizeAndTimeBasedRollingPolicy}, flushed
+ * per event (the default) or not, and by the {@link MappedRollingFileAppender}, compressing the rolled segments. The
+ * target is 200k events/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(2)
+@Fork(1)
+public class RollingFileAppenderBenchmark {
+    private static final String PATTERN = " %d{yyy-MM-dd HH:mm:ss} {%thread} %-5level %logger-- %msg %n %ex ";
+
+    @Param({"stock", "stockNoImmediateFlush", "mapped"})
+    private String appender;
+
+    private Path directory;
+    private LoggerContext loggerContext;
+    private Logger logger;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("rolling-benchmark");
+        loggerContext = new LoggerContext();
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        logger = loggerContext.getLogger(RollingFileAppenderBenchmark.class);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender.equals("mapped") ? mapped() : stock(appender.equals("stock")));
+    }
+
+    private Appender<ILoggingEvent> stock(boolean immediateFlush) {
+        RollingFileAppender<ILoggingEvent> rollingFileAppender = new RollingFileAppender<>();
+        rollingFileAppender.setContext(loggerContext);
+        rollingFileAppender.setName("FILE");
+        rollingFileAppender.setFile(directory.resolve("app.log").toString());
+        rollingFileAppender.setImmediateFlush(immediateFlush);
+        SizeAndTimeBasedRollingPolicy<ILoggingEvent> policy = new SizeAndTimeBasedRollingPolicy<>();
+        policy.setContext(loggerContext);
+        policy.setParent(rollingFileAppender);
+        policy.setFileNamePattern(directory.resolve("app.%i.%d{yyyy-MM-dd}.log.gz").toString());
+        policy.setMaxFileSize(FileSize.valueOf("5MB"));
+        policy.start();
+        rollingFileAppender.setRollingPolicy(policy);
+        rollingFileAppender.setEncoder(encoder());
+        rollingFileAppender.start();
+        return rollingFileAppender;
+    }
+
+    private Appender<ILoggingEvent> mapped() {
+        MappedRollingFileAppender mappedAppender = new MappedRollingFileAppender();
+        mappedAppender.setContext(loggerContext);
+        mappedAppender.setName("FILE");
+        mappedAppender.setFile(directory.resolve("app").toString());
+        mappedAppender.setSegmentSize(FileSize.valueOf("5MB"));
+        mappedAppender.setEncoder(encoder());
+        mappedAppender.start();
+        return mappedAppender;
+    }
+
+    private PatternLayoutEncoder encoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        return encoder;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loggerContext.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void info() {
+        logger.info("Order {} accepted for customer {}", 42L, "customer-42");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RollingFileAppenderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Under BLOCK the delegate must receive every event of racing loggers exactly once. Behind a stuck delegate, DROP and
+ * SAMPLE must account for every event as delivered, dropped or sampled out, and SAMPLE must keep WARN and above.
+ */
+class AsyncBatchingAppenderTest {
+    private static final int THREADS = 4;
+    private static final int EVENTS = 20_000;
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final Logger logger = loggerContext.getLogger(AsyncBatchingAppenderTest.class);
+    private final CollectingAppender delegate = new CollectingAppender();
+    private final AsyncBatchingAppender appender = new AsyncBatchingAppender();
+
+    @AfterEach
+    void stop() {
+        delegate.release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void blockLosesNothing() throws Exception {
+        delegate.release.countDown();
+        start(AsyncBatchingAppender.OverflowPolicy.BLOCK, 64);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> loggers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            loggers.add(executor.submit(() -> {
+                for (int i = 0; i < EVENTS; i++) {
+                    appender.doAppend(event(Level.INFO, thread + "-" + i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : loggers) {
+            future.get();
+        }
+        executor.shutdown();
+        appender.stop();
+
+        Set<String> messages = new HashSet<>();
+        for (ILoggingEvent event : delegate.events) {
+            assertTrue(messages.add(event.getMessage()), "duplicated " + event.getMessage());
+        }
+        assertEquals(THREADS * EVENTS, messages.size());
+        assertEquals(0, appender.getDroppedCount());
+    }
+
+    @Test
+    void dropCountsTheOverflow() {
+        start(AsyncBatchingAppender.OverflowPolicy.DROP, 16);
+
+        for (int i = 0; i < 1000; i++) {
+            appender.doAppend(event(Level.INFO, "event-" + i));
+        }
+        long dropped = appender.getDroppedCount();
+        // the buffer, and the batch of the stuck delegate
+        assertTrue(dropped >= 1000 - 16 - 8, "dropped: " + dropped);
+        delegate.release.countDown();
+        appender.stop();
+
+        assertEquals(1000, delegate.events.size() + dropped);
+        assertEquals(0, appender.getSampledOutCount());
+    }
+
+    @Test
+    void sampleKeepsOneInTenBelowWarn() {
+        start(AsyncBatchingAppender.OverflowPolicy.SAMPLE, 64);
+
+        for (int i = 0; i < 10_000; i++) {
+            appender.doAppend(event(Level.INFO, "event-" + i));
+        }
+        long sampledOut = appender.getSampledOutCount();
+        // above 75% of the 64 slots, 9 in 10 events are left out
+        assertTrue(sampledOut > 8_500 && sampledOut < 9_500, "sampled out: " + sampledOut);
+        long dropped = appender.getDroppedCount();
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(event(Level.WARN, "warn-" + i));
+        }
+        assertEquals(sampledOut, appender.getSampledOutCount());
+        assertEquals(dropped + 10, appender.getDroppedCount());
+        delegate.release.countDown();
+        appender.stop();
+
+        assertEquals(10_010, delegate.events.size() + appender.getDroppedCount() + appender.getSampledOutCount());
+    }
+
+    @Test
+    void loneEventIsWrittenAfterTheBatchDelay() throws InterruptedException {
+        delegate.release.countDown();
+        appender.setMaxBatchDelay(50);
+        start(AsyncBatchingAppender.OverflowPolicy.DROP, 64);
+
+        appender.doAppend(event(Level.INFO, "lone"));
+
+        for (int i = 0; i < 100 && delegate.events.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("lone", delegate.events.peek().getMessage());
+    }
+
+    @Test
+    void rejectsInvalidBatchDelay() {
+        appender.setMaxBatchDelay(0);
+        start(AsyncBatchingAppender.OverflowPolicy.DROP, 64);
+
+        assertFalse(appender.isStarted());
+    }
+
+    private void start(AsyncBatchingAppender.OverflowPolicy overflowPolicy, int queueSize) {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        delegate.setContext(loggerContext);
+        delegate.start();
+        appender.setContext(loggerContext);
+        appender.setName("ASYNC");
+        appender.setQueueSize(queueSize);
+        appender.setBatchSize(8);
+        appender.setOverflowPolicy(overflowPolicy);
+        appender.setMaxFlushTime(10_000);
+        appender.addAppender(delegate);
+        appender.start();
+    }
+
+    private LoggingEvent event(Level level, String message) {
+        return new LoggingEvent(Logger.class.getName(), logger, level, message, null, null);
+    }
+
+    /**
+     * Waits for the release before taking any event, like a stuck console or disk.
+     */
+    static class CollectingAppender extends AppenderBase<ILoggingEvent> {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Queue<ILoggingEvent> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An override must enable the events of its requests only, from the MDC adapter of the context at the time of the
+ * event, and keep applying when the context is reset by a reconfiguration, through the filter and the endpoint.
+ */
+class LevelOverrideTurboFilterTest {
+    private static final String CLIENT_ID = LevelOverrideMdcFilter.API_CLIENT_ID;
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    @AfterEach
+    void stop() {
+        loggerContext.stop();
+    }
+
+    @Test
+    void enablesTheEventsOfTheOverriddenRequests() {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        LevelOverrideTurboFilter filter = LevelOverrideTurboFilter.install(loggerContext);
+        Logger logger = logger("com.example.Service");
+        filter.put(override("client-42", Level.DEBUG, "com.example"));
+
+        assertFalse(logger.isDebugEnabled());
+        loggerContext.getMDCAdapter().put(CLIENT_ID, "client-7");
+        assertFalse(logger.isDebugEnabled());
+        loggerContext.getMDCAdapter().put(CLIENT_ID, "client-42");
+        assertTrue(logger.isDebugEnabled());
+        assertFalse(logger.isTraceEnabled());
+        assertFalse(logger("org.example.Service").isDebugEnabled());
+        assertFalse(logger("com.examples.Service").isDebugEnabled());
+
+        assertTrue(filter.remove(CLIENT_ID, "client-42"));
+        assertFalse(logger.isDebugEnabled());
+    }
+
+    @Test
+    void readsTheMdcAdapterOfTheEvent() {
+        // installed before the adapter is set, as when Spring Boot configures logback first
+        LevelOverrideTurboFilter filter = LevelOverrideTurboFilter.install(loggerContext);
+        filter.put(override("client-42", Level.DEBUG, null));
+        Logger logger = logger("com.example.Service");
+        assertFalse(logger.isDebugEnabled());
+
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        loggerContext.getMDCAdapter().put(CLIENT_ID, "client-42");
+        assertTrue(logger.isDebugEnabled());
+    }
+
+    @Test
+    void overridesSurviveAReset() {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        LevelOverrideTurboFilter filter = LevelOverrideTurboFilter.install(loggerContext);
+        filter.put(override("client-42", Level.DEBUG, null));
+        loggerContext.getMDCAdapter().put(CLIENT_ID, "client-42");
+
+        loggerContext.reset();
+
+        assertSame(filter, LevelOverrideTurboFilter.install(loggerContext));
+        assertTrue(filter.isStarted());
+        assertEquals(List.of(filter), loggerContext.getTurboFilterList());
+        Logger logger = logger("com.example.Service");
+        assertTrue(logger.isDebugEnabled());
+        filter.put(override("client-7", Level.TRACE, null));
+        assertEquals(2, filter.getOverrides().size());
+    }
+
+    @Test
+    void expiredOverridesAreRemovedAfterAReset() throws InterruptedException {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        LevelOverrideTurboFilter filter = LevelOverrideTurboFilter.install(loggerContext);
+        filter.put(new LevelOverride(CLIENT_ID, "client-42", Level.DEBUG, null, System.currentTimeMillis() + 200));
+
+        loggerContext.reset();
+
+        for (int i = 0; i < 50 && !filter.getOverrides().isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(filter.getOverrides().isEmpty());
+    }
+
+    @Test
+    void endpointKeepsWorkingAfterAReset() {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        LevelOverridesEndpoint endpoint = new LevelOverridesEndpoint(loggerContext);
+        endpoint.override(CLIENT_ID, "client-42", "DEBUG", null, 600L);
+
+        loggerContext.reset();
+
+        endpoint.override(CLIENT_ID, "client-7", "DEBUG", "com.example", null);
+        assertEquals(2, endpoint.overrides().size());
+        assertTrue(endpoint.remove(CLIENT_ID, "client-42"));
+        assertEquals(1, endpoint.overrides().size());
+    }
+
+    @Test
+    void stopsWithTheContext() {
+        LevelOverrideTurboFilter filter = LevelOverrideTurboFilter.install(loggerContext);
+
+        loggerContext.stop();
+
+        assertFalse(filter.isStarted());
+        assertTrue(loggerContext.getTurboFilterList().isEmpty());
+    }
+
+    private Logger logger(String name) {
+        Logger logger = loggerContext.getLogger(name);
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        return logger;
+    }
+
+    private static LevelOverride override(String value, Level level, String logger) {
+        return new LevelOverride(CLIENT_ID, value, level, logger, System.currentTimeMillis() + 600_000);
+    }
+}
@@ -0,0 +1,198 @@
+package com.observability.__logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.util.FileSize;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The appender must roll the segments left by a previous run, keep the rolled segments under {@code totalSizeCap},
+ * write the events again once a segment can be allocated after a failure, and stop while its writers roll segments
+ * over.
+ */
+class MappedRollingFileAppenderTest {
+    @TempDir
+    Path directory;
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private MappedRollingFileAppender appender;
+
+    @BeforeEach
+    void setup() {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+        appender = new MappedRollingFileAppender();
+        appender.setContext(loggerContext);
+        appender.setName("FILE");
+        appender.setFile(directory.resolve("app.log").toString());
+        appender.setSegmentSize(FileSize.valueOf("1KB"));
+        appender.setCompress(false);
+        appender.setEncoder(encoder);
+    }
+
+    @Test
+    void recoversPartsOfPreviousRun() throws Exception {
+        byte[] crashed = new byte[1024];
+        byte[] line = "before the crash\n".getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(line, 0, crashed, 0, line.length);
+        Files.write(directory.resolve("app.log.1000-1.part"), crashed);
+        Files.write(directory.resolve("app.log.1000-2.part"), new byte[1024]);
+
+        appender.start();
+        log("after the restart");
+        appender.stop();
+
+        assertEquals(List.of(), files(".part"));
+        String content = rolledContent();
+        assertTrue(content.contains("before the crash\n"), content);
+        assertTrue(content.contains("after the restart\n"), content);
+        assertEquals(-1, content.indexOf(0));
+    }
+
+    @Test
+    void capsTotalSize() throws Exception {
+        appender.setTotalSizeCap(new FileSize(3 * 1024));
+        appender.start();
+        for (int i = 0; i < 100; i++) {
+            logUntilWritten(i + " " + "x".repeat(200));
+        }
+        appender.stop();
+
+        long total = 0;
+        for (Path rolled : files(".log")) {
+            total += Files.size(rolled);
+        }
+        assertTrue(total <= 3 * 1024, "total " + total);
+        assertTrue(rolledContent().contains("99 x"));
+    }
+
+    @Test
+    void writesAgainAfterAllocationFailure() throws Exception {
+        appender.start();
+        Path first = waitFor("-1.part");
+        waitFor("-2.part");
+        String prefix = first.toString().substring(0, first.toString().length() - "-1.part".length());
+        // taken, the next allocations fail until the retry
+        Files.createFile(Path.of(prefix + "-3.part"));
+        Files.createFile(Path.of(prefix + "-4.part"));
+
+        String message = "x".repeat(400);
+        for (int i = 0; i < 10 && appender.getDroppedCount() == 0; i++) {
+            log(message);
+        }
+        assertTrue(appender.getDroppedCount() > 0);
+        int written = -1;
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (int i = 0; written < 0 && System.currentTimeMillis() < deadline; i++) {
+            long dropped = appender.getDroppedCount();
+            log("after " + i);
+            if (appender.getDroppedCount() == dropped) {
+                written = i;
+            } else {
+                Thread.sleep(50);
+            }
+        }
+        assertTrue(written >= 0, "never recovered");
+        appender.stop();
+        assertTrue(rolledContent().contains("after " + written + "\n"));
+    }
+
+    @Test
+    void stopsWhileWritersRollOver() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            setup();
+            appender.start();
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                Thread writer = new Thread(() -> {
+                    while (running.get()) {
+                        log("x".repeat(300));
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            Thread.sleep(5);
+            // a writer rolling the segment over during the stop cannot wait for itself to leave it
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> appender.stop());
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join(10_000);
+                assertFalse(writer.isAlive(), "writer stuck in round " + round);
+            }
+        }
+        // the segments rolled over after the stop are recovered by the next start
+        setup();
+        appender.start();
+        appender.stop();
+        assertEquals(List.of(), files(".part"));
+        assertEquals(-1, rolledContent().indexOf(0));
+    }
+
+    // Retries while the background thread has no spare segment mapped yet.
+    private void logUntilWritten(String message) throws InterruptedException {
+        long dropped = appender.getDroppedCount();
+        log(message);
+        while (appender.getDroppedCount() != dropped) {
+            Thread.sleep(10);
+            dropped = appender.getDroppedCount();
+            log(message);
+        }
+    }
+
+    private void log(String message) {
+        appender.doAppend(new LoggingEvent(MappedRollingFileAppenderTest.class.getName(),
+                loggerContext.getLogger(MappedRollingFileAppenderTest.class), Level.INFO, message, null, null));
+    }
+
+    private Path waitFor(String suffix) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            List<Path> found = files(suffix);
+            if (!found.isEmpty()) {
+                return found.get(0);
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("no " + suffix);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private String rolledContent() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Path rolled : files(".log")) {
+            content.append(Files.readString(rolled));
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.observability.__logging.logback;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writers racing for the same segments must each land exactly once, in a segment whose file is truncated to the bytes
+ * written: the claim past the capacity seals the segment for everyone, and only its writer rolls over.
+ */
+class MappedSegmentTest {
+    private static final int WRITERS = 4;
+    private static final int RECORDS = 5000;
+    private static final int CAPACITY = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Test
+    void concurrentWritersLandExactlyOnce() throws Exception {
+        AtomicReference<MappedSegment> current = new AtomicReference<>(allocate());
+        Queue<MappedSegment> sealed = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int r = 0; r < RECORDS; r++) {
+                    // variable lengths, so that the claims cross the capacity anywhere
+                    write(current, sealed, (writer + "-" + r + "-" + "x".repeat(r % 37) + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        MappedSegment last = current.get();
+        assertTrue(last.sealNow());
+        sealed.add(last);
+
+        Set<String> lines = new HashSet<>();
+        for (MappedSegment segment : sealed) {
+            segment.close();
+            byte[] content = Files.readAllBytes(segment.path());
+            assertTrue(content.length <= CAPACITY);
+            for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+                assertFalse(line.indexOf(0) >= 0, "padding left in " + segment.path());
+                assertTrue(lines.add(line), "duplicated " + line);
+            }
+        }
+        assertEquals(WRITERS * RECORDS, lines.size());
+        assertEquals(sequence.get(), sealed.size());
+    }
+
+    /**
+     * The append loop of {@link MappedRollingFileAppender}, rolling over to a segment allocated by the writer.
+     */
+    private void write(AtomicReference<MappedSegment> current, Queue<MappedSegment> sealed, byte[] bytes)
+            throws Exception {
+        while (true) {
+            MappedSegment segment = current.get();
+            if (!segment.enter()) {
+                Thread.onSpinWait();
+                continue;
+            }
+            try {
+                long offset = segment.claim(bytes.length);
+                if (offset + bytes.length <= segment.capacity()) {
+                    segment.write(offset, bytes);
+                    return;
+                }
+                if (offset <= segment.capacity()) {
+                    segment.seal(offset);
+                    sealed.add(segment);
+                    current.set(allocate());
+                }
+            } finally {
+                segment.exit();
+            }
+        }
+    }
+
+    @Test
+    void sealedSegmentRejectsWriters() throws Exception {
+        MappedSegment segment = allocate();
+        assertTrue(segment.enter());
+        segment.write(segment.claim(3), "abc".getBytes(StandardCharsets.UTF_8));
+        segment.exit();
+        assertTrue(segment.sealNow());
+        assertFalse(segment.sealNow());
+        assertFalse(segment.enter());
+        segment.close();
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(segment.path()));
+    }
+
+    @Test
+    void recoverTruncatesThePadding() throws Exception {
+        Path part = directory.resolve("app.log.1-1.part");
+        byte[] content = new byte[200_000];
+        Arrays.fill(content, 0, 70_000, (byte) 'a');
+        Files.write(part, content);
+        assertEquals(70_000, MappedSegment.recover(part));
+        assertEquals(70_000, Files.size(part));
+
+        Path empty = directory.resolve("app.log.1-2.part");
+        Files.write(empty, new byte[CAPACITY]);
+        assertEquals(0, MappedSegment.recover(empty));
+    }
+
+    private MappedSegment allocate() throws Exception {
+        return MappedSegment.allocate(directory.resolve("app.log.1-" + sequence.incrementAndGet() + ".part"), CAPACITY);
+    }
+}
@@ -0,0 +1,91 @@
+package com.observability.__logging.logback;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Elements offered by racing producers must each be taken exactly once, in the order of their producer, and a full
+ * buffer must refuse the element instead of overwriting a slot the consumer has not freed.
+ */
+class MpscRingBufferTest {
+    private static final int PRODUCERS = 4;
+    private static final int ELEMENTS = 20_000;
+
+    @Test
+    void everyElementIsTakenOnceInProducerOrder() throws Exception {
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        List<Future<?>> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            producers.add(executor.submit(() -> {
+                for (long i = 0; i < ELEMENTS; i++) {
+                    long[] element = {producer, i};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long[] next = new long[PRODUCERS];
+        long taken = 0;
+        while (taken < (long) PRODUCERS * ELEMENTS) {
+            long[] element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(next[(int) element[0]]++, element[1], "producer " + element[0]);
+            taken++;
+        }
+        for (Future<?> producer : producers) {
+            producer.get();
+        }
+        executor.shutdown();
+
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+        for (long count : next) {
+            assertEquals(ELEMENTS, count);
+        }
+    }
+
+    @Test
+    void fullBufferRefusesElements() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(5);
+        assertEquals(8, buffer.capacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(8));
+        assertEquals(8, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertTrue(buffer.offer(8));
+        assertEquals(6, buffer.drain(drained::add, 100));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), drained);
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void rejectsTinyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(1));
+        assertEquals(2, new MpscRingBuffer<>(2).capacity());
+        assertEquals(1024, new MpscRingBuffer<>(1024).capacity());
+    }
+}
@@ -14,13 +14,19 @@ import java.util.List;
 @RestController
 @RequestMapping(value = "/api/books")
 public class BookController {
+    private static final int MAX_LIMIT = 1000;
+
     @Autowired
     private BookService bookService;
 
     @GetMapping
-    public List<Book> getBooks(@RequestParam(required = false) String title) throws Exception {
-        if (StringUtils.hasText(title)) return bookService.findByTitle(title);
-        return bookService.getAllBooks();
+    public List<Book> getBooks(@RequestParam(required = false) String title,
+                               @RequestParam(defaultValue = "0") int offset,
+                               @RequestParam(defaultValue = "100") int limit) throws Exception {
+        offset = Math.max(0, offset);
+        limit = Math.max(0, Math.min(limit, MAX_LIMIT));
+        if (StringUtils.hasText(title)) return bookService.findByTitle(title, offset, limit);
+        return bookService.getAllBooks(offset, limit);
     }
 
 
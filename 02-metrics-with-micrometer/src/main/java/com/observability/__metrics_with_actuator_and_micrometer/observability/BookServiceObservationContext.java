@@ -0,0 +1,52 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.observation.Observation;
+
+/**
+ * Context of one call of {@link ObservedBookService}, read by the {@link BookServiceObservationConvention} and the
+ * handlers.
+ */
+public class BookServiceObservationContext extends Observation.Context {
+    private final String method;
+    private final String title;
+    private int resultCount = -1;
+    private long startNanos;
+
+    public BookServiceObservationContext(String method, String title) {
+        if (method == null) {
+            throw new IllegalArgumentException("method cant be null");
+        }
+        this.method = method;
+        this.title = title;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the searched title, null when the call has none
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return the number of books returned, -1 until the call returns
+     */
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public void setResultCount(int resultCount) {
+        this.resultCount = resultCount;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    void setStartNanos(long startNanos) {
+        this.startNanos = startNanos;
+    }
+}
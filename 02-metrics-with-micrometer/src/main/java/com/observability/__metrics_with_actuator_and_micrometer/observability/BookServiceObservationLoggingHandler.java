@@ -0,0 +1,42 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the {@link ObservedBookService} calls from their observation, in the same pass as the metrics and the tracing
+ * handlers: every call at DEBUG with its duration, the failed ones at WARN. The start time is only taken when DEBUG
+ * is enabled.
+ */
+public class BookServiceObservationLoggingHandler implements ObservationHandler<BookServiceObservationContext> {
+    private static final Logger log = LoggerFactory.getLogger(ObservedBookService.class);
+
+    @Override
+    public void onStart(BookServiceObservationContext context) {
+        if (log.isDebugEnabled()) {
+            context.setStartNanos(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onError(BookServiceObservationContext context) {
+        log.warn("{} failed for title [{}]", context.getMethod(), context.getTitle(), context.getError());
+    }
+
+    @Override
+    public void onStop(BookServiceObservationContext context) {
+        if (log.isDebugEnabled() && context.getStartNanos() != 0) {
+            log.debug("{} returned {} books for title [{}] in {} ms", context.getMethod(), context.getResultCount(),
+                    context.getTitle(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - context.getStartNanos()));
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof BookServiceObservationContext;
+    }
+}
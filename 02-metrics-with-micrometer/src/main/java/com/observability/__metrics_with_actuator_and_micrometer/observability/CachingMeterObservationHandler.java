@@ -0,0 +1,141 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.observation.MeterObservationHandler;
+import io.micrometer.observation.Observation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Records the same meters as the {@link DefaultMeterObservationHandler}, i.e. the {@code <name>} timer, the
+ * {@code <name>.active} long task timer and a {@code <name>.<event>} counter per event, tagged with the low cardinality
+ * key values of the observation, but registers each of them once.
+ * <p>
+ * The default handler builds the meter, sorts its tags and looks it up in the registry on every observation. Here an
+ * observation is a lock-free {@link ConcurrentHashMap#get} by the name and the key values, the meter is only built the
+ * first time a combination is seen. At most {@code maxSize} combinations are cached, the meters of the next ones are
+ * looked up in the registry on every observation, as before, so a convention with a high cardinality low cardinality
+ * key value cannot make the cache grow without bounds. Meters removed from the registry are removed from the cache too.
+ */
+public class CachingMeterObservationHandler implements MeterObservationHandler<Observation.Context> {
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean longTaskTimer;
+    private final int maxSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ConcurrentHashMap<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MeterKey, LongTaskTimer> longTaskTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MeterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    public CachingMeterObservationHandler(MeterRegistry meterRegistry) {
+        this(meterRegistry, true, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param longTaskTimer whether the {@code <name>.active} long task timer is recorded
+     * @param maxSize       number of meters cached
+     */
+    public CachingMeterObservationHandler(MeterRegistry meterRegistry, boolean longTaskTimer, int maxSize) {
+        if (meterRegistry == null) {
+            throw new IllegalArgumentException("meterRegistry cant be null");
+        }
+        this.meterRegistry = meterRegistry;
+        this.longTaskTimer = longTaskTimer;
+        this.maxSize = maxSize;
+        meterRegistry.config().onMeterRemoved(this::forget);
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        if (longTaskTimer) {
+            MeterKey activeKey = new MeterKey(context.getName(), context.getLowCardinalityKeyValues(), null);
+            LongTaskTimer active = meter(longTaskTimers, activeKey,
+                    key -> LongTaskTimer.builder(key.name() + ".active").tags(tags(key.keyValues())).register(meterRegistry));
+            context.put(LongTaskTimer.Sample.class, active.start());
+        }
+        context.put(Timer.Sample.class, Timer.start(meterRegistry));
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Throwable error = context.getError();
+        String errorValue = error == null ? "none" : error.getClass().getSimpleName();
+        Timer timer = meter(timers, new MeterKey(context.getName(), context.getLowCardinalityKeyValues(), errorValue),
+                key -> {
+                    List<Tag> tags = tags(key.keyValues());
+                    tags.add(Tag.of("error", key.qualifier()));
+                    return Timer.builder(key.name()).tags(tags).register(meterRegistry);
+                });
+        Timer.Sample sample = context.getRequired(Timer.Sample.class);
+        sample.stop(timer);
+        if (longTaskTimer) {
+            LongTaskTimer.Sample active = context.getRequired(LongTaskTimer.Sample.class);
+            active.stop();
+        }
+    }
+
+    @Override
+    public void onEvent(Observation.Event event, Observation.Context context) {
+        meter(counters, new MeterKey(context.getName(), context.getLowCardinalityKeyValues(), event.getName()),
+                key -> Counter.builder(key.name() + "." + key.qualifier()).tags(tags(key.keyValues())).register(meterRegistry))
+                .increment();
+    }
+
+    private <M extends Meter> M meter(ConcurrentHashMap<MeterKey, M> meters, MeterKey key, Function<MeterKey, M> factory) {
+        M meter = meters.get(key);
+        if (meter != null) {
+            return meter;
+        }
+        if (size.get() >= maxSize) {
+            return factory.apply(key);
+        }
+        return meters.computeIfAbsent(key, k -> {
+            size.incrementAndGet();
+            return factory.apply(k);
+        });
+    }
+
+    private void forget(Meter removed) {
+        for (ConcurrentHashMap<MeterKey, ? extends Meter> meters : List.of(timers, longTaskTimers, counters)) {
+            meters.forEach((key, meter) -> {
+                if (meter == removed && meters.remove(key, meter)) {
+                    size.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static List<Tag> tags(KeyValues keyValues) {
+        List<Tag> tags = new ArrayList<>();
+        for (KeyValue keyValue : keyValues) {
+            tags.add(Tag.of(keyValue.getKey(), keyValue.getValue()));
+        }
+        return tags;
+    }
+
+    /**
+     * @return the number of cached meters
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @param qualifier the error of a timer, the event of a counter
+     */
+    private record MeterKey(String name, KeyValues keyValues, String qualifier) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+
+/**
+ * Folds the low cardinality value of the tag limited by a {@link TagCardinalityLimiter} before the meters are built,
+ * e.g. the title of a custom convention making it a low cardinality key value. Micrometer runs its filters once per
+ * distinct id and remembers every id it was asked for, so the limiter as a filter alone would neither see the popular
+ * values often enough to admit them nor keep the registry from growing with the searches.
+ * <p>
+ * The key values are asked for when the observation starts and when it stops, the value is folded once per
+ * observation so that the limiter counts each search once.
+ */
+public class LimitedBookServiceObservationConvention implements BookServiceObservationConvention {
+    private static final Object LIMITED_VALUE = new Object();
+
+    private final BookServiceObservationConvention delegate;
+    private final TagCardinalityLimiter limiter;
+
+    public LimitedBookServiceObservationConvention(BookServiceObservationConvention delegate,
+                                                   TagCardinalityLimiter limiter) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cant be null");
+        }
+        if (limiter == null) {
+            throw new IllegalArgumentException("limiter cant be null");
+        }
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public String getContextualName(BookServiceObservationContext context) {
+        return delegate.getContextualName(context);
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(BookServiceObservationContext context) {
+        KeyValues keyValues = delegate.getLowCardinalityKeyValues(context);
+        for (KeyValue keyValue : keyValues) {
+            if (keyValue.getKey().equals(limiter.getTagKey())) {
+                String limited = context.computeIfAbsent(LIMITED_VALUE, key -> limiter.limit(keyValue.getValue()));
+                return limited.equals(keyValue.getValue()) ? keyValues : keyValues.and(limiter.getTagKey(), limited);
+            }
+        }
+        return keyValues;
+    }
+
+    @Override
+    public KeyValues getHighCardinalityKeyValues(BookServiceObservationContext context) {
+        return delegate.getHighCardinalityKeyValues(context);
+    }
+}
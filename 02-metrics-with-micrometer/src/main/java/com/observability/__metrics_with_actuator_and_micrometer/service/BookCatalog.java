@@ -0,0 +1,35 @@
+package com.observability.__metrics_with_actuator_and_micrometer.service;
+
+import com.observability.__metrics_with_actuator_and_micrometer.model.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory catalog of the books behind {@link DefaultBooksService}. Reads never block and see a consistent snapshot
+ * of the catalog, the pages are in the order the books were added.
+ */
+public interface BookCatalog {
+
+    /**
+     * @return at most {@code limit} books, starting at the {@code offset}-th one
+     */
+    List<Book> page(int offset, int limit);
+
+    /**
+     * @return at most {@code limit} books whose title contains the query, ignoring the case, starting at the
+     * {@code offset}-th match
+     */
+    List<Book> search(String query, int offset, int limit);
+
+    int size();
+
+    void add(Book book);
+
+    void addAll(Collection<Book> books);
+
+    /**
+     * @return whether a book with the id was removed
+     */
+    boolean remove(String id);
+}
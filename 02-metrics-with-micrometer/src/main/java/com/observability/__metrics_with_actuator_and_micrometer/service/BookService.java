@@ -7,6 +7,11 @@ import java.util.List;
 public interface BookService {
     List<Book> getAllBooks();
 
+    /**
+     * @return at most {@code limit} books, starting at the {@code offset}-th one
+     */
+    List<Book> getAllBooks(int offset, int limit);
+
     /**
      * This method simulates a search feature over some repository (database/Elasticsearch/whatever) for a books matching given title.
      * Depending on a title, this thread will sleep for some predefined period of time.
@@ -18,5 +23,10 @@ public interface BookService {
      */
     List<Book> findByTitle(String title) throws Exception;
 
+    /**
+     * @return at most {@code limit} books matching the given title, starting at the {@code offset}-th match
+     */
+    List<Book> findByTitle(String title, int offset, int limit) throws Exception;
+
     Long countBooks();
 }
@@ -7,7 +7,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class DefaultBooksService implements BookService {
@@ -19,25 +18,50 @@ public class DefaultBooksService implements BookService {
             new Book("0f75c02a-b640-4304-9bc7-6548bc875fef", "Analysis Patterns")
     );
 
+    private final BookCatalog catalog;
+
+    public DefaultBooksService() {
+        this(new TrigramBookCatalog(BOOKS));
+    }
+
+    public DefaultBooksService(BookCatalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("catalog cant be null");
+        }
+        this.catalog = catalog;
+    }
+
     @Override
     public List<Book> getAllBooks() {
-        return BOOKS;
+        return catalog.page(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Book> getAllBooks(int offset, int limit) {
+        return catalog.page(offset, limit);
     }
 
     @Override
     public List<Book> findByTitle(String title) throws Exception{
+        return findByTitle(title, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Book> findByTitle(String title, int offset, int limit) throws Exception {
         if (!StringUtils.hasText(title)) {
-            return BOOKS;
+            return catalog.page(offset, limit);
         } else {
-            return BOOKS.stream().filter(book -> book.title().toLowerCase().contains(title.toLowerCase())).collect(Collectors.toList());
+            return catalog.search(title, offset, limit);
         }
     }
 
     @Override
     public Long countBooks() {
-        log.info("BooksRepository#countBooks counting books");
-        return (long) BOOKS.size();
+        log.debug("BooksRepository#countBooks counting books");
+        return (long) catalog.size();
     }
 
-
+    public BookCatalog getCatalog() {
+        return catalog;
+    }
 }
@@ -0,0 +1,421 @@
+package com.observability.__metrics_with_actuator_and_micrometer.service;
+
+import com.observability.__metrics_with_actuator_and_micrometer.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link BookCatalog} searching the titles with a trigram index, so a search reads the books sharing the rarest
+ * trigrams of the query rather than every title.
+ * <p>
+ * The characters are case folded as {@link String#regionMatches(boolean, int, String, int, int)} does, and each
+ * trigram is hashed into one of {@value #BUCKETS} buckets, whose posting list holds the positions of the books having
+ * one of its trigrams, delta and varint encoded in a single byte array. A search follows the posting lists of up to
+ * {@value #MAX_CURSORS} of the rarest buckets of the query in step, then checks the title of each candidate, so hash
+ * collisions only cost a check. Queries shorter than a trigram scan the titles. Case folding is per char, so the
+ * supplementary characters only match in the same case.
+ * <p>
+ * The catalog is an immutable snapshot replaced on every update: readers never lock, writers are serialized. The
+ * books added since the index was built are kept in an unindexed tail and scanned, the removed ones are masked, until
+ * either grows past a sixteenth of the index and the index is rebuilt.
+ */
+public class TrigramBookCatalog implements BookCatalog {
+    private static final int BUCKETS = 1 << 16;
+    private static final int MAX_CURSORS = 3;
+    private static final int MIN_TAIL = 256;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public TrigramBookCatalog() {
+    }
+
+    public TrigramBookCatalog(Collection<Book> books) {
+        addAll(books);
+    }
+
+    @Override
+    public List<Book> page(int offset, int limit) {
+        checkPage(offset, limit);
+        Snapshot s = snapshot;
+        List<Book> page = new ArrayList<>(Math.min(limit, s.size()));
+        int position = 0;
+        int skip = offset;
+        if (s.removedCount == 0) {
+            // no hole, the offset is a position
+            position = Math.min(offset, s.total());
+            skip = 0;
+        }
+        for (; position < s.total() && page.size() < limit; position++) {
+            if (s.isRemoved(position)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            page.add(s.book(position));
+        }
+        return page;
+    }
+
+    @Override
+    public List<Book> search(String query, int offset, int limit) {
+        checkPage(offset, limit);
+        if (query == null || query.isEmpty()) {
+            return page(offset, limit);
+        }
+        Snapshot s = snapshot;
+        Matches matches = new Matches(offset, limit);
+        if (limit == 0) {
+            return matches.books;
+        }
+        if (query.length() < 3) {
+            scan(s, query, 0, s.total(), matches);
+            return matches.books;
+        }
+        PostingCursor[] cursors = s.cursors(query);
+        if (cursors != null && !searchIndex(s, query, cursors, matches)) {
+            return matches.books;
+        }
+        scan(s, query, s.books.length, s.total(), matches);
+        return matches.books;
+    }
+
+    /**
+     * Leapfrogs the cursors to the positions present in all of them.
+     *
+     * @return false once the page is full
+     */
+    private static boolean searchIndex(Snapshot s, String query, PostingCursor[] cursors, Matches matches) {
+        int position = cursors[0].advance(0);
+        while (position != PostingCursor.END) {
+            int candidate = position;
+            for (int i = 1; i < cursors.length && candidate == position; i++) {
+                candidate = cursors[i].advance(position);
+            }
+            if (candidate != position) {
+                position = cursors[0].advance(candidate);
+                continue;
+            }
+            if (!s.isRemoved(position) && contains(s.books[position].title(), query) && !matches.add(s.books[position])) {
+                return false;
+            }
+            position = cursors[0].advance(position + 1);
+        }
+        return true;
+    }
+
+    private static void scan(Snapshot s, String query, int from, int to, Matches matches) {
+        for (int position = from; position < to; position++) {
+            Book book = s.book(position);
+            if (!s.isRemoved(position) && contains(book.title(), query) && !matches.add(book)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean contains(String title, String query) {
+        if (title == null) {
+            return false;
+        }
+        int last = title.length() - query.length();
+        for (int i = 0; i <= last; i++) {
+            if (title.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+
+    @Override
+    public void add(Book book) {
+        addAll(List.of(book));
+    }
+
+    @Override
+    public synchronized void addAll(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("books cant be null");
+        }
+        Book[] added = books.toArray(new Book[0]);
+        for (Book book : added) {
+            if (book == null) {
+                throw new IllegalArgumentException("book cant be null");
+            }
+        }
+        Snapshot s = snapshot;
+        Book[] tail = Arrays.copyOf(s.tail, s.tail.length + added.length);
+        System.arraycopy(added, 0, tail, s.tail.length, added.length);
+        if (tail.length > maxUnindexed(s)) {
+            snapshot = Snapshot.index(live(s, tail));
+        } else {
+            snapshot = new Snapshot(s.books, s.offsets, s.postings, tail, s.removed, s.removedCount);
+        }
+    }
+
+    /**
+     * Looks the book up by scanning the catalog, removals are expected to be rare.
+     */
+    @Override
+    public synchronized boolean remove(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id cant be null");
+        }
+        Snapshot s = snapshot;
+        for (int i = 0; i < s.tail.length; i++) {
+            if (id.equals(s.tail[i].id())) {
+                Book[] tail = new Book[s.tail.length - 1];
+                System.arraycopy(s.tail, 0, tail, 0, i);
+                System.arraycopy(s.tail, i + 1, tail, i, tail.length - i);
+                snapshot = new Snapshot(s.books, s.offsets, s.postings, tail, s.removed, s.removedCount);
+                return true;
+            }
+        }
+        for (int position = 0; position < s.books.length; position++) {
+            if (!s.isRemoved(position) && id.equals(s.books[position].id())) {
+                BitSet removed = s.removed == null ? new BitSet(s.books.length) : (BitSet) s.removed.clone();
+                removed.set(position);
+                Snapshot masked = new Snapshot(s.books, s.offsets, s.postings, s.tail, removed, s.removedCount + 1);
+                snapshot = masked.removedCount > maxUnindexed(masked) ? Snapshot.index(live(masked, masked.tail)) : masked;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int maxUnindexed(Snapshot s) {
+        return Math.max(MIN_TAIL, s.books.length >>> 4);
+    }
+
+    private static Book[] live(Snapshot s, Book[] tail) {
+        Book[] books = new Book[s.books.length - s.removedCount + tail.length];
+        int next = 0;
+        for (int position = 0; position < s.books.length; position++) {
+            if (!s.isRemoved(position)) {
+                books[next++] = s.books[position];
+            }
+        }
+        System.arraycopy(tail, 0, books, next, tail.length);
+        return books;
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset cant be negative");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cant be negative");
+        }
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static int bucket(String title, int i) {
+        int h = (fold(title.charAt(i)) * 31 + fold(title.charAt(i + 1))) * 31 + fold(title.charAt(i + 2));
+        return (h * 0x9E3779B9) >>> 16;
+    }
+
+    private static int varintSize(int value) {
+        return value < 1 << 7 ? 1 : value < 1 << 14 ? 2 : value < 1 << 21 ? 3 : value < 1 << 28 ? 4 : 5;
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Book[0], new int[BUCKETS + 1], new byte[0], new Book[0], null, 0);
+
+        // indexed books, by position
+        final Book[] books;
+        // posting list of bucket b: postings[offsets[b]] to postings[offsets[b + 1]]
+        final int[] offsets;
+        final byte[] postings;
+        // books added since the index was built, at the positions following the indexed ones
+        final Book[] tail;
+        // positions of the removed indexed books, null when none
+        final BitSet removed;
+        final int removedCount;
+
+        Snapshot(Book[] books, int[] offsets, byte[] postings, Book[] tail, BitSet removed, int removedCount) {
+            this.books = books;
+            this.offsets = offsets;
+            this.postings = postings;
+            this.tail = tail;
+            this.removed = removed;
+            this.removedCount = removedCount;
+        }
+
+        static Snapshot index(Book[] books) {
+            // sizes the posting lists first, so they are written straight into one array
+            int[] last = new int[BUCKETS];
+            long[] sizes = new long[BUCKETS];
+            Arrays.fill(last, -1);
+            for (int position = 0; position < books.length; position++) {
+                String title = books[position].title();
+                for (int i = 0; title != null && i + 2 < title.length(); i++) {
+                    int b = bucket(title, i);
+                    if (last[b] != position) {
+                        sizes[b] += varintSize(position - last[b]);
+                        last[b] = position;
+                    }
+                }
+            }
+            int[] offsets = new int[BUCKETS + 1];
+            long total = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                offsets[b] = (int) total;
+                total += sizes[b];
+                if (total > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many titles to index: " + books.length);
+                }
+            }
+            offsets[BUCKETS] = (int) total;
+
+            byte[] postings = new byte[(int) total];
+            int[] next = Arrays.copyOf(offsets, BUCKETS);
+            Arrays.fill(last, -1);
+            for (int position = 0; position < books.length; position++) {
+                String title = books[position].title();
+                for (int i = 0; title != null && i + 2 < title.length(); i++) {
+                    int b = bucket(title, i);
+                    if (last[b] != position) {
+                        int delta = position - last[b];
+                        int p = next[b];
+                        while (delta >= 0x80) {
+                            postings[p++] = (byte) (delta | 0x80);
+                            delta >>>= 7;
+                        }
+                        postings[p++] = (byte) delta;
+                        next[b] = p;
+                        last[b] = position;
+                    }
+                }
+            }
+            return new Snapshot(books, offsets, postings, new Book[0], null, 0);
+        }
+
+        /**
+         * @return cursors over the rarest buckets of the query, the rarest first, or null when a bucket is empty and
+         * no indexed title can match
+         */
+        PostingCursor[] cursors(String query) {
+            int count = query.length() - 2;
+            int[] buckets = new int[count];
+            for (int i = 0; i < count; i++) {
+                buckets[i] = bucket(query, i);
+            }
+            // selection of the shortest lists, the queries are short
+            PostingCursor[] cursors = new PostingCursor[Math.min(MAX_CURSORS, count)];
+            int selected = 0;
+            while (selected < cursors.length) {
+                int rarest = -1;
+                for (int i = 0; i < count; i++) {
+                    if (buckets[i] >= 0 && (rarest < 0 || length(buckets[i]) < length(buckets[rarest]))) {
+                        rarest = i;
+                    }
+                }
+                if (rarest < 0) {
+                    break;
+                }
+                int b = buckets[rarest];
+                if (length(b) == 0) {
+                    return null;
+                }
+                cursors[selected++] = new PostingCursor(postings, offsets[b], offsets[b + 1]);
+                for (int i = 0; i < count; i++) {
+                    if (buckets[i] == b) {
+                        buckets[i] = -1;
+                    }
+                }
+            }
+            return selected == cursors.length ? cursors : Arrays.copyOf(cursors, selected);
+        }
+
+        private int length(int bucket) {
+            return offsets[bucket + 1] - offsets[bucket];
+        }
+
+        int total() {
+            return books.length + tail.length;
+        }
+
+        int size() {
+            return total() - removedCount;
+        }
+
+        Book book(int position) {
+            return position < books.length ? books[position] : tail[position - books.length];
+        }
+
+        boolean isRemoved(int position) {
+            return removed != null && position < books.length && removed.get(position);
+        }
+    }
+
+    private static final class PostingCursor {
+        static final int END = Integer.MAX_VALUE;
+
+        private final byte[] postings;
+        private final int end;
+        private int next;
+        private int position = -1;
+
+        PostingCursor(byte[] postings, int start, int end) {
+            this.postings = postings;
+            this.next = start;
+            this.end = end;
+        }
+
+        /**
+         * @return the first position of the list not before the target, {@link #END} past the last one
+         */
+        int advance(int target) {
+            while (position < target) {
+                if (next >= end) {
+                    return position = END;
+                }
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = postings[next++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                position += delta;
+            }
+            return position;
+        }
+    }
+
+    private static final class Matches {
+        final List<Book> books = new ArrayList<>();
+        private final int limit;
+        private int skip;
+
+        Matches(int offset, int limit) {
+            this.skip = offset;
+            this.limit = limit;
+        }
+
+        /**
+         * @return false once the page is full
+         */
+        boolean add(Book book) {
+            if (skip > 0) {
+                skip--;
+                return true;
+            }
+            books.add(book);
+            return books.size() < limit;
+        }
+    }
+}
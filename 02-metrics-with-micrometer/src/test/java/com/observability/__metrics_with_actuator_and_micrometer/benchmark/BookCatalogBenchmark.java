@@ -0,0 +1,81 @@
+package com.observability.__metrics_with_actuator_and_micrometer.benchmark;
+
+import com.observability.__metrics_with_actuator_and_micrometer.model.Book;
+import com.observability.__metrics_with_actuator_and_micrometer.service.TrigramBookCatalog;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Title search over 10^3 to 10^7 books: the linear {@code toLowerCase().contains()} stream {@code DefaultBooksService}
+ * used to run against the first page of 20 matches of the {@link TrigramBookCatalog}, for a query matching one book
+ * ({@code selective}), one in a few hundred ({@code common}) or none ({@code miss}).
+ * <p>
+ * The 10^7 catalog needs about 3GB of heap, its setup takes a while.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookCatalogBenchmark {
+    private static final String[] WORDS = {"Domain", "Driven", "Design", "Analysis", "Patterns", "Fundamental",
+            "Algorithms", "of", "the", "Enterprise", "Refactoring", "Java", "Concurrency", "in", "Practice", "Systems",
+            "Distributed", "Data", "Intensive", "Applications", "Clean", "Code", "Architecture", "Modern", "Operating"};
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"selective", "common", "miss"})
+    private String query;
+
+    private List<Book> books;
+    private TrigramBookCatalog catalog;
+    private String title;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 4; w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            books.add(new Book(Integer.toString(i, 36), title.append(i).toString()));
+        }
+        catalog = new TrigramBookCatalog(books);
+        String middle = books.get(size / 2).title();
+        title = switch (query) {
+            case "selective" -> middle.substring(middle.lastIndexOf(' ', middle.lastIndexOf(' ') - 1) + 1);
+            case "common" -> "patterns of";
+            default -> "Microservices";
+        };
+    }
+
+    @Benchmark
+    public List<Book> linear() {
+        return books.stream().filter(book -> book.title().toLowerCase().contains(title.toLowerCase())).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Book> indexed() {
+        return catalog.search(title, 0, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookCatalogBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
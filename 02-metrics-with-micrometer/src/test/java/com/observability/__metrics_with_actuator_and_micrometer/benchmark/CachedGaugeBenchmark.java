@@ -0,0 +1,64 @@
+package com.observability.__metrics_with_actuator_and_micrometer.benchmark;
+
+import com.observability.__metrics_with_actuator_and_micrometer.observability.CachedGauges;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scrape of {@code books_service_books_in_store_count} when counting the books takes 1ms, as a {@code COUNT(*)}
+ * would: a gauge calling the count on every scrape, as it used to, against a gauge of {@link CachedGauges}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedGaugeBenchmark {
+    @Param({"direct", "cached"})
+    private String gauge;
+
+    private CachedGauges cachedGauges;
+    private Gauge booksInStore;
+
+    @Setup
+    public void setup() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cachedGauges = new CachedGauges(meterRegistry, Duration.ofSeconds(30));
+        booksInStore = gauge.equals("direct")
+                ? Gauge.builder("books_service_books_in_store_count", CachedGaugeBenchmark::countBooks).register(meterRegistry)
+                : cachedGauges.gauge("books_service_books_in_store_count", CachedGaugeBenchmark::countBooks).register(meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cachedGauges.close();
+    }
+
+    private static long countBooks() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        return 3;
+    }
+
+    @Benchmark
+    public double scrape() {
+        return booksInStore.value();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CachedGaugeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.observability.__metrics_with_actuator_and_micrometer.benchmark;
+
+import com.observability.__metrics_with_actuator_and_micrometer.observability.CachingMeterObservationHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code books.service} observation handled by the metrics handler only: the {@link DefaultMeterObservationHandler}
+ * of Spring Boot, registering the timer and the long task timer on every observation, against the
+ * {@link CachingMeterObservationHandler} looking them up by the low cardinality key values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeterObservationHandlerBenchmark {
+    private static final String[] METHODS = {"getAllBooks", "findByTitle", "countBooks", "findByTitle"};
+
+    @Param({"default", "caching"})
+    private String handler;
+
+    private ObservationRegistry observationRegistry;
+    private int next;
+
+    @Setup
+    public void setup() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(handler.equals("default")
+                ? new DefaultMeterObservationHandler(meterRegistry)
+                : new CachingMeterObservationHandler(meterRegistry));
+    }
+
+    private String method() {
+        next = (next + 1) & 3;
+        return METHODS[next];
+    }
+
+    @Benchmark
+    public void observation() {
+        Observation.createNotStarted("books.service", observationRegistry)
+                .lowCardinalityKeyValue("method", method())
+                .start()
+                .stop();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MeterObservationHandlerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
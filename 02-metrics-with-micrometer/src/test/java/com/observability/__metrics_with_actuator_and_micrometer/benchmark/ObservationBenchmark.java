@@ -0,0 +1,118 @@
+package com.observability.__metrics_with_actuator_and_micrometer.benchmark;
+
+import brave.Tracing;
+import brave.handler.SpanHandler;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import brave.sampler.Sampler;
+import com.observability.__metrics_with_actuator_and_micrometer.model.Book;
+import com.observability.__metrics_with_actuator_and_micrometer.observability.BookServiceObservationLoggingHandler;
+import com.observability.__metrics_with_actuator_and_micrometer.observability.CachedGauges;
+import com.observability.__metrics_with_actuator_and_micrometer.observability.CachingMeterObservationHandler;
+import com.observability.__metrics_with_actuator_and_micrometer.observability.ObservedBookService;
+import com.observability.__metrics_with_actuator_and_micrometer.service.BookService;
+import com.observability.__metrics_with_actuator_and_micrometer.service.DefaultBooksService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code findByTitle} call: instrumented by hand with a {@link Timer.Sample} and a timer looked up in the registry,
+ * as {@code ObservedBookService} used to, against one observation handled by the metrics and the logging handlers, with
+ * and without a tracing handler in front of them. The logger is at INFO, so the logging handler only checks its level.
+ * <p>
+ * The tracer is Brave sampling every call, with a span handler dropping the finished spans: the cost of exporting
+ * them is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservationBenchmark {
+    private static final String[] TITLES = {"Domain Driven Design", "Analysis Patterns", "Design", "Patterns"};
+
+    @Param({"handInstrumented", "observation", "observationTraced"})
+    private String instrumentation;
+
+    private boolean handInstrumented;
+    private DefaultBooksService delegate;
+    private MeterRegistry meterRegistry;
+    private BookService bookService;
+    private CachedGauges cachedGauges;
+    private Tracing tracing;
+    private int next;
+
+    @Setup
+    public void setup() {
+        handInstrumented = instrumentation.equals("handInstrumented");
+        delegate = new DefaultBooksService();
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        if (instrumentation.equals("observationTraced")) {
+            tracing = Tracing.newBuilder()
+                    .currentTraceContext(ThreadLocalCurrentTraceContext.create())
+                    .sampler(Sampler.ALWAYS_SAMPLE)
+                    // without any handler Brave logs the spans
+                    .addSpanHandler(new SpanHandler() {
+                    })
+                    .build();
+            BraveTracer tracer = new BraveTracer(tracing.tracer(),
+                    new BraveCurrentTraceContext(tracing.currentTraceContext()), new BraveBaggageManager());
+            observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+        }
+        observationRegistry.observationConfig()
+                .observationHandler(new CachingMeterObservationHandler(meterRegistry))
+                .observationHandler(new BookServiceObservationLoggingHandler());
+        cachedGauges = new CachedGauges(meterRegistry, Duration.ofSeconds(30));
+        bookService = new ObservedBookService(delegate, observationRegistry, meterRegistry, null, cachedGauges);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cachedGauges.close();
+        if (tracing != null) {
+            tracing.close();
+        }
+    }
+
+    private String title() {
+        next = (next + 1) & 3;
+        return TITLES[next];
+    }
+
+    @Benchmark
+    public List<Book> findByTitle() throws Exception {
+        if (handInstrumented) {
+            String title = title();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            List<Book> books = delegate.findByTitle(title);
+            sample.stop(Timer.builder("service_books_find")
+                    .tag("title", title)
+                    .register(meterRegistry));
+            return books;
+        }
+        return bookService.findByTitle(title());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ObservationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
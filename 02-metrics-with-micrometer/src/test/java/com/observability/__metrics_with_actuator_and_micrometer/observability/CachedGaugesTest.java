@@ -0,0 +1,109 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scrapes read the cached value without calling the supplier, which only runs on the refresh thread, once at a time.
+ */
+class CachedGaugesTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CachedGauges cachedGauges = new CachedGauges(meterRegistry, Duration.ofMinutes(10));
+
+    @AfterEach
+    void close() {
+        cachedGauges.close();
+    }
+
+    @Test
+    void scrapesReadTheCachedValue() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Gauge gauge = cachedGauges.gauge("books.count", () -> 40 + calls.incrementAndGet()).register(meterRegistry);
+        awaitRefresh("books.count", "success", 1);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(41.0, gauge.value());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void staleValueIsRefreshedOnceWhileScraped() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Gauge gauge = cachedGauges.gauge("books.count", () -> {
+            if (calls.incrementAndGet() == 2) {
+                await(release);
+            }
+            return calls.get();
+        }, Duration.ofMillis(50)).register(meterRegistry);
+        awaitRefresh("books.count", "success", 1);
+        Thread.sleep(60);
+
+        // the value is stale and the second refresh blocked: the scrapes serve the first value and request nothing more
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1.0, gauge.value());
+        }
+        assertEquals(2, calls.get());
+        release.countDown();
+        awaitRefresh("books.count", "success", 2);
+        assertEquals(2.0, gauge.value());
+    }
+
+    @Test
+    void failedRefreshKeepsTheLastValue() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Gauge gauge = cachedGauges.gauge("books.count", () -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("database down");
+            }
+            return 3;
+        }, Duration.ofMillis(20)).register(meterRegistry);
+        awaitRefresh("books.count", "failure", 2);
+
+        assertEquals(3.0, gauge.value());
+        assertEquals(1, meterRegistry.get("gauge.refresh").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void refreshKeepsRunningAfterAnError() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Gauge gauge = cachedGauges.gauge("books.count", () -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new NoClassDefFoundError("driver");
+            }
+            return calls.get();
+        }, Duration.ofMillis(20)).register(meterRegistry);
+        awaitRefresh("books.count", "failure", 1);
+        awaitRefresh("books.count", "success", 2);
+
+        assertTrue(gauge.value() >= 3.0);
+    }
+
+    private void awaitRefresh(String gauge, String outcome, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("gauge.refresh").tag("gauge", gauge).tag("outcome", outcome).timer().count() < count) {
+            assertTrue(System.nanoTime() < deadline, "no " + outcome + " refresh of " + gauge);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
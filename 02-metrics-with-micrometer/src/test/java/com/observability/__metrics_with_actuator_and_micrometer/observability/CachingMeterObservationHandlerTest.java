@@ -0,0 +1,133 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.observation.MeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * The handler must record the meters of the {@link DefaultMeterObservationHandler}, registering each one once, and
+ * register them again once removed from the registry.
+ */
+class CachingMeterObservationHandlerTest {
+
+    @Test
+    void recordsTheMetersOfTheDefaultHandler() {
+        MeterRegistry expected = new SimpleMeterRegistry();
+        MeterRegistry actual = new SimpleMeterRegistry();
+        observeAll(new DefaultMeterObservationHandler(expected));
+        CachingMeterObservationHandler handler = new CachingMeterObservationHandler(actual);
+        observeAll(handler);
+
+        assertEquals(meters(expected), meters(actual));
+        // the timer and the long task timer of both methods, the timer of the error, the counter of the event
+        assertEquals(6, handler.size());
+    }
+
+    @Test
+    void registersEachMeterOnce() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = registry(new CachingMeterObservationHandler(meterRegistry));
+
+        observe(observationRegistry, "getAllBooks");
+        Timer timer = meterRegistry.get("books.service").tag("method", "getAllBooks").timer();
+        LongTaskTimer active = meterRegistry.get("books.service.active").tag("method", "getAllBooks").longTaskTimer();
+        meterRegistry.config().onMeterAdded(meter -> {
+            throw new AssertionError("registered again: " + meter.getId());
+        });
+        for (int i = 0; i < 10; i++) {
+            observe(observationRegistry, "getAllBooks");
+        }
+
+        assertEquals(11, timer.count());
+        assertEquals(0, active.activeTasks());
+    }
+
+    @Test
+    void registersRemovedMetersAgain() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CachingMeterObservationHandler handler = new CachingMeterObservationHandler(meterRegistry);
+        ObservationRegistry observationRegistry = registry(handler);
+        observe(observationRegistry, "getAllBooks");
+        Timer removed = meterRegistry.get("books.service").timer();
+
+        meterRegistry.remove(removed);
+        assertEquals(1, handler.size());
+        observe(observationRegistry, "getAllBooks");
+
+        Timer registered = meterRegistry.get("books.service").timer();
+        assertNotSame(removed, registered);
+        assertEquals(1, registered.count());
+        assertEquals(2, handler.size());
+    }
+
+    @Test
+    void looksUpTheMetersPastMaxSize() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CachingMeterObservationHandler handler = new CachingMeterObservationHandler(meterRegistry, false, 2);
+        ObservationRegistry observationRegistry = registry(handler);
+
+        for (int i = 0; i < 10; i++) {
+            observe(observationRegistry, "method-" + i);
+            observe(observationRegistry, "method-" + i);
+        }
+
+        assertEquals(2, handler.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(2, meterRegistry.get("books.service").tag("method", "method-" + i).timer().count());
+        }
+        assertSame(null, meterRegistry.find("books.service.active").longTaskTimer());
+    }
+
+    private static void observeAll(MeterObservationHandler<Observation.Context> handler) {
+        ObservationRegistry observationRegistry = registry(handler);
+        observe(observationRegistry, "getAllBooks");
+        observe(observationRegistry, "getAllBooks");
+        observe(observationRegistry, "findByTitle");
+        Observation failed = Observation.createNotStarted("books.service", observationRegistry)
+                .lowCardinalityKeyValue("method", "findByTitle")
+                .start();
+        failed.event(Observation.Event.of("retried"));
+        failed.error(new IllegalStateException("failed"));
+        failed.stop();
+    }
+
+    private static ObservationRegistry registry(MeterObservationHandler<Observation.Context> handler) {
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(handler);
+        return observationRegistry;
+    }
+
+    private static void observe(ObservationRegistry observationRegistry, String method) {
+        Observation.createNotStarted("books.service", observationRegistry)
+                .lowCardinalityKeyValue("method", method)
+                .highCardinalityKeyValue("title", "Domain Driven Design")
+                .observe(() -> {
+                });
+    }
+
+    // id -> count of every meter
+    private static Map<String, Long> meters(MeterRegistry meterRegistry) {
+        Map<String, Long> meters = new TreeMap<>();
+        for (Meter meter : meterRegistry.getMeters()) {
+            long count = meter instanceof Timer timer ? timer.count()
+                    : meter instanceof LongTaskTimer longTaskTimer ? longTaskTimer.activeTasks()
+                    : (long) meter.measure().iterator().next().getValue();
+            meters.put(meter.getId().toString(), count);
+        }
+        return meters;
+    }
+}
@@ -0,0 +1,138 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import com.observability.__metrics_with_actuator_and_micrometer.service.DefaultBooksService;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Searches 100k distinct titles from 4 threads through {@link ObservedBookService#findByTitle}, as a client scanning
+ * the API would, mixed with a few popular titles, with the observation registry, the meter handler and the limiter
+ * wired as in {@link ObservationConfig}: with the default convention the titles never reach the {@code books.service}
+ * meters and the registry stays flat; with a custom convention making the title a low cardinality key value, wrapped
+ * as {@link ObservationConfig} does, the limiter caps its series and the popular titles keep their own.
+ */
+class TagCardinalityLimiterLoadTest {
+    private static final int THREADS = 4;
+    private static final int SEARCHES_PER_THREAD = 25_000;
+    private static final int MAX_VALUES = 100;
+
+    private MeterRegistry meterRegistry;
+    private TagCardinalityLimiter limiter;
+    private ObservationRegistry observationRegistry;
+    private CachedGauges cachedGauges;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new TagCardinalityLimiter(DefaultBookServiceObservationConvention.NAME, "title",
+                Set.of("all", "Domain Driven Design", "Analysis Patterns"), MAX_VALUES, 3);
+        meterRegistry.config().meterFilter(limiter);
+        limiter.bindTo(meterRegistry);
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new CachingMeterObservationHandler(meterRegistry));
+        cachedGauges = new CachedGauges(meterRegistry, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void close() {
+        cachedGauges.close();
+    }
+
+    @Test
+    void defaultConventionKeepsTitlesOutOfTheMeters() throws Exception {
+        ObservedBookService service = new ObservedBookService(new DefaultBooksService(), observationRegistry,
+                meterRegistry, null, cachedGauges);
+        // warms up the meters of the method
+        service.findByTitle("Domain Driven Design");
+
+        long heapBefore = usedHeap();
+        search(service);
+        long heapGrowth = usedHeap() - heapBefore;
+
+        Collection<Meter> meters = meterRegistry.find(DefaultBookServiceObservationConvention.NAME).meters();
+        assertTrue(meters.size() <= 2, "meters: " + meters.size());
+        for (Meter meter : meters) {
+            assertNull(meter.getId().getTag("title"), meter.getId().toString());
+        }
+        Timer timer = meterRegistry.get(DefaultBookServiceObservationConvention.NAME).tag("method", "findByTitle").timer();
+        assertEquals(THREADS * SEARCHES_PER_THREAD + 1, timer.count());
+        assertEquals(0, limiter.getRejectedCount());
+        // 100k distinct ids kept by the registry would take tens of MB
+        assertTrue(heapGrowth < 16L * 1024 * 1024, "heap growth: " + heapGrowth);
+    }
+
+    @Test
+    void customConventionTitlesAreCapped() throws Exception {
+        BookServiceObservationConvention titled = new DefaultBookServiceObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(BookServiceObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(getHighCardinalityKeyValues(context));
+            }
+        };
+        ObservedBookService service = new ObservedBookService(new DefaultBooksService(), observationRegistry,
+                meterRegistry, new LimitedBookServiceObservationConvention(titled, limiter), cachedGauges);
+
+        search(service);
+
+        int series = meterRegistry.find(DefaultBookServiceObservationConvention.NAME).timers().size();
+        assertTrue(series <= 3 + MAX_VALUES + 1, "series: " + series);
+        assertNotNull(meterRegistry.find(DefaultBookServiceObservationConvention.NAME)
+                .tag("title", TagCardinalityLimiter.OTHER).timer());
+        for (int popular = 0; popular < 10; popular++) {
+            assertNotNull(meterRegistry.find(DefaultBookServiceObservationConvention.NAME)
+                    .tag("title", "popular-" + popular).timer(), "popular-" + popular);
+        }
+        long folded = (long) meterRegistry.get("meter.tag.rejected").tag("key", "title").functionCounter().count();
+        assertEquals(limiter.getRejectedCount(), folded);
+        assertTrue(folded >= THREADS * SEARCHES_PER_THREAD * 99L / 100 - MAX_VALUES, "folded: " + folded);
+    }
+
+    private static void search(ObservedBookService service) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> searches = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            searches.add(executor.submit(() -> {
+                for (int i = 0; i < SEARCHES_PER_THREAD; i++) {
+                    String title = i % 100 == 0 ? "popular-" + (i / 100) % 10 : UUID.randomUUID().toString();
+                    service.findByTitle(title);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> search : searches) {
+            search.get();
+        }
+        executor.shutdown();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
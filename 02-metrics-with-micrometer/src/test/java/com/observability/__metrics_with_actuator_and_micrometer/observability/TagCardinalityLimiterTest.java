@@ -0,0 +1,111 @@
+package com.observability.__metrics_with_actuator_and_micrometer.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Values sent to fill the slots must not lock the popular values out: once they are sent less often than the popular
+ * ones, they are replaced, and their series removed.
+ */
+class TagCardinalityLimiterTest {
+    private static final int MAX_VALUES = 10;
+    private static final int ADMIT_THRESHOLD = 3;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TagCardinalityLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        limiter = new TagCardinalityLimiter("books.service", "title", Set.of("all"), MAX_VALUES, ADMIT_THRESHOLD);
+        limiter.bindTo(meterRegistry);
+    }
+
+    @Test
+    void popularValuesReplaceTheValuesFillingTheSlots() {
+        for (int attacker = 0; attacker < MAX_VALUES; attacker++) {
+            for (int i = 0; i < ADMIT_THRESHOLD; i++) {
+                search("attacker-" + attacker);
+            }
+        }
+        assertEquals(MAX_VALUES, limiter.getAdmittedCount());
+        assertEquals("attacker-0", limiter.limit("attacker-0"));
+
+        for (int round = 0; round < ADMIT_THRESHOLD + 2; round++) {
+            for (int popular = 0; popular < MAX_VALUES; popular++) {
+                search("popular-" + popular);
+            }
+        }
+
+        for (int popular = 0; popular < MAX_VALUES; popular++) {
+            assertEquals("popular-" + popular, limiter.limit("popular-" + popular));
+            assertNotNull(meterRegistry.find("books.service").tag("title", "popular-" + popular).counter());
+        }
+        assertEquals(MAX_VALUES, limiter.getAdmittedCount());
+        for (int attacker = 0; attacker < MAX_VALUES; attacker++) {
+            assertNull(meterRegistry.find("books.service").tag("title", "attacker-" + attacker).counter());
+        }
+        // the allowed values are never replaced
+        assertEquals("all", limiter.limit("all"));
+    }
+
+    @Test
+    void valuesSentOftenOnceAreReplacedAfterAWhile() {
+        for (int attacker = 0; attacker < MAX_VALUES; attacker++) {
+            for (int i = 0; i < 1000; i++) {
+                search("attacker-" + attacker);
+            }
+        }
+
+        // the popular values start folded, then take the slots as the hits of the attackers are halved
+        int searches = 0;
+        while (!allAdmitted() && searches < 1_000_000) {
+            for (int popular = 0; popular < MAX_VALUES; popular++) {
+                search("popular-" + popular);
+                // mixed with values seen once
+                search("once-" + searches++);
+            }
+        }
+        assertTrue(allAdmitted(), "searches: " + searches);
+        assertTrue(meterRegistry.find("books.service").counters().size() <= MAX_VALUES + 1);
+    }
+
+    @Test
+    void valuesSeenOnceNeverReplaceAdmittedOnes() {
+        for (int popular = 0; popular < MAX_VALUES; popular++) {
+            for (int i = 0; i < ADMIT_THRESHOLD; i++) {
+                search("popular-" + popular);
+            }
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(TagCardinalityLimiter.OTHER, limiter.limit("once-" + i));
+        }
+        for (int popular = 0; popular < MAX_VALUES; popular++) {
+            assertEquals("popular-" + popular, limiter.limit("popular-" + popular));
+        }
+    }
+
+    private boolean allAdmitted() {
+        for (int popular = 0; popular < MAX_VALUES; popular++) {
+            String value = "popular-" + popular;
+            if (!value.equals(limiter.limit(value))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // folds the title before building the meter, as LimitedBookServiceObservationConvention does
+    private void search(String title) {
+        Counter.builder("books.service").tag("title", limiter.limit(title)).register(meterRegistry).increment();
+    }
+}
@@ -0,0 +1,127 @@
+package com.observability.__metrics_with_actuator_and_micrometer.service;
+
+import com.observability.__metrics_with_actuator_and_micrometer.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The catalog must return what the linear {@code toLowerCase().contains()} search used to, in the same order, while
+ * books are added to the unindexed tail, removed, and the index rebuilt.
+ */
+class TrigramBookCatalogTest {
+    private static final String[] WORDS = {"Domain", "Driven", "Design", "Analysis", "Patterns", "Fundamental",
+            "Algorithms", "of", "the", "Enterprise", "Refactoring", "Java", "Concurrency", "in", "Practice"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    void searchMatchesLinearScan() {
+        List<Book> books = books(0, 5000);
+        TrigramBookCatalog catalog = new TrigramBookCatalog(books);
+        // tail, masked, then rebuilt
+        List<Book> added = books(5000, 100);
+        added.forEach(catalog::add);
+        books.addAll(added);
+        for (int i = 0; i < 200; i++) {
+            String id = books.remove(random.nextInt(books.size())).id();
+            assertTrue(catalog.remove(id), id);
+            if (i % 50 == 0) {
+                assertQueries(catalog, books);
+            }
+        }
+        added = books(5100, 2000);
+        catalog.addAll(added);
+        books.addAll(added);
+        assertQueries(catalog, books);
+        assertEquals(books.size(), catalog.size());
+        assertFalse(catalog.remove("unknown"));
+    }
+
+    @Test
+    void pages() {
+        List<Book> books = books(0, 1000);
+        TrigramBookCatalog catalog = new TrigramBookCatalog(books);
+        assertEquals(books.subList(990, 1000), catalog.page(990, 20));
+        assertEquals(List.of(), catalog.page(2000, 20));
+        catalog.remove(books.get(0).id());
+        assertEquals(books.subList(11, 21), catalog.page(10, 10));
+
+        List<Book> design = linear(books.subList(1, 1000), "design");
+        assertEquals(design.subList(5, 15), catalog.search("DESIGN", 5, 10));
+        assertEquals(List.of(), catalog.search("design", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> catalog.search("design", -1, 10));
+    }
+
+    @Test
+    void readersSeeConsistentSnapshotsWhileWriting() throws Exception {
+        TrigramBookCatalog catalog = new TrigramBookCatalog(books(0, 2000));
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> reader = executor.submit(() -> {
+            while (writing.get()) {
+                // a sorted page stays sorted whatever the snapshot it was read from
+                List<Book> page = catalog.search("patterns", 0, 50);
+                for (int i = 1; i < page.size(); i++) {
+                    assertTrue(Integer.parseInt(page.get(i - 1).id()) < Integer.parseInt(page.get(i).id()));
+                }
+            }
+            return null;
+        });
+        int removed = 0;
+        for (int i = 2000; i < 6000; i++) {
+            catalog.add(book(i));
+            if (i % 3 == 0 && catalog.remove(String.valueOf(i - 1000))) {
+                removed++;
+            }
+        }
+        writing.set(false);
+        reader.get();
+        executor.shutdown();
+        assertEquals(6000 - removed, catalog.size());
+    }
+
+    private void assertQueries(BookCatalog catalog, List<Book> books) {
+        for (String query : List.of("d", "of", "DESIGN", "patterns of", "n Pr", "12", "4242", "Driven Design 7", "zzz")) {
+            assertEquals(linear(books, query), catalog.search(query, 0, Integer.MAX_VALUE), query);
+        }
+        for (int i = 0; i < 50; i++) {
+            Book book = books.get(random.nextInt(books.size()));
+            int start = random.nextInt(book.title().length() - 2);
+            String query = book.title().substring(start, start + 3 + random.nextInt(book.title().length() - start - 2));
+            assertEquals(linear(books, query), catalog.search(query, 0, Integer.MAX_VALUE), query);
+        }
+    }
+
+    private static List<Book> linear(List<Book> books, String query) {
+        return books.stream().filter(book -> book.title().toLowerCase().contains(query.toLowerCase())).collect(Collectors.toList());
+    }
+
+    private List<Book> books(int from, int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            books.add(book(i));
+        }
+        return books;
+    }
+
+    private Book book(int i) {
+        StringBuilder title = new StringBuilder();
+        for (int w = 0; w < 3; w++) {
+            title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return new Book(String.valueOf(i), title.append(i).toString());
+    }
+}
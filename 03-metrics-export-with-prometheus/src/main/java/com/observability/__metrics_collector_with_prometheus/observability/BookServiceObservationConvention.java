@@ -0,0 +1,16 @@
+package com.observability.__metrics_collector_with_prometheus.observability;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+
+/**
+ * Names and key values of the {@link ObservedBookService} observations, a bean of this type replaces
+ * {@link DefaultBookServiceObservationConvention}.
+ */
+public interface BookServiceObservationConvention extends ObservationConvention<BookServiceObservationContext> {
+
+    @Override
+    default boolean supportsContext(Observation.Context context) {
+        return context instanceof BookServiceObservationContext;
+    }
+}
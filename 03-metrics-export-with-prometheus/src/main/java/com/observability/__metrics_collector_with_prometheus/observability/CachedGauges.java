@@ -0,0 +1,163 @@
+package com.observability.__metrics_collector_with_prometheus.observability;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Gauges of values expensive to compute, e.g. a {@code COUNT(*)}, refreshed on a background thread rather than on
+ * every scrape:
+ *
+ * <pre>{@code
+ * cachedGauges.gauge("booksInStoreCount", repository::countBooks)
+ *         .description("A current number of books in store")
+ *         .register(registry);
+ * }</pre>
+ * A scrape reads the last value. The values are refreshed every half of their staleness, and a scrape finding a value
+ * older than its staleness, e.g. as the refresh thread is busy, requests another refresh without waiting for it.
+ * Refreshes of a value are coalesced, a refresh is only requested when none is running. The gauges are NaN until their
+ * first refresh, and keep their last value when a refresh fails, even with an {@link Error}, until the next one.
+ * <p>
+ * The refreshes are timed by {@code gauge.refresh}, tagged with the gauge name and the outcome. They run on a single
+ * thread, so a slow supplier delays the other ones.
+ */
+public class CachedGauges implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CachedGauges.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Duration defaultStaleness;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param defaultStaleness maximum age of the values, unless given for a gauge
+     */
+    public CachedGauges(MeterRegistry meterRegistry, Duration defaultStaleness) {
+        if (meterRegistry == null) {
+            throw new IllegalArgumentException("meterRegistry cant be null");
+        }
+        checkStaleness(defaultStaleness);
+        this.meterRegistry = meterRegistry;
+        this.defaultStaleness = defaultStaleness;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CachedGauges-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the builder of a gauge of the cached value, refreshed from now on
+     */
+    public Gauge.Builder<CachedValue> gauge(String name, Supplier<? extends Number> supplier) {
+        return gauge(name, supplier, defaultStaleness);
+    }
+
+    public Gauge.Builder<CachedValue> gauge(String name, Supplier<? extends Number> supplier, Duration staleness) {
+        return Gauge.builder(name, cache(name, supplier, staleness), CachedValue::value).strongReference(true);
+    }
+
+    /**
+     * @param name names the value in the refresh timer and the logs
+     * @return the value, refreshed from now on
+     */
+    public CachedValue cache(String name, Supplier<? extends Number> supplier, Duration staleness) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cant be null");
+        }
+        if (supplier == null) {
+            throw new IllegalArgumentException("supplier cant be null");
+        }
+        checkStaleness(staleness);
+        CachedValue value = new CachedValue(name, supplier, staleness.toNanos());
+        long period = Math.max(1, staleness.toNanos() / 2);
+        scheduler.scheduleWithFixedDelay(value::refreshIfIdle, 0, period, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    private static void checkStaleness(Duration staleness) {
+        if (staleness == null || staleness.isNegative() || staleness.isZero()) {
+            throw new IllegalArgumentException("staleness must be positive");
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public final class CachedValue {
+        private final String name;
+        private final Supplier<? extends Number> supplier;
+        private final long stalenessNanos;
+        private final Timer refreshed;
+        private final Timer failed;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile double value = Double.NaN;
+        // System.nanoTime() past which the value is stale
+        private volatile long staleAt = System.nanoTime();
+
+        private CachedValue(String name, Supplier<? extends Number> supplier, long stalenessNanos) {
+            this.name = name;
+            this.supplier = supplier;
+            this.stalenessNanos = stalenessNanos;
+            this.refreshed = refreshTimer(name, "success");
+            this.failed = refreshTimer(name, "failure");
+        }
+
+        private Timer refreshTimer(String name, String outcome) {
+            return Timer.builder("gauge.refresh")
+                    .tag("gauge", name)
+                    .tag("outcome", outcome)
+                    .description("Time taken to refresh the value of a cached gauge")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return the last value, NaN before the first refresh
+         */
+        public double value() {
+            if (System.nanoTime() - staleAt > 0 && refreshing.compareAndSet(false, true)) {
+                try {
+                    scheduler.execute(this::refresh);
+                } catch (RejectedExecutionException e) {
+                    // closed
+                    refreshing.set(false);
+                }
+            }
+            return value;
+        }
+
+        private void refreshIfIdle() {
+            if (refreshing.compareAndSet(false, true)) {
+                refresh();
+            }
+        }
+
+        private void refresh() {
+            long start = System.nanoTime();
+            try {
+                Number number = supplier.get();
+                value = number == null ? Double.NaN : number.doubleValue();
+                long end = System.nanoTime();
+                staleAt = end + stalenessNanos;
+                refreshed.record(end - start, TimeUnit.NANOSECONDS);
+            } catch (Throwable e) {
+                // an Error thrown out of the task would cancel the periodic refresh, the value would never change again
+                failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("Refreshing gauge {} failed, keeping its last value", name, e);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.observability.__metrics_collector_with_prometheus.observability;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+
+/**
+ * {@code books.service} observations: the method is a low cardinality key value, on the metrics and the spans, the
+ * searched title is user input and a high cardinality key value, on the spans only. The timer is therefore
+ * {@code books_service_seconds{method="findByTitle"}} whatever the clients search for.
+ */
+public class DefaultBookServiceObservationConvention implements BookServiceObservationConvention {
+    public static final String NAME = "books.service";
+
+    private static final KeyValue NO_TITLE = KeyValue.of("title", "none");
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getContextualName(BookServiceObservationContext context) {
+        return "books " + context.getMethod();
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(BookServiceObservationContext context) {
+        return KeyValues.of("method", context.getMethod());
+    }
+
+    @Override
+    public KeyValues getHighCardinalityKeyValues(BookServiceObservationContext context) {
+        return KeyValues.of(context.getTitle() == null ? NO_TITLE : KeyValue.of("title", context.getTitle()));
+    }
+}
@@ -3,11 +3,20 @@ package com.observability.__metrics_collector_with_prometheus.observability;
 import com.observability.__metrics_collector_with_prometheus.service.BookService;
 import com.observability.__metrics_collector_with_prometheus.service.DefaultBooksService;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.MeterObservationHandler;
+import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.observation.ObservationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
 @Configuration
 public class ObservationConfig {
 
@@ -17,8 +26,53 @@ public class ObservationConfig {
     @Autowired
     private MeterRegistry meterRegistry;
 
+    /**
+     * Caps the title tag of the books.service meters: the titles of the catalog and up to 100 frequently searched ones,
+     * the other searches are counted as "other". The default convention keeps the title out of the meters, a custom
+     * convention making it a low cardinality key value is folded with
+     * {@link LimitedBookServiceObservationConvention}. Also applied as a
+     * {@link io.micrometer.core.instrument.config.MeterFilter} by Spring Boot, static as the registry needs it before
+     * this configuration can be injected with the registry.
+     */
+    @Bean
+    public static TagCardinalityLimiter titleCardinalityLimiter() {
+        Set<String> titles = new HashSet<>();
+        titles.add("all");
+        new DefaultBooksService().getAllBooks().forEach(book -> titles.add(book.title()));
+        return new TagCardinalityLimiter(DefaultBookServiceObservationConvention.NAME, "title", titles, 100, 3);
+    }
+
+    /**
+     * Registered in the {@link ObservationRegistry} by Spring Boot, next to the metrics and the tracing handlers, static
+     * for the same reason.
+     */
+    @Bean
+    public static BookServiceObservationLoggingHandler bookServiceObservationLoggingHandler() {
+        return new BookServiceObservationLoggingHandler();
+    }
+
+    /**
+     * Replaces the {@link io.micrometer.core.instrument.observation.DefaultMeterObservationHandler} of Spring Boot,
+     * static for the same reason.
+     */
+    @Bean
+    public static MeterObservationHandler<Observation.Context> meterObservationHandler(MeterRegistry meterRegistry,
+                                                                                     ObservationProperties properties) {
+        return new CachingMeterObservationHandler(meterRegistry, properties.getLongTaskTimer().isEnabled(),
+                CachingMeterObservationHandler.DEFAULT_MAX_SIZE);
+    }
+
+    @Bean
+    public CachedGauges cachedGauges(@Value("${observability.gauges.staleness:30s}") Duration staleness) {
+        return new CachedGauges(meterRegistry, staleness);
+    }
+
     @Bean(name = "bookService")
-    public BookService bookService() {
-        return new ObservedBookService(new DefaultBooksService(), observationRegistry, meterRegistry);
+    public BookService bookService(ObjectProvider<BookServiceObservationConvention> convention,
+                                   TagCardinalityLimiter titleCardinalityLimiter, CachedGauges cachedGauges) {
+        BookServiceObservationConvention custom = convention.getIfAvailable();
+        return new ObservedBookService(new DefaultBooksService(), observationRegistry, meterRegistry,
+                custom == null ? null : new LimitedBookServiceObservationConvention(custom, titleCardinalityLimiter),
+                cachedGauges);
     }
 }
@@ -3,7 +3,8 @@ package com.observability.__metrics_collector_with_prometheus.observability;
 import com.observability.__metrics_collector_with_prometheus.model.Book;
 import com.observability.__metrics_collector_with_prometheus.service.BookService;
 import com.observability.__metrics_collector_with_prometheus.service.DefaultBooksService;
-import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import org.springframework.util.StringUtils;
 
@@ -19,68 +20,85 @@ import java.util.concurrent.ThreadLocalRandom;
  *          - how many times this API has been called
  *          - how long does it take to return a list of books
  *          - how many books are “in stock”
+ *
+ * Every call is one {@link Observation} named by the {@link BookServiceObservationConvention}: the handlers of the
+ * registry turn it into the {@code books.service} timer tagged with the method, into a span carrying the searched
+ * title too, and into a log line, in one pass.
  */
 public class ObservedBookService implements BookService {
+    private static final BookServiceObservationConvention DEFAULT_CONVENTION = new DefaultBookServiceObservationConvention();
+
     private final DefaultBooksService delegate;
     private final ObservationRegistry observationRegistry;
     private final MeterRegistry meterRegistry;
+    private final BookServiceObservationConvention convention;
 
-    public ObservedBookService(DefaultBooksService delegate, ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+    /**
+     * @param convention   replaces the {@link DefaultBookServiceObservationConvention}, may be null
+     * @param cachedGauges refreshes the gauges of the values expensive to compute
+     */
+    public ObservedBookService(DefaultBooksService delegate, ObservationRegistry observationRegistry, MeterRegistry meterRegistry,
+                               BookServiceObservationConvention convention, CachedGauges cachedGauges) {
         this.delegate = delegate;
         this.observationRegistry = observationRegistry;
         this.meterRegistry = meterRegistry;
+        this.convention = convention;
 
-        // Method booksRepository::countBooks will be executed every 15s - Prometheus scrape_interval setting
-        Gauge.builder("booksInStoreCount", delegate::countBooks)
+        // Method booksRepository::countBooks is executed in background, not on every Prometheus scrape
+        cachedGauges.gauge("booksInStoreCount", delegate::countBooks)
                 .tag("customTag", "customTagValue")
                 .description("A current number of books in store")
                 .register(this.meterRegistry);
     }
 
-    //  metric getAllBooksCount will tell us how many times endpoint /api/books has been called.
-    //  We will use tags concept to group them by title (if it has been provided).
+    private Observation observation(BookServiceObservationContext context) {
+        return Observation.createNotStarted(convention, DEFAULT_CONVENTION, () -> context, observationRegistry);
+    }
+
+    // the timer books.service{method="getAllBooks"} tells us how many times endpoint /api/books has been called.
     @Override
     public List<Book> getAllBooks() {
-        Counter.builder("getAllBooksCount")
-                .tag("title", "getAllBooks")
-                .description("a number of requests to /api/books endpoint")
-                .register(meterRegistry)
-                .increment();
-        return delegate.getAllBooks();
+        return getAllBooks(0, Integer.MAX_VALUE);
     }
 
     @Override
-    public List<Book> findByTitle(String title) throws Exception{
-        Tag titleTag = Tag.of("title", StringUtils.hasText(title) ? "all" : title);
-        List<Book> books;
-        Timer.Sample timer = Timer.start(this.meterRegistry);
-
-        if (StringUtils.isEmpty(title)) {
-            books = delegate.getAllBooks();
-        } else {
-            if ("Fundamental Algorithms".equalsIgnoreCase(title)) {
-                Thread.sleep(ThreadLocalRandom.current().nextInt(200, 400));
-            }
-            books = delegate.findByTitle(title);
-        }
+    public List<Book> getAllBooks(int offset, int limit) {
+        BookServiceObservationContext context = new BookServiceObservationContext("getAllBooks", null);
+        return observation(context).observe(() -> {
+            List<Book> books = delegate.getAllBooks(offset, limit);
+            context.setResultCount(books.size());
+            return books;
+        });
+    }
 
-        timer.stop(Timer.builder("findBookTimeTaken")
-                .description("books searching timer")
-                .tags(List.of(titleTag))
-                .register(this.meterRegistry));
-        return books;
+    @Override
+    public List<Book> findByTitle(String title) throws Exception {
+        return findByTitle(title, 0, Integer.MAX_VALUE);
+    }
 
-       /* Observation.createNotStarted("make.tea", observationRegistry)
-                .lowCardinalityKeyValue("name", "name")
-                .lowCardinalityKeyValue("size", size)
-                .observe(() -> delegate.makeTea());*/
+    @Override
+    public List<Book> findByTitle(String title, int offset, int limit) throws Exception {
+        // the searched title is user input, only a high cardinality key value of the convention
+        BookServiceObservationContext context = new BookServiceObservationContext("findByTitle",
+                StringUtils.hasText(title) ? title : "all");
+        return observation(context).observeChecked(() -> {
+            List<Book> books;
+            if (StringUtils.isEmpty(title)) {
+                books = delegate.getAllBooks(offset, limit);
+            } else {
+                if ("Fundamental Algorithms".equalsIgnoreCase(title)) {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(200, 400));
+                }
+                books = delegate.findByTitle(title, offset, limit);
+            }
+            context.setResultCount(books.size());
+            return books;
+        });
     }
 
     @Override
     public Long countBooks() {
-        /*Observation.createNotStarted(CREATED_DEPOSITS, observationRegistry)
-                .lowCardinalityKeyValue("request-uid", deposit.getRequestUid())
-                .observe(() -> log.debug("Counting created deposits"));*/
-        return delegate.countBooks();
+        BookServiceObservationContext context = new BookServiceObservationContext("countBooks", null);
+        return observation(context).observe(delegate::countBooks);
     }
 }
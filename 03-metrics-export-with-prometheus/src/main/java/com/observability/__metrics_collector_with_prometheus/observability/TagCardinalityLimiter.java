@@ -0,0 +1,253 @@
+package com.observability.__metrics_collector_with_prometheus.observability;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of distinct values of a tag derived from user input, e.g. the searched title, by folding the
+ * values over the limit into {@value #OTHER}.
+ * <p>
+ * The allowed values are always kept. The other values get one of the {@code maxValues} slots once they are frequent,
+ * i.e. seen {@code admitThreshold} times according to a count-min sketch of fixed size, so a flood of values seen only
+ * once cannot take the slots before the popular ones. The admitted values count their own hits, halved with the sketch
+ * counts, so the slots hold the values most frequent recently: once all the slots are taken, a value seen more often
+ * than the weakest admitted one replaces it, whose series are removed from the registry the limiter is bound to. Values
+ * sent often once, e.g. to fill the slots, make room for the popular ones as soon as they are sent less often.
+ * <p>
+ * As a {@link MeterFilter} it rewrites the tag of the meters whose name starts with {@code meterNamePrefix}. The
+ * registry still remembers every distinct id it was asked to register though, so callers facing user input should
+ * fold the value with {@link #limit(String)} before building the meter.
+ * <p>
+ * The number of admitted values and of folded values are published as {@code meter.tag.values} and
+ * {@code meter.tag.rejected}, tagged with the tag key.
+ */
+public class TagCardinalityLimiter implements MeterFilter, MeterBinder {
+    public static final String OTHER = "other";
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+    // halving the counts every WIDTH additions keeps the noise of the one-off values well below the threshold
+    private static final int SKETCH_RESET = SKETCH_WIDTH;
+
+    private final String meterNamePrefix;
+    private final String tagKey;
+    private final Set<String> allowedValues;
+    private final int maxValues;
+    private final int admitThreshold;
+    // admitted value -> recent hits
+    private final ConcurrentHashMap<String, AtomicInteger> admitted = new ConcurrentHashMap<>();
+    private final AtomicInteger admittedCount = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicIntegerArray sketch = new AtomicIntegerArray(SKETCH_DEPTH * SKETCH_WIDTH);
+    private final AtomicInteger sketchAdditions = new AtomicInteger();
+    private final AtomicBoolean aging = new AtomicBoolean();
+    // at most the hits of the weakest admitted value, so most candidates are rejected without a scan
+    private volatile int weakestHits;
+    private volatile MeterRegistry registry;
+
+    /**
+     * @param meterNamePrefix the meters whose tag is limited by the filter, null for all the meters
+     * @param tagKey          the tag to limit
+     * @param allowedValues   values always kept, not counted in {@code maxValues}
+     * @param maxValues       number of other values kept
+     * @param admitThreshold  number of times a value must be seen before it is kept, 1 keeps the first values
+     */
+    public TagCardinalityLimiter(String meterNamePrefix, String tagKey, Set<String> allowedValues, int maxValues,
+                                 int admitThreshold) {
+        if (tagKey == null) {
+            throw new IllegalArgumentException("tagKey cant be null");
+        }
+        this.meterNamePrefix = meterNamePrefix;
+        this.tagKey = tagKey;
+        this.allowedValues = allowedValues == null ? Set.of() : Set.copyOf(allowedValues);
+        this.maxValues = maxValues;
+        this.admitThreshold = Math.max(1, admitThreshold);
+    }
+
+    /**
+     * @return the value itself while it is allowed or admitted, {@value #OTHER} otherwise
+     */
+    public String limit(String value) {
+        if (value == null || allowedValues.contains(value) || OTHER.equals(value)) {
+            return value;
+        }
+        AtomicInteger hits = admitted.get(value);
+        if (hits != null) {
+            if (hits.incrementAndGet() >= SKETCH_RESET) {
+                age();
+            }
+            return value;
+        }
+        int estimate = increment(value);
+        if (estimate >= admitThreshold && (admit(value, estimate) || replaceWeakest(value, estimate))) {
+            return value;
+        }
+        rejected.increment();
+        return OTHER;
+    }
+
+    private boolean admit(String value, int estimate) {
+        while (true) {
+            int count = admittedCount.get();
+            if (count >= maxValues) {
+                return false;
+            }
+            if (admittedCount.compareAndSet(count, count + 1)) {
+                if (admitted.putIfAbsent(value, new AtomicInteger(estimate)) != null) {
+                    // admitted by another thread meanwhile
+                    admittedCount.decrementAndGet();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Replaces the admitted value with the fewest recent hits, if the value was seen more often.
+     */
+    private boolean replaceWeakest(String value, int estimate) {
+        if (maxValues <= 0 || estimate <= weakestHits) {
+            return false;
+        }
+        String weakest = null;
+        synchronized (this) {
+            if (admitted.containsKey(value)) {
+                return true;
+            }
+            int fewest = Integer.MAX_VALUE;
+            int second = Integer.MAX_VALUE;
+            for (Map.Entry<String, AtomicInteger> entry : admitted.entrySet()) {
+                int entryHits = entry.getValue().get();
+                if (entryHits < fewest) {
+                    second = fewest;
+                    fewest = entryHits;
+                    weakest = entry.getKey();
+                } else if (entryHits < second) {
+                    second = entryHits;
+                }
+            }
+            if (weakest == null || estimate <= fewest) {
+                weakestHits = weakest == null ? 0 : fewest;
+                return false;
+            }
+            admitted.remove(weakest);
+            admitted.put(value, new AtomicInteger(estimate));
+            weakestHits = Math.min(second, estimate);
+        }
+        removeSeries(weakest);
+        return true;
+    }
+
+    private void removeSeries(String value) {
+        MeterRegistry bound = registry;
+        if (bound == null) {
+            return;
+        }
+        for (Meter meter : bound.getMeters()) {
+            Meter.Id id = meter.getId();
+            if ((meterNamePrefix == null || id.getName().startsWith(meterNamePrefix)) && value.equals(id.getTag(tagKey))) {
+                bound.remove(meter);
+            }
+        }
+    }
+
+    /**
+     * Counts the value in the sketch, with a conservative update: only the counters at the current estimate are
+     * incremented, which keeps the values sharing a counter with a frequent one from being overestimated.
+     *
+     * @return the estimated number of times the value was seen recently
+     */
+    private int increment(String value) {
+        int hash = value.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            estimate = Math.min(estimate, sketch.get(row * SKETCH_WIDTH + index(hash, row)));
+        }
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            // a lost race only undercounts by one
+            sketch.compareAndSet(row * SKETCH_WIDTH + index(hash, row), estimate, estimate + 1);
+        }
+        if (sketchAdditions.incrementAndGet() >= SKETCH_RESET) {
+            age();
+        }
+        return estimate + 1;
+    }
+
+    private static int index(int hash, int row) {
+        int h = hash * (0x9E3779B9 + 2 * row);
+        return (h ^ (h >>> 16)) & (SKETCH_WIDTH - 1);
+    }
+
+    /**
+     * Halves all the counts, those of the sketch and the hits of the admitted values, so they reflect the recent
+     * frequencies rather than growing until every value looks frequent.
+     */
+    private void age() {
+        if (!aging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sketchAdditions.set(0);
+            for (int i = 0; i < sketch.length(); i++) {
+                sketch.set(i, sketch.get(i) >>> 1);
+            }
+            for (AtomicInteger hits : admitted.values()) {
+                hits.set(hits.get() >>> 1);
+            }
+            weakestHits = weakestHits >>> 1;
+        } finally {
+            aging.set(false);
+        }
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        if (meterNamePrefix != null && !id.getName().startsWith(meterNamePrefix)) {
+            return id;
+        }
+        String value = id.getTag(tagKey);
+        if (value == null) {
+            return id;
+        }
+        String limited = limit(value);
+        return limited.equals(value) ? id : id.withTag(Tag.of(tagKey, limited));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("meter.tag.values", admittedCount, AtomicInteger::get)
+                .tag("key", tagKey)
+                .description("Distinct values admitted for the tag, besides the allowed ones")
+                .register(registry);
+        FunctionCounter.builder("meter.tag.rejected", rejected, LongAdder::sum)
+                .tag("key", tagKey)
+                .description("Tag values folded into " + OTHER)
+                .register(registry);
+    }
+
+    public String getTagKey() {
+        return tagKey;
+    }
+
+    public int getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
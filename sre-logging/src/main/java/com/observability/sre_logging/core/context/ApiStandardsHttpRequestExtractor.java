@@ -3,75 +3,97 @@ package com.observability.sre_logging.core.context;
 
 import com.observability.sre_logging.core.HeaderKeys;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.util.StringUtils;
 
-import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ApiStandardsHttpRequestExtractor implements HttpRequestExtractor {
     org.slf4j.Logger log =  org.slf4j.LoggerFactory.getLogger(ApiStandardsHttpRequestExtractor.class);
 
+    /**
+     * The CCB API standard request headers, in the order of the {@link Context} keys they fill.
+     */
+    public static final HeaderExtractionPlan PLAN = new HeaderExtractionPlan(List.of(
+            // to both Context and MDC
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.TRANSACTION_ID, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.SPAN_ID, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.PARENT_SPAN_ID, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.PROTOCOL, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.SESSION_ID, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.APPLICATION_ID, ContextKeys.REMOTE_APPLICATION_ID, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.APPLICATION_MODULE, ContextKeys.REMOTE_APPLICATION_MODULE, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.CORRELATION_ID, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.USER_AGENT, true),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.CHANNEL_TYPE, true),
+            // to Context only
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.API_CLIENT_ID, false),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.API_SIGNATURE, false),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.API_SIGNATURE_URL, false),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.DP_OWNER, false),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.PATH_PARAMS, false),
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.QUERY_PARAMS, false),
+            // parsed by SessionCacheTokenizer
+            new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.SESSION_CACHE, false)));
+
+    private final HeaderExtractionPlan plan;
+    private final int protocolRule;
+    private final int sessionCacheRule;
+
+    public ApiStandardsHttpRequestExtractor() {
+        this(PLAN);
+    }
+
+    public ApiStandardsHttpRequestExtractor(HeaderExtractionPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("plan cant be null");
+        }
+        this.plan = plan;
+        this.protocolRule = plan.indexOf(HeaderKeys.HttpType.PROTOCOL);
+        this.sessionCacheRule = plan.indexOf(HeaderKeys.HttpType.SESSION_CACHE);
+    }
+
     /**
      * Add CCB API standard request header information to Context/MDC
      * <p>
-     * relies on the assumption that the context will filter out null header value
+     * Walks the request headers once, relies on the assumption that the context will filter out null header value
      *
      * @param context
      * @param servletRequest
      */
     @Override
     public void extract(Context context, HttpServletRequest servletRequest) {
-        // to both Context and MDC
-        context.putMDC (ContextKeys. TRACE_ID, servletRequest.getHeader (HeaderKeys. HttpType. TRANSACTION_ID.getKey())); context.putMDC (ContextKeys.SPAN_ID, servletRequest.getHeader (HeaderKeys. HttpType.SPAN_ID.getKey()));
-        context.putMDC (ContextKeys.PARENT_SPAN_ID, servletRequest.getHeader (HeaderKeys.HttpType.PARENT_SPAN_ID.getKey()));
-        context.putMDC (ContextKeys.PROTOCOL, servletRequest.getHeader (HeaderKeys.HttpType.PROTOCOL.getKey()) != null ? servletRequest.getHeader (HeaderKeys.HttpType.PROTOCOL.getKey()) : servletRequest.getProtocol());
-        if (servletRequest.getHeader (HeaderKeys.HttpType.SESSION_ID.getKey()) != null) {
-            context.putMDC(ContextKeys.SESSION_ID, servletRequest.getHeader(HeaderKeys.HttpType.SESSION_ID.getKey()));
+        long found = 0;
+        String sessionCache = null;
+        Enumeration<String> headerNames = servletRequest.getHeaderNames();
+        while (headerNames != null && headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            int rule = plan.indexOf(headerName);
+            if (rule < 0 || (found & (1L << rule)) != 0) {
+                continue;
+            }
+            found |= 1L << rule;
+            String value = servletRequest.getHeader(headerName);
+            if (rule == sessionCacheRule) {
+                sessionCache = value;
+            } else {
+                plan.put(context, rule, value);
+            }
+        }
+        if (protocolRule < 0 || (found & (1L << protocolRule)) == 0) {
+            context.putMDC(ContextKeys.PROTOCOL, servletRequest.getProtocol());
+        }
+        context.putMDC(ContextKeys.REMOTE_HOST, servletRequest.getRemoteHost());
+        context.putMDC(ContextKeys.USER, servletRequest.getRemoteUser());
+        if (sessionCacheRule >= 0) {
+            putSessionCacheIntoContext(context, sessionCache);
         }
-        context.putMDC (ContextKeys. SESSION_ID, servletRequest.getHeader (HeaderKeys. HttpType.SESSION_ID.getKey()));
-        context.putMDC (ContextKeys.REMOTE_APPLICATION_ID, servletRequest.getHeader (HeaderKeys.HttpType.APPLICATION_ID.getKey()));
-        context.putMDC (ContextKeys.REMOTE_APPLICATION_MODULE, servletRequest.getHeader (HeaderKeys.HttpType.APPLICATION_MODULE.getKey()));
-        context.putMDC (ContextKeys.REMOTE_HOST, servletRequest.getRemoteHost());
-        context.putMDC (ContextKeys. CORRELATION_ID, servletRequest.getHeader (HeaderKeys. HttpType.CORRELATION_ID.getKey()));
-        context.putMDC (ContextKeys.USER_AGENT, servletRequest.getHeader (HeaderKeys. HttpType.USER_AGENT.getKey()));
-        context.putMDC (ContextKeys.USER, servletRequest.getRemoteUser());
-        context.putMDC (ContextKeys.CHANNEL_TYPE, servletRequest.getHeader (HeaderKeys. HttpType.CHANNEL_TYPE.getKey()));
-        // to Context only
-        context.put(ContextKeys.API_CLIENT_ID, servletRequest.getHeader (HeaderKeys. HttpType.API_CLIENT_ID.getKey()), false);
-        context.put(ContextKeys.API_SIGNATURE, servletRequest.getHeader (HeaderKeys. HttpType.API_SIGNATURE.getKey()), false);
-        context.put(ContextKeys.API_SIGNATURE_URL, servletRequest.getHeader (HeaderKeys. HttpType.API_SIGNATURE_URL.getKey()), false);
-        context.put(ContextKeys.DP_OWNER, servletRequest.getHeader (HeaderKeys.HttpType.DP_OWNER.getKey()), false);
-        context.put(ContextKeys.PATH_PARAMS, servletRequest.getHeader (HeaderKeys.HttpType.PATH_PARAMS.getKey()), false);
-        context.put(ContextKeys.QUERY_PARAMS, servletRequest.getHeader (HeaderKeys. HttpType.QUERY_PARAMS.getKey()), false);
-        putSessionCacheIntoContext(context, servletRequest.getHeader (HeaderKeys.HttpType.SESSION_CACHE.getKey()));
     }
 
     private void putSessionCacheIntoContext(Context context, String sessionCache) {
-        if (StringUtils.hasText(sessionCache)) {
-            Map<String, String> sessionCacheCookieElementsMap = Stream.of(sessionCache.split(";")).map(sessionCacheElement -> Arrays.stream(sessionCacheElement.trim().split("=")).filter(elementKeyValueArray -> elementKeyValueArray.length() == 2).collect(Collectors.toMap(elementKeyValueArray -> elementKeyValueArray[0], elementKeyValueArray -> elementKeyValueArray[1])));
-            boolean isValidSessionCache = true;
-            if (null != sessionCacheCookieElementsMap && !sessionCacheCookieElementsMap.isEmpty()) {
-                List<String> sessionCacheElementsList = List.of (ContextKeys.SESSION_CACHE_KEY, ContextKeys.SESSION_CACHE_COOKIE_NM, ContextKeys.SESSION_CACHE_COOKIE_VAL, ContextKeys.SESSION_CACHE_ADDR);
-                for (String sessionCacheElement: sessionCacheElementsList) {
-                    if (!StringUtils.hasText(sessionCacheCookieElementsMap.get(sessionCacheElement))) {
-                        isValidSessionCache = false;
-                        break;
-                    }
-                }
-            } else {
-                isValidSessionCache = false;
-            }
-            if (isValidSessionCache) {
-                context.put(ContextKeys.SESSION_CACHE, sessionCache, false);
-                sessionCacheCookieElementsMap.forEach((key, value)-> context.put(key, value, false));
-            } else {
-                log.error("Invalid sessioncache");
-            }
-        } else {
+        if (sessionCache == null || sessionCache.isBlank()) {
             log.debug("sessioncache not found in request");
+        } else if (!SessionCacheTokenizer.putIntoContext(context, sessionCache)) {
+            log.error("Invalid sessioncache");
         }
     }
 }
@@ -0,0 +1,61 @@
+package com.observability.sre_logging.core.context;
+
+import com.observability.sre_logging.core.HeaderKeys;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link ApiStandardsHttpRequestExtractor}, running the same {@link HeaderExtractionPlan}.
+ * <p>
+ * A reactive request exposes neither its protocol nor a blocking remote user, so only the headers and the remote
+ * host are extracted.
+ */
+public class ApiStandardsServerHttpRequestExtractor implements ServerHttpRequestExtractor {
+    org.slf4j.Logger log =  org.slf4j.LoggerFactory.getLogger(ApiStandardsServerHttpRequestExtractor.class);
+
+    private final HeaderExtractionPlan plan;
+    private final int sessionCacheRule;
+
+    public ApiStandardsServerHttpRequestExtractor() {
+        this(ApiStandardsHttpRequestExtractor.PLAN);
+    }
+
+    public ApiStandardsServerHttpRequestExtractor(HeaderExtractionPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("plan cant be null");
+        }
+        this.plan = plan;
+        this.sessionCacheRule = plan.indexOf(HeaderKeys.HttpType.SESSION_CACHE);
+    }
+
+    @Override
+    public void extract(Context context, ServerHttpRequest request) {
+        String sessionCache = null;
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            int rule = plan.indexOf(header.getKey());
+            if (rule < 0 || header.getValue().isEmpty()) {
+                continue;
+            }
+            String value = header.getValue().get(0);
+            if (rule == sessionCacheRule) {
+                sessionCache = value;
+            } else {
+                plan.put(context, rule, value);
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress != null) {
+            context.putMDC(ContextKeys.REMOTE_HOST, remoteAddress.getHostString());
+        }
+        if (sessionCacheRule >= 0) {
+            if (sessionCache == null || sessionCache.isBlank()) {
+                log.debug("sessioncache not found in request");
+            } else if (!SessionCacheTokenizer.putIntoContext(context, sessionCache)) {
+                log.error("Invalid sessioncache");
+            }
+        }
+    }
+}
@@ -1,39 +1,102 @@
 package com.observability.sre_logging.core.context;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import org.slf4j.MDC;
 
+/**
+ * Request scoped attributes, some of which are also copied to the {@link MDC}.
+ * <p>
+ * The scoped context is held by a pluggable {@link ContextCarrier}, {@link ThreadLocalContextCarrier} by default.
+ * <p>
+ * The well-known {@link ContextKeys} are stored in a fixed slot array with a bit set for their MDC flag, only ad-hoc
+ * keys go to an overflow map, created on first use. {@link #clear()} resets the instance in place, so the thread
+ * scoped context is reused from one request to the next without reallocating anything.
+ * <p>
+ * {@link #copy()} is copy-on-write: the copy shares the storage of this context, which is only duplicated by the
+ * first of them to be written to, or cleared, afterward. Capturing the context for another thread therefore costs one
+ * small object, the values are only copied when the request goes on changing its context, or reuses it.
+ * <p>
+ * A context is meant to be used by one thread at a time, handing it over to another thread (e.g. submitting a task
+ * to an executor) must happen-before the other thread uses it. None of its storage is thread-safe, the overflow
+ * included: concurrent access needs a {@link #copy()} per thread, taken by the thread using the context.
+ */
 public class Context {
-    private static final ThreadLocal<Context> requestScopedContext = ThreadLocal.withInitial(Context::new);
+    private static volatile ContextCarrier carrier = new ThreadLocalContextCarrier();
 
-    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
-    private final Set<String> mdcKeys = Collections.newSetFromMap(new ConcurrentHashMap<>(2));
+    private Storage storage;
+    // the context this one was copied from by snapshot()
+    private Context source;
+
+    public Context() {
+        this(new Storage());
+    }
+
+    private Context(Storage storage) {
+        this.storage = storage;
+    }
 
     /**
      * @return Gets the context that is scoped to the current thread.
      */
-    public static Context getScopedContext() { return requestScopedContext.get(); }
+    public static Context getScopedContext() { return carrier.get(); }
 
     public static void setScopedContext(final Context context) {
         if (context == null) {
             clearScopedContext();
             return;
         }
-        requestScopedContext.set(context);
+        carrier.set(context);
     }
 
-    public static void clearScopedContext() { requestScopedContext.remove(); }
+    public static void clearScopedContext() { carrier.clear(); }
 
-    public Object get(String key) { return attributes.get(key); }
+    /**
+     * Signals that the current request is done with its (cleared) scoped context, see {@link ContextCarrier#release()}
+     */
+    public static void releaseScopedContext() { carrier.release(); }
 
-    public <T> Object getOrDefault(String key, T defaultValue) { return attributes.getOrDefault(key, defaultValue); }
+    public static ContextCarrier getCarrier() { return carrier; }
+
+    /**
+     * Replaces the {@link ContextCarrier}, should be done once at startup before any request is served.
+     */
+    public static void setCarrier(final ContextCarrier contextCarrier) {
+        if (contextCarrier == null) {
+            throw new IllegalArgumentException("carrier cant be null");
+        }
+        carrier = contextCarrier;
+    }
+
+    public Object get(String key) {
+        if (key == null) {
+            return null;
+        }
+        Storage storage = this.storage;
+        int slot = ContextSlots.indexOf(key);
+        if (slot >= 0) {
+            return storage.slots[slot];
+        }
+        return storage.overflow == null ? null : storage.overflow.get(key);
+    }
+
+    public <T> Object getOrDefault(String key, T defaultValue) {
+        Object value = get(key);
+        return value != null ? value : defaultValue;
+    }
 
     public Object computeIfAbsent(String key, Function<String, Object> mappingFunction) {
-        return attributes.computeIfAbsent(key, mappingFunction);
+        Object value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+        return value;
     }
 
     /**
@@ -44,7 +107,14 @@ public class Context {
      */
     public void put(String key, Object value) {
         if (key != null && value != null) {
-            attributes.put(key, value);
+            Storage storage = writable();
+            int slot = ContextSlots.indexOf(key);
+            if (slot >= 0) {
+                storage.slots[slot] = value;
+                storage.present |= 1L << slot;
+            } else {
+                storage.overflow().put(key, value);
+            }
         }
     }
 
@@ -57,7 +127,7 @@ public class Context {
     public void put(String key, String value, boolean mdc) {
         put(key, value);
         if (mdc && key != null && value != null) {
-            mdcKeys.add(key);
+            markAsMdc(key);
         }
     }
 
@@ -73,23 +143,168 @@ public class Context {
     }
 
     public Set<String> getMdcKeys() {
-        return Collections.unmodifiableSet(mdcKeys);
+        Storage storage = this.storage;
+        Set<String> keys = new HashSet<>();
+        for (long bits = storage.mdcSlots; bits != 0; bits &= bits - 1) {
+            keys.add(ContextSlots.KEYS[Long.numberOfTrailingZeros(bits)]);
+        }
+        if (storage.overflowMdcKeys != null) {
+            keys.addAll(storage.overflowMdcKeys);
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Passes every MDC key with its current value to the consumer, without building an intermediate collection.
+     *
+     * @param consumer receives the key and the string value, which is null for keys marked without a value
+     */
+    public void forEachMdc(BiConsumer<String, String> consumer) {
+        Storage storage = this.storage;
+        for (long bits = storage.mdcSlots; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            consumer.accept(ContextSlots.KEYS[slot], toString(storage.slots[slot]));
+        }
+        if (storage.overflowMdcKeys != null && !storage.overflowMdcKeys.isEmpty()) {
+            for (String key : storage.overflowMdcKeys) {
+                consumer.accept(key, toString(storage.overflow == null ? null : storage.overflow.get(key)));
+            }
+        }
+    }
+
+    /**
+     * @return true if at least one key is marked for the {@link MDC}
+     */
+    public boolean hasMdc() {
+        Storage storage = this.storage;
+        return storage.mdcSlots != 0 || (storage.overflowMdcKeys != null && !storage.overflowMdcKeys.isEmpty());
+    }
+
+    /**
+     * @return the string value of the key if it is marked for the {@link MDC}, null otherwise
+     */
+    public String getMdcString(String key) {
+        if (key == null) {
+            return null;
+        }
+        Storage storage = this.storage;
+        int slot = ContextSlots.indexOf(key);
+        if (slot >= 0) {
+            return (storage.mdcSlots & (1L << slot)) != 0 ? toString(storage.slots[slot]) : null;
+        }
+        return storage.overflowMdcKeys != null && storage.overflowMdcKeys.contains(key) ? getString(key) : null;
     }
 
     public Map<String, Object> getAttributes() {
+        Storage storage = this.storage;
+        Map<String, Object> attributes = new HashMap<>();
+        for (long bits = storage.present; bits != 0; bits &= bits - 1) {
+            int slot = Long.numberOfTrailingZeros(bits);
+            attributes.put(ContextSlots.KEYS[slot], storage.slots[slot]);
+        }
+        if (storage.overflow != null) {
+            attributes.putAll(storage.overflow);
+        }
         return Collections.unmodifiableMap(attributes);
     }
 
     /**
      * Clear the context and remove any keys that were added to the {@link MDC}
+     * <p>
+     * The context is reset in place and keeps its storage for the next request, unless a copy still shares it.
      */
     public void clear() {
-        attributes.clear();
-        mdcKeys.clear();
+        if (storage.shared) {
+            storage = new Storage();
+            return;
+        }
+        storage.clear();
+    }
+
+    /**
+     * @return an independent copy of this context, e.g. to hand over to another thread. The values are only copied
+     * once either context is changed.
+     */
+    public Context copy() {
+        storage.shared = true;
+        return new Context(storage);
+    }
+
+    /**
+     * @return a copy of this context remembering it, so a propagation scope can bind this very instance back once it
+     * closes, see {@link #source()}
+     */
+    Context snapshot() {
+        Context snapshot = copy();
+        snapshot.source = this;
+        return snapshot;
+    }
+
+    /**
+     * @return the context this one was copied from by {@link #snapshot()}, or this context
+     */
+    Context source() {
+        return source == null ? this : source;
     }
 
     public String getString(String key) {
-        Object obj = get(key);
+        return toString(get(key));
+    }
+
+    public void markAsMdc(String key) {
+        Storage storage = writable();
+        int slot = ContextSlots.indexOf(key);
+        if (slot >= 0) {
+            storage.mdcSlots |= 1L << slot;
+        } else {
+            if (storage.overflowMdcKeys == null) {
+                storage.overflowMdcKeys = new HashSet<>(4);
+            }
+            storage.overflowMdcKeys.add(key);
+        }
+    }
+
+    public void remove(String key) {
+        Storage storage = writable();
+        int slot = ContextSlots.indexOf(key);
+        if (slot >= 0) {
+            storage.slots[slot] = null;
+            storage.present &= ~(1L << slot);
+            storage.mdcSlots &= ~(1L << slot);
+            return;
+        }
+        if (storage.overflow != null) {
+            storage.overflow.remove(key);
+        }
+        if (storage.overflowMdcKeys != null) {
+            storage.overflowMdcKeys.remove(key);
+        }
+    }
+
+    public boolean hasKey(String key) {
+        if (key == null) {
+            return false;
+        }
+        Storage storage = this.storage;
+        int slot = ContextSlots.indexOf(key);
+        if (slot >= 0) {
+            return ((storage.present | storage.mdcSlots) & (1L << slot)) != 0;
+        }
+        return (storage.overflow != null && storage.overflow.containsKey(key))
+                || (storage.overflowMdcKeys != null && storage.overflowMdcKeys.contains(key));
+    }
+
+    // the storage to write to, duplicated first if a copy shares it
+    private Storage writable() {
+        Storage current = storage;
+        if (current.shared) {
+            current = current.copy();
+            storage = current;
+        }
+        return current;
+    }
+
+    private static String toString(Object obj) {
         if (obj == null) {
             return null;
         }
@@ -99,18 +314,49 @@ public class Context {
         return obj.toString();
     }
 
-    public void markAsMdc(String key) {
-        mdcKeys.add(key);
-    }
+    // The values of a context. Once shared with a copy, it is never written to again, by either context.
+    private static final class Storage {
+        private final Object[] slots = new Object[ContextSlots.SIZE];
+        // bit i set when slot i holds a value / is marked for the MDC
+        private long present;
+        private long mdcSlots;
+        private Map<String, Object> overflow;
+        private Set<String> overflowMdcKeys;
+        private boolean shared;
 
-    public void remove(String key) {
-        attributes.remove(key);
-        if (mdcKeys.contains(key)) {
-            mdcKeys.remove(key);
+        private Map<String, Object> overflow() {
+            if (overflow == null) {
+                overflow = new HashMap<>();
+            }
+            return overflow;
         }
-    }
 
-    public boolean hasKey(String key) {
-        return key != null && (attributes.containsKey(key) || mdcKeys.contains(key));
+        private void clear() {
+            for (long bits = present; bits != 0; bits &= bits - 1) {
+                slots[Long.numberOfTrailingZeros(bits)] = null;
+            }
+            present = 0;
+            mdcSlots = 0;
+            if (overflow != null) {
+                overflow.clear();
+            }
+            if (overflowMdcKeys != null) {
+                overflowMdcKeys.clear();
+            }
+        }
+
+        private Storage copy() {
+            Storage copy = new Storage();
+            System.arraycopy(slots, 0, copy.slots, 0, slots.length);
+            copy.present = present;
+            copy.mdcSlots = mdcSlots;
+            if (overflow != null && !overflow.isEmpty()) {
+                copy.overflow = new HashMap<>(overflow);
+            }
+            if (overflowMdcKeys != null && !overflowMdcKeys.isEmpty()) {
+                copy.overflowMdcKeys = new HashSet<>(overflowMdcKeys);
+            }
+            return copy;
+        }
     }
 }
@@ -0,0 +1,42 @@
+package com.observability.sre_logging.core.context;
+
+/**
+ * Holds the {@link Context} of the unit of work running on the current thread.
+ * <p>
+ * The carrier used by {@link Context#getScopedContext()} is pluggable through {@link Context#setCarrier(ContextCarrier)},
+ * e.g. to keep the context in an {@link InheritableThreadLocal} or a framework's own request scope instead of the
+ * default {@link ThreadLocalContextCarrier}. Callers bind and unbind the context with {@link #set(Context)} and
+ * {@link #clear()} at arbitrary points, so the carrier needs mutable per-thread storage.
+ */
+public interface ContextCarrier {
+
+    /**
+     * @return the current context, created and bound if there is none yet
+     */
+    Context get();
+
+    /**
+     * @return the current context, or null if none is bound
+     */
+    Context getIfPresent();
+
+    /**
+     * Binds the context to the current thread, or unbinds the current one if null.
+     */
+    void set(Context context);
+
+    /**
+     * Unbinds the current context.
+     */
+    default void clear() {
+        set(null);
+    }
+
+    /**
+     * Called once a request is done with the (already cleared) context. Carriers may keep it for reuse by the next
+     * request on the same thread, or drop it.
+     */
+    default void release() {
+        clear();
+    }
+}
@@ -0,0 +1,92 @@
+package com.observability.sre_logging.core.context;
+
+import com.observability.sre_logging.core.logging.MDCUtils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Wraps tasks so they run with a copy of the {@link Context} of the thread that created them, e.g. when handing work
+ * to an {@link Executor} or a {@link java.util.concurrent.CompletableFuture}.
+ * <p>
+ * The context is copied when the task is wrapped, so the task keeps its values after the originating request has
+ * cleared its own context. The previous context of the executing thread, and its MDC keys, are restored once the task
+ * completes, which matters when the task runs on the submitting thread (e.g. a caller-runs rejection policy).
+ */
+public class ContextPropagation {
+
+    private ContextPropagation() {
+        throw new java.lang.UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static Runnable wrapRunnable(Runnable task) {
+        Context captured = capture();
+        return () -> {
+            Context previous = attach(captured);
+            try {
+                task.run();
+            } finally {
+                detach(captured, previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrapCallable(Callable<T> task) {
+        Context captured = capture();
+        return () -> {
+            Context previous = attach(captured);
+            try {
+                return task.call();
+            } finally {
+                detach(captured, previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps a supplier, for {@link java.util.concurrent.CompletableFuture#supplyAsync(Supplier, Executor)}.
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        Context captured = capture();
+        return () -> {
+            Context previous = attach(captured);
+            try {
+                return task.get();
+            } finally {
+                detach(captured, previous);
+            }
+        };
+    }
+
+    /**
+     * @return an executor running every submitted task with the context of the submitting thread
+     */
+    public static Executor wrapExecutor(Executor executor) {
+        return command -> executor.execute(wrapRunnable(command));
+    }
+
+    private static Context capture() {
+        Context current = Context.getCarrier().getIfPresent();
+        return current == null ? null : current.copy();
+    }
+
+    private static Context attach(Context captured) {
+        ContextCarrier carrier = Context.getCarrier();
+        Context previous = carrier.getIfPresent();
+        if (captured != null) {
+            carrier.set(captured);
+            MDCUtils.initializeMDC(captured);
+        }
+        return previous;
+    }
+
+    private static void detach(Context captured, Context previous) {
+        if (captured != null) {
+            MDCUtils.cleanupMDC(captured);
+            Context.getCarrier().set(previous);
+            // the task may have run on the submitting thread, whose MDC keys were just removed with the captured ones
+            MDCUtils.initializeMDC(previous);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.observability.sre_logging.core.context;
+
+/**
+ * Assigns a fixed slot to every well-known {@link ContextKeys} key, so {@link Context} can store them in an array.
+ * <p>
+ * Lookups compare by identity first, as the keys are usually the interned {@link ContextKeys} constants, and fall
+ * back to {@link String#equals(Object)}.
+ */
+final class ContextSlots {
+    static final String[] KEYS = {
+            ContextKeys.TRACE_ID,
+            ContextKeys.SPAN_ID,
+            ContextKeys.PARENT_SPAN_ID,
+            ContextKeys.CORRELATION_ID,
+            ContextKeys.SESSION_ID,
+            ContextKeys.PROTOCOL,
+            ContextKeys.REMOTE_APPLICATION_ID,
+            ContextKeys.REMOTE_APPLICATION_MODULE,
+            ContextKeys.REMOTE_HOST,
+            ContextKeys.USER_AGENT,
+            ContextKeys.USER,
+            ContextKeys.CHANNEL_TYPE,
+            ContextKeys.APPLICATION_ID,
+            ContextKeys.APPLICATION_MODULE,
+            ContextKeys.API_CLIENT_ID,
+            ContextKeys.API_SIGNATURE,
+            ContextKeys.API_SIGNATURE_URL,
+            ContextKeys.DP_OWNER,
+            ContextKeys.PATH_PARAMS,
+            ContextKeys.QUERY_PARAMS,
+            ContextKeys.SESSION_CACHE,
+            ContextKeys.SESSION_CACHE_KEY,
+            ContextKeys.SESSION_CACHE_COOKIE_NM,
+            ContextKeys.SESSION_CACHE_COOKIE_VAL,
+            ContextKeys.SESSION_CACHE_ADDR,
+            ContextKeys.REMOTE_EXECUTION_TIMESTAMP,
+            ContextKeys.REMOTE_PUBLISH_TIMESTAMP,
+            ContextKeys.REMOTE_EVENT_ID,
+            ContextKeys.REMOTE_EVENT_TYPE,
+            ContextKeys.REMOTE_EVENT_VERSION,
+            ContextKeys.ERROR_CODE,
+            ContextKeys.ERROR_CATEGORY,
+            ContextKeys.ERROR_MESSAGE,
+            ContextKeys.ERROR_CODE_DIGITAL,
+            ContextKeys.EVENT_START,
+            ContextKeys.DESTINATION_HOST,
+            ContextKeys.DESTINATION_PATH,
+            ContextKeys.RESPONSE_TIME
+    };
+    static final int SIZE = KEYS.length;
+
+    private static final int TABLE_MASK = 127;
+    private static final String[] TABLE_KEYS = new String[TABLE_MASK + 1];
+    private static final int[] TABLE_SLOTS = new int[TABLE_MASK + 1];
+
+    static {
+        if (SIZE > Long.SIZE) {
+            throw new IllegalStateException("Context supports at most " + Long.SIZE + " well-known keys");
+        }
+        for (int slot = 0; slot < SIZE; slot++) {
+            int i = spread(KEYS[slot].hashCode());
+            while (TABLE_KEYS[i] != null) {
+                if (TABLE_KEYS[i].equals(KEYS[slot])) {
+                    throw new IllegalStateException("Duplicate context key " + KEYS[slot]);
+                }
+                i = (i + 1) & TABLE_MASK;
+            }
+            TABLE_KEYS[i] = KEYS[slot];
+            TABLE_SLOTS[i] = slot;
+        }
+    }
+
+    private ContextSlots() {
+        throw new java.lang.UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return the slot of a well-known key, or -1 for an ad-hoc key
+     */
+    static int indexOf(String key) {
+        int i = spread(key.hashCode());
+        String candidate;
+        while ((candidate = TABLE_KEYS[i]) != null) {
+            if (candidate == key || candidate.equals(key)) {
+                return TABLE_SLOTS[i];
+            }
+            i = (i + 1) & TABLE_MASK;
+        }
+        return -1;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & TABLE_MASK;
+    }
+}
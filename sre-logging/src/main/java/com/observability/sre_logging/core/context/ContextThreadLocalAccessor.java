@@ -0,0 +1,50 @@
+package com.observability.sre_logging.core.context;
+
+import com.observability.sre_logging.core.logging.MDCUtils;
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * Micrometer context-propagation accessor that binds a {@link Context} to the current thread through the
+ * {@link ContextCarrier} and copies its MDC keys, registered with the {@code ContextRegistry} through
+ * {@code META-INF/services}.
+ * <p>
+ * Used by {@link ReactiveContext} to restore the context stored in the Reactor context around a log call.
+ * <p>
+ * The bound context is reused by the next request on the thread once cleared, so captures get a copy of it, as
+ * {@link ContextPropagation} does. The copy is copy-on-write, a capture costs one small object and the values are
+ * only copied if the request changes or reuses its context while the copy is alive. Context-propagation also reads
+ * the previous value through {@link #getValue()} whenever it opens a scope, which is why the capture must stay that
+ * cheap. A scope restoring a copy binds back the context it was copied from, not the copy.
+ */
+public class ContextThreadLocalAccessor implements ThreadLocalAccessor<Context> {
+    public static final String KEY = Context.class.getName();
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public Context getValue() {
+        Context current = Context.getCarrier().getIfPresent();
+        return current == null ? null : current.snapshot();
+    }
+
+    @Override
+    public void setValue(Context value) {
+        Context.getCarrier().set(value);
+        MDCUtils.initializeMDC(value);
+    }
+
+    @Override
+    public void setValue() {
+        MDCUtils.cleanupMDC(Context.getCarrier().getIfPresent());
+        Context.getCarrier().set(null);
+    }
+
+    @Override
+    public void restore(Context previousValue) {
+        MDCUtils.cleanupMDC(Context.getCarrier().getIfPresent());
+        setValue(previousValue == null ? null : previousValue.source());
+    }
+}
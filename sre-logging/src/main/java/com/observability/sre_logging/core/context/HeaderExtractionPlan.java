@@ -0,0 +1,126 @@
+package com.observability.sre_logging.core.context;
+
+import com.observability.sre_logging.core.HeaderKeys;
+
+import java.util.List;
+
+/**
+ * Precompiled mapping of request headers to {@link Context} keys, built once from {@link HeaderKeys.HttpType}.
+ * <p>
+ * Header names are matched ignoring ASCII case through an open addressing table, so a request can be processed by
+ * walking its headers a single time instead of asking for every known header.
+ */
+public final class HeaderExtractionPlan {
+    /**
+     * @param header     the header to read
+     * @param contextKey the key to store the value with
+     * @param mdc        if true the value is also marked for the MDC
+     */
+    public record Rule(HeaderKeys.HttpType header, String contextKey, boolean mdc) {
+        public Rule {
+            if (header == null) {
+                throw new IllegalArgumentException("header cant be null");
+            }
+            if (contextKey == null) {
+                throw new IllegalArgumentException("contextKey cant be null");
+            }
+        }
+
+        /**
+         * Maps the header to its {@link HeaderKeys.HttpType#getContextKey()}.
+         */
+        public Rule(HeaderKeys.HttpType header, boolean mdc) {
+            this(header, header.getContextKey(), mdc);
+        }
+    }
+
+    private final Rule[] rules;
+    private final int mask;
+    private final String[] tableNames;
+    private final int[] tableRules;
+
+    public HeaderExtractionPlan(List<Rule> rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("rules cant be null");
+        }
+        if (rules.size() > Long.SIZE) {
+            throw new IllegalArgumentException("A plan supports at most " + Long.SIZE + " rules");
+        }
+        this.rules = rules.toArray(new Rule[0]);
+        int capacity = Integer.highestOneBit(Math.max(this.rules.length, 1) * 4 - 1) << 1;
+        this.mask = capacity - 1;
+        this.tableNames = new String[capacity];
+        this.tableRules = new int[capacity];
+        for (int r = 0; r < this.rules.length; r++) {
+            String name = this.rules[r].header().getKey();
+            int i = hash(name) & mask;
+            while (tableNames[i] != null) {
+                if (tableNames[i].equalsIgnoreCase(name)) {
+                    throw new IllegalArgumentException("Duplicate header " + name);
+                }
+                i = (i + 1) & mask;
+            }
+            tableNames[i] = name;
+            tableRules[i] = r;
+        }
+    }
+
+    /**
+     * @return the index of the rule for the header, ignoring case, or -1 if the header is not part of the plan
+     */
+    public int indexOf(String headerName) {
+        if (headerName == null) {
+            return -1;
+        }
+        int i = hash(headerName) & mask;
+        String candidate;
+        while ((candidate = tableNames[i]) != null) {
+            if (candidate == headerName || candidate.equalsIgnoreCase(headerName)) {
+                return tableRules[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the rule for the header, or -1 if the header is not part of the plan
+     */
+    public int indexOf(HeaderKeys.HttpType header) {
+        for (int r = 0; r < rules.length; r++) {
+            if (rules[r].header() == header) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    public Rule rule(int index) {
+        return rules[index];
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * Stores the header value as described by the rule, null values are ignored by the {@link Context}
+     */
+    public void put(Context context, int index, String value) {
+        Rule rule = rules[index];
+        context.put(rule.contextKey(), value, rule.mdc());
+    }
+
+    // ASCII case insensitive, consistent with String#equalsIgnoreCase for header names
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0, n = name.length(); i < n; i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+}
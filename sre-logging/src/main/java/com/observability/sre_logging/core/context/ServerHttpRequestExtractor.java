@@ -0,0 +1,11 @@
+package com.observability.sre_logging.core.context;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Reactive counterpart of {@link HttpRequestExtractor}.
+ */
+@FunctionalInterface
+public interface ServerHttpRequestExtractor {
+    void extract(Context context, ServerHttpRequest request);
+}
@@ -0,0 +1,110 @@
+package com.observability.sre_logging.core.context;
+
+/**
+ * Parses the {@code sessioncache} header, a list of {@code key=value} elements separated by {@code ;}.
+ * <p>
+ * Elements are trimmed and split on {@code =} like {@code element.trim().split("=")}: trailing {@code =} are dropped,
+ * elements that are not then exactly one key and one non-empty value are ignored. Unlike a map collector, a
+ * duplicate key does not fail the request, its last value wins. Elements with an empty key are ignored. The header is
+ * valid when the {@link ContextKeys#SESSION_CACHE_KEY}, {@link ContextKeys#SESSION_CACHE_COOKIE_NM},
+ * {@link ContextKeys#SESSION_CACHE_COOKIE_VAL} and {@link ContextKeys#SESSION_CACHE_ADDR} elements have text.
+ * Validation works on offsets into the header and allocates nothing, strings are only created for the values that
+ * are put into the {@link Context}.
+ */
+public final class SessionCacheTokenizer {
+    private static final String[] REQUIRED_KEYS = {
+            ContextKeys.SESSION_CACHE_KEY,
+            ContextKeys.SESSION_CACHE_COOKIE_NM,
+            ContextKeys.SESSION_CACHE_COOKIE_VAL,
+            ContextKeys.SESSION_CACHE_ADDR
+    };
+    private static final int ALL_REQUIRED = (1 << REQUIRED_KEYS.length) - 1;
+
+    private SessionCacheTokenizer() {
+        throw new java.lang.UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return true if the session cache holds all required elements
+     */
+    public static boolean isValid(String sessionCache) {
+        return sessionCache != null && tokenize(sessionCache, null) == ALL_REQUIRED;
+    }
+
+    /**
+     * Puts the session cache and each of its elements into the context (not the MDC), if it is valid.
+     *
+     * @return false if the session cache is invalid, in which case nothing is put into the context
+     */
+    public static boolean putIntoContext(Context context, String sessionCache) {
+        if (!isValid(sessionCache)) {
+            return false;
+        }
+        context.put(ContextKeys.SESSION_CACHE, sessionCache, false);
+        tokenize(sessionCache, context);
+        return true;
+    }
+
+    /**
+     * Walks the elements, putting them into the context if one is given.
+     *
+     * @return the bit set of the required keys that were found with text
+     */
+    private static int tokenize(String value, Context context) {
+        int found = 0;
+        int length = value.length();
+        int start = 0;
+        while (start < length) {
+            int end = value.indexOf(';', start);
+            if (end < 0) {
+                end = length;
+            }
+            // trim the element
+            int from = start;
+            int to = end;
+            while (from < to && value.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && value.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            // split drops trailing empty strings
+            while (to > from && value.charAt(to - 1) == '=') {
+                to--;
+            }
+            int equals = value.indexOf('=', from);
+            if (equals > from && equals < to && value.lastIndexOf('=', to - 1) == equals) {
+                if (context == null) {
+                    int required = requiredKey(value, from, equals);
+                    if (required >= 0 && hasText(value, equals + 1, to)) {
+                        found |= 1 << required;
+                    }
+                } else {
+                    context.put(value.substring(from, equals), value.substring(equals + 1, to), false);
+                }
+            }
+            start = end + 1;
+        }
+        return found;
+    }
+
+    private static int requiredKey(String value, int from, int to) {
+        int length = to - from;
+        for (int i = 0; i < REQUIRED_KEYS.length; i++) {
+            String key = REQUIRED_KEYS[i];
+            if (key.length() == length && value.regionMatches(from, key, 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasText(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
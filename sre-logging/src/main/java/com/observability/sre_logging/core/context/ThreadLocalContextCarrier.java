@@ -0,0 +1,43 @@
+package com.observability.sre_logging.core.context;
+
+/**
+ * Default {@link ContextCarrier}, backed by a {@link ThreadLocal}.
+ * <p>
+ * On platform threads the context is kept after {@link #release()}, so pooled threads reuse the same instance from
+ * one request to the next. Virtual threads are not pooled, so the context is dropped on release instead of staying
+ * reachable from a short-lived thread.
+ */
+public class ThreadLocalContextCarrier implements ContextCarrier {
+    private final ThreadLocal<Context> context = new ThreadLocal<>();
+
+    @Override
+    public Context get() {
+        Context current = context.get();
+        if (current == null) {
+            current = new Context();
+            context.set(current);
+        }
+        return current;
+    }
+
+    @Override
+    public Context getIfPresent() {
+        return context.get();
+    }
+
+    @Override
+    public void set(Context context) {
+        if (context == null) {
+            this.context.remove();
+        } else {
+            this.context.set(context);
+        }
+    }
+
+    @Override
+    public void release() {
+        if (Thread.currentThread().isVirtual()) {
+            context.remove();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.env.Environment;
 
 import java.io.IOException;
+import java.util.List;
 
 public class ContextFilter implements Filter {
     org.slf4j.Logger log =  org.slf4j.LoggerFactory.getLogger(ContextFilter.class);
@@ -17,6 +18,8 @@ public class ContextFilter implements Filter {
     private boolean enabled;
     private String applicationName;
     private String applicationId;
+    // resolved on the first request, so extractors defined after the filter are picked up
+    private volatile List<HttpRequestExtractor> httpRequestExtractors;
 
     public ContextFilter(ObjectProvider<HttpRequestExtractor> httpRequestExtractorSet, boolean enabled, Environment environment) {
         this.httpRequestExtractorSet = httpRequestExtractorSet;
@@ -35,8 +38,10 @@ public class ContextFilter implements Filter {
         Context context = Context.getScopedContext();
         try {
             // Add request level data to context
-            if (enabled && servletRequest instanceof HttpServletRequest) {
-
+            if (enabled && servletRequest instanceof HttpServletRequest httpServletRequest) {
+                for (HttpRequestExtractor extractor : httpRequestExtractors()) {
+                    extractor.extract(context, httpServletRequest);
+                }
             }
             // Add global application metadata to context
             context.put(ContextKeys.APPLICATION_ID, this.applicationId);
@@ -47,7 +52,17 @@ public class ContextFilter implements Filter {
         } finally {
             MDCUtils.cleanupMDC(context);
             context.clear();
+            Context.releaseScopedContext();
+        }
+    }
+
+    private List<HttpRequestExtractor> httpRequestExtractors() {
+        List<HttpRequestExtractor> extractors = httpRequestExtractors;
+        if (extractors == null) {
+            extractors = httpRequestExtractorSet.orderedStream().toList();
+            httpRequestExtractors = extractors;
         }
+        return extractors;
     }
 
     @Override
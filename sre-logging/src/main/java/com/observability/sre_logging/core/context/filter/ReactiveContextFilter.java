@@ -0,0 +1,67 @@
+package com.observability.sre_logging.core.context.filter;
+
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.core.context.ReactiveContext;
+import com.observability.sre_logging.core.context.ServerHttpRequestExtractor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux counterpart of {@link ContextFilter}.
+ * <p>
+ * Every exchange gets its own {@link Context}, stored in the Reactor context under {@link ReactiveContext#KEY}
+ * rather than in a thread local, so it follows the request across event loop threads. Use {@link ReactiveContext}
+ * to log with its MDC keys.
+ */
+public class ReactiveContextFilter implements WebFilter {
+    org.slf4j.Logger log =  org.slf4j.LoggerFactory.getLogger(ReactiveContextFilter.class);
+    private ObjectProvider<ServerHttpRequestExtractor> serverHttpRequestExtractorSet;
+    private boolean enabled;
+    private String applicationName;
+    private String applicationId;
+    // resolved on the first request, so extractors defined after the filter are picked up
+    private volatile List<ServerHttpRequestExtractor> serverHttpRequestExtractors;
+
+    public ReactiveContextFilter(ObjectProvider<ServerHttpRequestExtractor> serverHttpRequestExtractorSet, boolean enabled, Environment environment) {
+        this.serverHttpRequestExtractorSet = serverHttpRequestExtractorSet;
+        this.enabled = enabled;
+        this.applicationId = environment.getProperty("spring.application.id", "unset");
+        this.applicationName = environment.getProperty("spring.application.name", "unset");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.deferContextual(contextView -> {
+            // an outer filter may already have created the context of the exchange
+            Context existing = ReactiveContext.get(contextView);
+            Context context = existing != null ? existing : new Context();
+            // Add request level data to context
+            if (enabled) {
+                for (ServerHttpRequestExtractor extractor : serverHttpRequestExtractors()) {
+                    extractor.extract(context, exchange.getRequest());
+                }
+            }
+            // Add global application metadata to context
+            context.put(ContextKeys.APPLICATION_ID, this.applicationId);
+            context.put(ContextKeys.APPLICATION_MODULE, this.applicationName);
+            Mono<Void> result = chain.filter(exchange);
+            return existing != null ? result : result.contextWrite(ReactiveContext.with(context));
+        });
+    }
+
+    private List<ServerHttpRequestExtractor> serverHttpRequestExtractors() {
+        List<ServerHttpRequestExtractor> extractors = serverHttpRequestExtractors;
+        if (extractors == null) {
+            extractors = serverHttpRequestExtractorSet.orderedStream().toList();
+            serverHttpRequestExtractors = extractors;
+        }
+        return extractors;
+    }
+}
@@ -1,8 +1,9 @@
 package com.observability.sre_logging.core.filter;
 
 
-import org.slf4j.MDC;
-import org.springframework.util.StringUtils;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ReactiveContext;
+import org.springframework.util.CollectionUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
@@ -10,21 +11,29 @@ import reactor.core.publisher.Mono;
 
 import java.util.Map;
 
+/**
+ * Adds default MDC values to the {@link Context} of the exchange held in the Reactor context (see
+ * {@link ReactiveContext}), creating it if no outer filter did. The thread local MDC cannot be used here, the chain
+ * only runs after this method returned and on other threads.
+ */
 public class WebFluxDefaultMDCValuesFilter implements WebFilter {
     private final Map<String, String> webfluxDefaultMdcValues;
 
     @Override
     public Mono<Void> filter(ServerWebExchange serverWebExchange, WebFilterChain webFilterChain) {
-        Mono<Void> result;
-        try {
-            if (!StringUtils.isEmpty(webfluxDefaultMdcValues)) {
-                webfluxDefaultMdcValues.forEach(MDC::put);
-            }
-            result = webFilterChain.filter(serverWebExchange);
-        } finally {
-            webfluxDefaultMdcValues.keySet().forEach(MDC::remove);
+        Mono<Void> result = webFilterChain.filter(serverWebExchange);
+        if (CollectionUtils.isEmpty(webfluxDefaultMdcValues)) {
+            return result;
         }
-        return result;
+        return result.contextWrite(reactorContext -> {
+            Context context = reactorContext.getOrDefault(ReactiveContext.KEY, null);
+            if (context == null) {
+                context = new Context();
+                reactorContext = reactorContext.put(ReactiveContext.KEY, context);
+            }
+            webfluxDefaultMdcValues.forEach(context::putMDC);
+            return reactorContext;
+        });
     }
 
     public WebFluxDefaultMDCValuesFilter(final Map<String, String> webfluxDefaultMdcValues) {
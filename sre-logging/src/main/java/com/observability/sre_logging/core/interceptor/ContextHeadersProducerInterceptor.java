@@ -0,0 +1,134 @@
+package com.observability.sre_logging.core.interceptor;
+
+import com.observability.sre_logging.core.HeaderKeys;
+import com.observability.sre_logging.core.context.Context;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Copies the MDC keys of the {@link Context} of the sending thread into the headers of every produced record, so
+ * {@link KafkaRecordContext} can restore them on the consumer side.
+ * <p>
+ * Context keys mapped by {@link HeaderKeys.HttpType} are sent under their header name (e.g. {@code trace-id} as
+ * {@code Trace-Id}), other keys under their own name. Headers already set on the record, under any case, are left
+ * untouched.
+ * <p>
+ * Header names are resolved once per context key. Each sending thread keeps the last header it built per key, with
+ * the value already encoded as UTF-8. As long as the value stays the same (e.g. all the records sent while handling
+ * one request), the same header instance is added again, so the value is not re-encoded and nothing is allocated per
+ * record.
+ */
+public class ContextHeadersProducerInterceptor implements ProducerInterceptor<Object, Object> {
+    private static final Map<String, String> HEADER_NAMES = new HashMap<>();
+
+    static {
+        for (HeaderKeys.HttpType type : HeaderKeys.HttpType.values()) {
+            if (type.getContextKey() != null) {
+                HEADER_NAMES.putIfAbsent(type.getContextKey(), type.getKey());
+            }
+        }
+    }
+
+    private final ThreadLocal<HeaderWriter> writers = ThreadLocal.withInitial(HeaderWriter::new);
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        Context context = Context.getCarrier().getIfPresent();
+        if (context != null && context.hasMdc()) {
+            HeaderWriter writer = writers.get();
+            writer.headers = record.headers();
+            // most records come without headers, there is nothing to look up then
+            writer.checkExisting = record.headers().iterator().hasNext();
+            try {
+                context.forEachMdc(writer);
+            } finally {
+                writer.headers = null;
+            }
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+        // not required
+    }
+
+    @Override
+    public void close() {
+        // not required
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        // not required
+    }
+
+    // Per thread, so the cached headers need no synchronization.
+    private static final class HeaderWriter implements BiConsumer<String, String> {
+        private final Map<String, ContextHeader> lastHeaders = new HashMap<>();
+        private Headers headers;
+        private boolean checkExisting;
+
+        @Override
+        public void accept(String contextKey, String value) {
+            if (value == null) {
+                return;
+            }
+            ContextHeader header = lastHeaders.get(contextKey);
+            if (header == null || !header.hasValue(value)) {
+                header = new ContextHeader(HEADER_NAMES.getOrDefault(contextKey, contextKey), value);
+                lastHeaders.put(contextKey, header);
+            }
+            if (!checkExisting || !hasHeader(header.key())) {
+                headers.add(header);
+            }
+        }
+
+        // ignoring case, as KafkaRecordContext matches the header names
+        private boolean hasHeader(String key) {
+            for (Header existing : headers) {
+                if (existing.key().equalsIgnoreCase(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Immutable header sharing its encoded value between the records it is added to.
+     */
+    private static final class ContextHeader implements Header {
+        private final String key;
+        private final String value;
+        private final byte[] encodedValue;
+
+        private ContextHeader(String key, String value) {
+            this.key = key;
+            this.value = value;
+            this.encodedValue = value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        boolean hasValue(String other) {
+            return value == other || value.equals(other);
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+
+        @Override
+        public byte[] value() {
+            return encodedValue;
+        }
+    }
+}
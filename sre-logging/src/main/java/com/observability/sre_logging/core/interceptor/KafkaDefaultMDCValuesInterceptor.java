@@ -1,12 +1,18 @@
 package com.observability.sre_logging.core.interceptor;
 
 import org.slf4j.MDC;
-import org.springframework.util.StringUtils;
+import org.springframework.util.CollectionUtils;
 import org.apache.kafka.clients.consumer.ConsumerInterceptor;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 
 import java.util.Map;
 
+/**
+ * Puts static default values into the {@link MDC} of the polling thread.
+ * <p>
+ * {@code onCommit} may run on another thread, so the values stay in place until the consumer is closed. For per
+ * record values taken from the record headers use {@link KafkaRecordContext}.
+ */
 public class KafkaDefaultMDCValuesInterceptor implements ConsumerInterceptor {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(KafkaDefaultMDCValuesInterceptor.class);
     private Map<String, String> kafkaDefaultMDCValuesMap;
@@ -14,7 +20,7 @@ public class KafkaDefaultMDCValuesInterceptor implements ConsumerInterceptor {
 
     @Override
     public ConsumerRecords onConsume (ConsumerRecords consumerRecords) {
-        if (!StringUtils.isEmpty(kafkaDefaultMDCValuesMap)) {
+        if (!CollectionUtils.isEmpty(kafkaDefaultMDCValuesMap)) {
             kafkaDefaultMDCValuesMap.forEach (MDC:: put);
         }
         return consumerRecords;
@@ -23,11 +29,14 @@ public class KafkaDefaultMDCValuesInterceptor implements ConsumerInterceptor {
 
     @Override
     public void onCommit (Map offsets) {
-        this.kafkaDefaultMDCValuesMap.keySet().forEach (MDC::remove);
+        // not required, may run on another thread than the poll
     }
 
     @Override
     public void close() {
+        if (!CollectionUtils.isEmpty(kafkaDefaultMDCValuesMap)) {
+            kafkaDefaultMDCValuesMap.keySet().forEach (MDC::remove);
+        }
     }
 
     @Override
@@ -0,0 +1,110 @@
+package com.observability.sre_logging.core.interceptor;
+
+import com.observability.sre_logging.core.context.ApiStandardsHttpRequestExtractor;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextCarrier;
+import com.observability.sre_logging.core.context.HeaderExtractionPlan;
+import com.observability.sre_logging.core.logging.MDCUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.header.Header;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Runs the processing of each consumed record with a {@link Context} built from the record headers, using the same
+ * {@link HeaderExtractionPlan} as the HTTP requests.
+ * <p>
+ * Header values are stored as is and only decoded when turned into a String. Combined with the lazy MDC of
+ * {@code ContextMDCAdapter}, a header value is only copied out of the record when an event is actually logged.
+ * {@link #forEach(ConsumerRecords, Consumer)} reuses one context for the whole batch, resetting it between records.
+ *
+ * <pre>{@code
+ * ConsumerRecords<String, String> records = consumer.poll(timeout);
+ * recordContext.forEach(records, record -> process(record));
+ * }</pre>
+ */
+public class KafkaRecordContext {
+    private final Map<String, String> defaultMdcValues;
+    private final HeaderExtractionPlan plan;
+
+    public KafkaRecordContext(Map<String, String> defaultMdcValues) {
+        this(defaultMdcValues, ApiStandardsHttpRequestExtractor.PLAN);
+    }
+
+    public KafkaRecordContext(Map<String, String> defaultMdcValues, HeaderExtractionPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("plan cant be null");
+        }
+        this.defaultMdcValues = defaultMdcValues == null ? Map.of() : Map.copyOf(defaultMdcValues);
+        this.plan = plan;
+    }
+
+    /**
+     * @return a new context holding the default MDC values and the headers of the record
+     */
+    public Context contextOf(ConsumerRecord<?, ?> record) {
+        Context context = new Context();
+        populate(context, record);
+        return context;
+    }
+
+    /**
+     * Runs the action with the context of the record bound to the current thread and the MDC.
+     */
+    public <K, V> void run(ConsumerRecord<K, V> record, Consumer<ConsumerRecord<K, V>> action) {
+        Context context = new Context();
+        ContextCarrier carrier = Context.getCarrier();
+        Context previous = carrier.getIfPresent();
+        try {
+            runBound(context, record, action);
+        } finally {
+            carrier.set(previous);
+        }
+    }
+
+    /**
+     * Runs the action for every record of the batch, each with the context of its record.
+     */
+    public <K, V> void forEach(ConsumerRecords<K, V> records, Consumer<ConsumerRecord<K, V>> action) {
+        Context context = new Context();
+        ContextCarrier carrier = Context.getCarrier();
+        Context previous = carrier.getIfPresent();
+        try {
+            for (ConsumerRecord<K, V> record : records) {
+                runBound(context, record, action);
+                context.clear();
+            }
+        } finally {
+            carrier.set(previous);
+        }
+    }
+
+    private <K, V> void runBound(Context context, ConsumerRecord<K, V> record, Consumer<ConsumerRecord<K, V>> action) {
+        populate(context, record);
+        Context.getCarrier().set(context);
+        MDCUtils.initializeMDC(context);
+        try {
+            action.accept(record);
+        } finally {
+            MDCUtils.cleanupMDC(context);
+        }
+    }
+
+    private void populate(Context context, ConsumerRecord<?, ?> record) {
+        for (Map.Entry<String, String> defaultMdcValue : defaultMdcValues.entrySet()) {
+            context.putMDC(defaultMdcValue.getKey(), defaultMdcValue.getValue());
+        }
+        for (Header header : record.headers()) {
+            int rule = plan.indexOf(header.key());
+            if (rule >= 0) {
+                HeaderExtractionPlan.Rule target = plan.rule(rule);
+                context.put(target.contextKey(), new LazyHeaderValue(header));
+                if (target.mdc()) {
+                    context.markAsMdc(target.contextKey());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.observability.sre_logging.core.interceptor;
+
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Kafka header value stored in the {@link com.observability.sre_logging.core.context.Context} as is. The header
+ * bytes are only read and decoded as UTF-8 the first time the value is turned into a String, e.g. when an event is
+ * logged with it.
+ */
+final class LazyHeaderValue {
+    private final Header header;
+    private String value;
+
+    LazyHeaderValue(Header header) {
+        this.header = header;
+    }
+
+    @Override
+    public String toString() {
+        String decoded = value;
+        if (decoded == null) {
+            byte[] bytes = header.value();
+            decoded = bytes == null ? "" : new String(bytes, StandardCharsets.UTF_8);
+            value = decoded;
+        }
+        return decoded;
+    }
+}
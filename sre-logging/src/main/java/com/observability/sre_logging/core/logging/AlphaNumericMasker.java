@@ -1,21 +1,76 @@
 package com.observability.sre_logging.core.logging;
 
 
-import org.apache.commons.lang3.StringUtils;
+/**
+ * Masks the ASCII letters and digits of a value, keeping separators and punctuation.
+ * <p>
+ * When the mask length is greater than one, every run of letters and digits is replaced by exactly mask length
+ * characters, otherwise every letter and digit is replaced by a single mask character.
+ */
+public class AlphaNumericMasker extends DefaultMasker {
 
-import java.util.regex.Pattern;
+    public AlphaNumericMasker() {
+    }
 
-public class AlphaNumericMasker extends DefaultMasker {
-    private static final Pattern ALPHANUMERIC_GROUPS = Pattern.compile("[0-9A-Za-z]+");
-    private static final Pattern ALPHANUMERICS = Pattern.compile("[0-9A-Za-z]");
+    public AlphaNumericMasker(char maskCharacter, int maskLength, int exposedSuffixLength, boolean maskEntireShortValue) {
+        super(maskCharacter, maskLength, exposedSuffixLength, maskEntireShortValue);
+    }
 
     @Override
-    public String apply(String propertyValue) {
+    public int maskedLength(String propertyValue) {
+        int valueLength = propertyValue.length();
+        if (getMaskLength() <= 1) {
+            return valueLength;
+        }
+        int resultLength = 0;
+        boolean inGroup = false;
+        for (int i = 0; i < valueLength; i++) {
+            if (isAlphaNumeric(propertyValue.charAt(i))) {
+                if (!inGroup) {
+                    resultLength += getMaskLength();
+                    inGroup = true;
+                }
+            } else {
+                resultLength++;
+                inGroup = false;
+            }
+        }
+        return resultLength;
+    }
+
+    @Override
+    public void mask(String propertyValue, char[] destination) {
+        int valueLength = propertyValue.length();
+        char maskCharacter = getMaskCharacter();
         if (getMaskLength() > 1) {
-            String replacement = StringUtils.repeat(getMaskCharacter(), getMaskLength()); return ALPHANUMERIC_GROUPS.matcher (propertyValue).replaceAll(replacement);
+            int groupLength = getMaskLength();
+            int position = 0;
+            boolean inGroup = false;
+            for (int i = 0; i < valueLength; i++) {
+                char c = propertyValue.charAt(i);
+                if (isAlphaNumeric(c)) {
+                    if (!inGroup) {
+                        for (int j = 0; j < groupLength; j++) {
+                            destination[position++] = maskCharacter;
+                        }
+                        inGroup = true;
+                    }
+                } else {
+                    destination[position++] = c;
+                    inGroup = false;
+                }
+            }
         } else {
-            String replacement = String.valueOf(getMaskCharacter());
-            return ALPHANUMERICS.matcher (propertyValue).replaceAll(replacement);
+            propertyValue.getChars(0, valueLength, destination, 0);
+            for (int i = 0; i < valueLength; i++) {
+                if (isAlphaNumeric(destination[i])) {
+                    destination[i] = maskCharacter;
+                }
+            }
         }
     }
+
+    private static boolean isAlphaNumeric(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
 }
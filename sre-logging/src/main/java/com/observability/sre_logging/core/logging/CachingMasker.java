@@ -0,0 +1,133 @@
+package com.observability.sre_logging.core.logging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.NonNull;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Memoizes a {@link MaskerFunction}, so values that repeat, such as account numbers, emails or client ids, are only
+ * masked or hashed once per cache lifetime.
+ * <p>
+ * The cache is a bounded W-TinyLFU ({@link Caffeine}) cache with a time to live. Raw values are never stored: the
+ * key is the HMAC-SHA-256 of the value under a random per-instance key, so keys can neither be reversed with a
+ * dictionary nor compared across processes, and two values never share a result in practice. Hit rate, size and
+ * evictions are reported to Micrometer once bound to a {@link MeterRegistry}.
+ * <p>
+ * A lookup costs one HMAC-SHA-256, so the cache only pays in front of more expensive functions: HMAC or SHA-512
+ * hashing, custom transformers. The default maskers are cheaper than a lookup. Enabled for the {@link Masked} and
+ * {@code @Hashed} paths with {@link Maskers#enableCache(long, Duration, MeterRegistry)}.
+ */
+public class CachingMasker implements MaskerFunction, MeterBinder {
+    private static final String KEY_ALGORITHM = "HmacSHA256";
+
+    private final MaskerFunction delegate;
+    private final String name;
+    private final Cache<Key, String> cache;
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * @param delegate    the function to memoize
+     * @param name        the cache name reported in the metrics
+     * @param maximumSize the maximum number of cached values
+     * @param timeToLive  how long a value is cached after it was computed
+     */
+    public CachingMasker(@NonNull MaskerFunction delegate, @NonNull String name, long maximumSize, @NonNull Duration timeToLive) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cant be null");
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("name cant be null");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.delegate = delegate;
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.secretKey = new SecretKeySpec(keyBytes, KEY_ALGORITHM);
+        // fails fast when the algorithm is missing
+        newMac();
+    }
+
+    /**
+     * Configures the delegate and drops everything cached with the previous configuration.
+     */
+    @Override
+    public void configure(Map<String, Object> config) {
+        delegate.configure(config);
+        cache.invalidateAll();
+    }
+
+    @Override
+    public String apply(String value) {
+        Key key = digest(value);
+        String result = cache.getIfPresent(key);
+        if (result == null) {
+            result = delegate.apply(value);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    public MaskerFunction getDelegate() {
+        return delegate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public double hitRate() {
+        return cache.stats().hitRate();
+    }
+
+    private Key digest(String value) {
+        Mac mac = macs.get();
+        ByteBuffer digest = ByteBuffer.wrap(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        return new Key(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(KEY_ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create " + KEY_ALGORITHM, e);
+        }
+    }
+
+    private record Key(long first, long second, long third, long fourth) {
+    }
+}
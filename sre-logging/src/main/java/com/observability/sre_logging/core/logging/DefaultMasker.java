@@ -1,17 +1,39 @@
 package com.observability.sre_logging.core.logging;
 
-import org.apache.commons.lang3.StringUtils;
-
+import java.util.Arrays;
 import java.util.Map;
 
+/**
+ * Masks all but the last {@link #getExposedSuffixLength()} characters of a value.
+ * <p>
+ * Instances obtained from {@link Maskers} are shared between threads and can no longer be configured. The masked
+ * value is assembled in a per-thread scratch buffer, so the result string is the only allocation per call.
+ */
 public class DefaultMasker implements MaskerFunction{
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DefaultMasker.class);
+    private static final int MAX_SCRATCH_LENGTH = 1024;
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[128]);
+
     private char maskCharacter = Masked. MASK_DEFAULT;
     private int maskLength = Masked.MASK_LENGTH_DEFAULT;
     private int exposedSuffixLength = Masked. EXPOSED_SUFFIX_LENGTH_DEFAULT;
     private boolean maskEntireShortValue = Masked.MASK_ENTIRE_SHORT_VALUE_DEFAULT;
+    private volatile boolean shared;
+
+    public DefaultMasker() {
+    }
+
+    public DefaultMasker(char maskCharacter, int maskLength, int exposedSuffixLength, boolean maskEntireShortValue) {
+        this.maskCharacter = maskCharacter;
+        this.maskLength = maskLength;
+        this.exposedSuffixLength = exposedSuffixLength;
+        this.maskEntireShortValue = maskEntireShortValue;
+    }
 
     public void configure (Map<String, Object> config) {
+        if (shared) {
+            throw new IllegalStateException("Shared masker instances cant be reconfigured");
+        }
         if (config.containsKey(Masked. MASK_CONFIG)) {
             maskCharacter = String.valueOf(config.get(Masked.MASK_CONFIG)).charAt(0);
         }
@@ -28,32 +50,79 @@ public class DefaultMasker implements MaskerFunction{
 
     @Override
     public String apply(String value) {
-        StringBuilder sb = new StringBuilder();
-        int exposedLength = getExposedSuffixLength();
+        int resultLength = maskedLength(value);
+        char[] buffer = buffer(resultLength);
+        mask(value, buffer);
+        return new String(buffer, 0, resultLength);
+    }
+
+    /**
+     * @return the length of the masked value, the size {@link #mask(String, char[])} needs
+     */
+    public int maskedLength(String value) {
+        int valueLength = value.length();
+        return prefixLength(valueLength) + valueLength - unExposedLength(valueLength);
+    }
+
+    /**
+     * Writes the masked value at the start of the destination, e.g. a buffer owned by an encoder, without creating
+     * a string.
+     *
+     * @param destination at least {@link #maskedLength(String)} long
+     */
+    public void mask(String value, char[] destination) {
         int valueLength = value.length();
-        int unExposedLength;
+        int unExposedLength = unExposedLength(valueLength);
+        int prefixLength = prefixLength(valueLength);
+        Arrays.fill(destination, 0, prefixLength, maskCharacter);
+        value.getChars(unExposedLength, valueLength, destination, prefixLength);
+    }
+
+    private int unExposedLength(int valueLength) {
+        int exposedLength = exposedSuffixLength;
         if (valueLength > exposedLength) {
-            unExposedLength = valueLength - exposedLength;
-            while (unExposedLength < exposedLength) {
-                unExposedLength++;
-                exposedLength--;
-            }
-        } else if (isMaskEntireShortValue()) {
-            unExposedLength = valueLength;
-        } else {
-            if (valueLength > 0) {
-                unExposedLength = valueLength - 1;
-            } else {
-                unExposedLength = 0;
+            int unExposedLength = valueLength - exposedLength;
+            if (unExposedLength < exposedLength) {
+                // expose at most half of the value
+                unExposedLength = (valueLength + 1) / 2;
             }
+            return unExposedLength;
+        } else if (maskEntireShortValue) {
+            return valueLength;
+        } else if (valueLength > 0) {
+            return valueLength - 1;
         }
-        if (getMaskLength() > 0) {
-            sb.append(StringUtils.repeat(getMaskCharacter(), valueLength > 0 ? getMaskLength() : 0));
-        } else {
-            sb.append(StringUtils.repeat(getMaskCharacter(), unExposedLength));
+        return 0;
+    }
+
+    private int prefixLength(int valueLength) {
+        if (maskLength > 0) {
+            return valueLength > 0 ? maskLength : 0;
         }
-        sb.append(value.substring(unExposedLength));
-        return sb.toString();
+        return unExposedLength(valueLength);
+    }
+
+    /**
+     * Returns a scratch buffer of at least the given length. Buffers up to {@value #MAX_SCRATCH_LENGTH} characters
+     * are reused by the calling thread, only the result string copied out of them is allocated.
+     */
+    protected static char[] buffer(int length) {
+        if (length > MAX_SCRATCH_LENGTH) {
+            return new char[length];
+        }
+        char[] buffer = SCRATCH.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.min(MAX_SCRATCH_LENGTH, Math.max(length, buffer.length * 2))];
+            SCRATCH.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Marks this instance as shared, after which {@link #configure(Map)} is rejected.
+     */
+    void share() {
+        this.shared = true;
     }
 
     public char getMaskCharacter() {
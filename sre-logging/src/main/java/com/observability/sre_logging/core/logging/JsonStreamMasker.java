@@ -0,0 +1,144 @@
+package com.observability.sre_logging.core.logging;
+
+import com.fasterxml.jackson.core.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Masks JSON documents token by token, from a {@link Reader}/{@link InputStream} straight to a
+ * {@link Writer}/{@link OutputStream}, so request and response bodies are never materialized as a string.
+ * <p>
+ * Values are masked by field name (e.g. {@code email}) or by field path (e.g. {@code customer.address.zip}), array
+ * indexes are not part of a path. When the value of a masked field is an object or an array, every scalar inside it
+ * is masked. Memory use is bounded by the parser and generator buffers and the largest single value.
+ * <p>
+ * Instances are immutable and thread-safe, provided the configured {@link MaskerFunction}s are.
+ */
+public class JsonStreamMasker {
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+            .build()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Map<String, MaskerFunction> fieldMaskers;
+    private final PathRule[] pathRules;
+
+    /**
+     * @param fieldMaskers maskers keyed by field name, applied wherever the field appears
+     * @param pathMaskers  maskers keyed by dot separated field path from the document root
+     */
+    public JsonStreamMasker(Map<String, ? extends MaskerFunction> fieldMaskers, Map<String, ? extends MaskerFunction> pathMaskers) {
+        this.fieldMaskers = fieldMaskers == null ? Map.of() : new HashMap<>(fieldMaskers);
+        List<PathRule> rules = new ArrayList<>();
+        if (pathMaskers != null) {
+            pathMaskers.forEach((path, masker) -> rules.add(new PathRule(path.split("\\."), masker)));
+        }
+        this.pathRules = rules.toArray(new PathRule[0]);
+    }
+
+    public JsonStreamMasker(Map<String, ? extends MaskerFunction> fieldMaskers) {
+        this(fieldMaskers, null);
+    }
+
+    public void mask(Reader in, Writer out) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            mask(parser, generator);
+        }
+    }
+
+    public void mask(InputStream in, OutputStream out) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            mask(parser, generator);
+        }
+    }
+
+    /**
+     * Copies every token from the parser to the generator, masking the configured fields on the way.
+     *
+     * @param parser    the source of the tokens
+     * @param generator the target of the tokens, flushed but not closed
+     * @throws IOException if reading or writing fails or the document is not valid JSON
+     */
+    public void mask(JsonParser parser, JsonGenerator generator) throws IOException {
+        MaskerFunction activeMasker = null;
+        int activeDepth = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (activeMasker != null) {
+                // inside an object or array whose field is masked
+                if (token.isStructStart()) {
+                    activeDepth++;
+                } else if (token.isStructEnd()) {
+                    activeDepth--;
+                }
+                writeToken(parser, generator, token, activeMasker);
+                if (activeDepth == 0) {
+                    activeMasker = null;
+                }
+                continue;
+            }
+            if (token == JsonToken.FIELD_NAME) {
+                generator.copyCurrentEvent(parser);
+                MaskerFunction masker = maskerFor(parser);
+                if (masker != null) {
+                    JsonToken value = parser.nextToken();
+                    if (value.isStructStart()) {
+                        activeMasker = masker;
+                        activeDepth = 1;
+                    }
+                    writeToken(parser, generator, value, masker);
+                }
+                continue;
+            }
+            generator.copyCurrentEvent(parser);
+        }
+        generator.flush();
+    }
+
+    private static void writeToken(JsonParser parser, JsonGenerator generator, JsonToken token, MaskerFunction masker) throws IOException {
+        if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+            generator.writeString(masker.apply(parser.getText()));
+        } else {
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    private MaskerFunction maskerFor(JsonParser parser) throws IOException {
+        String name = parser.currentName();
+        MaskerFunction masker = fieldMaskers.get(name);
+        if (masker != null) {
+            return masker;
+        }
+        for (PathRule rule : pathRules) {
+            if (rule.matches(parser.getParsingContext())) {
+                return rule.masker;
+            }
+        }
+        return null;
+    }
+
+    private record PathRule(String[] segments, MaskerFunction masker) {
+
+        // Walks up the parsing context comparing field names, so matching a path allocates nothing.
+        boolean matches(JsonStreamContext context) {
+            int i = segments.length - 1;
+            for (JsonStreamContext ctx = context; ctx != null && !ctx.inRoot(); ctx = ctx.getParent()) {
+                if (ctx.inArray()) {
+                    continue;
+                }
+                if (i < 0 || !segments[i].equals(ctx.getCurrentName())) {
+                    return false;
+                }
+                i--;
+            }
+            return i < 0;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.observability.sre_logging.core.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Aho–Corasick automaton telling which of up to 64 keyword groups occur in a text, in a single pass over its
+ * characters whatever the number of keywords.
+ * <p>
+ * The automaton is compiled into a dense transition table over the characters used by the keywords, every other
+ * character maps to one shared column. Keywords are limited to ASCII, which is what field names and prefixes in log
+ * messages are. Immutable and thread-safe.
+ */
+final class KeywordFilter {
+    private static final int MAX_GROUPS = Long.SIZE;
+
+    private final byte[] columns = new byte[128];
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final long[] outputs;
+    private final long allGroups;
+
+    /**
+     * @param keywordGroups the keywords of each group, group i is reported as bit i
+     * @param ignoreCase    match ASCII letters case-insensitively
+     */
+    KeywordFilter(List<List<String>> keywordGroups, boolean ignoreCase) {
+        if (keywordGroups.size() > MAX_GROUPS) {
+            throw new IllegalArgumentException("At most " + MAX_GROUPS + " keyword groups are supported");
+        }
+        // column 0 is every character that is in no keyword
+        int alphabet = 1;
+        for (List<String> keywords : keywordGroups) {
+            for (String keyword : keywords) {
+                if (keyword == null || keyword.isEmpty()) {
+                    throw new IllegalArgumentException("keywords cant be empty");
+                }
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = fold(keyword.charAt(i), ignoreCase);
+                    if (c >= 128) {
+                        throw new IllegalArgumentException("Keyword [" + keyword + "] is not ASCII");
+                    }
+                    if (columns[c] == 0) {
+                        columns[c] = (byte) alphabet++;
+                    }
+                }
+            }
+        }
+        if (ignoreCase) {
+            for (char c = 'a'; c <= 'z'; c++) {
+                columns[Character.toUpperCase(c)] = columns[c];
+            }
+        }
+        this.alphabetSize = alphabet;
+
+        // trie, with -1 for missing edges
+        List<int[]> trie = new ArrayList<>();
+        List<Long> trieOutputs = new ArrayList<>();
+        trie.add(newState(alphabet));
+        trieOutputs.add(0L);
+        long groups = 0;
+        for (int group = 0; group < keywordGroups.size(); group++) {
+            for (String keyword : keywordGroups.get(group)) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int column = columns[fold(keyword.charAt(i), ignoreCase)];
+                    if (trie.get(state)[column] < 0) {
+                        trie.get(state)[column] = trie.size();
+                        trie.add(newState(alphabet));
+                        trieOutputs.add(0L);
+                    }
+                    state = trie.get(state)[column];
+                }
+                trieOutputs.set(state, trieOutputs.get(state) | 1L << group);
+                groups |= 1L << group;
+            }
+        }
+        this.allGroups = groups;
+
+        // breadth first, completing the missing edges with those of the failure state
+        int states = trie.size();
+        this.transitions = new int[states * alphabet];
+        this.outputs = new long[states];
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < alphabet; column++) {
+            int next = trie.get(0)[column];
+            if (next > 0) {
+                failure[next] = 0;
+                queue.add(next);
+                transitions[column] = next;
+            }
+        }
+        outputs[0] = trieOutputs.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = trieOutputs.get(state) | outputs[failure[state]];
+            for (int column = 0; column < alphabet; column++) {
+                int next = trie.get(state)[column];
+                if (next > 0) {
+                    failure[next] = transitions[failure[state] * alphabet + column];
+                    queue.add(next);
+                    transitions[state * alphabet + column] = next;
+                } else {
+                    transitions[state * alphabet + column] = transitions[failure[state] * alphabet + column];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the bit set of the groups with at least one keyword in the text, the scan stops once all are found
+     */
+    long match(CharSequence text) {
+        long found = 0;
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            state = transitions[state * alphabetSize + (c < 128 ? columns[c] : 0)];
+            long output = outputs[state];
+            if (output != 0) {
+                found |= output;
+                if (found == allGroups) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int[] newState(int alphabet) {
+        int[] edges = new int[alphabet];
+        Arrays.fill(edges, -1);
+        return edges;
+    }
+
+    private static char fold(char c, boolean ignoreCase) {
+        return ignoreCase && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,96 @@
+package com.observability.sre_logging.core.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs the calls of {@link Loggable} methods and times them into the {@value #TIMER_NAME} {@link io.micrometer.core.instrument.Timer},
+ * tagged with the class, the method and the outcome.
+ * <p>
+ * The level, the parameter names, the {@link Masked} parameters and return value, and the timers are resolved once
+ * per {@link Method} and target class into a {@link LoggablePlan}, as implementations of the same interface method
+ * differ in their logger, their timers and their {@link Masked} parameters. When the level is disabled, a call only costs the plan lookup, the
+ * level check and the timer, the arguments are not even read.
+ */
+@Aspect
+public class LoggableAspect {
+    public static final String TIMER_NAME = "loggable.method";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<MethodClassKey, LoggablePlan> plans = new ConcurrentHashMap<>();
+
+    public LoggableAspect() {
+        this(Metrics.globalRegistry);
+    }
+
+    public LoggableAspect(MeterRegistry meterRegistry) {
+        if (meterRegistry == null) {
+            throw new IllegalArgumentException("meterRegistry cant be null");
+        }
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.observability.sre_logging.core.logging.Loggable)")
+    public Object log(ProceedingJoinPoint joinPoint) throws Throwable {
+        LoggablePlan plan = plan(joinPoint);
+        boolean enabled = plan.isEnabled();
+        if (enabled) {
+            plan.logCall(joinPoint.getArgs());
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            plan.record(elapsed, false);
+            if (enabled) {
+                plan.logError(e, elapsed);
+            }
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        plan.record(elapsed, true);
+        if (enabled) {
+            plan.logReturn(result, elapsed);
+        }
+        return result;
+    }
+
+    private LoggablePlan plan(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object target = joinPoint.getTarget();
+        Class<?> targetClass = target != null ? ClassUtils.getUserClass(target) : method.getDeclaringClass();
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        LoggablePlan plan = plans.get(key);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(key, k -> createPlan(method, targetClass));
+        }
+        return plan;
+    }
+
+    private LoggablePlan createPlan(Method method, Class<?> targetClass) {
+        // the annotation may be on the implementation while the proxy is invoked through the interface
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        Loggable loggable = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Loggable.class);
+        if (loggable == null) {
+            loggable = AnnotatedElementUtils.findMergedAnnotation(method, Loggable.class);
+        }
+        if (loggable == null) {
+            throw new IllegalStateException("No @Loggable found on " + method);
+        }
+        return new LoggablePlan(specificMethod, targetClass, loggable, meterRegistry);
+    }
+}
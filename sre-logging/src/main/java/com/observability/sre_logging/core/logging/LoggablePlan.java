@@ -0,0 +1,135 @@
+package com.observability.sre_logging.core.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Everything {@link LoggableAspect} needs to log a {@link Loggable} method, resolved once per {@link Method} and target
+ * class.
+ */
+final class LoggablePlan {
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final Logger logger;
+    private final Level level;
+    private final String name;
+    private final String[] parameterNames;
+    // null for the parameters logged as is
+    private final Function<String, String>[] parameterMaskers;
+    private final boolean logParameters;
+    private final boolean logResponse;
+    private final Function<String, String> responseMasker;
+    private final Timer successTimer;
+    private final Timer errorTimer;
+
+    @SuppressWarnings("unchecked")
+    LoggablePlan(Method method, Class<?> targetClass, Loggable loggable, MeterRegistry meterRegistry) {
+        this.logger = LoggerFactory.getLogger(targetClass);
+        this.level = loggable.level();
+        this.name = targetClass.getSimpleName() + "." + method.getName();
+        this.logParameters = loggable.parameters() && method.getParameterCount() > 0;
+        this.logResponse = loggable.response() && method.getReturnType() != void.class;
+
+        String[] names = PARAMETER_NAMES.getParameterNames(method);
+        this.parameterNames = new String[method.getParameterCount()];
+        this.parameterMaskers = new Function[method.getParameterCount()];
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        AnnotatedType[] parameterTypes = method.getAnnotatedParameterTypes();
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterNames[i] = names != null ? names[i] : "arg" + i;
+            Masked masked = find(parameterAnnotations[i]);
+            if (masked == null) {
+                masked = parameterTypes[i].getAnnotation(Masked.class);
+            }
+            parameterMaskers[i] = masked != null ? Maskers.of(masked) : null;
+        }
+        Masked responseMasked = method.getAnnotation(Masked.class);
+        if (responseMasked == null) {
+            responseMasked = method.getAnnotatedReturnType().getAnnotation(Masked.class);
+        }
+        this.responseMasker = responseMasked != null ? Maskers.of(responseMasked) : null;
+
+        this.successTimer = timer(meterRegistry, targetClass, method, "success");
+        this.errorTimer = timer(meterRegistry, targetClass, method, "error");
+    }
+
+    boolean isEnabled() {
+        return logger.isEnabledForLevel(level);
+    }
+
+    void logCall(Object[] args) {
+        if (logParameters) {
+            logger.atLevel(level).log("{} called with {}", name, formatArguments(args));
+        } else {
+            logger.atLevel(level).log("{} called", name);
+        }
+    }
+
+    void logReturn(Object result, long elapsedNanos) {
+        if (logResponse) {
+            logger.atLevel(level).log("{} returned {} in {} ms", name, format(result, responseMasker), millis(elapsedNanos));
+        } else {
+            logger.atLevel(level).log("{} completed in {} ms", name, millis(elapsedNanos));
+        }
+    }
+
+    void logError(Throwable error, long elapsedNanos) {
+        logger.atLevel(level).log("{} failed after {} ms with {}", name, millis(elapsedNanos), error.toString());
+    }
+
+    void record(long elapsedNanos, boolean success) {
+        (success ? successTimer : errorTimer).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private String formatArguments(Object[] args) {
+        StringBuilder sb = new StringBuilder(32 * args.length);
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(parameterNames[i]).append('=').append(format(args[i], parameterMaskers[i]));
+        }
+        return sb.toString();
+    }
+
+    private static String format(Object value, Function<String, String> masker) {
+        if (value == null) {
+            return "null";
+        }
+        String text = String.valueOf(value);
+        return masker != null ? masker.apply(text) : text;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Masked find(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Masked masked) {
+                return masked;
+            }
+        }
+        return null;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Class<?> targetClass, Method method, String outcome) {
+        return Timer.builder(LoggableAspect.TIMER_NAME)
+                .description("Execution time of @Loggable methods")
+                .tag("class", targetClass.getName())
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -4,10 +4,11 @@ import com.observability.sre_logging.core.context.Context;
 import org.slf4j.MDC;
 import org.springframework.lang.NonNull;
 
-import java.util.Optional;
 import java.util.Set;
 
 public class MDCUtils {
+    private static volatile boolean lazyMdc;
+
     private MDCUtils() {
         throw new UnsupportedOperationException("this is a utility class and cannot be instantiated");
     }
@@ -16,12 +17,36 @@ public class MDCUtils {
         keys.forEach(MDC::remove);
     }
 
+    /**
+     * Copies the MDC keys of the context into the {@link MDC}, unless the MDC is resolved lazily from the context
+     * (see {@link #setLazyMdc(boolean)}).
+     */
     public static void initializeMDC(Context context) {
-        Optional.ofNullable(context).ifPresent(ctx -> ctx.getMdcKeys().forEach(key -> MDC.put(key, context.getString(key))));
+        if (context != null && !lazyMdc) {
+            context.forEachMdc(MDC::put);
+        }
     }
 
     public static void cleanupMDC(Context context) {
-        Optional.ofNullable(context).ifPresent(ctx -> ctx.getMdcKeys().forEach(MDC::remove));
+        if (context != null && !lazyMdc) {
+            context.forEachMdc(MDCUtils::removeKey);
+        }
+    }
+
+    private static void removeKey(String key, String value) {
+        MDC.remove(key);
+    }
+
+    /**
+     * Enables lazy mode, set once the logging backend resolves the context MDC keys itself when an event is logged,
+     * e.g. by {@code ContextMDCAdapter}.
+     */
+    public static void setLazyMdc(boolean lazy) {
+        lazyMdc = lazy;
+    }
+
+    public static boolean isLazyMdc() {
+        return lazyMdc;
     }
 
     public static void remove(@NonNull String key) {
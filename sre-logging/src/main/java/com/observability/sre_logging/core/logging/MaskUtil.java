@@ -4,9 +4,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.lang.NonNull;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class MaskUtil {
 
@@ -25,7 +25,7 @@ public class MaskUtil {
         if (object == null) {
             throw new java.lang.NullPointerException("object is marked non-null but is null");
         }
-        return () -> new DefaultMasker().apply(object.toString());
+        return () -> Maskers.defaultMasker().apply(object.toString());
     }
 
 
@@ -40,26 +40,23 @@ public class MaskUtil {
         if (object == null) {
             throw new java.lang.NullPointerException("object is marked non-null but is null");
         }
-        return () -> new AlphaNumericMasker().apply(object.toString());
+        return () -> Maskers.alphaNumericMasker().apply(object.toString());
     }
 
     public static <T> String alphaNow (@NonNull T object) {
         if (object == null) {
             throw new java.lang.NullPointerException("object is marked non-null but is null");
         }
-        return new AlphaNumericMasker().apply(object.toString());
+        return Maskers.alphaNumericMasker().apply(object.toString());
     }
 
     public static <T> String maskNow (@NonNull T object) {
         if (object == null) {
             throw new java.lang.NullPointerException("object is marked non-null but is null");
         }
-        return new DefaultMasker().apply(object.toString());
+        return Maskers.defaultMasker().apply(object.toString());
     }
 
-    private static final String DEFAULT_MASK_CHAR ="*";
-
-
     /**
      *
      * The method performs masking on the specified string message based on appropriate patterns passed.
@@ -81,6 +78,9 @@ public class MaskUtil {
      * <p>
      * Note: You can also pass in regular expression which can pass either of the patters
      * i.e. phone=([\d|\D]{0,6}) | "phone": ([\d\D]{0,6}) will match text pattern as well as json format
+     * <p>
+     * The patterns are compiled once into a {@link MaskingEngine} and every occurrence of every pattern is masked
+     * in a single pass. Only the first character of maskChar is used.
      *
      * @param message       The string that needs to be masked
      * @param maskPatterns  Regular expressions that need to be matched. The expression should contain the number of characters to match // @param mode Appropriate mode which needs to be enabled during the match
@@ -94,22 +94,27 @@ public class MaskUtil {
         if (maskPatterns == null || maskPatterns.isEmpty()) {
             return message;
         }
-        StringBuilder sb = new StringBuilder(message);
-        maskPatterns.forEach (pattern -> {
-            Matcher m = Pattern.compile(pattern, mode). matcher (sb.toString());
-            while (m.find()) {
-            }
-            replaceGroup (m, sb, (StringUtils.isBlank (maskChar)? DEFAULT_MASK_CHAR: maskChar));
-        });
-        return sb.toString();
+        char mask = StringUtils.isBlank (maskChar) ? MaskingEngine.DEFAULT_MASK_CHAR : maskChar.charAt(0);
+        return engineFor(maskPatterns, mode, mask).mask(message);
     }
 
-    // This method replaces the matched group with the masking character.
-    private static void replaceGroup (Matcher m, StringBuilder sb, String maskChar) {
-        for (int i = 1; i <= m.groupCount(); i++) {
-            if (m.group(i) != null) {
-                sb.replace(m.start(i), m.end(i), StringUtils.repeat(maskChar, (m.end(i) - m.start(i))));
+    // Callers usually pass the same constant pattern list, so the compiled engine is cached per pattern set.
+    // The cache is bounded so that dynamically built pattern lists cannot grow it indefinitely.
+    private static MaskingEngine engineFor (List<String> maskPatterns, int mode, char maskChar) {
+        EngineKey key = new EngineKey(maskPatterns, mode, maskChar);
+        MaskingEngine engine = ENGINES.get(key);
+        if (engine == null) {
+            engine = MaskingEngine.compile(maskPatterns, mode, maskChar);
+            if (ENGINES.size() < MAX_CACHED_ENGINES) {
+                ENGINES.putIfAbsent(new EngineKey(List.copyOf(maskPatterns), mode, maskChar), engine);
             }
         }
+        return engine;
+    }
+
+    private static final int MAX_CACHED_ENGINES = 256;
+    private static final Map<EngineKey, MaskingEngine> ENGINES = new ConcurrentHashMap<>();
+
+    private record EngineKey(List<String> maskPatterns, int mode, char maskChar) {
     }
 }
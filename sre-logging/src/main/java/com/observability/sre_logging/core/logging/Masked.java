@@ -3,7 +3,7 @@ package com.observability.sre_logging.core.logging;
 import java.lang.annotation.*;
 
 @Inherited
-@Target({ElementType.METHOD, ElementType.FIELD, ElementType.TYPE_PARAMETER, ElementType.TYPE_USE})
+@Target({ElementType.METHOD, ElementType.FIELD, ElementType.PARAMETER, ElementType.TYPE_PARAMETER, ElementType.TYPE_USE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Masked {
     char MASK_DEFAULT = '*';
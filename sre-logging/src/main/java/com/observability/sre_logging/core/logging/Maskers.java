@@ -0,0 +1,152 @@
+package com.observability.sre_logging.core.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of configured {@link MaskerFunction} instances, keyed by their {@link Masked} configuration.
+ * <p>
+ * {@link DefaultMasker} and {@link AlphaNumericMasker} instances returned from here are immutable and thread-safe.
+ * Custom transformers are created and configured once, and must therefore be thread-safe themselves. Once
+ * {@link #enableCache(long, Duration, MeterRegistry) enabled}, their results are cached by a {@link CachingMasker}.
+ */
+public class Maskers {
+    private static final Map<Key, MaskerFunction> MASKERS = new ConcurrentHashMap<>();
+    private static volatile CacheSettings cacheSettings;
+    private static final DefaultMasker DEFAULT_MASKER = (DefaultMasker) of(DefaultMasker.class, Masked.MASK_DEFAULT,
+            Masked.MASK_LENGTH_DEFAULT, Masked.EXPOSED_SUFFIX_LENGTH_DEFAULT, Masked.MASK_ENTIRE_SHORT_VALUE_DEFAULT);
+    private static final AlphaNumericMasker ALPHA_NUMERIC_MASKER = (AlphaNumericMasker) of(AlphaNumericMasker.class, Masked.MASK_DEFAULT,
+            Masked.MASK_LENGTH_DEFAULT, Masked.EXPOSED_SUFFIX_LENGTH_DEFAULT, Masked.MASK_ENTIRE_SHORT_VALUE_DEFAULT);
+
+    private Maskers() {
+        throw new java.lang.UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return The shared {@link DefaultMasker} with the default {@link Masked} configuration
+     */
+    public static DefaultMasker defaultMasker() {
+        return DEFAULT_MASKER;
+    }
+
+    /**
+     * @return The shared {@link AlphaNumericMasker} with the default {@link Masked} configuration
+     */
+    public static AlphaNumericMasker alphaNumericMasker() {
+        return ALPHA_NUMERIC_MASKER;
+    }
+
+    /**
+     * Caches the results of the custom {@link Masked} transformers and of the {@code @Hashed} hashers created from now
+     * on, such as {@code HashingMasker}, each in its own {@link CachingMasker}. Call it at startup, before the maskers
+     * are first used, e.g. from {@code MaskingConverterInitializer} with the {@code sre.logging.masking.cache}
+     * properties. {@link DefaultMasker} and {@link AlphaNumericMasker} are never cached, they are cheaper than a
+     * lookup.
+     *
+     * @param maximumSize the maximum number of values cached per masker
+     * @param timeToLive  how long a value is cached after it was computed
+     * @param registry    the registry the cache metrics are reported to, or null
+     */
+    public static synchronized void enableCache(long maximumSize, Duration timeToLive, MeterRegistry registry) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        cacheSettings = new CacheSettings(maximumSize, timeToLive, registry);
+        evictCacheable();
+    }
+
+    /**
+     * Stops caching the maskers created from now on.
+     */
+    public static synchronized void disableCache() {
+        cacheSettings = null;
+        evictCacheable();
+    }
+
+    // the maskers created from now on are wrapped, or not, the DefaultMasker ones never are
+    private static void evictCacheable() {
+        MASKERS.values().removeIf(masker -> !(masker instanceof DefaultMasker));
+    }
+
+    /**
+     * @param masker the masker to cache the results of
+     * @param name   the cache name reported in the metrics
+     * @return the masker behind a {@link CachingMasker} when the cache is enabled, else the masker itself
+     */
+    public static MaskerFunction cached(MaskerFunction masker, String name) {
+        CacheSettings settings = cacheSettings;
+        if (settings == null || masker instanceof CachingMasker) {
+            return masker;
+        }
+        CachingMasker cachingMasker = new CachingMasker(masker, name, settings.maximumSize(), settings.timeToLive());
+        if (settings.registry() != null) {
+            cachingMasker.bindTo(settings.registry());
+        }
+        return cachingMasker;
+    }
+
+    /**
+     * Gets the shared masker configured as described by the annotation.
+     *
+     * @param masked the annotation to read the configuration from
+     * @return the configured masker
+     */
+    public static MaskerFunction of(Masked masked) {
+        return of(masked.transformer(), masked.maskingCharacter(), masked.maskLength(), masked.exposedSuffixLength(),
+                masked.maskEntireShortValue());
+    }
+
+    public static MaskerFunction of(Class<? extends MaskerFunction> transformer, char maskCharacter, int maskLength,
+                                    int exposedSuffixLength, boolean maskEntireShortValue) {
+        Key key = new Key(transformer, maskCharacter, maskLength, exposedSuffixLength, maskEntireShortValue);
+        MaskerFunction masker = MASKERS.get(key);
+        if (masker == null) {
+            masker = MASKERS.computeIfAbsent(key, Maskers::create);
+        }
+        return masker;
+    }
+
+    private static MaskerFunction create(Key key) {
+        if (key.transformer() == DefaultMasker.class) {
+            return shared(new DefaultMasker(key.maskCharacter(), key.maskLength(), key.exposedSuffixLength(), key.maskEntireShortValue()));
+        }
+        if (key.transformer() == AlphaNumericMasker.class) {
+            return shared(new AlphaNumericMasker(key.maskCharacter(), key.maskLength(), key.exposedSuffixLength(), key.maskEntireShortValue()));
+        }
+        try {
+            MaskerFunction masker = key.transformer().getDeclaredConstructor().newInstance();
+            Map<String, Object> config = new HashMap<>();
+            config.put(Masked.MASK_CONFIG, key.maskCharacter());
+            config.put(Masked.MASK_LENGTH_CONFIG, key.maskLength());
+            config.put(Masked.EXPOSED_SUFFIX_LENGTH_CONFIG, key.exposedSuffixLength());
+            config.put(Masked.MASK_ENTIRE_SHORT_VALUE_CONFIG, key.maskEntireShortValue());
+            masker.configure(config);
+            if (masker instanceof DefaultMasker defaultMasker) {
+                return shared(defaultMasker);
+            }
+            return cached(masker, "masked." + key.transformer().getSimpleName() + "[" + key.maskCharacter() + ","
+                    + key.maskLength() + "," + key.exposedSuffixLength() + "," + key.maskEntireShortValue() + "]");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to create masker " + key.transformer().getName(), e);
+        }
+    }
+
+    private static DefaultMasker shared(DefaultMasker masker) {
+        masker.share();
+        return masker;
+    }
+
+    private record CacheSettings(long maximumSize, Duration timeToLive, MeterRegistry registry) {
+    }
+
+    private record Key(Class<? extends MaskerFunction> transformer, char maskCharacter, int maskLength,
+                       int exposedSuffixLength, boolean maskEntireShortValue) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.observability.sre_logging.core.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable, thread-safe masking engine built from a fixed set of mask patterns.
+ * <p>
+ * The patterns are compiled once. Every capturing group of every match of every pattern is overwritten with the
+ * masking character in a single buffer, which is only allocated once the first match is found. All the patterns are
+ * matched against the original message, so masking done by one pattern never changes what another one matches.
+ * <p>
+ * Rules compiled with keywords (see {@link MaskingRule}) are pre-filtered: a single {@link KeywordFilter} pass over
+ * the message tells which rules have a keyword in it, the patterns of the other rules are not even run. The number of
+ * matches of each rule is counted, see {@link #getHits(int)}.
+ * <p>
+ * Note: the patterns are deliberately not merged into one alternation, as that disables the literal prefix
+ * (Boyer-Moore) search of {@link Pattern} and is several times slower for the usual {@code "field":"(...)"} rules.
+ */
+public final class MaskingEngine {
+    public static final char DEFAULT_MASK_CHAR = '*';
+
+    private final Pattern[] patterns;
+    private final String[] names;
+    private final LongAdder[] hits;
+    private final char maskChar;
+    // rules without keywords always run, the others when the filter finds one of their keywords
+    private final KeywordFilter keywordFilter;
+    private final long unfilteredRules;
+
+    private MaskingEngine(Pattern[] patterns, String[] names, List<List<String>> keywords, int mode, char maskChar) {
+        this.patterns = patterns;
+        this.names = names;
+        this.hits = new LongAdder[patterns.length];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new LongAdder();
+        }
+        this.maskChar = maskChar;
+        long unfiltered = 0;
+        boolean filtered = false;
+        for (int i = 0; i < keywords.size(); i++) {
+            if (keywords.get(i).isEmpty()) {
+                unfiltered |= 1L << i;
+            } else {
+                filtered = true;
+            }
+        }
+        this.keywordFilter = filtered ? new KeywordFilter(keywords, (mode & Pattern.CASE_INSENSITIVE) != 0) : null;
+        this.unfilteredRules = filtered ? unfiltered : -1L;
+    }
+
+    /**
+     * Compiles the given patterns into a reusable engine.
+     *
+     * @param maskPatterns Regular expressions to match, the capturing groups of each match are masked
+     * @param mode         {@link Pattern} flags applied to all the patterns
+     * @param maskChar     The character used to replace the matched groups
+     * @return A compiled engine
+     */
+    public static MaskingEngine compile(List<String> maskPatterns, int mode, char maskChar) {
+        if (maskPatterns == null || maskPatterns.isEmpty()) {
+            throw new IllegalArgumentException("maskPatterns cant be empty");
+        }
+        List<MaskingRule> rules = new ArrayList<>(maskPatterns.size());
+        for (int i = 0; i < maskPatterns.size(); i++) {
+            rules.add(new MaskingRule("pattern-" + i, maskPatterns.get(i), List.of()));
+        }
+        return compileRules(rules, mode, maskChar);
+    }
+
+    public static MaskingEngine compile(List<String> maskPatterns, int mode) {
+        return compile(maskPatterns, mode, DEFAULT_MASK_CHAR);
+    }
+
+    /**
+     * Compiles named rules, pre-filtered by their keywords, into a reusable engine.
+     *
+     * @param rules    at most 64 rules when any of them has keywords
+     * @param mode     {@link Pattern} flags applied to all the patterns, {@link Pattern#CASE_INSENSITIVE} also applies
+     *                 to the keywords
+     * @param maskChar The character used to replace the matched groups
+     * @return A compiled engine
+     */
+    public static MaskingEngine compileRules(List<MaskingRule> rules, int mode, char maskChar) {
+        if (rules == null || rules.isEmpty()) {
+            throw new IllegalArgumentException("rules cant be empty");
+        }
+        Pattern[] compiled = new Pattern[rules.size()];
+        String[] names = new String[rules.size()];
+        List<List<String>> keywords = new ArrayList<>(rules.size());
+        for (int i = 0; i < compiled.length; i++) {
+            MaskingRule rule = rules.get(i);
+            compiled[i] = Pattern.compile(rule.pattern(), mode);
+            names[i] = rule.name();
+            keywords.add(rule.keywords());
+        }
+        return new MaskingEngine(compiled, names, keywords, mode, maskChar);
+    }
+
+    /**
+     * Masks every match of every pattern in the message.
+     *
+     * @param message The string that needs to be masked
+     * @return Masked string, or the message itself when nothing matched
+     */
+    public String mask(String message) {
+        if (message == null || message.isEmpty()) {
+            return message;
+        }
+        long candidates = keywordFilter == null ? -1L : unfilteredRules | keywordFilter.match(message);
+        if (candidates == 0) {
+            return message;
+        }
+        char[] buffer = null;
+        for (int p = 0; p < patterns.length; p++) {
+            if (p < Long.SIZE && (candidates & (1L << p)) == 0) {
+                continue;
+            }
+            Matcher m = patterns[p].matcher(message);
+            int groupCount = m.groupCount();
+            if (groupCount == 0) {
+                continue;
+            }
+            while (m.find()) {
+                hits[p].increment();
+                for (int i = 1; i <= groupCount; i++) {
+                    int start = m.start(i);
+                    int end = m.end(i);
+                    if (start >= 0 && end > start) {
+                        if (buffer == null) {
+                            buffer = message.toCharArray();
+                        }
+                        Arrays.fill(buffer, start, end, maskChar);
+                    }
+                }
+            }
+        }
+        return buffer == null ? message : new String(buffer);
+    }
+
+    public char getMaskChar() {
+        return maskChar;
+    }
+
+    /**
+     * @return the number of rules, in the order they were compiled
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    public String getName(int rule) {
+        return names[rule];
+    }
+
+    /**
+     * @return the number of matches of the rule so far
+     */
+    public long getHits(int rule) {
+        return hits[rule].sum();
+    }
+}
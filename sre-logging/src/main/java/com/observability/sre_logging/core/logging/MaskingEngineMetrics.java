@@ -0,0 +1,33 @@
+package com.observability.sre_logging.core.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the hits of every rule of a {@link MaskingEngine} as the {@value #COUNTER_NAME} counter, tagged with the
+ * rule name.
+ */
+public class MaskingEngineMetrics implements MeterBinder {
+    public static final String COUNTER_NAME = "logging.masking.hits";
+
+    private final MaskingEngine engine;
+
+    public MaskingEngineMetrics(MaskingEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine cant be null");
+        }
+        this.engine = engine;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int i = 0; i < engine.size(); i++) {
+            int rule = i;
+            FunctionCounter.builder(COUNTER_NAME, engine, e -> e.getHits(rule))
+                    .description("Matches masked by the rule")
+                    .tag("rule", engine.getName(rule))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.observability.sre_logging.core.logging;
+
+import java.util.List;
+
+/**
+ * A named masking rule of a {@link MaskingEngine}.
+ *
+ * @param name     identifies the rule in the hit counters
+ * @param pattern  regular expression whose capturing groups are masked
+ * @param keywords literals of which at least one occurs in every match of the pattern (e.g. {@code card=}), messages
+ *                 containing none of them skip the pattern. A rule without keywords is matched against every message
+ */
+public record MaskingRule(String name, String pattern, List<String> keywords) {
+
+    public MaskingRule {
+        if (name == null || pattern == null) {
+            throw new IllegalArgumentException("name and pattern cant be null");
+        }
+        keywords = keywords == null ? List.of() : List.copyOf(keywords);
+    }
+}
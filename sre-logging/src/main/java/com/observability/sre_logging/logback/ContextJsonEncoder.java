@@ -0,0 +1,314 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.logging.DefaultMasker;
+import com.observability.sre_logging.core.logging.MaskerFunction;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Logback encoder writing one JSON object per line, with the field names of logstash-logback-encoder:
+ *
+ * <pre>{@code
+ * {"@timestamp":"2024-10-01T12:00:00.000Z","level":"INFO","thread_name":"main","logger_name":"...","message":"...",
+ *  "trace-id":"...","user":"...","stack_trace":"..."}
+ * }</pre>
+ * The event MDC is written, then the SLF4J key/value pairs. The MDC keys of the {@link Context} are part of the event
+ * MDC, copied by {@link com.observability.sre_logging.core.logging.MDCUtils} or merged by {@link ContextMDCAdapter}
+ * on the logging thread, so the encoder never reads the context of the thread it runs on, which may be another
+ * request's. Fields with a {@link MaskedField} rule are masked while they are written.
+ * <p>
+ * Every event is written into a per-thread {@link JsonBuffer}: the message is formatted from its pattern and
+ * arguments directly into the buffer, and the masked values of {@link DefaultMasker}s into its scratch chars, so
+ * apart from exceptions and arguments that are neither strings nor numbers, the only allocation per event is the
+ * byte array returned to the appender, as required by the {@link ch.qos.logback.core.encoder.Encoder} contract.
+ *
+ * <pre>{@code
+ * <encoder class="com.observability.sre_logging.logback.ContextJsonEncoder">
+ *     <maskedField><name>user</name></maskedField>
+ * </encoder>
+ * }</pre>
+ */
+public class ContextJsonEncoder extends EncoderBase<ILoggingEvent> {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] TIMESTAMP = "{\"@timestamp\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LEVEL = ",\"level\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] THREAD_NAME = ",\"thread_name\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LOGGER_NAME = ",\"logger_name\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MESSAGE = ",\"message\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STACK_TRACE = ",\"stack_trace\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "}\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[][] LEVELS = new byte[Level.ERROR_INT / 10_000 + 1][];
+
+    static {
+        for (Level level : new Level[]{Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR}) {
+            LEVELS[level.levelInt / 10_000] = ("\"" + level.levelStr + "\"").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final List<MaskedField> maskedFields = new ArrayList<>();
+    private final ThreadLocal<EventWriter> writers = ThreadLocal.withInitial(EventWriter::new);
+    private Map<String, MaskerFunction> maskers = Map.of();
+    private boolean includeMdc = true;
+    private boolean includeKeyValuePairs = true;
+
+    @Override
+    public void start() {
+        Map<String, MaskerFunction> resolved = new HashMap<>();
+        for (MaskedField maskedField : maskedFields) {
+            if (maskedField.getName() == null) {
+                addError("maskedField without a name");
+                continue;
+            }
+            try {
+                resolved.put(maskedField.getName(), maskedField.masker());
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                addError("Invalid masker for field [" + maskedField.getName() + "]", e);
+            }
+        }
+        maskers = resolved;
+        super.start();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        EventWriter writer = writers.get();
+        JsonBuffer buffer = writer.buffer;
+        buffer.reset();
+        try {
+            writer.write(event);
+            return buffer.toByteArray();
+        } finally {
+            buffer.trim(MAX_RETAINED_BUFFER_SIZE);
+        }
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    public void addMaskedField(MaskedField maskedField) {
+        maskedFields.add(maskedField);
+    }
+
+    public boolean isIncludeMdc() {
+        return includeMdc;
+    }
+
+    public void setIncludeMdc(boolean includeMdc) {
+        this.includeMdc = includeMdc;
+    }
+
+    public boolean isIncludeKeyValuePairs() {
+        return includeKeyValuePairs;
+    }
+
+    public void setIncludeKeyValuePairs(boolean includeKeyValuePairs) {
+        this.includeKeyValuePairs = includeKeyValuePairs;
+    }
+
+    /**
+     * Per-thread state of the encoder, it is its own MDC visitor so that walking the MDC does not allocate a capturing
+     * lambda per event.
+     */
+    private final class EventWriter implements BiConsumer<String, String> {
+        private final JsonBuffer buffer = new JsonBuffer(INITIAL_BUFFER_SIZE);
+        // high surrogate ending the last piece of the message, paired with a low surrogate starting the next one
+        private char pendingSurrogate;
+
+        void write(ILoggingEvent event) {
+            buffer.raw(TIMESTAMP).timestamp(event.getTimeStamp());
+            buffer.raw(LEVEL).raw(level(event.getLevel()));
+            buffer.raw(THREAD_NAME).string(event.getThreadName());
+            buffer.raw(LOGGER_NAME).string(event.getLoggerName());
+            buffer.raw(MESSAGE);
+            writeMessage(event);
+            if (includeMdc) {
+                Map<String, String> mdc = event.getMDCPropertyMap();
+                if (mdc != null && !mdc.isEmpty()) {
+                    mdc.forEach(this);
+                }
+            }
+            if (includeKeyValuePairs) {
+                List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+                if (keyValuePairs != null) {
+                    for (int i = 0; i < keyValuePairs.size(); i++) {
+                        KeyValuePair keyValuePair = keyValuePairs.get(i);
+                        field(keyValuePair.key, keyValuePair.value);
+                    }
+                }
+            }
+            IThrowableProxy throwableProxy = event.getThrowableProxy();
+            if (throwableProxy != null) {
+                buffer.raw(STACK_TRACE).string(ThrowableProxyUtil.asString(throwableProxy));
+            }
+            buffer.raw(END);
+        }
+
+        @Override
+        public void accept(String key, String value) {
+            if (value != null) {
+                field(key, value);
+            }
+        }
+
+        private void field(String key, Object value) {
+            if (key == null) {
+                return;
+            }
+            buffer.name(key, false);
+            MaskerFunction masker = maskers.get(key);
+            if (masker != null && value != null) {
+                mask(masker, value.toString());
+            } else {
+                value(value);
+            }
+        }
+
+        private void mask(MaskerFunction masker, String value) {
+            if (masker instanceof DefaultMasker defaultMasker) {
+                int length = defaultMasker.maskedLength(value);
+                char[] chars = buffer.chars(length);
+                defaultMasker.mask(value, chars);
+                buffer.string(chars, 0, length);
+            } else {
+                buffer.string(masker.apply(value));
+            }
+        }
+
+        private void value(Object value) {
+            if (value == null || value instanceof CharSequence) {
+                buffer.string((CharSequence) value);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                buffer.number(((Number) value).longValue());
+            } else if (value instanceof Boolean bool) {
+                buffer.raw(bool ? TRUE : FALSE);
+            } else {
+                buffer.string(String.valueOf(value));
+            }
+        }
+
+        /**
+         * Formats the message like {@link org.slf4j.helpers.MessageFormatter}, writing the pattern and the arguments
+         * straight into the buffer.
+         */
+        private void writeMessage(ILoggingEvent event) {
+            String pattern = event.getMessage();
+            Object[] arguments = event.getArgumentArray();
+            if (pattern == null || arguments == null || arguments.length == 0) {
+                buffer.string(pattern);
+                return;
+            }
+            for (Object argument : arguments) {
+                if (argument != null && argument.getClass().isArray()) {
+                    // arrays are rendered by the formatter, rare enough not to replicate it here
+                    buffer.string(event.getFormattedMessage());
+                    return;
+                }
+            }
+            buffer.raw((byte) '"');
+            pendingSurrogate = 0;
+            int from = 0;
+            for (int argument = 0; argument < arguments.length; argument++) {
+                int placeholder = pattern.indexOf("{}", from);
+                if (placeholder < 0) {
+                    break;
+                }
+                if (placeholder > 0 && pattern.charAt(placeholder - 1) == '\\') {
+                    if (placeholder > 1 && pattern.charAt(placeholder - 2) == '\\') {
+                        // escaped backslash, the placeholder still takes the argument
+                        piece(pattern, from, placeholder - 1);
+                        argument(arguments[argument]);
+                        from = placeholder + 2;
+                    } else {
+                        // escaped placeholder, written as is without consuming the argument
+                        piece(pattern, from, placeholder - 1);
+                        flushSurrogate();
+                        buffer.raw((byte) '{');
+                        from = placeholder + 1;
+                        argument--;
+                    }
+                } else {
+                    piece(pattern, from, placeholder);
+                    argument(arguments[argument]);
+                    from = placeholder + 2;
+                }
+            }
+            piece(pattern, from, pattern.length());
+            flushSurrogate();
+            buffer.raw((byte) '"');
+        }
+
+        private void argument(Object argument) {
+            if (argument instanceof CharSequence chars) {
+                piece(chars, 0, chars.length());
+            } else if (argument instanceof Long || argument instanceof Integer || argument instanceof Short || argument instanceof Byte) {
+                flushSurrogate();
+                buffer.number(((Number) argument).longValue());
+            } else {
+                String string;
+                try {
+                    string = String.valueOf(argument);
+                } catch (Throwable t) {
+                    string = "[FAILED toString()]";
+                }
+                piece(string, 0, string.length());
+            }
+        }
+
+        /**
+         * Writes a piece of the message, the formatter concatenating the pieces, a surrogate pair may span two of
+         * them.
+         */
+        private void piece(CharSequence chars, int from, int to) {
+            if (from >= to) {
+                return;
+            }
+            if (pendingSurrogate != 0) {
+                if (Character.isLowSurrogate(chars.charAt(from))) {
+                    buffer.codePoint(Character.toCodePoint(pendingSurrogate, chars.charAt(from++)));
+                } else {
+                    buffer.content("?", 0, 1);
+                }
+                pendingSurrogate = 0;
+            }
+            if (from < to && Character.isHighSurrogate(chars.charAt(to - 1))) {
+                pendingSurrogate = chars.charAt(--to);
+            }
+            buffer.content(chars, from, to);
+        }
+
+        private void flushSurrogate() {
+            if (pendingSurrogate != 0) {
+                // unpaired
+                buffer.content("?", 0, 1);
+                pendingSurrogate = 0;
+            }
+        }
+    }
+
+    private static byte[] level(Level level) {
+        byte[] bytes = level.levelInt >= 0 && level.levelInt / 10_000 < LEVELS.length ? LEVELS[level.levelInt / 10_000] : null;
+        return bytes != null ? bytes : ("\"" + level.levelStr + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.logging.MDCUtils;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link MDCAdapter} that resolves the MDC keys of the current {@link Context} lazily.
+ * <p>
+ * Logback only asks for the MDC map of an event that passed the level check, once an appender or encoder needs it
+ * (or the event is handed to an async appender). This adapter then merges the context's MDC keys into the copy of
+ * the regular MDC, so requests that never log pay nothing for the MDC. Values put in the regular MDC win over the
+ * context.
+ * <p>
+ * Installed with {@link #install()} at startup, by {@link ContextMDCAdapterInitializer} in a Spring Boot application,
+ * after which {@link MDCUtils#initializeMDC(Context)} no longer copies the context into the MDC. Note that
+ * {@code org.slf4j.MDC.get} still only reads the regular MDC, use {@link Context#getScopedContext()} to read context
+ * values in code.
+ */
+public class ContextMDCAdapter implements MDCAdapter {
+    private final MDCAdapter delegate;
+
+    public ContextMDCAdapter(MDCAdapter delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cant be null");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wraps the MDC adapter of the logback {@link LoggerContext} and switches {@link MDCUtils} to lazy mode.
+     *
+     * @return true if installed, false if logback is not the SLF4J backend
+     */
+    public static synchronized boolean install() {
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext loggerContext)) {
+            return false;
+        }
+        if (!(loggerContext.getMDCAdapter() instanceof ContextMDCAdapter)) {
+            loggerContext.setMDCAdapter(new ContextMDCAdapter(loggerContext.getMDCAdapter()));
+        }
+        MDCUtils.setLazyMdc(true);
+        return true;
+    }
+
+    @Override
+    public void put(String key, String val) {
+        delegate.put(key, val);
+    }
+
+    @Override
+    public String get(String key) {
+        String value = delegate.get(key);
+        if (value == null) {
+            Context context = Context.getCarrier().getIfPresent();
+            if (context != null) {
+                value = context.getMdcString(key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public Map<String, String> getCopyOfContextMap() {
+        Map<String, String> copy = delegate.getCopyOfContextMap();
+        Context context = Context.getCarrier().getIfPresent();
+        if (context == null || !context.hasMdc()) {
+            return copy;
+        }
+        Map<String, String> merged = copy == null ? new HashMap<>() : copy;
+        context.forEachMdc((key, value) -> {
+            if (value != null) {
+                merged.putIfAbsent(key, value);
+            }
+        });
+        return merged;
+    }
+
+    @Override
+    public void setContextMap(Map<String, String> contextMap) {
+        delegate.setContextMap(contextMap);
+    }
+
+    @Override
+    public void pushByKey(String key, String value) {
+        delegate.pushByKey(key, value);
+    }
+
+    @Override
+    public String popByKey(String key) {
+        return delegate.popByKey(key);
+    }
+
+    @Override
+    public Deque<String> getCopyOfDequeByKey(String key) {
+        return delegate.getCopyOfDequeByKey(key);
+    }
+
+    @Override
+    public void clearDequeByKey(String key) {
+        delegate.clearDequeByKey(key);
+    }
+}
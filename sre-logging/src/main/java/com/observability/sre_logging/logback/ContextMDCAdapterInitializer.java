@@ -0,0 +1,33 @@
+package com.observability.sre_logging.logback;
+
+import com.observability.sre_logging.core.logging.MDCUtils;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+
+/**
+ * Installs {@link ContextMDCAdapter} when {@value #PROPERTY} is true, so that the context MDC keys are only resolved
+ * for the events that are logged instead of being copied into the MDC for every request:
+ *
+ * <pre>
+ * sre.logging.context.lazy-mdc=true
+ * </pre>
+ * Off by default, as {@code org.slf4j.MDC.get} then no longer sees the context keys. Registered in
+ * {@code META-INF/spring.factories}.
+ */
+public class ContextMDCAdapterInitializer implements ApplicationListener<ApplicationEnvironmentPreparedEvent>, Ordered {
+    public static final String PROPERTY = "sre.logging.context.lazy-mdc";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        if (event.getEnvironment().getProperty(PROPERTY, Boolean.class, false) && !MDCUtils.isLazyMdc()) {
+            ContextMDCAdapter.install();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // same as MaskingConverterInitializer, before the LoggingApplicationListener configures logback
+        return Ordered.HIGHEST_PRECEDENCE + 15;
+    }
+}
@@ -0,0 +1,245 @@
+package com.observability.sre_logging.logback;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer writing UTF-8 JSON tokens straight from strings and numbers, without intermediate strings or
+ * char arrays. Owned by one thread and reset for every event.
+ */
+final class JsonBuffer {
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final int initialCapacity;
+    private byte[] bytes;
+    private int length;
+    private char[] chars = new char[64];
+    // "yyyy-MM-ddT" of the last day written, recomputed once per day
+    private final byte[] datePrefix = new byte[11];
+    private long day = Long.MIN_VALUE;
+
+    JsonBuffer(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.bytes = new byte[initialCapacity];
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    /**
+     * Drops the buffer if an oversized event made it grow beyond {@code maxRetained} bytes.
+     */
+    void trim(int maxRetained) {
+        if (bytes.length > maxRetained) {
+            bytes = new byte[initialCapacity];
+        }
+    }
+
+    int length() {
+        return length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * @return a scratch char array of at least the given length, valid until the next call
+     */
+    char[] chars(int minLength) {
+        if (chars.length < minLength) {
+            chars = new char[Math.max(minLength, chars.length * 2)];
+        }
+        return chars;
+    }
+
+    JsonBuffer raw(byte b) {
+        ensureCapacity(1);
+        bytes[length++] = b;
+        return this;
+    }
+
+    JsonBuffer raw(byte[] b) {
+        ensureCapacity(b.length);
+        System.arraycopy(b, 0, bytes, length, b.length);
+        length += b.length;
+        return this;
+    }
+
+    /**
+     * Writes {@code ,"name":} or {@code "name":} for the first field of an object.
+     */
+    JsonBuffer name(String name, boolean first) {
+        if (!first) {
+            raw((byte) ',');
+        }
+        return string(name).raw((byte) ':');
+    }
+
+    JsonBuffer string(CharSequence value) {
+        if (value == null) {
+            return raw(NULL);
+        }
+        raw((byte) '"');
+        content(value, 0, value.length());
+        return raw((byte) '"');
+    }
+
+    JsonBuffer string(char[] value, int from, int to) {
+        raw((byte) '"');
+        for (int i = from; i < to; i++) {
+            char c = value[i];
+            if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value[i + 1])) {
+                codePoint(Character.toCodePoint(c, value[++i]));
+            } else {
+                character(c);
+            }
+        }
+        return raw((byte) '"');
+    }
+
+    /**
+     * Writes the escaped characters of the value, without the quotes.
+     */
+    JsonBuffer content(CharSequence value, int from, int to) {
+        ensureCapacity(to - from);
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 && c >= 0x20 && c != '"' && c != '\\') {
+                // the capacity may be short after an escape or a multi-byte character
+                if (length == bytes.length) {
+                    ensureCapacity(to - i);
+                }
+                bytes[length++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                character(c);
+            }
+        }
+        return this;
+    }
+
+    JsonBuffer number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return content("-9223372036854775808", 0, 20);
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Writes the timestamp as a quoted ISO-8601 UTC instant with millisecond precision.
+     */
+    JsonBuffer timestamp(long epochMillis) {
+        long epochDay = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        if (epochDay != day) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            digits(datePrefix, 0, date.getYear(), 4);
+            datePrefix[4] = '-';
+            digits(datePrefix, 5, date.getMonthValue(), 2);
+            datePrefix[7] = '-';
+            digits(datePrefix, 8, date.getDayOfMonth(), 2);
+            datePrefix[10] = 'T';
+            day = epochDay;
+        }
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+        ensureCapacity(26);
+        bytes[length++] = '"';
+        System.arraycopy(datePrefix, 0, bytes, length, datePrefix.length);
+        length += datePrefix.length;
+        digits(bytes, length, millisOfDay / 3_600_000, 2);
+        bytes[length + 2] = ':';
+        digits(bytes, length + 3, millisOfDay / 60_000 % 60, 2);
+        bytes[length + 5] = ':';
+        digits(bytes, length + 6, millisOfDay / 1000 % 60, 2);
+        bytes[length + 8] = '.';
+        digits(bytes, length + 9, millisOfDay % 1000, 3);
+        bytes[length + 12] = 'Z';
+        bytes[length + 13] = '"';
+        length += 14;
+        return this;
+    }
+
+    private static void digits(byte[] destination, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            destination[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void character(char c) {
+        ensureCapacity(6);
+        if (c < 0x80) {
+            switch (c) {
+                case '"' -> escape('"');
+                case '\\' -> escape('\\');
+                case '\n' -> escape('n');
+                case '\r' -> escape('r');
+                case '\t' -> escape('t');
+                case '\b' -> escape('b');
+                case '\f' -> escape('f');
+                default -> {
+                    if (c < 0x20) {
+                        bytes[length++] = '\\';
+                        bytes[length++] = 'u';
+                        bytes[length++] = '0';
+                        bytes[length++] = '0';
+                        bytes[length++] = HEX[c >> 4];
+                        bytes[length++] = HEX[c & 0xF];
+                    } else {
+                        bytes[length++] = (byte) c;
+                    }
+                }
+            }
+        } else if (c < 0x800) {
+            bytes[length++] = (byte) (0xC0 | (c >> 6));
+            bytes[length++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // unpaired surrogate
+            bytes[length++] = '?';
+        } else {
+            bytes[length++] = (byte) (0xE0 | (c >> 12));
+            bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Writes a supplementary code point, given as a surrogate pair.
+     */
+    void codePoint(int codePoint) {
+        ensureCapacity(4);
+        bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void escape(char c) {
+        bytes[length++] = '\\';
+        bytes[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + additional, bytes.length * 2));
+        }
+    }
+}
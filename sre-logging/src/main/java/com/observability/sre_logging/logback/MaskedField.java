@@ -0,0 +1,87 @@
+package com.observability.sre_logging.logback;
+
+import com.observability.sre_logging.core.logging.DefaultMasker;
+import com.observability.sre_logging.core.logging.Masked;
+import com.observability.sre_logging.core.logging.MaskerFunction;
+import com.observability.sre_logging.core.logging.Maskers;
+
+/**
+ * The {@link Masked} rule of a field written by {@link ContextJsonEncoder}, configured in logback.xml with the same
+ * attributes as the annotation:
+ *
+ * <pre>{@code
+ * <maskedField>
+ *     <name>user</name>
+ *     <exposedSuffixLength>2</exposedSuffixLength>
+ * </maskedField>
+ * }</pre>
+ */
+public class MaskedField {
+    private String name;
+    private String transformer = DefaultMasker.class.getName();
+    private char maskingCharacter = Masked.MASK_DEFAULT;
+    private int maskLength = Masked.MASK_LENGTH_DEFAULT;
+    private int exposedSuffixLength = Masked.EXPOSED_SUFFIX_LENGTH_DEFAULT;
+    private boolean maskEntireShortValue = Masked.MASK_ENTIRE_SHORT_VALUE_DEFAULT;
+
+    /**
+     * @return the shared masker configured by this rule, see {@link Maskers}
+     */
+    MaskerFunction masker() throws ClassNotFoundException {
+        Class<? extends MaskerFunction> transformerClass = Class.forName(transformer, true, MaskedField.class.getClassLoader())
+                .asSubclass(MaskerFunction.class);
+        return Maskers.of(transformerClass, maskingCharacter, maskLength, exposedSuffixLength, maskEntireShortValue);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTransformer() {
+        return transformer;
+    }
+
+    public void setTransformer(String transformer) {
+        this.transformer = transformer;
+    }
+
+    public char getMaskingCharacter() {
+        return maskingCharacter;
+    }
+
+    // logback.xml only converts strings and boxed numbers, not char
+    public void setMaskingCharacter(String maskingCharacter) {
+        if (maskingCharacter == null || maskingCharacter.isEmpty()) {
+            throw new IllegalArgumentException("maskingCharacter cant be empty");
+        }
+        this.maskingCharacter = maskingCharacter.charAt(0);
+    }
+
+    public int getMaskLength() {
+        return maskLength;
+    }
+
+    public void setMaskLength(int maskLength) {
+        this.maskLength = maskLength;
+    }
+
+    public int getExposedSuffixLength() {
+        return exposedSuffixLength;
+    }
+
+    public void setExposedSuffixLength(int exposedSuffixLength) {
+        this.exposedSuffixLength = exposedSuffixLength;
+    }
+
+    public boolean isMaskEntireShortValue() {
+        return maskEntireShortValue;
+    }
+
+    public void setMaskEntireShortValue(boolean maskEntireShortValue) {
+        this.maskEntireShortValue = maskEntireShortValue;
+    }
+}
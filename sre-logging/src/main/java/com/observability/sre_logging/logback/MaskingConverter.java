@@ -0,0 +1,47 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.pattern.CompositeConverter;
+import com.observability.sre_logging.core.logging.MaskingEngine;
+
+/**
+ * {@code %mask(...)} pattern converter masking what the wrapped conversions produce with the installed
+ * {@link MaskingEngine}, instead of a chain of {@code %replace} regular expressions evaluated on every event:
+ *
+ * <pre>{@code
+ * <conversionRule conversionWord="mask" converterClass="com.observability.sre_logging.logback.MaskingConverter" />
+ * <pattern>%d %-5level %logger - %mask(%msg) %n</pattern>
+ * }</pre>
+ * The engine is compiled from the Spring properties by {@link MaskingConverterInitializer}. Until then, e.g. while
+ * the environment is being prepared, or without any rule, the text is written unmasked, which {@link #start()}
+ * reports as a warning in the logback status.
+ */
+public class MaskingConverter extends CompositeConverter<ILoggingEvent> {
+    private static volatile MaskingEngine engine;
+
+    /**
+     * Sets the engine used by every {@code %mask} conversion, from now on.
+     */
+    public static void install(MaskingEngine maskingEngine) {
+        engine = maskingEngine;
+    }
+
+    public static MaskingEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    public void start() {
+        if (engine == null) {
+            addWarn("No masking engine installed, %mask writes the text unmasked until one is compiled from the "
+                    + MaskingConverterInitializer.PREFIX + ".rules properties");
+        }
+        super.start();
+    }
+
+    @Override
+    protected String transform(ILoggingEvent event, String in) {
+        MaskingEngine maskingEngine = engine;
+        return maskingEngine == null ? in : maskingEngine.mask(in);
+    }
+}
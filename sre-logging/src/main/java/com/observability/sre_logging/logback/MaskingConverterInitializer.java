@@ -0,0 +1,74 @@
+package com.observability.sre_logging.logback;
+
+import com.observability.sre_logging.core.logging.Maskers;
+import com.observability.sre_logging.core.logging.MaskingEngine;
+import com.observability.sre_logging.core.logging.MaskingEngineMetrics;
+import com.observability.sre_logging.core.logging.MaskingRule;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the {@value #PREFIX} rules of the environment into the {@link MaskingEngine} of {@link MaskingConverter},
+ * as soon as the environment is prepared, before the logging system is initialized from it:
+ *
+ * <pre>
+ * sre.logging.masking.mask-character=*
+ * sre.logging.masking.case-insensitive=true
+ * sre.logging.masking.rules[0].name=card
+ * sre.logging.masking.rules[0].pattern=(?:card|pan)=\\d{0,3}(\\d{12})
+ * sre.logging.masking.rules[0].keywords=card=,pan=
+ * </pre>
+ * The hits of every rule are published to {@link Metrics#globalRegistry}, see {@link MaskingEngineMetrics}.
+ * <p>
+ * It also enables the cache of the {@code @Masked} transformers and {@code @Hashed} hashers, see
+ * {@link Maskers#enableCache(long, Duration, io.micrometer.core.instrument.MeterRegistry)}:
+ *
+ * <pre>
+ * sre.logging.masking.cache.enabled=true
+ * sre.logging.masking.cache.maximum-size=10000
+ * sre.logging.masking.cache.time-to-live=10m
+ * </pre>
+ * Registered in {@code META-INF/spring.factories}.
+ */
+public class MaskingConverterInitializer implements ApplicationListener<ApplicationEnvironmentPreparedEvent>, Ordered {
+    public static final String PREFIX = "sre.logging.masking";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        ConfigurableEnvironment environment = event.getEnvironment();
+        if (environment.getProperty(PREFIX + ".cache.enabled", Boolean.class, false)) {
+            Binder binder = Binder.get(environment);
+            Maskers.enableCache(binder.bind(PREFIX + ".cache.maximum-size", Long.class).orElse(10_000L),
+                    binder.bind(PREFIX + ".cache.time-to-live", Duration.class).orElse(Duration.ofMinutes(10)),
+                    Metrics.globalRegistry);
+        }
+        List<MaskingRule> rules = Binder.get(environment)
+                .bind(PREFIX + ".rules", Bindable.listOf(MaskingRule.class))
+                .orElse(List.of());
+        if (rules.isEmpty()) {
+            return;
+        }
+        String maskCharacter = environment.getProperty(PREFIX + ".mask-character", String.valueOf(MaskingEngine.DEFAULT_MASK_CHAR));
+        int mode = environment.getProperty(PREFIX + ".case-insensitive", Boolean.class, false) ? Pattern.CASE_INSENSITIVE : 0;
+        MaskingEngine engine = MaskingEngine.compileRules(rules, mode,
+                maskCharacter.isEmpty() ? MaskingEngine.DEFAULT_MASK_CHAR : maskCharacter.charAt(0));
+        MaskingConverter.install(engine);
+        new MaskingEngineMetrics(engine).bindTo(Metrics.globalRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        // after the config data (application.properties) is loaded, HIGHEST_PRECEDENCE + 10, and before the
+        // LoggingApplicationListener configures logback, HIGHEST_PRECEDENCE + 20
+        return Ordered.HIGHEST_PRECEDENCE + 15;
+    }
+}
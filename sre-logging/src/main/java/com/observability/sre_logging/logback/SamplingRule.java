@@ -0,0 +1,117 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.Level;
+import com.observability.sre_logging.core.context.ContextKeys;
+
+/**
+ * A rule of {@link SamplingTurboFilter}, limiting the events of a logger and its descendants at {@code level} and
+ * below, configured in logback.xml:
+ *
+ * <pre>{@code
+ * <rule>
+ *     <logger>com.observability.orders</logger>
+ *     <level>DEBUG</level>
+ *     <sampleRate>0.1</sampleRate>
+ *     <ratePerSecond>100</ratePerSecond>
+ *     <burst>200</burst>
+ *     <key>api-clientid</key>
+ * </rule>
+ * }</pre>
+ * Events are first sampled, i.e. kept with the probability {@code sampleRate}, then rate limited by a token bucket
+ * of {@code burst} tokens refilled at {@code ratePerSecond}, per logger and level, and per value of the {@code key}
+ * of the scoped context when one is set (see {@link ContextKeys}).
+ */
+public class SamplingRule {
+    private String logger = "";
+    private Level level = Level.INFO;
+    private double sampleRate = 1;
+    private double ratePerSecond = 0;
+    private int burst = 0;
+    private String key;
+
+    /**
+     * @return whether the rule applies to the logger, i.e. it is the rule logger or one of its descendants
+     */
+    boolean matches(String loggerName) {
+        return logger.isEmpty() || loggerName.startsWith(logger)
+                && (loggerName.length() == logger.length() || loggerName.charAt(logger.length()) == '.');
+    }
+
+    public String getLogger() {
+        return logger;
+    }
+
+    /**
+     * @param logger logger name, the rule also applies to its descendants, empty or ROOT for all the loggers
+     */
+    public void setLogger(String logger) {
+        this.logger = logger == null || logger.trim().equalsIgnoreCase(org.slf4j.Logger.ROOT_LOGGER_NAME) ? "" : logger.trim();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @param level the most severe level the rule applies to, INFO by default so warnings and errors are kept
+     */
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param sampleRate probability of keeping an event, from 0 to 1 (the default, no sampling)
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    /**
+     * @param ratePerSecond number of events allowed per second, 0 (the default) for no rate limit
+     */
+    public void setRatePerSecond(double ratePerSecond) {
+        if (ratePerSecond < 0) {
+            throw new IllegalArgumentException("ratePerSecond cant be negative");
+        }
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @param burst number of events allowed at once, {@code ratePerSecond} (at least 1) by default
+     */
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key context key whose values are limited separately, e.g. {@link ContextKeys#API_CLIENT_ID}
+     */
+    public void setKey(String key) {
+        this.key = key == null || key.isBlank() ? null : key.trim();
+    }
+
+    @Override
+    public String toString() {
+        return "SamplingRule{logger='" + logger + "', level=" + level + ", sampleRate=" + sampleRate
+                + ", ratePerSecond=" + ratePerSecond + ", burst=" + burst + ", key=" + key + '}';
+    }
+}
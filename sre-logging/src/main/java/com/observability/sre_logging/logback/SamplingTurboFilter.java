@@ -0,0 +1,329 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.observability.sre_logging.core.context.Context;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turbo filter sampling and rate limiting the events of noisy loggers with {@link SamplingRule}s, before the event
+ * is even created, i.e. before its message is formatted:
+ *
+ * <pre>{@code
+ * <turboFilter class="com.observability.sre_logging.logback.SamplingTurboFilter">
+ *     <summaryInterval>60 seconds</summaryInterval>
+ *     <rule>
+ *         <logger>com.observability.orders</logger>
+ *         <level>DEBUG</level>
+ *         <ratePerSecond>100</ratePerSecond>
+ *         <key>api-clientid</key>
+ *     </rule>
+ *     <maxKeys>1000</maxKeys>
+ *     <keyExpiry>10 minutes</keyExpiry>
+ * </turboFilter>
+ * }</pre>
+ * Each logger and level uses the most specific rule that matches it, the limiters are resolved once per logger. The
+ * token buckets are lock-free (a single {@code compareAndSet} per kept event) and suppressing an event only reads the
+ * bucket and increments a striped {@link LongAdder}, so a log storm does not make the logging threads contend. The
+ * number of suppressed events is logged every {@code summaryInterval} by this class logger, which is never limited.
+ * <p>
+ * A rule with a {@code key} limits each value of that context key, e.g. each client, with its own bucket. Up to
+ * {@code maxKeys} values are kept per logger and level, those idle for {@code keyExpiry} or least frequently seen once
+ * the limit is reached are evicted, so a new client always gets its own bucket. An evicted value starts over with a
+ * full bucket, which it would have had anyway once idle for {@code burst / ratePerSecond} seconds.
+ * <p>
+ * Calls without a message, i.e. {@code isDebugEnabled()} checks, and events disabled by their level anyway are left
+ * to logback and not counted.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    private static final int LEVELS = Level.ERROR_INT / 10_000 + 1;
+    private static final Limiter[] UNLIMITED = new Limiter[LEVELS];
+
+    private final List<SamplingRule> rules = new ArrayList<>();
+    private final ConcurrentHashMap<String, Limiter[]> limiters = new ConcurrentHashMap<>();
+    // the shared buckets and the keyed ones not evicted yet
+    private final Set<Bucket> buckets = ConcurrentHashMap.newKeySet();
+    // suppressed by the evicted buckets, and the part of it not logged by the summary yet
+    private final LongAdder evictedSuppressed = new LongAdder();
+    private final LongAdder evictedUnreported = new LongAdder();
+    private Duration summaryInterval = Duration.buildBySeconds(60);
+    private int maxKeys = 1000;
+    private Duration keyExpiry = Duration.buildByMinutes(10);
+    private ScheduledExecutorService scheduler;
+    private Logger summaryLogger;
+    private long origin;
+
+    @Override
+    public void start() {
+        if (rules.isEmpty()) {
+            addWarn("No rule set for the turbo filter named [" + getName() + "], nothing is limited");
+        }
+        limiters.clear();
+        buckets.clear();
+        evictedSuppressed.reset();
+        evictedUnreported.reset();
+        origin = System.nanoTime();
+        summaryLogger = ((LoggerContext) getContext()).getLogger(SamplingTurboFilter.class);
+        long interval = summaryInterval.getMilliseconds();
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SamplingTurboFilter-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::logSummary, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        logSummary();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || level == null || !isStarted() || logger == summaryLogger
+                || level.levelInt < logger.getEffectiveLevel().levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        Limiter limiter = limitersOf(logger.getName())[level.levelInt / 10_000];
+        return limiter == null || limiter.tryAcquire() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Limiter[] limitersOf(String loggerName) {
+        Limiter[] resolved = limiters.get(loggerName);
+        return resolved != null ? resolved : limiters.computeIfAbsent(loggerName, this::resolve);
+    }
+
+    private Limiter[] resolve(String loggerName) {
+        Limiter[] resolved = null;
+        for (Level level : new Level[]{Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR}) {
+            SamplingRule rule = null;
+            for (SamplingRule candidate : rules) {
+                if (candidate.getLevel().levelInt >= level.levelInt && candidate.matches(loggerName)
+                        && (rule == null || candidate.getLogger().length() > rule.getLogger().length())) {
+                    rule = candidate;
+                }
+            }
+            if (rule != null && (rule.getSampleRate() < 1 || rule.getRatePerSecond() > 0)) {
+                if (resolved == null) {
+                    resolved = new Limiter[LEVELS];
+                }
+                resolved[level.levelInt / 10_000] = new Limiter(rule, loggerName + " " + level);
+            }
+        }
+        return resolved == null ? UNLIMITED : resolved;
+    }
+
+    private synchronized void logSummary() {
+        for (Bucket bucket : buckets) {
+            long sampledOutTotal = bucket.sampledOut.sum();
+            long rateLimitedTotal = bucket.rateLimited.sum();
+            long sampledOut = sampledOutTotal - bucket.reportedSampledOut;
+            long rateLimited = rateLimitedTotal - bucket.reportedRateLimited;
+            bucket.reportedSampledOut = sampledOutTotal;
+            bucket.reportedRateLimited = rateLimitedTotal;
+            if (sampledOut + rateLimited > 0) {
+                summaryLogger.warn("Suppressed {} events of {}: {} sampled out, {} over the rate limit",
+                        sampledOut + rateLimited, bucket.name, sampledOut, rateLimited);
+            }
+        }
+        long evicted = evictedUnreported.sumThenReset();
+        if (evicted > 0) {
+            summaryLogger.warn("Suppressed {} events of evicted context values", evicted);
+        }
+    }
+
+    /**
+     * @return the number of events suppressed since the filter started
+     */
+    public long getSuppressedCount() {
+        long suppressed = evictedSuppressed.sum();
+        for (Bucket bucket : buckets) {
+            suppressed += bucket.sampledOut.sum() + bucket.rateLimited.sum();
+        }
+        return suppressed;
+    }
+
+    int trackedBuckets() {
+        return buckets.size();
+    }
+
+    public void addRule(SamplingRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("rule cant be null");
+        }
+        rules.add(rule);
+    }
+
+    public List<SamplingRule> getRules() {
+        return rules;
+    }
+
+    public Duration getSummaryInterval() {
+        return summaryInterval;
+    }
+
+    /**
+     * @param summaryInterval how often the suppressed events are logged, 0 to only log them when the filter stops
+     */
+    public void setSummaryInterval(Duration summaryInterval) {
+        this.summaryInterval = summaryInterval;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * @param maxKeys number of context values limited separately per logger and level, beyond which the least
+     *                frequently seen are evicted
+     */
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Duration getKeyExpiry() {
+        return keyExpiry;
+    }
+
+    /**
+     * @param keyExpiry how long the bucket of a context value is kept without any event, longer than
+     *                  {@code burst / ratePerSecond} so that an evicted value does not get more than a full bucket
+     */
+    public void setKeyExpiry(Duration keyExpiry) {
+        this.keyExpiry = keyExpiry;
+    }
+
+    /**
+     * The limiter of one logger and level, with one bucket or one per value of the rule context key.
+     */
+    private final class Limiter {
+        private final String name;
+        private final double sampleRate;
+        private final long interval;
+        private final long tolerance;
+        private final String key;
+        private final Bucket bucket;
+        private final Cache<String, Bucket> keyed;
+
+        Limiter(SamplingRule rule, String name) {
+            this.name = name;
+            this.sampleRate = rule.getSampleRate();
+            if (rule.getRatePerSecond() > 0) {
+                this.interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / rule.getRatePerSecond()));
+                int burst = rule.getBurst() > 0 ? rule.getBurst() : (int) Math.max(1, Math.ceil(rule.getRatePerSecond()));
+                this.tolerance = interval * (burst - 1);
+            } else {
+                this.interval = 0;
+                this.tolerance = 0;
+            }
+            this.key = rule.getKey();
+            this.bucket = newBucket(key == null ? name : name + " [" + key + "=]");
+            this.keyed = key == null ? null : Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(keyExpiry.getMilliseconds(), TimeUnit.MILLISECONDS)
+                    // forgotten right away, their counts are only summed up
+                    .evictionListener((String value, Bucket evicted, RemovalCause cause) -> {
+                        if (evicted != null) {
+                            forget(evicted);
+                        }
+                    })
+                    .executor(Runnable::run)
+                    .build();
+        }
+
+        boolean tryAcquire() {
+            Bucket target = bucket;
+            if (keyed != null) {
+                Context context = Context.getCarrier().getIfPresent();
+                Object value = context == null ? null : context.get(key);
+                if (value != null) {
+                    target = bucketOf(value.toString());
+                }
+            }
+            if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                target.sampledOut.increment();
+                return false;
+            }
+            if (interval > 0 && !target.acquire(System.nanoTime() - origin, interval, tolerance)) {
+                target.rateLimited.increment();
+                return false;
+            }
+            return true;
+        }
+
+        private Bucket bucketOf(String value) {
+            Bucket found = keyed.getIfPresent(value);
+            return found != null ? found : keyed.get(value, v -> newBucket(name + " [" + key + "=" + v + "]"));
+        }
+
+        private void forget(Bucket evicted) {
+            long suppressed = evicted.sampledOut.sum() + evicted.rateLimited.sum();
+            evictedSuppressed.add(suppressed);
+            evictedUnreported.add(suppressed - evicted.reportedSampledOut - evicted.reportedRateLimited);
+            buckets.remove(evicted);
+        }
+
+        private Bucket newBucket(String bucketName) {
+            Bucket created = new Bucket(bucketName);
+            buckets.add(created);
+            return created;
+        }
+    }
+
+    /**
+     * A token bucket kept as the theoretical arrival time of the next event (GCRA): an event is allowed when it is at
+     * most {@code tolerance} nanoseconds early, and pushes the arrival time by one {@code interval}.
+     */
+    static final class Bucket {
+        private final String name;
+        private final AtomicLong arrival = new AtomicLong();
+        private final LongAdder sampledOut = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        // already logged by the summary, read on eviction
+        private volatile long reportedSampledOut;
+        private volatile long reportedRateLimited;
+
+        Bucket(String name) {
+            this.name = name;
+        }
+
+        boolean acquire(long now, long interval, long tolerance) {
+            while (true) {
+                long current = arrival.get();
+                long start = Math.max(current, now);
+                if (start - now > tolerance) {
+                    return false;
+                }
+                if (arrival.compareAndSet(current, start + interval)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,67 @@
 package com.observability.sre_logging.logback;
 
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.observability.sre_logging.core.logging.Masked;
+import com.observability.sre_logging.core.logging.MaskerFunction;
+import com.observability.sre_logging.core.logging.Maskers;
+import com.observability.sre_logging.sensitive.Hashed;
+import com.observability.sre_logging.sensitive.HashingMasker;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the writers of {@link Masked} and {@link Hashed} properties with writers that mask or hash the value.
+ * <p>
+ * Jackson calls this once per bean type when the serializer is built and caches the result, so the annotations are
+ * resolved once and every masked property reuses a single masker from {@link Maskers}, every hashed property a single
+ * {@link HashingMasker} per algorithm. When an HMAC key is given, hashed properties are written as keyed hashes. When
+ * {@link Maskers#enableCache(long, java.time.Duration, io.micrometer.core.instrument.MeterRegistry) enabled} before
+ * the modifier is created, the hashes are cached.
+ * Register it on the {@link com.fasterxml.jackson.databind.ObjectMapper} used for logging through
+ * {@link SensitiveDataModule}.
+ */
 public class SensitiveBeanSerializerModifier extends BeanSerializerModifier {
+    private final Map<Hashed.Algorithm, MaskerFunction> hashers = new EnumMap<>(Hashed.Algorithm.class);
+
+    public SensitiveBeanSerializerModifier() {
+        this(null);
+    }
+
+    /**
+     * @param hmacKey the key for hashed properties, or null to hash without a key
+     */
+    public SensitiveBeanSerializerModifier(byte[] hmacKey) {
+        for (Hashed.Algorithm algorithm : Hashed.Algorithm.values()) {
+            if (hmacKey == null || algorithm.getHmacAlgorithm() != null) {
+                hashers.put(algorithm, Maskers.cached(new HashingMasker(algorithm, hmacKey), "hashed." + algorithm));
+            }
+        }
+    }
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+        for (int i = 0; i < beanProperties.size(); i++) {
+            BeanPropertyWriter writer = beanProperties.get(i);
+            Masked masked = writer.getAnnotation(Masked.class);
+            if (masked != null) {
+                beanProperties.set(i, new SensitivePropertyWriter(writer, Maskers.of(masked)));
+                continue;
+            }
+            Hashed hashed = writer.getAnnotation(Hashed.class);
+            if (hashed != null) {
+                MaskerFunction hasher = hashers.get(hashed.value());
+                if (hasher == null) {
+                    throw new IllegalArgumentException(hashed.value() + " does not support a keyed mode, used by "
+                            + beanDesc.getBeanClass().getName() + "." + writer.getName());
+                }
+                beanProperties.set(i, new SensitivePropertyWriter(writer, hasher));
+            }
+        }
+        return beanProperties;
+    }
 }
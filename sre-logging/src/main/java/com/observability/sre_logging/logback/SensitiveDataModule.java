@@ -0,0 +1,26 @@
+package com.observability.sre_logging.logback;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Jackson module that masks {@link com.observability.sre_logging.core.logging.Masked} and hashes
+ * {@link com.observability.sre_logging.sensitive.Hashed} properties.
+ * <p>
+ * Only register it on the {@link com.fasterxml.jackson.databind.ObjectMapper} used to write structured logs, not on
+ * the one serving API responses.
+ */
+public class SensitiveDataModule extends SimpleModule {
+
+    public SensitiveDataModule() {
+        this(null);
+    }
+
+    /**
+     * @param hmacKey the key used to hash {@link com.observability.sre_logging.sensitive.Hashed} properties, or null
+     *                to hash without a key
+     */
+    public SensitiveDataModule(byte[] hmacKey) {
+        super(SensitiveDataModule.class.getSimpleName());
+        setSerializerModifier(new SensitiveBeanSerializerModifier(hmacKey));
+    }
+}
@@ -0,0 +1,69 @@
+package com.observability.sre_logging.logback;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+
+import java.util.function.Function;
+
+/**
+ * {@link BeanPropertyWriter} that writes the string form of the property value through a transformation, such as
+ * masking or hashing. The transformation is resolved once, when the bean serializer is built.
+ */
+class SensitivePropertyWriter extends BeanPropertyWriter {
+    private final transient Function<String, String> transformer;
+
+    SensitivePropertyWriter(BeanPropertyWriter base, Function<String, String> transformer) {
+        super(base);
+        this.transformer = transformer;
+    }
+
+    private SensitivePropertyWriter(SensitivePropertyWriter base, PropertyName name) {
+        super(base, name);
+        this.transformer = base.transformer;
+    }
+
+    @Override
+    protected BeanPropertyWriter _new(PropertyName newName) {
+        return new SensitivePropertyWriter(this, newName);
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        Object value = get(bean);
+        if (value == null) {
+            // null handling (suppression, null serializer) stays with Jackson
+            super.serializeAsField(bean, gen, prov);
+            return;
+        }
+        if (suppressed(value, prov)) {
+            return;
+        }
+        gen.writeFieldName(_name);
+        gen.writeString(transformer.apply(value.toString()));
+    }
+
+    @Override
+    public void serializeAsElement(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        Object value = get(bean);
+        if (value == null) {
+            super.serializeAsElement(bean, gen, prov);
+            return;
+        }
+        gen.writeString(transformer.apply(value.toString()));
+    }
+
+    // @JsonInclude applies to the original value, the hash of an empty value is not empty
+    private boolean suppressed(Object value, SerializerProvider prov) throws Exception {
+        if (_suppressableValue == null) {
+            return false;
+        }
+        if (_suppressableValue == MARKER_FOR_EMPTY) {
+            JsonSerializer<Object> serializer = _serializer != null ? _serializer : prov.findValueSerializer(value.getClass(), this);
+            return serializer.isEmpty(prov, value);
+        }
+        return _suppressableValue.equals(value);
+    }
+}
@@ -3,8 +3,14 @@ package com.observability.sre_logging.sensitive;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 
+import java.lang.annotation.*;
+
+@Inherited
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
 public @interface Hashed {
     String ALGORITHM_CONFIG= "algorithm";
+    String HMAC_KEY_CONFIG = "hmacKey";
 
     /**
      * The hash algorithm to use, defaults to {@link Algorithm#SHA_256}
@@ -14,24 +20,34 @@ public @interface Hashed {
     Algorithm value() default Algorithm.SHA_256;
 
     enum Algorithm {
-        SHA_256("SHA-256", Hashing.sha256()),
-        SHA_384("SHA-384", Hashing.sha384()),
-        SHA_512("SHA-512", Hashing.sha512()),
-        MURMUR_3("MURMUR3", Hashing.murmur3_128());
+        SHA_256("SHA-256", "HmacSHA256", Hashing.sha256()),
+        SHA_384("SHA-384", "HmacSHA384", Hashing.sha384()),
+        SHA_512("SHA-512", "HmacSHA512", Hashing.sha512()),
+        MURMUR_3("MURMUR3", null, Hashing.murmur3_128());
 
         private final String jdkAlgorithm;
+        private final String hmacAlgorithm;
         private final HashFunction hashFunction;
 
-        Algorithm (String jdkAlgorithm, HashFunction function) {
+        Algorithm (String jdkAlgorithm, String hmacAlgorithm, HashFunction function) {
             this.jdkAlgorithm = jdkAlgorithm;
+            this.hmacAlgorithm = hmacAlgorithm;
             this.hashFunction = function;
         }
-    }
-    public String getJdkAlgorithm() {
-        return this.jdkAlgorithm;
-    }
 
-    public HashFunction getHashFunction() {
-        return this.hashFunction;
+        public String getJdkAlgorithm() {
+            return this.jdkAlgorithm;
+        }
+
+        /**
+         * @return the JDK {@link javax.crypto.Mac} algorithm for the keyed mode, or null when the hash has no keyed mode
+         */
+        public String getHmacAlgorithm() {
+            return this.hmacAlgorithm;
+        }
+
+        public HashFunction getHashFunction() {
+            return this.hashFunction;
+        }
     }
 }
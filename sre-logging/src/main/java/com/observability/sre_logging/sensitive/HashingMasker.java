@@ -0,0 +1,181 @@
+package com.observability.sre_logging.sensitive;
+
+import com.observability.sre_logging.core.logging.MaskerFunction;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Replaces a value with the lowercase hex encoding of its {@link Hashed.Algorithm} hash.
+ * <p>
+ * Every thread reuses its own {@link MessageDigest} (or {@link Mac}) together with the buffers for the UTF-8 input,
+ * the digest and the hex output, so the result string is the only allocation per call for the SHA algorithms.
+ * {@link Hashed.Algorithm#MURMUR_3} goes through its Guava {@link com.google.common.hash.HashFunction}, which
+ * allocates a short-lived hasher per call but is still the fastest option.
+ * <p>
+ * With a key, the SHA algorithms run as HMAC, so pseudonymized values cannot be reversed with a dictionary of
+ * candidate values without the key. {@link Hashed.Algorithm#MURMUR_3} is not a cryptographic hash, it has no keyed
+ * mode and should only be used where reversibility is not a concern.
+ */
+public class HashingMasker implements MaskerFunction {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int MAX_SCRATCH_LENGTH = 1024;
+
+    private Hashed.Algorithm algorithm = Hashed.Algorithm.SHA_256;
+    private byte[] hmacKey;
+    private ThreadLocal<State> state = ThreadLocal.withInitial(this::newState);
+
+    public HashingMasker() {
+    }
+
+    public HashingMasker(Hashed.Algorithm algorithm) {
+        this(algorithm, null);
+    }
+
+    /**
+     * @param algorithm the hash algorithm
+     * @param hmacKey   the HMAC key, or null to hash without a key
+     */
+    public HashingMasker(Hashed.Algorithm algorithm, byte[] hmacKey) {
+        this.algorithm = algorithm;
+        this.hmacKey = hmacKey == null ? null : hmacKey.clone();
+        validate(algorithm, hmacKey);
+    }
+
+    /**
+     * Configures the algorithm ({@link Hashed#ALGORITHM_CONFIG}) and the HMAC key ({@link Hashed#HMAC_KEY_CONFIG}).
+     * Must be called before the instance is shared between threads.
+     */
+    @Override
+    public void configure(Map<String, Object> config) {
+        Hashed.Algorithm newAlgorithm = algorithm;
+        Object configuredAlgorithm = config.get(Hashed.ALGORITHM_CONFIG);
+        if (configuredAlgorithm instanceof Hashed.Algorithm value) {
+            newAlgorithm = value;
+        } else if (configuredAlgorithm != null) {
+            newAlgorithm = Hashed.Algorithm.valueOf(configuredAlgorithm.toString());
+        }
+        byte[] newKey = hmacKey;
+        Object configuredKey = config.get(Hashed.HMAC_KEY_CONFIG);
+        if (configuredKey instanceof byte[] value) {
+            newKey = value.clone();
+        } else if (configuredKey != null) {
+            newKey = configuredKey.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        validate(newAlgorithm, newKey);
+        algorithm = newAlgorithm;
+        hmacKey = newKey;
+        state = ThreadLocal.withInitial(this::newState);
+    }
+
+    @Override
+    public String apply(String value) {
+        State current = state.get();
+        byte[] digest = current.digest;
+        int digestLength;
+        try {
+            if (current.mac != null) {
+                byte[] input = current.encode(value);
+                current.mac.update(input, 0, current.inputLength);
+                current.mac.doFinal(digest, 0);
+                digestLength = current.mac.getMacLength();
+            } else if (current.messageDigest != null) {
+                byte[] input = current.encode(value);
+                current.messageDigest.update(input, 0, current.inputLength);
+                digestLength = current.messageDigest.digest(digest, 0, digest.length);
+            } else {
+                // Guava hashes the characters directly, faster than encoding them first
+                digestLength = algorithm.getHashFunction().hashString(value, StandardCharsets.UTF_8).writeBytesTo(digest, 0, digest.length);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to hash value with " + algorithm, e);
+        }
+        char[] hex = current.hex;
+        for (int i = 0; i < digestLength; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(hex, 0, 2 * digestLength);
+    }
+
+    public Hashed.Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isKeyed() {
+        return hmacKey != null;
+    }
+
+    private static void validate(Hashed.Algorithm algorithm, byte[] hmacKey) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("algorithm cant be null");
+        }
+        if (hmacKey != null && algorithm.getHmacAlgorithm() == null) {
+            throw new IllegalArgumentException(algorithm + " does not support a keyed mode");
+        }
+    }
+
+    private State newState() {
+        try {
+            if (hmacKey != null) {
+                Mac mac = Mac.getInstance(algorithm.getHmacAlgorithm());
+                mac.init(new SecretKeySpec(hmacKey, algorithm.getHmacAlgorithm()));
+                return new State(null, mac, mac.getMacLength());
+            }
+            if (algorithm == Hashed.Algorithm.MURMUR_3) {
+                return new State(null, null, algorithm.getHashFunction().bits() / Byte.SIZE);
+            }
+            MessageDigest messageDigest = MessageDigest.getInstance(algorithm.getJdkAlgorithm());
+            return new State(messageDigest, null, messageDigest.getDigestLength());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create hasher for " + algorithm, e);
+        }
+    }
+
+    // Per-thread hashing state, never shared between threads.
+    private static final class State {
+        private final MessageDigest messageDigest;
+        private final Mac mac;
+        private final byte[] digest;
+        private final char[] hex;
+        private byte[] input = new byte[128];
+        private int inputLength;
+
+        private State(MessageDigest messageDigest, Mac mac, int digestLength) {
+            this.messageDigest = messageDigest;
+            this.mac = mac;
+            this.digest = new byte[digestLength];
+            this.hex = new char[2 * digestLength];
+        }
+
+        // Encodes ASCII values into the reusable buffer, anything else falls back to String.getBytes.
+        private byte[] encode(String value) {
+            int length = value.length();
+            if (length > MAX_SCRATCH_LENGTH) {
+                return whole(value);
+            }
+            if (input.length < length) {
+                input = new byte[Math.min(MAX_SCRATCH_LENGTH, Math.max(length, input.length * 2))];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    return whole(value);
+                }
+                input[i] = (byte) c;
+            }
+            inputLength = length;
+            return input;
+        }
+
+        private byte[] whole(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            inputLength = bytes.length;
+            return bytes;
+        }
+    }
+}
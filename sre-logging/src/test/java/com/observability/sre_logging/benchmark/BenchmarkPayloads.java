@@ -0,0 +1,41 @@
+package com.observability.sre_logging.benchmark;
+
+import java.util.Random;
+
+/**
+ * Builds realistic request/response payloads for the benchmarks.
+ */
+final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Builds a JSON document of roughly the given size, made of customer records with a few sensitive fields.
+     *
+     * @param size approximate size of the document in characters
+     * @return the JSON document
+     */
+    static String customersJson(int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("{\"requestId\":\"").append(Long.toHexString(random.nextLong())).append("\",\"customers\":[");
+        int i = 0;
+        while (sb.length() < size) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i)
+                    .append(",\"name\":\"Customer ").append(i).append('"')
+                    .append(",\"email\":\"customer.").append(i).append("@example.com\"")
+                    .append(",\"phone\":\"").append(1_000_000_000L + random.nextInt(900_000_000)).append('"')
+                    .append(",\"accountNumber\":\"").append(100_000_000_000L + Math.abs(random.nextLong() % 900_000_000_000L)).append('"')
+                    .append(",\"address\":{\"city\":\"Kolkata\",\"zip\":\"7000").append(10 + random.nextInt(90)).append("\"}")
+                    .append(",\"active\":").append(random.nextBoolean())
+                    .append('}');
+            i++;
+        }
+        return sb.append("]}").toString();
+    }
+}
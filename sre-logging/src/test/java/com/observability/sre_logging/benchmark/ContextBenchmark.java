@@ -0,0 +1,120 @@
+package com.observability.sre_logging.benchmark;
+
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.core.logging.MDCUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.MDC;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request cost of populating the {@link Context} the way the request extractors and {@code ContextFilter} do,
+ * copying it to the {@link MDC} and resetting it, against the previous {@link ConcurrentHashMap} based context.
+ * Run with {@code -prof gc} to compare the allocation per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBenchmark {
+    private static final String[][] MDC_VALUES = {
+            {ContextKeys.TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736"},
+            {ContextKeys.SPAN_ID, "00f067aa0ba902b7"},
+            {ContextKeys.PARENT_SPAN_ID, "53995c3f42cd8ad8"},
+            {ContextKeys.PROTOCOL, "HTTP/1.1"},
+            {ContextKeys.SESSION_ID, "f3c1a4b2"},
+            {ContextKeys.REMOTE_APPLICATION_ID, "app-42"},
+            {ContextKeys.REMOTE_APPLICATION_MODULE, "checkout"},
+            {ContextKeys.REMOTE_HOST, "10.0.0.12"},
+            {ContextKeys.CORRELATION_ID, "c0ffee-1234"},
+            {ContextKeys.USER_AGENT, "curl/8.4.0"},
+            {ContextKeys.USER, "jdoe"},
+            {ContextKeys.CHANNEL_TYPE, "web"}
+    };
+    private static final String[][] CONTEXT_VALUES = {
+            {ContextKeys.API_CLIENT_ID, "client-7"},
+            {ContextKeys.API_SIGNATURE, "sig"},
+            {ContextKeys.API_SIGNATURE_URL, "https://example.com/sig"},
+            {ContextKeys.DP_OWNER, "payments"},
+            {ContextKeys.PATH_PARAMS, "id=42"},
+            {ContextKeys.QUERY_PARAMS, "page=1"},
+            {ContextKeys.APPLICATION_ID, "sre-logging"},
+            {ContextKeys.APPLICATION_MODULE, "sre-logging"}
+    };
+
+    private final Context context = new Context();
+    private final LegacyContext legacyContext = new LegacyContext();
+
+    @Benchmark
+    public void legacyContext() {
+        LegacyContext ctx = legacyContext;
+        for (String[] value : MDC_VALUES) {
+            ctx.put(value[0], value[1], true);
+        }
+        for (String[] value : CONTEXT_VALUES) {
+            ctx.put(value[0], value[1], false);
+        }
+        ctx.getMdcKeys().forEach(key -> MDC.put(key, ctx.getString(key)));
+        ctx.getMdcKeys().forEach(MDC::remove);
+        ctx.clear();
+    }
+
+    @Benchmark
+    public void slotContext() {
+        Context ctx = context;
+        for (String[] value : MDC_VALUES) {
+            ctx.put(value[0], value[1], true);
+        }
+        for (String[] value : CONTEXT_VALUES) {
+            ctx.put(value[0], value[1], false);
+        }
+        MDCUtils.initializeMDC(ctx);
+        MDCUtils.cleanupMDC(ctx);
+        ctx.clear();
+    }
+
+    // The previous Context implementation, kept here as the baseline.
+    static class LegacyContext {
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private final Set<String> mdcKeys = Collections.newSetFromMap(new ConcurrentHashMap<>(2));
+
+        void put(String key, String value, boolean mdc) {
+            attributes.put(key, value);
+            if (mdc) {
+                mdcKeys.add(key);
+            }
+        }
+
+        Set<String> getMdcKeys() {
+            return Collections.unmodifiableSet(mdcKeys);
+        }
+
+        String getString(String key) {
+            Object obj = attributes.get(key);
+            return obj == null ? null : obj.toString();
+        }
+
+        void clear() {
+            attributes.clear();
+            mdcKeys.clear();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ContextBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
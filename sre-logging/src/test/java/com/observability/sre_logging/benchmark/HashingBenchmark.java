@@ -0,0 +1,71 @@
+package com.observability.sre_logging.benchmark;
+
+import com.observability.sre_logging.sensitive.Hashed;
+import com.observability.sre_logging.sensitive.HashingMasker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per field cost of {@link HashingMasker} for {@link Hashed.Algorithm#SHA_256} (plain and HMAC) and
+ * {@link Hashed.Algorithm#MURMUR_3}, against hashing with the Guava {@code HashFunction} directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+
+    @Param({"CUST-0000042", "john.doe@example.com"})
+    private String value;
+
+    private HashingMasker sha256;
+    private HashingMasker hmacSha256;
+    private HashingMasker murmur3;
+
+    @Setup
+    public void setup() {
+        sha256 = new HashingMasker(Hashed.Algorithm.SHA_256);
+        hmacSha256 = new HashingMasker(Hashed.Algorithm.SHA_256, "benchmark-key".getBytes(StandardCharsets.UTF_8));
+        murmur3 = new HashingMasker(Hashed.Algorithm.MURMUR_3);
+    }
+
+    @Benchmark
+    public String guavaSha256() {
+        return Hashed.Algorithm.SHA_256.getHashFunction().hashString(value, StandardCharsets.UTF_8).toString();
+    }
+
+    @Benchmark
+    public String sha256() {
+        return sha256.apply(value);
+    }
+
+    @Benchmark
+    public String hmacSha256() {
+        return hmacSha256.apply(value);
+    }
+
+    @Benchmark
+    public String guavaMurmur3() {
+        return Hashed.Algorithm.MURMUR_3.getHashFunction().hashString(value, StandardCharsets.UTF_8).toString();
+    }
+
+    @Benchmark
+    public String murmur3() {
+        return murmur3.apply(value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HashingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.observability.sre_logging.benchmark;
+
+import com.observability.sre_logging.core.HeaderKeys;
+import com.observability.sre_logging.core.context.ApiStandardsHttpRequestExtractor;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per request cost of {@link ApiStandardsHttpRequestExtractor} on a request carrying the API standard headers, a
+ * {@code sessioncache} and a few unrelated headers, against the previous header by header extraction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderExtractionBenchmark {
+    private final ApiStandardsHttpRequestExtractor extractor = new ApiStandardsHttpRequestExtractor();
+    private final Context context = new Context();
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader("Host", "books.example.com");
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+        request.addHeader("Connection", "keep-alive");
+        request.addHeader("Trace-Id", "4bf92f3577b34da6a3ce929d0e0e4736");
+        request.addHeader("Span-Id", "00f067aa0ba902b7");
+        request.addHeader("Parent-Span-Id", "53995c3f42cd8ad8");
+        request.addHeader("Session-Id", "f3c1a4b2");
+        request.addHeader("Application-Id", "app-42");
+        request.addHeader("Application-Module", "checkout");
+        request.addHeader("Correlation-Id", "c0ffee-1234");
+        request.addHeader("User-Agent", "curl/8.4.0");
+        request.addHeader("Channel-Type", "web");
+        request.addHeader("api-clientId", "client-7");
+        request.addHeader("api-owner", "payments");
+        request.addHeader("sessioncache", "key=abc123; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+    }
+
+    @Benchmark
+    public Context legacyExtract() {
+        context.clear();
+        legacyExtract(context, request);
+        return context;
+    }
+
+    @Benchmark
+    public Context extractionPlan() {
+        context.clear();
+        extractor.extract(context, request);
+        return context;
+    }
+
+    // The previous extract implementation, kept here as the baseline. The session cache parsing did not compile,
+    // the baseline splits each element into a key and a value as intended.
+    private static void legacyExtract(Context context, HttpServletRequest servletRequest) {
+        context.putMDC(ContextKeys.TRACE_ID, servletRequest.getHeader(HeaderKeys.HttpType.TRANSACTION_ID.getKey()));
+        context.putMDC(ContextKeys.SPAN_ID, servletRequest.getHeader(HeaderKeys.HttpType.SPAN_ID.getKey()));
+        context.putMDC(ContextKeys.PARENT_SPAN_ID, servletRequest.getHeader(HeaderKeys.HttpType.PARENT_SPAN_ID.getKey()));
+        context.putMDC(ContextKeys.PROTOCOL, servletRequest.getHeader(HeaderKeys.HttpType.PROTOCOL.getKey()) != null ? servletRequest.getHeader(HeaderKeys.HttpType.PROTOCOL.getKey()) : servletRequest.getProtocol());
+        if (servletRequest.getHeader(HeaderKeys.HttpType.SESSION_ID.getKey()) != null) {
+            context.putMDC(ContextKeys.SESSION_ID, servletRequest.getHeader(HeaderKeys.HttpType.SESSION_ID.getKey()));
+        }
+        context.putMDC(ContextKeys.SESSION_ID, servletRequest.getHeader(HeaderKeys.HttpType.SESSION_ID.getKey()));
+        context.putMDC(ContextKeys.REMOTE_APPLICATION_ID, servletRequest.getHeader(HeaderKeys.HttpType.APPLICATION_ID.getKey()));
+        context.putMDC(ContextKeys.REMOTE_APPLICATION_MODULE, servletRequest.getHeader(HeaderKeys.HttpType.APPLICATION_MODULE.getKey()));
+        context.putMDC(ContextKeys.REMOTE_HOST, servletRequest.getRemoteHost());
+        context.putMDC(ContextKeys.CORRELATION_ID, servletRequest.getHeader(HeaderKeys.HttpType.CORRELATION_ID.getKey()));
+        context.putMDC(ContextKeys.USER_AGENT, servletRequest.getHeader(HeaderKeys.HttpType.USER_AGENT.getKey()));
+        context.putMDC(ContextKeys.USER, servletRequest.getRemoteUser());
+        context.putMDC(ContextKeys.CHANNEL_TYPE, servletRequest.getHeader(HeaderKeys.HttpType.CHANNEL_TYPE.getKey()));
+        context.put(ContextKeys.API_CLIENT_ID, servletRequest.getHeader(HeaderKeys.HttpType.API_CLIENT_ID.getKey()), false);
+        context.put(ContextKeys.API_SIGNATURE, servletRequest.getHeader(HeaderKeys.HttpType.API_SIGNATURE.getKey()), false);
+        context.put(ContextKeys.API_SIGNATURE_URL, servletRequest.getHeader(HeaderKeys.HttpType.API_SIGNATURE_URL.getKey()), false);
+        context.put(ContextKeys.DP_OWNER, servletRequest.getHeader(HeaderKeys.HttpType.DP_OWNER.getKey()), false);
+        context.put(ContextKeys.PATH_PARAMS, servletRequest.getHeader(HeaderKeys.HttpType.PATH_PARAMS.getKey()), false);
+        context.put(ContextKeys.QUERY_PARAMS, servletRequest.getHeader(HeaderKeys.HttpType.QUERY_PARAMS.getKey()), false);
+        String sessionCache = servletRequest.getHeader(HeaderKeys.HttpType.SESSION_CACHE.getKey());
+        if (StringUtils.hasText(sessionCache)) {
+            Map<String, String> elements = Stream.of(sessionCache.split(";"))
+                    .map(element -> element.trim().split("="))
+                    .filter(keyValue -> keyValue.length == 2)
+                    .collect(Collectors.toMap(keyValue -> keyValue[0], keyValue -> keyValue[1]));
+            boolean valid = !elements.isEmpty();
+            for (String element : List.of(ContextKeys.SESSION_CACHE_KEY, ContextKeys.SESSION_CACHE_COOKIE_NM, ContextKeys.SESSION_CACHE_COOKIE_VAL, ContextKeys.SESSION_CACHE_ADDR)) {
+                if (!StringUtils.hasText(elements.get(element))) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) {
+                context.put(ContextKeys.SESSION_CACHE, sessionCache, false);
+                elements.forEach((key, value) -> context.put(key, value, false));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HeaderExtractionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
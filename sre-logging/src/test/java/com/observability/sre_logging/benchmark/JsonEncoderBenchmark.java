@@ -0,0 +1,91 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.logback.ContextJsonEncoder;
+import com.observability.sre_logging.logback.MaskedField;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of an INFO event with two arguments and five context keys into a JSON line, by the {@link ContextJsonEncoder}
+ * (context keys read from the {@link Context}, the user masked) and by logstash-logback-encoder (context keys copied
+ * to the MDC, as {@code MDCUtils.initializeMDC} does, nothing masked). Run with the GC profiler and compare
+ * {@code gc.alloc.rate.norm}: the byte array handed to the appender is the only allocation of the context encoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonEncoderBenchmark {
+
+    private LoggingEvent event;
+    private ContextJsonEncoder contextJsonEncoder;
+    private LogstashEncoder logstashEncoder;
+
+    @Setup
+    public void setup() {
+        LoggerContext loggerContext = new LoggerContext();
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        Logger logger = loggerContext.getLogger("com.observability.orders.OrderService");
+
+        Context context = Context.getScopedContext();
+        context.clear();
+        context.putMDC(ContextKeys.TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736");
+        context.putMDC(ContextKeys.CORRELATION_ID, "c0a80001-7f1e-4a6b-9d2e-5b1f0c3d2e11");
+        context.putMDC(ContextKeys.REMOTE_APPLICATION_ID, "mobile-banking");
+        context.putMDC(ContextKeys.CHANNEL_TYPE, "MOBILE");
+        context.putMDC(ContextKeys.USER, "johnsmith");
+        context.forEachMdc(loggerContext.getMDCAdapter()::put);
+
+        event = new LoggingEvent(JsonEncoderBenchmark.class.getName(), logger, Level.INFO,
+                "Order {} accepted for customer {}", null, new Object[]{42L, "customer-42"});
+        event.prepareForDeferredProcessing();
+
+        contextJsonEncoder = new ContextJsonEncoder();
+        contextJsonEncoder.setContext(loggerContext);
+        MaskedField user = new MaskedField();
+        user.setName(ContextKeys.USER);
+        contextJsonEncoder.addMaskedField(user);
+        contextJsonEncoder.start();
+
+        logstashEncoder = new LogstashEncoder();
+        logstashEncoder.setContext(loggerContext);
+        logstashEncoder.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Context.getScopedContext().clear();
+    }
+
+    @Benchmark
+    public byte[] contextJsonEncoder() {
+        return contextJsonEncoder.encode(event);
+    }
+
+    @Benchmark
+    public byte[] logstashEncoder() {
+        return logstashEncoder.encode(event);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
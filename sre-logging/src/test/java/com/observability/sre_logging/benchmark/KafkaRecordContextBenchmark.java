@@ -0,0 +1,114 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.observability.sre_logging.core.HeaderKeys;
+import com.observability.sre_logging.core.interceptor.KafkaRecordContext;
+import com.observability.sre_logging.core.logging.MDCUtils;
+import com.observability.sre_logging.logback.ContextMDCAdapter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cost of processing a poll of {@code batchSize} records with a {@link KafkaRecordContext} per record, each record
+ * carrying five API standard headers and two unrelated ones, the handler only logging at the disabled DEBUG level.
+ * The baseline decodes every mapped header into the MDC, as an eager per record interceptor would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaRecordContextBenchmark {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(KafkaRecordContextBenchmark.class);
+
+    @Param({"1", "50", "500"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean lazyMdc;
+
+    private final KafkaRecordContext recordContext = new KafkaRecordContext(Map.of("consumer-group", "books"));
+    private final Consumer<ConsumerRecord<String, String>> handler = record -> log.debug("Consumed {}", record.offset());
+    private ConsumerRecords<String, String> records;
+
+    @Setup
+    public void setup() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        if (lazyMdc) {
+            ContextMDCAdapter.install();
+        } else {
+            MDCUtils.setLazyMdc(false);
+        }
+        List<ConsumerRecord<String, String>> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            RecordHeaders headers = new RecordHeaders();
+            headers.add(HeaderKeys.HttpType.TRANSACTION_ID.getKey(), bytes("4bf92f3577b34da6a3ce929d0e0e" + (1000 + i)));
+            headers.add(HeaderKeys.HttpType.SPAN_ID.getKey(), bytes("00f067aa0ba9" + (1000 + i)));
+            headers.add(HeaderKeys.HttpType.CORRELATION_ID.getKey(), bytes("c0ffee-" + i));
+            headers.add(HeaderKeys.HttpType.APPLICATION_ID.getKey(), bytes("app-42"));
+            headers.add(HeaderKeys.HttpType.API_CLIENT_ID.getKey(), bytes("client-7"));
+            headers.add("content-type", bytes("application/json"));
+            headers.add("schema-version", bytes("3"));
+            batch.add(new ConsumerRecord<>("books", 0, i, 0L, TimestampType.CREATE_TIME, 0, 0, "key-" + i, "value",
+                    headers, Optional.empty()));
+        }
+        records = new ConsumerRecords<>(Map.of(new TopicPartition("books", 0), batch));
+    }
+
+    @Benchmark
+    public void eagerMdc() {
+        for (ConsumerRecord<String, String> record : records) {
+            List<String> keys = new ArrayList<>();
+            for (Header header : record.headers()) {
+                for (HeaderKeys.HttpType type : HeaderKeys.HttpType.values()) {
+                    if (type.getContextKey() != null && type.getKey().equalsIgnoreCase(header.key())) {
+                        MDC.put(type.getContextKey(), new String(header.value(), StandardCharsets.UTF_8));
+                        keys.add(type.getContextKey());
+                    }
+                }
+            }
+            try {
+                handler.accept(record);
+            } finally {
+                keys.forEach(MDC::remove);
+            }
+        }
+    }
+
+    @Benchmark
+    public void recordContext() {
+        recordContext.forEach(records, handler);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(KafkaRecordContextBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.core.context.HttpRequestExtractor;
+import com.observability.sre_logging.core.context.filter.ContextFilter;
+import com.observability.sre_logging.logback.ContextMDCAdapter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs requests through {@link ContextFilter} with the MDC copied eagerly (the default) or resolved lazily by
+ * {@link ContextMDCAdapter}. The handler either logs nothing at the enabled level, or logs one INFO event that is
+ * encoded with its MDC.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyMdcBenchmark {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(LazyMdcBenchmark.class);
+
+    @Param({"false", "true"})
+    private boolean lazy;
+
+    @Param({"false", "true"})
+    private boolean logging;
+
+    private ContextFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.INFO);
+        AppenderBase<ILoggingEvent> appender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                blackhole.consume(event.getMDCPropertyMap().get(ContextKeys.TRACE_ID));
+            }
+        };
+        appender.setContext(loggerContext);
+        appender.start();
+        root.addAppender(appender);
+        if (lazy) {
+            ContextMDCAdapter.install();
+        }
+        filter = new ContextFilter(new StaticListableBeanFactory().getBeanProvider(HttpRequestExtractor.class), true,
+                new MockEnvironment().withProperty("spring.application.name", "benchmark"));
+        request = new MockHttpServletRequest("GET", "/books");
+        response = new MockHttpServletResponse();
+        chain = (servletRequest, servletResponse) -> {
+            log.debug("Handling {} {}", request.getMethod(), request.getRequestURI());
+            if (logging) {
+                log.info("Handled request");
+            }
+        };
+    }
+
+    @Benchmark
+    public void request() throws ServletException, IOException {
+        Context context = Context.getScopedContext();
+        // what the request extractors put in the context
+        context.putMDC(ContextKeys.TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736");
+        context.putMDC(ContextKeys.SPAN_ID, "00f067aa0ba902b7");
+        context.putMDC(ContextKeys.PARENT_SPAN_ID, "53995c3f42cd8ad8");
+        context.putMDC(ContextKeys.PROTOCOL, "HTTP/1.1");
+        context.putMDC(ContextKeys.SESSION_ID, "f3c1a4b2");
+        context.putMDC(ContextKeys.REMOTE_APPLICATION_ID, "app-42");
+        context.putMDC(ContextKeys.REMOTE_HOST, "10.0.0.12");
+        context.putMDC(ContextKeys.CORRELATION_ID, "c0ffee-1234");
+        context.putMDC(ContextKeys.USER_AGENT, "curl/8.4.0");
+        context.putMDC(ContextKeys.CHANNEL_TYPE, "web");
+        filter.doFilter(request, response, chain);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LazyMdcBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.observability.sre_logging.core.logging.Loggable;
+import com.observability.sre_logging.core.logging.LoggableAspect;
+import com.observability.sre_logging.core.logging.Masked;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a {@link Loggable} DEBUG method called through a {@link LoggableAspect} proxy, with DEBUG disabled
+ * ({@code logging=false}) or enabled and written to an appender that formats the message, against calling the
+ * service directly and through a proxy whose around advice only proceeds, which is the cost of Spring AOP itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggableAspectBenchmark {
+
+    public static class AccountService {
+        @Loggable(level = org.slf4j.event.Level.DEBUG)
+        public String findAccount(String customerId, @Masked String accountNumber) {
+            return customerId.length() > 3 ? "active" : "closed";
+        }
+    }
+
+    @Aspect
+    public static class ProceedAspect {
+        @Around("@annotation(com.observability.sre_logging.core.logging.Loggable)")
+        public Object proceed(ProceedingJoinPoint joinPoint) throws Throwable {
+            return joinPoint.proceed();
+        }
+    }
+
+    @Param({"false", "true"})
+    private boolean logging;
+
+    private final AccountService service = new AccountService();
+    private AccountService proxy;
+    private AccountService proceedProxy;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(logging ? Level.DEBUG : Level.INFO);
+        AppenderBase<ILoggingEvent> appender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                blackhole.consume(event.getFormattedMessage());
+            }
+        };
+        appender.setContext(loggerContext);
+        appender.start();
+        root.addAppender(appender);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new AccountService());
+        proxyFactory.addAspect(new LoggableAspect(new SimpleMeterRegistry()));
+        proxy = proxyFactory.getProxy();
+        AspectJProxyFactory proceedProxyFactory = new AspectJProxyFactory(new AccountService());
+        proceedProxyFactory.addAspect(new ProceedAspect());
+        proceedProxy = proceedProxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public String direct() {
+        return service.findAccount("customer-42", "4111111111111111");
+    }
+
+    @Benchmark
+    public String springAop() {
+        return proceedProxy.findAccount("customer-42", "4111111111111111");
+    }
+
+    @Benchmark
+    public String loggable() {
+        return proxy.findAccount("customer-42", "4111111111111111");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoggableAspectBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.observability.sre_logging.benchmark;
+
+import com.observability.sre_logging.core.logging.AlphaNumericMasker;
+import com.observability.sre_logging.core.logging.MaskerFunction;
+import com.observability.sre_logging.core.logging.Maskers;
+import com.observability.sre_logging.core.logging.Masked;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the cached {@link Maskers} instances with a new masker per call, as {@code MaskUtil} used to do.
+ * <p>
+ * Run with the GC profiler ({@code -prof gc}) to see the allocation rate, {@code gc.alloc.rate.norm} of the cached
+ * maskers is the size of the result string only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskerBenchmark {
+    private static final Pattern ALPHANUMERIC_GROUPS = Pattern.compile("[0-9A-Za-z]+");
+    private static final Pattern ALPHANUMERICS = Pattern.compile("[0-9A-Za-z]");
+
+    @Param({"4111-1111-1111-1111", "john.doe@example.com"})
+    private String value;
+
+    private MaskerFunction defaultMasker;
+    private MaskerFunction alphaNumericMasker;
+    private MaskerFunction singleCharAlphaNumericMasker;
+
+    @Setup
+    public void setup() {
+        defaultMasker = Maskers.defaultMasker();
+        alphaNumericMasker = Maskers.alphaNumericMasker();
+        singleCharAlphaNumericMasker = Maskers.of(AlphaNumericMasker.class, Masked.MASK_DEFAULT, 1,
+                Masked.EXPOSED_SUFFIX_LENGTH_DEFAULT, Masked.MASK_ENTIRE_SHORT_VALUE_DEFAULT);
+    }
+
+    @Benchmark
+    public String legacyDefaultMasker() {
+        int exposedLength = Masked.EXPOSED_SUFFIX_LENGTH_DEFAULT;
+        int valueLength = value.length();
+        int unExposedLength = valueLength - exposedLength;
+        while (unExposedLength < exposedLength) {
+            unExposedLength++;
+            exposedLength--;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(StringUtils.repeat(Masked.MASK_DEFAULT, Masked.MASK_LENGTH_DEFAULT));
+        sb.append(value.substring(unExposedLength));
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String cachedDefaultMasker() {
+        return defaultMasker.apply(value);
+    }
+
+    @Benchmark
+    public String legacyAlphaNumericMasker() {
+        String replacement = StringUtils.repeat(Masked.MASK_DEFAULT, Masked.MASK_LENGTH_DEFAULT);
+        return ALPHANUMERIC_GROUPS.matcher(value).replaceAll(replacement);
+    }
+
+    @Benchmark
+    public String cachedAlphaNumericMasker() {
+        return alphaNumericMasker.apply(value);
+    }
+
+    @Benchmark
+    public String legacySingleCharAlphaNumericMasker() {
+        return ALPHANUMERICS.matcher(value).replaceAll(String.valueOf(Masked.MASK_DEFAULT));
+    }
+
+    @Benchmark
+    public String cachedSingleCharAlphaNumericMasker() {
+        return singleCharAlphaNumericMasker.apply(value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MaskerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
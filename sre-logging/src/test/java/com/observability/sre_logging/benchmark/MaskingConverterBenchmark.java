@@ -0,0 +1,92 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.observability.sre_logging.core.logging.MaskingEngine;
+import com.observability.sre_logging.core.logging.MaskingRule;
+import com.observability.sre_logging.logback.MaskingConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of a pattern layout line masking a card number, an email and a password, with the nested
+ * {@code %replace} chain of {@code 00-logging/logback__1.xml} against the {@code %mask} converter, for a message
+ * containing none of them ({@code clean}, the usual case, short-circuited by the keyword filter) and all of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskingConverterBenchmark {
+    private static final String REPLACE_PATTERN = "%-5level %logger - "
+            + "%replace(%replace(%replace(%msg){'(card|pan)=(\\d{0,3})\\d{9}', '$1=$2*********'})"
+            + "{'email=[^@\\s]{1,8}', 'email=********'}){'password=\\S+', 'password=****'} %n";
+    private static final String MASK_PATTERN = "%-5level %logger - %mask(%msg) %n";
+
+    @Param({"clean", "sensitive"})
+    private String message;
+
+    private LoggingEvent event;
+    private PatternLayout replaceLayout;
+    private PatternLayout maskLayout;
+
+    @Setup
+    public void setup() {
+        LoggerContext loggerContext = new LoggerContext();
+        String text = message.equals("clean")
+                ? "Order 42 accepted for customer 42 in 120 ms with status ACCEPTED"
+                : "Payment for order 42 with card=4111111111111111 by email=john.doe@example.com password=s3cret accepted";
+        event = new LoggingEvent(MaskingConverterBenchmark.class.getName(), loggerContext.getLogger("com.observability.orders"),
+                Level.INFO, text, null, null);
+
+        MaskingConverter.install(MaskingEngine.compileRules(List.of(
+                new MaskingRule("card", "(?:card|pan)=\\d{0,3}(\\d{9})", List.of("card=", "pan=")),
+                new MaskingRule("email", "email=([^@\\s]{1,8})", List.of("email=")),
+                new MaskingRule("password", "password=(\\S+)", List.of("password="))), 0, '*'));
+
+        replaceLayout = layout(loggerContext, REPLACE_PATTERN);
+        maskLayout = layout(loggerContext, MASK_PATTERN);
+    }
+
+    private static PatternLayout layout(LoggerContext loggerContext, String pattern) {
+        PatternLayout layout = new PatternLayout();
+        layout.setContext(loggerContext);
+        layout.setPattern(pattern);
+        // the <conversionRule> of logback.xml
+        layout.getInstanceConverterMap().put("mask", MaskingConverter.class.getName());
+        layout.start();
+        return layout;
+    }
+
+    @TearDown
+    public void tearDown() {
+        MaskingConverter.install(null);
+    }
+
+    @Benchmark
+    public String replaceChain() {
+        return replaceLayout.doLayout(event);
+    }
+
+    @Benchmark
+    public String maskConverter() {
+        return maskLayout.doLayout(event);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MaskingConverterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,73 @@
+package com.observability.sre_logging.benchmark;
+
+import com.observability.sre_logging.core.logging.MaskingEngine;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the compiled {@link MaskingEngine} with the per-call regex compilation previously done by
+ * {@code MaskUtil.mask(String, List, int, String)} over 1-64 KB JSON payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskingEngineBenchmark {
+    private static final List<String> PATTERNS = List.of(
+            "\"email\":\"([^\"@]{0,8})",
+            "\"phone\":\"([0-9]{0,6})",
+            "\"accountNumber\":\"([0-9]{0,8})");
+
+    @Param({"1024", "8192", "65536"})
+    private int payloadSize;
+
+    private String payload;
+    private MaskingEngine engine;
+
+    @Setup
+    public void setup() {
+        payload = BenchmarkPayloads.customersJson(payloadSize);
+        engine = MaskingEngine.compile(PATTERNS, 0);
+    }
+
+    @Benchmark
+    public String legacyMask() {
+        return legacyMask(payload, PATTERNS, 0, "*");
+    }
+
+    @Benchmark
+    public String maskingEngine() {
+        return engine.mask(payload);
+    }
+
+    // Original MaskUtil.mask implementation, kept here as the baseline. The original exhausted the matcher before
+    // reading the groups, which throws, so the baseline masks each match as it is found instead.
+    private static String legacyMask(String message, List<String> maskPatterns, int mode, String maskChar) {
+        StringBuilder sb = new StringBuilder(message);
+        maskPatterns.forEach(pattern -> {
+            Matcher m = Pattern.compile(pattern, mode).matcher(sb.toString());
+            while (m.find()) {
+                for (int i = 1; i <= m.groupCount(); i++) {
+                    if (m.group(i) != null) {
+                        sb.replace(m.start(i), m.end(i), StringUtils.repeat(maskChar, (m.end(i) - m.start(i))));
+                    }
+                }
+            }
+        });
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MaskingEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
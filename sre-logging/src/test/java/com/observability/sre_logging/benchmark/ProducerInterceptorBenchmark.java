@@ -0,0 +1,60 @@
+package com.observability.sre_logging.benchmark;
+
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.core.interceptor.ContextHeadersProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one million sends through {@link ContextHeadersProducerInterceptor}, with four MDC keys in the context of
+ * the sending thread, against creating the records alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1_000_000)
+@Measurement(iterations = 5, batchSize = 1_000_000)
+@Fork(1)
+public class ProducerInterceptorBenchmark {
+    private final ContextHeadersProducerInterceptor interceptor = new ContextHeadersProducerInterceptor();
+
+    @Setup
+    public void setup() {
+        Context context = Context.getScopedContext();
+        context.clear();
+        context.putMDC(ContextKeys.TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736");
+        context.putMDC(ContextKeys.SPAN_ID, "00f067aa0ba902b7");
+        context.putMDC(ContextKeys.CORRELATION_ID, "c0ffee-1234");
+        context.putMDC(ContextKeys.SESSION_ID, "f3c1a4b2");
+        context.put(ContextKeys.API_SIGNATURE, "not sent", false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Context.clearScopedContext();
+    }
+
+    @Benchmark
+    public ProducerRecord<Object, Object> send() {
+        return new ProducerRecord<>("books", "key", "value");
+    }
+
+    @Benchmark
+    public ProducerRecord<Object, Object> sendWithInterceptor() {
+        return interceptor.onSend(new ProducerRecord<>("books", "key", "value"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProducerInterceptorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.observability.sre_logging.core.context.ApiStandardsServerHttpRequestExtractor;
+import com.observability.sre_logging.core.context.ReactiveContext;
+import com.observability.sre_logging.core.context.ServerHttpRequestExtractor;
+import com.observability.sre_logging.core.context.filter.ReactiveContextFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of {@link ReactiveContextFilter}: concurrent requests hop to the parallel scheduler and log one INFO event
+ * each. Compares requests without any context ({@code none}), the context restored only around the log call
+ * ({@code reactiveContext}) and Reactor's automatic propagation, which restores it around every operator
+ * ({@code automatic}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ReactiveContextBenchmark {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(ReactiveContextBenchmark.class);
+
+    @Param({"none", "reactiveContext", "automatic"})
+    private String propagation;
+
+    private final LongAdder mdcValues = new LongAdder();
+    private ReactiveContextFilter filter;
+    private MockServerWebExchange exchange;
+    private WebFilterChain chain;
+
+    @Setup
+    public void setup() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.INFO);
+        AppenderBase<ILoggingEvent> appender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                mdcValues.add(event.getMDCPropertyMap().size());
+            }
+        };
+        appender.setContext(loggerContext);
+        appender.start();
+        root.addAppender(appender);
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("apiStandards", new ApiStandardsServerHttpRequestExtractor());
+        filter = new ReactiveContextFilter(beanFactory.getBeanProvider(ServerHttpRequestExtractor.class), true,
+                new MockEnvironment().withProperty("spring.application.name", "benchmark"));
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/books")
+                .header("Trace-Id", "4bf92f3577b34da6a3ce929d0e0e4736")
+                .header("Span-Id", "00f067aa0ba902b7")
+                .header("Correlation-Id", "c0ffee-1234")
+                .header("User-Agent", "curl/8.4.0")
+                .header("Channel-Type", "web"));
+        if ("reactiveContext".equals(propagation)) {
+            chain = serverWebExchange -> handler(serverWebExchange)
+                    .doOnEach(ReactiveContext.logOnNext(length -> log.info("Handled request of {}", length)))
+                    .then();
+        } else {
+            if ("automatic".equals(propagation)) {
+                Hooks.enableAutomaticContextPropagation();
+            }
+            chain = serverWebExchange -> handler(serverWebExchange)
+                    .doOnNext(length -> log.info("Handled request of {}", length))
+                    .then();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Hooks.disableAutomaticContextPropagation();
+        if (!"none".equals(propagation) && mdcValues.sum() == 0) {
+            throw new IllegalStateException("No MDC value was logged");
+        }
+    }
+
+    private static Mono<Integer> handler(ServerWebExchange serverWebExchange) {
+        return Mono.just(serverWebExchange.getRequest().getPath().value())
+                .publishOn(Schedulers.parallel())
+                .map(String::length)
+                .filter(length -> length > 0)
+                .map(length -> length * 2);
+    }
+
+    @Benchmark
+    public void request() {
+        if ("none".equals(propagation)) {
+            chain.filter(exchange).block();
+        } else {
+            filter.filter(exchange, chain).block();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReactiveContextBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
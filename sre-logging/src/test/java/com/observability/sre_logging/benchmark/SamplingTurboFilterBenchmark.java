@@ -0,0 +1,113 @@
+package com.observability.sre_logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.util.Duration;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.logback.SamplingRule;
+import com.observability.sre_logging.logback.SamplingTurboFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per call of a DEBUG event with two arguments, written by 2 threads through a pattern layout to a discarding
+ * stream: without any filter ({@code none}), disabled by the logger level ({@code disabled}, the floor) and through a
+ * {@link SamplingTurboFilter} limiting the logger to 100 events per second per {@code api-clientid}
+ * ({@code rateLimited}) or keeping 1% of them ({@code sampled}), where almost every call is suppressed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(2)
+@Fork(1)
+public class SamplingTurboFilterBenchmark {
+    @Param({"none", "disabled", "rateLimited", "sampled"})
+    private String filter;
+
+    private LoggerContext loggerContext;
+    private Logger logger;
+
+    @State(Scope.Thread)
+    public static class ClientContext {
+        @Setup
+        public void setup() {
+            Context.getScopedContext().put(ContextKeys.API_CLIENT_ID, "client-" + Thread.currentThread().threadId() % 2);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Context.clearScopedContext();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        loggerContext = new LoggerContext();
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        logger = loggerContext.getLogger("com.observability.orders.OrderRetryHandler");
+        logger.setLevel(filter.equals("disabled") ? Level.INFO : Level.DEBUG);
+        logger.setAdditive(false);
+        logger.addAppender(appender());
+        if (filter.equals("rateLimited") || filter.equals("sampled")) {
+            SamplingRule rule = new SamplingRule();
+            rule.setLogger("com.observability.orders");
+            rule.setLevel("DEBUG");
+            if (filter.equals("rateLimited")) {
+                rule.setRatePerSecond(100);
+                rule.setKey(ContextKeys.API_CLIENT_ID);
+            } else {
+                rule.setSampleRate(0.01);
+            }
+            SamplingTurboFilter turboFilter = new SamplingTurboFilter();
+            turboFilter.setContext(loggerContext);
+            turboFilter.addRule(rule);
+            turboFilter.setSummaryInterval(Duration.buildBySeconds(0));
+            turboFilter.start();
+            loggerContext.addTurboFilter(turboFilter);
+        }
+    }
+
+    private OutputStreamAppender<ILoggingEvent> appender() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public void debug(ClientContext clientContext) {
+        logger.debug("Retrying record {} of partition {}", 42L, 7);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SamplingTurboFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
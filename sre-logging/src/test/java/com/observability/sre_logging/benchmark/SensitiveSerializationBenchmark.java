@@ -0,0 +1,86 @@
+package com.observability.sre_logging.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.observability.sre_logging.core.logging.Masked;
+import com.observability.sre_logging.logback.SensitiveDataModule;
+import com.observability.sre_logging.sensitive.Hashed;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares plain Jackson serialization of a DTO with serialization of the same DTO with {@link Masked} and
+ * {@link Hashed} properties through {@link SensitiveDataModule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensitiveSerializationBenchmark {
+    private ObjectMapper plainMapper;
+    private ObjectMapper sensitiveMapper;
+    private PlainCustomer plainCustomer;
+    private MaskedCustomer maskedCustomer;
+    private HashedCustomer hashedCustomer;
+
+    @Setup
+    public void setup() {
+        plainMapper = new ObjectMapper();
+        sensitiveMapper = new ObjectMapper().registerModule(new SensitiveDataModule());
+        plainCustomer = new PlainCustomer();
+        maskedCustomer = new MaskedCustomer();
+        hashedCustomer = new HashedCustomer();
+    }
+
+    @Benchmark
+    public String plain() throws JsonProcessingException {
+        return plainMapper.writeValueAsString(plainCustomer);
+    }
+
+    @Benchmark
+    public String masked() throws JsonProcessingException {
+        return sensitiveMapper.writeValueAsString(maskedCustomer);
+    }
+
+    @Benchmark
+    public String hashed() throws JsonProcessingException {
+        return sensitiveMapper.writeValueAsString(hashedCustomer);
+    }
+
+    public static class PlainCustomer {
+        public long id = 42;
+        public String name = "John Doe";
+        public String email = "john.doe@example.com";
+        public String accountNumber = "123456789012";
+        public String customerId = "CUST-0000042";
+    }
+
+    public static class MaskedCustomer {
+        public long id = 42;
+        public String name = "John Doe";
+        @Masked
+        public String email = "john.doe@example.com";
+        @Masked(maskLength = 0)
+        public String accountNumber = "123456789012";
+        public String customerId = "CUST-0000042";
+    }
+
+    public static class HashedCustomer {
+        public long id = 42;
+        public String name = "John Doe";
+        public String email = "john.doe@example.com";
+        public String accountNumber = "123456789012";
+        @Hashed
+        public String customerId = "CUST-0000042";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SensitiveSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,52 @@
+package com.observability.sre_logging.core.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * A wrapped task may run on the thread that submitted it, e.g. with a caller-runs policy or a direct executor: the
+ * caller must get its context and MDC back once the task completes.
+ */
+class ContextPropagationTest {
+
+    @AfterEach
+    void clear() {
+        MDC.clear();
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void inlineTaskKeepsTheCallerMdc() {
+        Context context = Context.getScopedContext();
+        context.putMDC(ContextKeys.CORRELATION_ID, "request-1");
+        MDC.put(ContextKeys.CORRELATION_ID, "request-1");
+
+        AtomicReference<String> seen = new AtomicReference<>();
+        Runnable task = ContextPropagation.wrapRunnable(() -> seen.set(MDC.get(ContextKeys.CORRELATION_ID)));
+        task.run();
+
+        assertEquals("request-1", seen.get());
+        assertEquals("request-1", MDC.get(ContextKeys.CORRELATION_ID));
+        assertSame(context, Context.getCarrier().getIfPresent());
+    }
+
+    @Test
+    void directExecutorKeepsTheCallerMdc() {
+        Context context = Context.getScopedContext();
+        context.putMDC(ContextKeys.CORRELATION_ID, "request-1");
+        MDC.put(ContextKeys.CORRELATION_ID, "request-1");
+
+        Executor direct = ContextPropagation.wrapExecutor(Runnable::run);
+        direct.execute(() -> Context.getScopedContext().putMDC(ContextKeys.CORRELATION_ID, "changed-by-task"));
+
+        assertEquals("request-1", MDC.get(ContextKeys.CORRELATION_ID));
+        assertEquals("request-1", context.getString(ContextKeys.CORRELATION_ID));
+    }
+}
@@ -0,0 +1,189 @@
+package com.observability.sre_logging.core.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Well-known keys stored in slots and ad-hoc keys stored in the overflow must behave the same, like the map the
+ * context used to be, through clear-and-reuse and copies.
+ */
+class ContextTest {
+    private static final String SLOT_KEY = ContextKeys.CORRELATION_ID;
+    private static final String OVERFLOW_KEY = "custom-key";
+
+    @Test
+    void putGetRemoveOnSlotAndOverflowKeys() {
+        assertTrue(ContextSlots.indexOf(SLOT_KEY) >= 0);
+        assertEquals(-1, ContextSlots.indexOf(OVERFLOW_KEY));
+
+        for (String key : new String[]{SLOT_KEY, OVERFLOW_KEY}) {
+            Context context = new Context();
+            assertFalse(context.hasKey(key));
+            assertNull(context.get(key));
+            assertEquals("default", context.getOrDefault(key, "default"));
+
+            context.put(key, 42);
+            assertTrue(context.hasKey(key));
+            assertEquals(42, context.get(key));
+            assertEquals("42", context.getString(key));
+            // an equal but not interned key finds the same value
+            assertEquals(42, context.get(new String(key)));
+            assertEquals(Map.of(key, 42), context.getAttributes());
+
+            // null keys and values are ignored
+            context.put(key, null);
+            context.put(null, "value");
+            assertEquals(42, context.get(key));
+            assertNull(context.get(null));
+            assertFalse(context.hasKey(null));
+
+            assertEquals(42, context.computeIfAbsent(key, k -> 43));
+            context.remove(key);
+            assertFalse(context.hasKey(key));
+            assertNull(context.get(key));
+            assertEquals(43, context.computeIfAbsent(key, k -> 43));
+            assertTrue(context.getAttributes().containsKey(key));
+        }
+    }
+
+    @Test
+    void tracksTheMdcFlag() {
+        Context context = new Context();
+        assertFalse(context.hasMdc());
+
+        context.put(SLOT_KEY, "correlation", true);
+        context.put(OVERFLOW_KEY, "custom", true);
+        context.put(ContextKeys.USER, "alice", false);
+        context.put("other-key", "other", false);
+        // a flag without a value, e.g. set by a filter before the value is known
+        context.markAsMdc(ContextKeys.SESSION_ID);
+
+        assertTrue(context.hasMdc());
+        assertEquals(Set.of(SLOT_KEY, OVERFLOW_KEY, ContextKeys.SESSION_ID), context.getMdcKeys());
+        assertEquals("correlation", context.getMdcString(SLOT_KEY));
+        assertEquals("custom", context.getMdcString(OVERFLOW_KEY));
+        assertNull(context.getMdcString(ContextKeys.USER));
+        assertNull(context.getMdcString("other-key"));
+        assertNull(context.getMdcString(null));
+        assertTrue(context.hasKey(ContextKeys.SESSION_ID));
+
+        Map<String, String> mdc = new HashMap<>();
+        context.forEachMdc(mdc::put);
+        Map<String, String> expected = new HashMap<>();
+        expected.put(SLOT_KEY, "correlation");
+        expected.put(OVERFLOW_KEY, "custom");
+        expected.put(ContextKeys.SESSION_ID, null);
+        assertEquals(expected, mdc);
+
+        // a null value does not flag the key
+        context.put(ContextKeys.USER_AGENT, null, true);
+        assertFalse(context.getMdcKeys().contains(ContextKeys.USER_AGENT));
+
+        // removing a key drops its flag, putting it back without the flag keeps it out of the MDC
+        context.remove(SLOT_KEY);
+        context.remove(OVERFLOW_KEY);
+        context.remove(ContextKeys.SESSION_ID);
+        assertFalse(context.hasMdc());
+        context.put(SLOT_KEY, "correlation");
+        context.put(OVERFLOW_KEY, "custom");
+        assertNull(context.getMdcString(SLOT_KEY));
+        assertNull(context.getMdcString(OVERFLOW_KEY));
+    }
+
+    @Test
+    void clearResetsInPlaceForReuse() {
+        Context context = new Context();
+        context.putMDC(SLOT_KEY, "request-1");
+        context.putMDC(OVERFLOW_KEY, "custom-1");
+        context.put(ContextKeys.USER, "alice");
+        context.put("other-key", "other");
+
+        context.clear();
+
+        assertFalse(context.hasMdc());
+        assertTrue(context.getMdcKeys().isEmpty());
+        assertTrue(context.getAttributes().isEmpty());
+        for (String key : new String[]{SLOT_KEY, OVERFLOW_KEY, ContextKeys.USER, "other-key"}) {
+            assertFalse(context.hasKey(key), key);
+            assertNull(context.get(key), key);
+        }
+
+        // the next request starts from scratch, nothing of the previous one shows through
+        context.put(SLOT_KEY, "request-2");
+        context.put(OVERFLOW_KEY, "custom-2");
+        assertEquals(Map.of(SLOT_KEY, "request-2", OVERFLOW_KEY, "custom-2"), context.getAttributes());
+        assertFalse(context.hasMdc());
+        context.putMDC(ContextKeys.USER, "bob");
+        assertEquals(Set.of(ContextKeys.USER), context.getMdcKeys());
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        Context original = new Context();
+        original.putMDC(SLOT_KEY, "request-1");
+        original.putMDC(OVERFLOW_KEY, "custom-1");
+        original.put(ContextKeys.USER, "alice");
+
+        Context copy = original.copy();
+        assertNotSame(original, copy);
+        assertEquals(original.getAttributes(), copy.getAttributes());
+        assertEquals(original.getMdcKeys(), copy.getMdcKeys());
+
+        copy.putMDC(SLOT_KEY, "request-2");
+        copy.remove(OVERFLOW_KEY);
+        copy.putMDC(ContextKeys.USER, "bob");
+        copy.put("copy-only", "value");
+        assertEquals("request-1", original.get(SLOT_KEY));
+        assertEquals("custom-1", original.getMdcString(OVERFLOW_KEY));
+        assertNull(original.getMdcString(ContextKeys.USER));
+        assertFalse(original.hasKey("copy-only"));
+
+        original.clear();
+        assertEquals("request-2", copy.getMdcString(SLOT_KEY));
+        assertEquals("bob", copy.getMdcString(ContextKeys.USER));
+        assertEquals("value", copy.get("copy-only"));
+        assertFalse(copy.hasKey(OVERFLOW_KEY));
+
+        // copies of copies are independent too, whichever side writes first
+        Context second = copy.copy();
+        Context third = second.copy();
+        third.putMDC(SLOT_KEY, "request-3");
+        second.clear();
+        assertEquals("request-2", copy.getMdcString(SLOT_KEY));
+        assertEquals("request-3", third.getMdcString(SLOT_KEY));
+        assertFalse(second.hasKey(SLOT_KEY));
+
+        // copying a context that never used the overflow works too
+        Context slotsOnly = new Context();
+        slotsOnly.putMDC(SLOT_KEY, "request-3");
+        Context slotsOnlyCopy = slotsOnly.copy();
+        slotsOnlyCopy.putMDC(OVERFLOW_KEY, "custom-3");
+        assertFalse(slotsOnly.hasKey(OVERFLOW_KEY));
+        assertEquals(Set.of(SLOT_KEY), slotsOnly.getMdcKeys());
+    }
+
+    @Test
+    void snapshotRemembersItsSource() {
+        Context original = new Context();
+        original.putMDC(SLOT_KEY, "request-1");
+
+        Context snapshot = original.snapshot();
+        assertNotSame(original, snapshot);
+        assertSame(original, snapshot.source());
+        assertEquals("request-1", snapshot.getMdcString(SLOT_KEY));
+        assertSame(original, original.source());
+        // a plain copy is its own source
+        Context copy = snapshot.copy();
+        assertSame(copy, copy.source());
+    }
+}
@@ -0,0 +1,59 @@
+package com.observability.sre_logging.core.context;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * A capture must keep the values of the request it was taken in, while the thread context is cleared and reused by
+ * the next request, and closing a scope must bind the thread context back.
+ */
+class ContextThreadLocalAccessorTest {
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    @AfterEach
+    void clear() {
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void captureSurvivesTheReuseOfTheThreadContext() throws Exception {
+        Context context = Context.getScopedContext();
+        context.put(ContextKeys.CORRELATION_ID, "request-1");
+        ContextSnapshot snapshot = snapshotFactory.captureAll();
+
+        // as ContextFilter does at the end of the request, then the next request on the thread
+        context.clear();
+        context.put(ContextKeys.CORRELATION_ID, "request-2");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Callable<String> task = () -> Context.getScopedContext().getString(ContextKeys.CORRELATION_ID);
+            String seen = executor.submit(snapshot.wrap(task)).get();
+            assertEquals("request-1", seen);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("request-2", context.getString(ContextKeys.CORRELATION_ID));
+    }
+
+    @Test
+    void closingScopeBindsTheThreadContextBack() {
+        Context context = Context.getScopedContext();
+        context.put(ContextKeys.CORRELATION_ID, "request-1");
+        ContextSnapshot snapshot = snapshotFactory.captureAll();
+
+        try (ContextSnapshot.Scope scope = snapshot.setThreadLocals()) {
+            assertEquals("request-1", Context.getCarrier().getIfPresent().getString(ContextKeys.CORRELATION_ID));
+        }
+        assertSame(context, Context.getCarrier().getIfPresent());
+    }
+}
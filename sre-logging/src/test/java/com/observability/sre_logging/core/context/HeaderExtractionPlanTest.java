@@ -0,0 +1,181 @@
+package com.observability.sre_logging.core.context;
+
+import com.observability.sre_logging.core.HeaderKeys;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walking the request headers through the plan must fill the {@link Context} like asking for every known header by
+ * name did: names match ignoring case, the first value of a header wins and the protocol falls back to the request
+ * protocol.
+ */
+class HeaderExtractionPlanTest {
+    private final HeaderExtractionPlan plan = ApiStandardsHttpRequestExtractor.PLAN;
+
+    @Test
+    void findsRulesIgnoringCase() {
+        int correlation = plan.indexOf(HeaderKeys.HttpType.CORRELATION_ID);
+        assertTrue(correlation >= 0);
+        assertEquals(correlation, plan.indexOf("Correlation-Id"));
+        assertEquals(correlation, plan.indexOf("correlation-id"));
+        assertEquals(correlation, plan.indexOf("CORRELATION-ID"));
+        assertEquals(ContextKeys.CORRELATION_ID, plan.rule(correlation).contextKey());
+        assertEquals(ContextKeys.REMOTE_APPLICATION_ID, plan.rule(plan.indexOf("application-id")).contextKey());
+
+        assertEquals(-1, plan.indexOf("Correlation-Ids"));
+        assertEquals(-1, plan.indexOf("Authorization"));
+        assertEquals(-1, plan.indexOf((String) null));
+        assertEquals(-1, plan.indexOf(HeaderKeys.HttpType.AUTHORIZATION));
+        // every rule can be found by its own header name
+        for (int r = 0; r < plan.size(); r++) {
+            assertEquals(r, plan.indexOf(plan.rule(r).header().getKey()));
+        }
+    }
+
+    @Test
+    void rejectsInvalidPlans() {
+        HeaderExtractionPlan.Rule rule = new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.CORRELATION_ID, true);
+        assertThrows(IllegalArgumentException.class, () -> new HeaderExtractionPlan(null));
+        assertThrows(IllegalArgumentException.class, () -> new HeaderExtractionPlan(List.of(rule, rule)));
+        assertThrows(IllegalArgumentException.class, () -> new HeaderExtractionPlan.Rule(null, ContextKeys.CORRELATION_ID, true));
+        assertThrows(IllegalArgumentException.class, () -> new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.AUTHORIZATION, true));
+        assertEquals(-1, new HeaderExtractionPlan(List.of()).indexOf("Correlation-Id"));
+    }
+
+    @Test
+    void extractsTheHeadersIgnoringCase() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        request.setRemoteHost("client.example");
+        request.setRemoteUser("alice");
+        request.addHeader("trace-id", "trace");
+        request.addHeader("CORRELATION-ID", "correlation");
+        request.addHeader("Application-Id", "remote-app");
+        request.addHeader("api-clientid", "client");
+        request.addHeader("Authorization", "secret");
+        request.addHeader("X-Unrelated", "ignored");
+
+        Context context = new Context();
+        new ApiStandardsHttpRequestExtractor().extract(context, request);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put(ContextKeys.TRACE_ID, "trace");
+        expected.put(ContextKeys.CORRELATION_ID, "correlation");
+        expected.put(ContextKeys.REMOTE_APPLICATION_ID, "remote-app");
+        expected.put(ContextKeys.API_CLIENT_ID, "client");
+        expected.put(ContextKeys.PROTOCOL, "HTTP/1.1");
+        expected.put(ContextKeys.REMOTE_HOST, "client.example");
+        expected.put(ContextKeys.USER, "alice");
+        assertEquals(expected, context.getAttributes());
+        assertEquals("correlation", context.getMdcString(ContextKeys.CORRELATION_ID));
+        // context only
+        assertNull(context.getMdcString(ContextKeys.API_CLIENT_ID));
+    }
+
+    @Test
+    void protocolHeaderWinsOverTheRequestProtocol() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader("protocol", "grpc");
+
+        Context context = new Context();
+        new ApiStandardsHttpRequestExtractor().extract(context, request);
+        assertEquals("grpc", context.getMdcString(ContextKeys.PROTOCOL));
+
+        // without the header, the protocol of the request is used
+        Context fallback = new Context();
+        new ApiStandardsHttpRequestExtractor().extract(fallback, new MockHttpServletRequest("GET", "/books"));
+        assertEquals("HTTP/1.1", fallback.getMdcString(ContextKeys.PROTOCOL));
+
+        // a plan without the protocol rule always falls back
+        Context noRule = new Context();
+        new ApiStandardsHttpRequestExtractor(new HeaderExtractionPlan(List.of(
+                new HeaderExtractionPlan.Rule(HeaderKeys.HttpType.CORRELATION_ID, true)))).extract(noRule, request);
+        assertEquals("HTTP/1.1", noRule.getMdcString(ContextKeys.PROTOCOL));
+    }
+
+    @Test
+    void readsEveryHeaderOnceAndKeepsTheFirstValue() {
+        CountingRequest request = new CountingRequest();
+        request.addHeader("Session-Id", "session-1");
+        request.addHeader("Session-Id", "session-2");
+        request.addHeader("Correlation-Id", "correlation-1");
+        // a container may list the same header once per spelling
+        request.extraNames = List.of("session-id", "SESSION-ID", "correlation-id");
+
+        Context context = new Context();
+        new ApiStandardsHttpRequestExtractor().extract(context, request);
+
+        assertEquals("session-1", context.getMdcString(ContextKeys.SESSION_ID));
+        assertEquals("correlation-1", context.getMdcString(ContextKeys.CORRELATION_ID));
+        assertEquals(1, request.reads.get("session-id"));
+        assertEquals(1, request.reads.get("correlation-id"));
+    }
+
+    @Test
+    void extractsSessionCache() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader("SessionCache", "key=abc123; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+
+        Context context = new Context();
+        new ApiStandardsHttpRequestExtractor().extract(context, request);
+        assertEquals("abc123", context.get(ContextKeys.SESSION_CACHE_KEY));
+        assertEquals("10.0.0.12", context.get(ContextKeys.SESSION_CACHE_ADDR));
+
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/books");
+        invalid.addHeader("sessioncache", "key=abc123");
+        Context invalidContext = new Context();
+        new ApiStandardsHttpRequestExtractor().extract(invalidContext, invalid);
+        assertFalse(invalidContext.hasKey(ContextKeys.SESSION_CACHE));
+        assertFalse(invalidContext.hasKey(ContextKeys.SESSION_CACHE_KEY));
+    }
+
+    @Test
+    void reactiveExtractorRunsTheSamePlan() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/books")
+                .header("correlation-id", "correlation-1", "correlation-2")
+                .header("TRACE-ID", "trace")
+                .header("sessioncache", "key=abc123; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12")
+                .build();
+
+        Context context = new Context();
+        new ApiStandardsServerHttpRequestExtractor().extract(context, request);
+
+        assertEquals("correlation-1", context.getMdcString(ContextKeys.CORRELATION_ID));
+        assertEquals("trace", context.getMdcString(ContextKeys.TRACE_ID));
+        assertEquals("abc123", context.get(ContextKeys.SESSION_CACHE_KEY));
+        // no protocol on a reactive request
+        assertFalse(context.hasKey(ContextKeys.PROTOCOL));
+    }
+
+    // Counts the header reads and lists some headers again under other spellings.
+    private static class CountingRequest extends MockHttpServletRequest {
+        private final Map<String, Integer> reads = new HashMap<>();
+        private List<String> extraNames = List.of();
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>(Collections.list(super.getHeaderNames()));
+            names.addAll(extraNames);
+            return Collections.enumeration(names);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            reads.merge(name.toLowerCase(), 1, Integer::sum);
+            return super.getHeader(name);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.observability.sre_logging.core.context;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The tokenizer replaces the split/stream parsing of the {@code sessioncache} header and must accept and put the same
+ * elements, except for the duplicate keys that used to fail the request.
+ */
+class SessionCacheTokenizerTest {
+    private static final String VALID = "key=abc123; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12";
+
+    @Test
+    void putsEveryElementOfAValidHeader() {
+        Context context = new Context();
+
+        assertTrue(SessionCacheTokenizer.putIntoContext(context, VALID + "; extra=value"));
+
+        assertEquals(Map.of(ContextKeys.SESSION_CACHE, VALID + "; extra=value", "key", "abc123", "cookie_nm", "JSESSIONID",
+                "cookie_val", "9f8e7d", "addr", "10.0.0.12", "extra", "value"), context.getAttributes());
+        // nothing goes to the MDC
+        assertFalse(context.hasMdc());
+    }
+
+    @Test
+    void handlesEdgeCases() {
+        // empty and blank values, a missing '=', trailing separators and '='
+        assertInvalid(null);
+        assertInvalid("");
+        assertInvalid("   ");
+        assertInvalid("key=; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+        assertInvalid("key; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+        assertInvalid("key==abc; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+        assertInvalid("cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+        assertValid(VALID + ";;; ", Map.of("key", "abc123", "cookie_nm", "JSESSIONID", "cookie_val", "9f8e7d", "addr", "10.0.0.12"));
+        assertValid(";" + VALID + "; broken; =orphan; empty=", Map.of("key", "abc123", "cookie_nm", "JSESSIONID",
+                "cookie_val", "9f8e7d", "addr", "10.0.0.12"));
+        // like split("="), which drops the trailing empty strings
+        assertValid("key=abc123==; cookie_nm=JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12", Map.of("key", "abc123",
+                "cookie_nm", "JSESSIONID", "cookie_val", "9f8e7d", "addr", "10.0.0.12"));
+        // whitespace around the element is trimmed, around the '=' it is kept
+        assertValid("\tkey=abc123 ;cookie_nm=JSESSIONID;cookie_val= 9f8e7d;addr=10.0.0.12;extra =1\t", Map.of("key", "abc123",
+                "cookie_nm", "JSESSIONID", "cookie_val", " 9f8e7d", "addr", "10.0.0.12", "extra ", "1"));
+        assertInvalid("key=abc123; cookie_nm =JSESSIONID; cookie_val=9f8e7d; addr=10.0.0.12");
+    }
+
+    @Test
+    void lastDuplicateKeyWins() {
+        Context context = new Context();
+
+        // the map collector used to throw an IllegalStateException out of the filter here
+        assertTrue(SessionCacheTokenizer.putIntoContext(context, VALID + "; key=second; other=1; other=2"));
+
+        assertEquals("second", context.get("key"));
+        assertEquals("2", context.get("other"));
+    }
+
+    @Test
+    void matchesTheStreamParsing() {
+        Random random = new Random(42);
+        String[] keys = {"key", "cookie_nm", "cookie_val", "addr", "other", ""};
+        String[] values = {"abc", "", " ", "a b", "x=", "=y", "v==", "\t", "10.0.0.1"};
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder header = new StringBuilder();
+            int elements = random.nextInt(8);
+            for (int e = 0; e < elements; e++) {
+                if (random.nextInt(6) == 0) {
+                    header.append(" ");
+                }
+                String key = keys[random.nextInt(keys.length)];
+                header.append(key);
+                if (random.nextInt(8) != 0) {
+                    header.append('=');
+                }
+                header.append(values[random.nextInt(values.length)]);
+                if (e < elements - 1 || random.nextBoolean()) {
+                    header.append(random.nextBoolean() ? ";" : "; ");
+                }
+            }
+            String sessionCache = header.toString();
+
+            Map<String, Object> expected;
+            try {
+                expected = legacy(sessionCache);
+            } catch (IllegalStateException duplicateKey) {
+                continue;
+            }
+            if (expected != null && expected.containsKey("")) {
+                // an empty key is no longer put into the context
+                expected.remove("");
+            }
+            Context context = new Context();
+            boolean valid = SessionCacheTokenizer.putIntoContext(context, sessionCache);
+            assertEquals(expected != null, valid, sessionCache);
+            assertEquals(expected == null ? Map.of() : expected, context.getAttributes(), sessionCache);
+        }
+    }
+
+    private static void assertInvalid(String sessionCache) {
+        Context context = new Context();
+        assertFalse(SessionCacheTokenizer.isValid(sessionCache), sessionCache);
+        assertFalse(SessionCacheTokenizer.putIntoContext(context, sessionCache), sessionCache);
+        assertTrue(context.getAttributes().isEmpty(), sessionCache);
+    }
+
+    private static void assertValid(String sessionCache, Map<String, String> elements) {
+        Context context = new Context();
+        assertTrue(SessionCacheTokenizer.putIntoContext(context, sessionCache), sessionCache);
+        Map<String, Object> expected = new HashMap<>(elements);
+        expected.put(ContextKeys.SESSION_CACHE, sessionCache);
+        assertEquals(expected, context.getAttributes(), sessionCache);
+    }
+
+    // The previous parsing, which did not compile, as it was meant to split each element into a key and a value.
+    private static Map<String, Object> legacy(String sessionCache) {
+        if (!StringUtils.hasText(sessionCache)) {
+            return null;
+        }
+        Map<String, String> elements = Stream.of(sessionCache.split(";"))
+                .map(element -> element.trim().split("="))
+                .filter(keyValue -> keyValue.length == 2)
+                .collect(Collectors.toMap(keyValue -> keyValue[0], keyValue -> keyValue[1]));
+        for (String element : List.of(ContextKeys.SESSION_CACHE_KEY, ContextKeys.SESSION_CACHE_COOKIE_NM, ContextKeys.SESSION_CACHE_COOKIE_VAL, ContextKeys.SESSION_CACHE_ADDR)) {
+            if (!StringUtils.hasText(elements.get(element))) {
+                return null;
+            }
+        }
+        Map<String, Object> context = new HashMap<>(elements);
+        context.put(ContextKeys.SESSION_CACHE, sessionCache);
+        return context;
+    }
+}
@@ -0,0 +1,102 @@
+package com.observability.sre_logging.core.interceptor;
+
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The MDC keys of the sending thread's {@link Context} must end up as headers of the produced record, once, without
+ * replacing a header the record already has, and be restored by {@link KafkaRecordContext} on the consumer side.
+ */
+class ContextHeadersProducerInterceptorTest {
+    private final ContextHeadersProducerInterceptor interceptor = new ContextHeadersProducerInterceptor();
+
+    @AfterEach
+    void clear() {
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void copiesTheMdcKeysIntoHeaders() {
+        Context context = Context.getScopedContext();
+        context.putMDC(ContextKeys.TRACE_ID, "trace-1");
+        context.putMDC(ContextKeys.CORRELATION_ID, "corrélation-1");
+        context.putMDC("custom-key", "custom");
+        // context only, not sent
+        context.put(ContextKeys.USER, "alice", false);
+
+        ProducerRecord<Object, Object> record = interceptor.onSend(new ProducerRecord<>("books", "value"));
+
+        assertEquals(List.of("Correlation-Id=corrélation-1", "Trace-Id=trace-1", "custom-key=custom"), headers(record));
+    }
+
+    @Test
+    void leavesExistingHeadersUntouched() {
+        Context context = Context.getScopedContext();
+        context.putMDC(ContextKeys.TRACE_ID, "trace-1");
+        context.putMDC(ContextKeys.CORRELATION_ID, "correlation-1");
+        ProducerRecord<Object, Object> record = new ProducerRecord<>("books", "value");
+        record.headers().add("Trace-Id", "explicit".getBytes(StandardCharsets.UTF_8));
+        // the consumer matches names ignoring case, a second spelling would override this one there
+        record.headers().add("correlation-id", "explicit".getBytes(StandardCharsets.UTF_8));
+
+        interceptor.onSend(record);
+
+        assertEquals(List.of("Trace-Id=explicit", "correlation-id=explicit"), headers(record));
+    }
+
+    @Test
+    void sendsTheCurrentValueOfEveryRecord() {
+        Context context = Context.getScopedContext();
+        context.putMDC(ContextKeys.TRACE_ID, "trace-1");
+        ProducerRecord<Object, Object> first = interceptor.onSend(new ProducerRecord<>("books", "first"));
+        ProducerRecord<Object, Object> second = interceptor.onSend(new ProducerRecord<>("books", "second"));
+        context.putMDC(ContextKeys.TRACE_ID, "trace-2");
+        ProducerRecord<Object, Object> third = interceptor.onSend(new ProducerRecord<>("books", "third"));
+
+        assertEquals(List.of("Trace-Id=trace-1"), headers(first));
+        assertEquals(List.of("Trace-Id=trace-1"), headers(second));
+        assertEquals(List.of("Trace-Id=trace-2"), headers(third));
+
+        // no context, or one without MDC keys, adds nothing
+        Context.clearScopedContext();
+        assertFalse(interceptor.onSend(new ProducerRecord<>("books", "value")).headers().iterator().hasNext());
+        Context.getScopedContext().put(ContextKeys.USER, "alice", false);
+        assertFalse(interceptor.onSend(new ProducerRecord<>("books", "value")).headers().iterator().hasNext());
+    }
+
+    @Test
+    void consumerRestoresTheSentContext() {
+        Context context = Context.getScopedContext();
+        context.putMDC(ContextKeys.TRACE_ID, "trace-1");
+        context.putMDC(ContextKeys.CORRELATION_ID, "corrélation-1");
+        ProducerRecord<Object, Object> sent = interceptor.onSend(new ProducerRecord<>("books", "value"));
+
+        ConsumerRecord<String, String> received = new ConsumerRecord<>("books", 0, 0L, "key", "value");
+        sent.headers().forEach(received.headers()::add);
+        Context restored = new KafkaRecordContext(null).contextOf(received);
+
+        assertEquals("trace-1", restored.getMdcString(ContextKeys.TRACE_ID));
+        assertEquals("corrélation-1", restored.getMdcString(ContextKeys.CORRELATION_ID));
+    }
+
+    private static List<String> headers(ProducerRecord<Object, Object> record) {
+        List<String> headers = new ArrayList<>();
+        for (Header header : record.headers()) {
+            headers.add(header.key() + "=" + new String(header.value(), StandardCharsets.UTF_8));
+        }
+        headers.sort(null);
+        return headers;
+    }
+}
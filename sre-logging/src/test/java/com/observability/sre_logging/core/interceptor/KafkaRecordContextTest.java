@@ -0,0 +1,133 @@
+package com.observability.sre_logging.core.interceptor;
+
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Every record must be processed with the values of its own headers, falling back to the defaults, and leave neither
+ * its context nor its MDC keys behind.
+ */
+class KafkaRecordContextTest {
+    private static final TopicPartition PARTITION = new TopicPartition("books", 0);
+
+    @AfterEach
+    void clear() {
+        MDC.clear();
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void processesEveryRecordWithItsOwnHeaders() {
+        KafkaRecordContext recordContext = new KafkaRecordContext(Map.of(ContextKeys.CHANNEL_TYPE, "kafka"));
+        ConsumerRecord<String, String> first = record("first", "Correlation-Id", "correlation-1", "Trace-Id", "trace-1");
+        // header names match ignoring case, like HTTP headers
+        ConsumerRecord<String, String> second = record("second", "correlation-id", "correlation-2");
+        ConsumerRecords<String, String> records = new ConsumerRecords<>(Map.of(PARTITION, List.of(first, second)));
+        Context previous = Context.getScopedContext();
+        previous.putMDC(ContextKeys.CORRELATION_ID, "caller");
+
+        List<String> seen = new ArrayList<>();
+        recordContext.forEach(records, record -> {
+            Context context = Context.getScopedContext();
+            seen.add(record.value() + " " + context.getMdcString(ContextKeys.CORRELATION_ID) + " "
+                    + MDC.get(ContextKeys.CORRELATION_ID) + " " + context.getMdcString(ContextKeys.TRACE_ID) + " "
+                    + MDC.get(ContextKeys.CHANNEL_TYPE));
+        });
+
+        // the trace id of the first record does not leak into the second
+        assertEquals(List.of("first correlation-1 correlation-1 trace-1 kafka", "second correlation-2 correlation-2 null kafka"), seen);
+        assertSame(previous, Context.getCarrier().getIfPresent());
+        assertNull(MDC.get(ContextKeys.TRACE_ID));
+        assertNull(MDC.get(ContextKeys.CHANNEL_TYPE));
+    }
+
+    @Test
+    void headersOverrideTheDefaults() {
+        KafkaRecordContext recordContext = new KafkaRecordContext(Map.of(ContextKeys.CHANNEL_TYPE, "kafka",
+                ContextKeys.CORRELATION_ID, "default"));
+
+        Context withHeader = recordContext.contextOf(record("value", "Correlation-Id", "correlation-1"));
+        assertEquals("correlation-1", withHeader.getMdcString(ContextKeys.CORRELATION_ID));
+        assertEquals("kafka", withHeader.getMdcString(ContextKeys.CHANNEL_TYPE));
+
+        Context withoutHeader = recordContext.contextOf(record("value"));
+        assertEquals("default", withoutHeader.getMdcString(ContextKeys.CORRELATION_ID));
+        assertEquals("kafka", withoutHeader.getMdcString(ContextKeys.CHANNEL_TYPE));
+    }
+
+    @Test
+    void missingAndUnknownHeadersAreNotPut() {
+        KafkaRecordContext recordContext = new KafkaRecordContext(null);
+
+        Context context = recordContext.contextOf(record("value", "Authorization", "secret", "X-Unrelated", "value"));
+
+        assertFalse(context.hasKey(ContextKeys.CORRELATION_ID));
+        assertFalse(context.hasMdc());
+        assertEquals(Map.of(), context.getAttributes());
+
+        List<String> seen = new ArrayList<>();
+        recordContext.run(record("value"), record -> seen.add(MDC.get(ContextKeys.CORRELATION_ID)));
+        assertEquals(Collections.singletonList(null), seen);
+    }
+
+    @Test
+    void decodesHeaderBytesAsUtf8() {
+        KafkaRecordContext recordContext = new KafkaRecordContext(null);
+        ConsumerRecord<String, String> record = record("value");
+        record.headers().add(new RecordHeader("Correlation-Id", "corrélation".getBytes(StandardCharsets.UTF_8)));
+        // invalid UTF-8 is replaced, not rejected
+        record.headers().add(new RecordHeader("Trace-Id", new byte[]{'a', (byte) 0xFF, 'b'}));
+        record.headers().add(new RecordHeader("Span-Id", (byte[]) null));
+
+        Context context = recordContext.contextOf(record);
+
+        assertEquals("corrélation", context.getMdcString(ContextKeys.CORRELATION_ID));
+        assertEquals("a\uFFFDb", context.getMdcString(ContextKeys.TRACE_ID));
+        assertEquals("", context.getMdcString(ContextKeys.SPAN_ID));
+        // decoded once, then the same string is returned
+        assertSame(context.getString(ContextKeys.TRACE_ID), context.getString(ContextKeys.TRACE_ID));
+    }
+
+    @Test
+    void interceptorRemovesTheDefaultsOnCloseOnly() {
+        KafkaDefaultMDCValuesInterceptor interceptor = new KafkaDefaultMDCValuesInterceptor();
+        interceptor.configure(Map.of("photon.logging.kafka.default-mdc-values", Map.of(ContextKeys.CHANNEL_TYPE, "kafka")));
+        ConsumerRecords<String, String> records = new ConsumerRecords<>(Map.of(PARTITION, List.of(record("value"))));
+
+        assertSame(records, interceptor.onConsume(records));
+        assertEquals("kafka", MDC.get(ContextKeys.CHANNEL_TYPE));
+
+        // onCommit may run on another thread, it must not touch the MDC
+        interceptor.onCommit(Map.of());
+        assertEquals("kafka", MDC.get(ContextKeys.CHANNEL_TYPE));
+
+        interceptor.close();
+        assertNull(MDC.get(ContextKeys.CHANNEL_TYPE));
+    }
+
+    private static ConsumerRecord<String, String> record(String value, String... headers) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 0L, "key", value);
+        for (int i = 0; i < headers.length; i += 2) {
+            record.headers().add(headers[i], headers[i + 1].getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
@@ -0,0 +1,103 @@
+package com.observability.sre_logging.core.logging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.observability.sre_logging.logback.SensitiveDataModule;
+import com.observability.sre_logging.sensitive.Hashed;
+import com.observability.sre_logging.sensitive.HashingMasker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The cache must return what the delegate would, computing each value once, and be applied to the custom
+ * {@link Masked} transformers and the {@link Hashed} hashers once enabled.
+ */
+class CachingMaskerTest {
+
+    @AfterEach
+    void disableCache() {
+        Maskers.disableCache();
+    }
+
+    @Test
+    void computesEachValueOnce() {
+        CountingMasker delegate = new CountingMasker();
+        CachingMasker masker = new CachingMasker(delegate, "test", 100, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("<4111111111111111>", masker.apply("4111111111111111"));
+            assertEquals("<4111111111111112>", masker.apply("4111111111111112"));
+            assertEquals("<>", masker.apply(""));
+        }
+
+        assertEquals(3, delegate.calls.get());
+        assertEquals(3, masker.size());
+        masker.configure(Map.of());
+        masker.apply("4111111111111111");
+        assertEquals(4, delegate.calls.get());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        MaskerFunction delegate = new CountingMasker();
+        assertThrows(IllegalArgumentException.class, () -> new CachingMasker(null, "test", 100, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new CachingMasker(delegate, null, 100, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new CachingMasker(delegate, "test", 100, null));
+        assertThrows(IllegalArgumentException.class, () -> new CachingMasker(delegate, "test", 100, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new CachingMasker(delegate, "test", 0, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void cachesTheMaskedAndHashedPathsOnceEnabled() throws Exception {
+        assertInstanceOf(HashingMasker.class, Maskers.of(HashingMasker.class, '*', 4, 4, false));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Maskers.enableCache(100, Duration.ofMinutes(1), registry);
+
+        MaskerFunction masked = Maskers.of(HashingMasker.class, '*', 4, 4, false);
+        assertInstanceOf(CachingMasker.class, masked);
+        assertEquals(new HashingMasker().apply("alice"), masked.apply("alice"));
+        // the built-in maskers are cheaper than a lookup
+        assertSame(Maskers.defaultMasker(), Maskers.of(DefaultMasker.class, '*', 4, 4, false));
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new SensitiveDataModule());
+        String expected = new HashingMasker(Hashed.Algorithm.SHA_512).apply("alice");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("{\"user\":\"" + expected + "\"}", objectMapper.writeValueAsString(new Customer("alice")));
+        }
+        assertEquals(2, registry.get("cache.gets").tag("cache", "hashed.SHA_512").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    static class Customer {
+        @Hashed(Hashed.Algorithm.SHA_512)
+        public final String user;
+
+        Customer(String user) {
+            this.user = user;
+        }
+    }
+
+    static class CountingMasker implements MaskerFunction {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void configure(Map<String, Object> config) {
+        }
+
+        @Override
+        public String apply(String value) {
+            calls.incrementAndGet();
+            return "<" + value + ">";
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.observability.sre_logging.core.logging;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link DefaultMasker} and {@link AlphaNumericMasker} must produce what their allocating implementations did, kept
+ * below as references, for every configuration and value, through every way of obtaining and applying them.
+ */
+class DefaultMaskerTest {
+    private static final String MASK_CHARACTERS = "*#x-X0";
+    private static final String CHARACTERS = "abcXYZ0189 -_.@/+é€😀\t";
+
+    @Test
+    void matchesTheReferenceImplementations() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20_000; round++) {
+            char maskCharacter = MASK_CHARACTERS.charAt(random.nextInt(MASK_CHARACTERS.length()));
+            int maskLength = random.nextInt(7);
+            int exposedSuffixLength = random.nextInt(7);
+            boolean maskEntireShortValue = random.nextBoolean();
+            Map<String, Object> config = Map.of(Masked.MASK_CONFIG, maskCharacter, Masked.MASK_LENGTH_CONFIG, maskLength,
+                    Masked.EXPOSED_SUFFIX_LENGTH_CONFIG, exposedSuffixLength,
+                    Masked.MASK_ENTIRE_SHORT_VALUE_CONFIG, maskEntireShortValue);
+            // past the per-thread scratch buffer now and then
+            String value = randomValue(random, random.nextInt(100) == 0 ? 1500 : random.nextInt(24));
+
+            ReferenceDefaultMasker referenceDefault = new ReferenceDefaultMasker();
+            referenceDefault.configure(config);
+            ReferenceAlphaNumericMasker referenceAlphaNumeric = new ReferenceAlphaNumericMasker();
+            referenceAlphaNumeric.configure(config);
+            String expectedDefault = referenceDefault.apply(value);
+            String expectedAlphaNumeric = referenceAlphaNumeric.apply(value);
+
+            DefaultMasker configured = new DefaultMasker();
+            configured.configure(config);
+            AlphaNumericMasker configuredAlphaNumeric = new AlphaNumericMasker();
+            configuredAlphaNumeric.configure(config);
+            String description = config + " [" + value + "]";
+            assertMasks(expectedDefault, configured, value, description);
+            assertMasks(expectedDefault, new DefaultMasker(maskCharacter, maskLength, exposedSuffixLength,
+                    maskEntireShortValue), value, description);
+            assertMasks(expectedDefault, Maskers.of(DefaultMasker.class, maskCharacter, maskLength,
+                    exposedSuffixLength, maskEntireShortValue), value, description);
+            assertMasks(expectedAlphaNumeric, configuredAlphaNumeric, value, description);
+            assertMasks(expectedAlphaNumeric, Maskers.of(AlphaNumericMasker.class, maskCharacter, maskLength,
+                    exposedSuffixLength, maskEntireShortValue), value, description);
+        }
+    }
+
+    @Test
+    void sharedInstancesCannotBeReconfigured() {
+        MaskerFunction shared = Maskers.of(DefaultMasker.class, '*', 4, 4, false);
+
+        assertThrows(IllegalStateException.class, () -> shared.configure(Map.of(Masked.MASK_LENGTH_CONFIG, 2)));
+        assertEquals("****5678", shared.apply("12345678"));
+    }
+
+    private static void assertMasks(String expected, MaskerFunction masker, String value, String description) {
+        assertEquals(expected, masker.apply(value), description);
+        if (masker instanceof DefaultMasker defaultMasker) {
+            char[] destination = new char[defaultMasker.maskedLength(value) + 3];
+            defaultMasker.mask(value, destination);
+            assertEquals(expected, new String(destination, 0, defaultMasker.maskedLength(value)), description);
+        }
+    }
+
+    private static String randomValue(Random random, int length) {
+        StringBuilder value = new StringBuilder(length);
+        while (value.length() < length) {
+            int c = CHARACTERS.codePointAt(CHARACTERS.offsetByCodePoints(0, random.nextInt(
+                    CHARACTERS.codePointCount(0, CHARACTERS.length()))));
+            value.appendCodePoint(c);
+        }
+        return value.toString();
+    }
+
+    /**
+     * DefaultMasker before it was made allocation-free.
+     */
+    static class ReferenceDefaultMasker implements MaskerFunction {
+        char maskCharacter = Masked.MASK_DEFAULT;
+        int maskLength = Masked.MASK_LENGTH_DEFAULT;
+        int exposedSuffixLength = Masked.EXPOSED_SUFFIX_LENGTH_DEFAULT;
+        boolean maskEntireShortValue = Masked.MASK_ENTIRE_SHORT_VALUE_DEFAULT;
+
+        @Override
+        public void configure(Map<String, Object> config) {
+            maskCharacter = String.valueOf(config.get(Masked.MASK_CONFIG)).charAt(0);
+            maskLength = (Integer) config.get(Masked.MASK_LENGTH_CONFIG);
+            exposedSuffixLength = (Integer) config.get(Masked.EXPOSED_SUFFIX_LENGTH_CONFIG);
+            maskEntireShortValue = (Boolean) config.get(Masked.MASK_ENTIRE_SHORT_VALUE_CONFIG);
+        }
+
+        @Override
+        public String apply(String value) {
+            StringBuilder sb = new StringBuilder();
+            int exposedLength = exposedSuffixLength;
+            int valueLength = value.length();
+            int unExposedLength;
+            if (valueLength > exposedLength) {
+                unExposedLength = valueLength - exposedLength;
+                while (unExposedLength < exposedLength) {
+                    unExposedLength++;
+                    exposedLength--;
+                }
+            } else if (maskEntireShortValue) {
+                unExposedLength = valueLength;
+            } else {
+                if (valueLength > 0) {
+                    unExposedLength = valueLength - 1;
+                } else {
+                    unExposedLength = 0;
+                }
+            }
+            if (maskLength > 0) {
+                sb.append(StringUtils.repeat(maskCharacter, valueLength > 0 ? maskLength : 0));
+            } else {
+                sb.append(StringUtils.repeat(maskCharacter, unExposedLength));
+            }
+            sb.append(value.substring(unExposedLength));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * AlphaNumericMasker before its regular expressions were replaced by a character scan.
+     */
+    static class ReferenceAlphaNumericMasker extends ReferenceDefaultMasker {
+        private static final Pattern ALPHANUMERIC_GROUPS = Pattern.compile("[0-9A-Za-z]+");
+        private static final Pattern ALPHANUMERICS = Pattern.compile("[0-9A-Za-z]");
+
+        @Override
+        public String apply(String propertyValue) {
+            if (maskLength > 1) {
+                String replacement = StringUtils.repeat(maskCharacter, maskLength);
+                return ALPHANUMERIC_GROUPS.matcher(propertyValue).replaceAll(replacement);
+            } else {
+                String replacement = String.valueOf(maskCharacter);
+                return ALPHANUMERICS.matcher(propertyValue).replaceAll(replacement);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.observability.sre_logging.core.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Field name rules must apply at any depth and path rules at their path only, arrays included, masking every scalar
+ * under a masked object or array and nothing around it, while a body far larger than the heap it may use streams
+ * through.
+ */
+class JsonStreamMaskerTest {
+    private static final MaskerFunction MASK = new MaskerFunction() {
+        @Override
+        public void configure(Map<String, Object> config) {
+        }
+
+        @Override
+        public String apply(String value) {
+            return "*".repeat(value.length());
+        }
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void fieldNameRulesApplyAtAnyDepth() throws Exception {
+        JsonStreamMasker masker = new JsonStreamMasker(Map.of("email", MASK));
+
+        JsonNode json = mask(masker, """
+                {"email":"a@b.c","name":"alice","nested":{"email":"d@e"},"list":[{"email":"f@g"},{"other":"h@i"}]}""");
+
+        assertEquals("*****", json.get("email").asText());
+        assertEquals("alice", json.get("name").asText());
+        assertEquals("***", json.at("/nested/email").asText());
+        assertEquals("***", json.at("/list/0/email").asText());
+        assertEquals("h@i", json.at("/list/1/other").asText());
+    }
+
+    @Test
+    void pathRulesApplyAtTheirPathOnly() throws Exception {
+        JsonStreamMasker masker = new JsonStreamMasker(null, Map.of("customer.address.zip", MASK));
+
+        JsonNode json = mask(masker, """
+                {"zip":"75001","customer":{"zip":"75002","address":{"zip":"75003","city":"Paris"}},
+                 "other":{"address":{"zip":"75004"}},"customers":[{"customer":{"address":{"zip":"75005"}}}]}""");
+
+        assertEquals("75001", json.get("zip").asText());
+        assertEquals("75002", json.at("/customer/zip").asText());
+        assertEquals("*****", json.at("/customer/address/zip").asText());
+        assertEquals("Paris", json.at("/customer/address/city").asText());
+        assertEquals("75004", json.at("/other/address/zip").asText());
+        // the path is from the root
+        assertEquals("75005", json.at("/customers/0/customer/address/zip").asText());
+
+        // array indexes are not part of the path
+        json = mask(masker, """
+                {"customer":{"address":[{"zip":"75006"},{"zip":"75007"}]}}""");
+        assertEquals("*****", json.at("/customer/address/0/zip").asText());
+        assertEquals("*****", json.at("/customer/address/1/zip").asText());
+    }
+
+    @Test
+    void maskedStructuresAreMaskedThroughout() throws Exception {
+        JsonStreamMasker masker = new JsonStreamMasker(Map.of("card", MASK));
+
+        JsonNode json = mask(masker, """
+                {"card":{"number":"4111","expiry":{"month":12,"year":2030},"holders":["al",["bo"]],"empty":{}},
+                 "after":"kept","cards":[],"card2":{"card":[]}}""");
+
+        assertEquals("****", json.at("/card/number").asText());
+        assertEquals("**", json.at("/card/expiry/month").asText());
+        assertEquals("****", json.at("/card/expiry/year").asText());
+        assertEquals("**", json.at("/card/holders/0").asText());
+        assertEquals("**", json.at("/card/holders/1/0").asText());
+        assertTrue(json.at("/card/empty").isObject());
+        assertEquals("kept", json.get("after").asText());
+        assertTrue(json.get("cards").isArray());
+        assertTrue(json.at("/card2/card").isArray());
+    }
+
+    @Test
+    void nonStringValuesAreMaskedAsStrings() throws Exception {
+        JsonStreamMasker masker = new JsonStreamMasker(Map.of("pin", MASK, "active", MASK, "rate", MASK,
+                "missing", MASK));
+
+        JsonNode json = mask(masker, """
+                {"pin":1234,"active":true,"rate":-1.5e3,"missing":null,"count":7}""");
+
+        assertEquals("****", json.get("pin").asText());
+        assertTrue(json.get("pin").isTextual());
+        assertEquals("****", json.get("active").asText());
+        assertEquals("******", json.get("rate").asText());
+        assertTrue(json.get("missing").isNull());
+        assertEquals(7, json.get("count").asInt());
+    }
+
+    @Test
+    void invalidJsonFails() {
+        JsonStreamMasker masker = new JsonStreamMasker(Map.of("email", MASK));
+
+        assertThrows(IOException.class, () -> masker.mask(new StringReader("{\"email\":"), new StringWriter()));
+        assertThrows(IOException.class, () -> masker.mask(new StringReader("{\"email\" \"x\"}"), new StringWriter()));
+    }
+
+    @Test
+    void largeBodyStreamsInBoundedMemory() throws Exception {
+        JsonStreamMasker masker = new JsonStreamMasker(Map.of("email", MASK), Map.of("items.card.number", MASK));
+        GeneratedBody body = new GeneratedBody(100L * 1024 * 1024);
+        AtomicLong written = new AtomicLong();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written.addAndGet(len);
+            }
+        };
+
+        long heapBefore = usedHeap();
+        masker.mask(body, out);
+
+        assertTrue(written.get() > 100L * 1024 * 1024, "written: " + written.get());
+        // sampled while the body was halfway through
+        assertTrue(body.heapHalfway - heapBefore < 16L * 1024 * 1024, "heap growth: " + (body.heapHalfway - heapBefore));
+    }
+
+    private JsonNode mask(JsonStreamMasker masker, String json) throws IOException {
+        StringWriter writer = new StringWriter();
+        masker.mask(new StringReader(json), writer);
+        JsonNode fromReader = objectMapper.readTree(writer.toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        masker.mask(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out);
+        assertEquals(fromReader, objectMapper.readTree(out.toByteArray()));
+        return fromReader;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * {"items":[{"id":0,"email":"user0@example.com","card":{"number":"4111..."}}, ...]} of the given size, generated
+     * as it is read.
+     */
+    static class GeneratedBody extends InputStream {
+        private final long size;
+        private long read;
+        private int item;
+        private byte[] chunk = "{\"items\":[".getBytes(StandardCharsets.UTF_8);
+        private int position;
+        private boolean closed;
+        long heapHalfway;
+
+        GeneratedBody(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position == chunk.length) {
+                if (closed) {
+                    return -1;
+                }
+                if (read >= size) {
+                    chunk = "]}".getBytes(StandardCharsets.UTF_8);
+                    closed = true;
+                } else {
+                    chunk = ((item == 0 ? "" : ",") + "{\"id\":" + item + ",\"email\":\"user" + item
+                            + "@example.com\",\"card\":{\"number\":\"4111111111111111\",\"expiry\":\"12/30\"}}")
+                            .getBytes(StandardCharsets.UTF_8);
+                    item++;
+                }
+                position = 0;
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            if (read < size / 2 && read + n >= size / 2) {
+                try {
+                    heapHalfway = usedHeap();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            read += n;
+            return n;
+        }
+    }
+}
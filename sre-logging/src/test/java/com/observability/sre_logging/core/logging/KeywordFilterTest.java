@@ -0,0 +1,94 @@
+package com.observability.sre_logging.core.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The automaton must report the same groups as looking each keyword up with {@link String#indexOf(String)}, including
+ * keywords that overlap, are prefixes or suffixes of one another, and differ in case only.
+ */
+class KeywordFilterTest {
+    private static final String ALPHABET = "abcABC=:_ é€";
+
+    @Test
+    void overlappingKeywords() {
+        KeywordFilter filter = new KeywordFilter(List.of(List.of("he", "hers"), List.of("she"), List.of("his"),
+                List.of("rs")), false);
+
+        assertEquals(0b1011, filter.match("ushers"));
+        assertEquals(0b0111, filter.match("ahishe"));
+        assertEquals(0b0100, filter.match("shis"));
+        assertEquals(0, filter.match("h e r s"));
+    }
+
+    @Test
+    void caseFolding() {
+        KeywordFilter insensitive = new KeywordFilter(List.of(List.of("Card="), List.of("iban")), true);
+        KeywordFilter sensitive = new KeywordFilter(List.of(List.of("Card="), List.of("iban")), false);
+
+        assertEquals(0b11, insensitive.match("CARD=1234 IBAN"));
+        assertEquals(0b11, insensitive.match("card=1234 Iban"));
+        assertEquals(0b00, sensitive.match("CARD=1234 IBAN"));
+        assertEquals(0b11, sensitive.match("Card=1234 iban"));
+    }
+
+    @Test
+    void matchesLikeIndexOf() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            boolean ignoreCase = random.nextBoolean();
+            List<List<String>> groups = new ArrayList<>();
+            for (int group = 1 + random.nextInt(8); group > 0; group--) {
+                List<String> keywords = new ArrayList<>();
+                for (int keyword = 1 + random.nextInt(3); keyword > 0; keyword--) {
+                    keywords.add(randomText(random, 1 + random.nextInt(4), "abcABC=:_"));
+                }
+                groups.add(keywords);
+            }
+            KeywordFilter filter = new KeywordFilter(groups, ignoreCase);
+            for (int text = 0; text < 20; text++) {
+                String value = randomText(random, random.nextInt(30), ALPHABET);
+                assertEquals(naiveMatch(groups, value, ignoreCase), filter.match(value), groups + " in " + value);
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidKeywords() {
+        assertThrows(IllegalArgumentException.class, () -> new KeywordFilter(List.of(List.of("")), false));
+        assertThrows(IllegalArgumentException.class, () -> new KeywordFilter(List.of(List.of("carté")), false));
+        List<List<String>> tooMany = new ArrayList<>();
+        for (int group = 0; group <= Long.SIZE; group++) {
+            tooMany.add(List.of("k" + group));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new KeywordFilter(tooMany, false));
+    }
+
+    private static long naiveMatch(List<List<String>> groups, String text, boolean ignoreCase) {
+        String haystack = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+        long found = 0;
+        for (int group = 0; group < groups.size(); group++) {
+            for (String keyword : groups.get(group)) {
+                if (haystack.contains(ignoreCase ? keyword.toLowerCase(Locale.ROOT) : keyword)) {
+                    found |= 1L << group;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static String randomText(Random random, int length, String alphabet) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.observability.sre_logging.core.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Implementations of the same interface method behind JDK proxies, and subclasses inheriting a method, must each be
+ * logged with their own logger, timer and {@link Masked} rules, whichever was called first.
+ */
+class LoggableAspectTest {
+    private static final String ACCOUNT = "FR7630006000011234567890189";
+
+    interface Accounts {
+        String find(String accountNumber);
+    }
+
+    static class MaskedAccounts implements Accounts {
+        @Override
+        @Loggable
+        public String find(@Masked String accountNumber) {
+            return "masked";
+        }
+    }
+
+    static class PlainAccounts implements Accounts {
+        @Override
+        @Loggable
+        public String find(String accountNumber) {
+            return "plain";
+        }
+    }
+
+    static class SubAccounts extends PlainAccounts {
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoggableAspect aspect = new LoggableAspect(meterRegistry);
+    private final List<Logger> loggers = new ArrayList<>();
+
+    @AfterEach
+    void detach() {
+        loggers.forEach(Logger::detachAndStopAllAppenders);
+    }
+
+    @Test
+    void interfaceMethodIsPlannedPerImplementation() {
+        ListAppender<ILoggingEvent> masked = capture(MaskedAccounts.class);
+        ListAppender<ILoggingEvent> plain = capture(PlainAccounts.class);
+
+        assertEquals("masked", proxy(new MaskedAccounts()).find(ACCOUNT));
+        assertEquals("plain", proxy(new PlainAccounts()).find(ACCOUNT));
+
+        assertTrue(masked.list.stream().noneMatch(event -> event.getFormattedMessage().contains(ACCOUNT)));
+        assertTrue(plain.list.get(0).getFormattedMessage().contains("PlainAccounts.find called with accountNumber=" + ACCOUNT),
+                plain.list.get(0).getFormattedMessage());
+        assertEquals(1, timerCount(MaskedAccounts.class));
+        assertEquals(1, timerCount(PlainAccounts.class));
+    }
+
+    @Test
+    void inheritedMethodIsPlannedPerSubclass() {
+        ListAppender<ILoggingEvent> sub = capture(SubAccounts.class);
+
+        proxy(new PlainAccounts()).find(ACCOUNT);
+        proxy(new SubAccounts()).find(ACCOUNT);
+
+        assertEquals(2, sub.list.size());
+        assertTrue(sub.list.get(0).getFormattedMessage().startsWith("SubAccounts.find called"));
+        assertEquals(1, timerCount(PlainAccounts.class));
+        assertEquals(1, timerCount(SubAccounts.class));
+    }
+
+    private Accounts proxy(Accounts target) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setInterfaces(Accounts.class);
+        proxyFactory.addAspect(aspect);
+        return proxyFactory.getProxy();
+    }
+
+    private ListAppender<ILoggingEvent> capture(Class<?> type) {
+        Logger logger = (Logger) LoggerFactory.getLogger(type);
+        logger.setLevel(Level.INFO);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        loggers.add(logger);
+        return appender;
+    }
+
+    private long timerCount(Class<?> type) {
+        return meterRegistry.get(LoggableAspect.TIMER_NAME)
+                .tag("class", type.getName())
+                .tag("outcome", "success")
+                .timer()
+                .count();
+    }
+}
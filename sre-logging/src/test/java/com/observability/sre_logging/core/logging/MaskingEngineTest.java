@@ -0,0 +1,114 @@
+package com.observability.sre_logging.core.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Every pattern must be matched against the original message, so the masking of one pattern never changes what
+ * another one sees, and the keyword pre-filter must never change the result.
+ */
+class MaskingEngineTest {
+    private static final List<MaskingRule> RULES = List.of(
+            new MaskingRule("card", "card=\\d{0,4}(\\d{8})", List.of("card=")),
+            new MaskingRule("email", "\"email\":\"([^\"@]{1,8})", List.of("\"email\"")),
+            new MaskingRule("pin", "(?:pin|code)=(\\d+)", List.of("pin=", "code=")),
+            new MaskingRule("masked", "=(\\*+)", List.of("=")),
+            new MaskingRule("digits", "(\\d{4})(\\d{4})", List.of()));
+
+    @Test
+    void everyPatternSeesTheOriginalMessage() {
+        // masked one after the other, the second pattern would no longer find the digits masked by the first
+        assertEquals("########", MaskingEngine.compile(List.of("pin=(\\d+)", "(pin=\\d+)"), 0, '#').mask("pin=1234"));
+        // nor match the mask characters written by the first, masking the '=' along
+        assertEquals("pin=**", MaskingEngine.compile(List.of("pin=(\\d+)", "(=\\*+)"), 0, '*').mask("pin=12"));
+        assertEquals("stars=## pin=##", MaskingEngine.compile(List.of("=(\\*+)", "pin=(\\d+)"), 0, '#')
+                .mask("stars=** pin=42"));
+    }
+
+    @Test
+    void matchesTheOriginalMessageLikeTheReference() {
+        MaskingEngine filtered = MaskingEngine.compileRules(RULES, 0, '*');
+        List<MaskingRule> unfilteredRules = new ArrayList<>();
+        for (MaskingRule rule : RULES) {
+            unfilteredRules.add(new MaskingRule(rule.name(), rule.pattern(), List.of()));
+        }
+        MaskingEngine unfiltered = MaskingEngine.compileRules(unfilteredRules, 0, '*');
+        String[] fragments = {"card=", "4111111111111111", "\"email\":\"", "john.doe", "@mail.com\"", "pin=", "code=",
+                "1234", "=**", "*", " ", ",", "12345678", "x"};
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder message = new StringBuilder();
+            for (int f = random.nextInt(8); f >= 0; f--) {
+                message.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String expected = reference(message.toString(), '*');
+
+            assertEquals(expected, filtered.mask(message.toString()), message.toString());
+            assertEquals(expected, unfiltered.mask(message.toString()), message.toString());
+        }
+    }
+
+    @Test
+    void countsTheMatchesOfEachRule() {
+        MaskingEngine engine = MaskingEngine.compileRules(RULES, 0, '*');
+
+        engine.mask("card=4111111111111111 pin=12 code=3");
+        engine.mask("nothing to see");
+
+        assertEquals(5, engine.size());
+        assertEquals("card", engine.getName(0));
+        assertEquals(1, engine.getHits(0));
+        assertEquals(0, engine.getHits(1));
+        assertEquals(2, engine.getHits(2));
+        // the 16 digits of the card
+        assertEquals(2, engine.getHits(4));
+    }
+
+    @Test
+    void caseInsensitiveModeAppliesToTheKeywords() {
+        MaskingEngine engine = MaskingEngine.compileRules(List.of(new MaskingRule("pin", "pin=(\\d+)", List.of("pin="))),
+                Pattern.CASE_INSENSITIVE, '*');
+
+        assertEquals("PIN=****", engine.mask("PIN=1234"));
+        assertEquals("Pin=**", engine.mask("Pin=12"));
+    }
+
+    @Test
+    void unmaskedMessagesAreReturnedAsIs() {
+        MaskingEngine engine = MaskingEngine.compileRules(RULES, 0, '*');
+        String message = "no sensitive data here";
+
+        assertSame(message, engine.mask(message));
+        assertEquals("", engine.mask(""));
+        assertNull(engine.mask(null));
+        assertThrows(IllegalArgumentException.class, () -> MaskingEngine.compile(List.of(), 0));
+    }
+
+    /**
+     * Collects the groups of every pattern on the original message first, then masks them.
+     */
+    private static String reference(String message, char maskChar) {
+        char[] masked = message.toCharArray();
+        for (MaskingRule rule : RULES) {
+            Matcher matcher = Pattern.compile(rule.pattern()).matcher(message);
+            while (matcher.find()) {
+                for (int group = 1; group <= matcher.groupCount(); group++) {
+                    for (int i = Math.max(0, matcher.start(group)); i < matcher.end(group); i++) {
+                        masked[i] = maskChar;
+                    }
+                }
+            }
+        }
+        return new String(masked);
+    }
+}
@@ -0,0 +1,116 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The encoder must write the message {@link MessageFormatter} would, as valid JSON, and take the context fields from
+ * the event only, never from the thread encoding it.
+ */
+class ContextJsonEncoderTest {
+    private static final String[] FRAGMENTS = {"{}", "{}", "\\{}", "\\\\{}", "{", "}", "\\", "\"", "a", "user ",
+            "\n", "\t", "\u0001", "\u001f", "é", "€", "😀", "\uD83D", "\uDE00", "\u007f", "{{}}"};
+    private static final Object[] ARGUMENTS = {"x", "{}", "\"quoted\"", "line\nbreak", "😀", "\uDE00", 42,
+            -7L, Long.MIN_VALUE, (short) 3, 1.5, true, null, List.of("a", "b")};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final ContextJsonEncoder encoder = new ContextJsonEncoder();
+
+    @BeforeEach
+    void setup() {
+        encoder.setContext(loggerContext);
+        encoder.start();
+    }
+
+    @AfterEach
+    void clear() {
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void messageMatchesMessageFormatter() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder pattern = new StringBuilder();
+            for (int f = random.nextInt(8); f >= 0; f--) {
+                pattern.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            Object[] arguments = new Object[random.nextInt(4)];
+            for (int a = 0; a < arguments.length; a++) {
+                arguments[a] = ARGUMENTS[random.nextInt(ARGUMENTS.length)];
+            }
+            String expected = MessageFormatter.basicArrayFormat(pattern.toString(), arguments);
+            // unpaired surrogates cannot be encoded in UTF-8, both write them as '?'
+            expected = new String(expected.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+            JsonNode json = encode(event(pattern.toString(), arguments, Map.of()));
+            assertEquals(expected, json.get("message").asText(), pattern.toString());
+        }
+    }
+
+    @Test
+    void contextComesFromTheEventMdc() throws Exception {
+        // the encoding thread is in another request, with the same name as the logging thread
+        Context.getScopedContext().putMDC(ContextKeys.CORRELATION_ID, "other-request");
+
+        JsonNode json = encode(event("message", null, Map.of("user", "alice")));
+
+        assertEquals("alice", json.get("user").asText());
+        assertFalse(json.has(ContextKeys.CORRELATION_ID));
+
+        json = encode(event("message", null, Map.of(ContextKeys.CORRELATION_ID, "this-request")));
+        assertEquals("this-request", json.get(ContextKeys.CORRELATION_ID).asText());
+    }
+
+    @Test
+    void fieldsAreEscaped() throws Exception {
+        LoggingEvent event = event("message", null, Map.of("quote\"key", "line\nvalue\u0000"));
+        event.addKeyValuePair(new org.slf4j.event.KeyValuePair("count", 3));
+        event.addKeyValuePair(new org.slf4j.event.KeyValuePair("flag", false));
+
+        JsonNode json = encode(event);
+
+        assertEquals("line\nvalue\u0000", json.get("quote\"key").asText());
+        assertEquals(3, json.get("count").asInt());
+        assertFalse(json.get("flag").asBoolean(true));
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals(Thread.currentThread().getName(), json.get("thread_name").asText());
+    }
+
+    private LoggingEvent event(String pattern, Object[] arguments, Map<String, String> mdc) {
+        LoggingEvent event = new LoggingEvent();
+        event.setLoggerContext(loggerContext);
+        event.setLoggerName(ContextJsonEncoderTest.class.getName());
+        event.setLevel(Level.INFO);
+        event.setThreadName(Thread.currentThread().getName());
+        event.setTimeStamp(System.currentTimeMillis());
+        event.setMessage(pattern);
+        event.setArgumentArray(arguments);
+        event.setMDCPropertyMap(mdc);
+        return event;
+    }
+
+    private JsonNode encode(LoggingEvent event) throws Exception {
+        byte[] bytes = encoder.encode(event);
+        assertEquals('\n', bytes[bytes.length - 1]);
+        return objectMapper.readTree(bytes);
+    }
+}
@@ -0,0 +1,64 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import com.observability.sre_logging.core.logging.MDCUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.DefaultBootstrapContext;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The lazy MDC must be installed from {@code spring.factories} when enabled only, after which the logback events see
+ * the context keys without them being copied into the MDC.
+ */
+class ContextMDCAdapterInitializerTest {
+
+    @AfterEach
+    void eagerMdc() {
+        // the adapter stays installed, it merges nothing the eager copy does not already put in the MDC
+        MDCUtils.setLazyMdc(false);
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void registeredInSpringFactories() {
+        assertTrue(SpringFactoriesLoader.forDefaultResourceLocation().load(ApplicationListener.class).stream()
+                .anyMatch(ContextMDCAdapterInitializer.class::isInstance));
+    }
+
+    @Test
+    void offByDefault() {
+        new ContextMDCAdapterInitializer().onApplicationEvent(event(new MockEnvironment()));
+
+        assertFalse(MDCUtils.isLazyMdc());
+    }
+
+    @Test
+    void installsTheAdapterWhenEnabled() {
+        new ContextMDCAdapterInitializer().onApplicationEvent(
+                event(new MockEnvironment().withProperty(ContextMDCAdapterInitializer.PROPERTY, "true")));
+
+        assertTrue(MDCUtils.isLazyMdc());
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        assertInstanceOf(ContextMDCAdapter.class, loggerContext.getMDCAdapter());
+        Context.getScopedContext().putMDC(ContextKeys.CORRELATION_ID, "request-1");
+        assertEquals("request-1", loggerContext.getMDCAdapter().get(ContextKeys.CORRELATION_ID));
+    }
+
+    private static ApplicationEnvironmentPreparedEvent event(MockEnvironment environment) {
+        return new ApplicationEnvironmentPreparedEvent(new DefaultBootstrapContext(), new SpringApplication(),
+                new String[0], environment);
+    }
+}
@@ -0,0 +1,78 @@
+package com.observability.sre_logging.logback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Whatever the characters, the buffer must write JSON that a parser reads back as the original value, growing as
+ * needed.
+ */
+class JsonBufferTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void stringsRoundTrip() throws Exception {
+        Random random = new Random(42);
+        // small, so that every kind of character lands on a resize
+        JsonBuffer buffer = new JsonBuffer(4);
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[random.nextInt(40)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = switch (random.nextInt(5)) {
+                    case 0 -> (char) random.nextInt(0x20);
+                    case 1 -> (char) (0x20 + random.nextInt(0x60));
+                    case 2 -> (char) (0x80 + random.nextInt(0x780));
+                    case 3 -> (char) (0x800 + random.nextInt(0xF800));
+                    default -> "\"\\/".charAt(random.nextInt(3));
+                };
+            }
+            String value = new String(chars);
+            // unpaired surrogates cannot be encoded in UTF-8, written as '?' like String.getBytes does
+            String expected = new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+            buffer.reset();
+            buffer.string(value);
+            assertEquals(expected, objectMapper.readValue(buffer.toByteArray(), String.class));
+
+            buffer.reset();
+            buffer.string(chars, 0, chars.length);
+            assertEquals(expected, objectMapper.readValue(buffer.toByteArray(), String.class));
+        }
+    }
+
+    @Test
+    void numbers() throws Exception {
+        JsonBuffer buffer = new JsonBuffer(1);
+        for (long value : new long[]{0, 7, -7, 10, 99, 100, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            buffer.reset();
+            buffer.number(value);
+            assertEquals(value, objectMapper.readValue(buffer.toByteArray(), Long.class));
+        }
+    }
+
+    @Test
+    void timestamps() throws Exception {
+        JsonBuffer buffer = new JsonBuffer(16);
+        for (long millis : new long[]{0, 1, 86_399_999, 86_400_000, 1_727_784_000_123L, -1, 253_402_300_799_999L}) {
+            buffer.reset();
+            buffer.timestamp(millis);
+            assertEquals(Instant.ofEpochMilli(millis).toString().replaceFirst("Z$", millis % 1000 == 0 ? ".000Z" : "Z"),
+                    objectMapper.readValue(buffer.toByteArray(), String.class));
+        }
+    }
+
+    @Test
+    void objects() throws Exception {
+        JsonBuffer buffer = new JsonBuffer(8);
+        buffer.raw((byte) '{').name("a", true).string("x").name("b\"", false).number(-3).name("c", false).string(null)
+                .raw((byte) '}');
+        assertEquals("{\"a\":\"x\",\"b\\\"\":-3,\"c\":null}", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+        objectMapper.readTree(buffer.toByteArray());
+    }
+}
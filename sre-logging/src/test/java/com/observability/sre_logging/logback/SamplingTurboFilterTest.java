@@ -0,0 +1,153 @@
+package com.observability.sre_logging.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+import com.observability.sre_logging.core.context.Context;
+import com.observability.sre_logging.core.context.ContextKeys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each logger and level must be limited by its most specific rule, the buckets must let through a burst and then one
+ * event per interval however many threads race for them, and every client must keep a bucket of its own however many
+ * clients were seen before.
+ */
+class SamplingTurboFilterTest {
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final SamplingTurboFilter filter = new SamplingTurboFilter();
+
+    @BeforeEach
+    void setup() {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.TRACE);
+        filter.setContext(loggerContext);
+        filter.setSummaryInterval(Duration.buildBySeconds(0));
+    }
+
+    @AfterEach
+    void stop() {
+        filter.stop();
+        Context.clearScopedContext();
+    }
+
+    @Test
+    void mostSpecificRuleApplies() {
+        filter.addRule(rule("com.example", "INFO", 0, 0, null));
+        filter.addRule(rule("com.example.orders", "DEBUG", 1, 0, null));
+        filter.addRule(rule("com.example.orders.Retry", "TRACE", 0, 0, null));
+        filter.start();
+
+        assertEquals(FilterReply.DENY, decide("com.example.Payments", Level.INFO));
+        assertEquals(FilterReply.DENY, decide("com.example.Payments", Level.DEBUG));
+        // the level of a rule is the highest level it limits
+        assertEquals(FilterReply.NEUTRAL, decide("com.example.Payments", Level.WARN));
+        // the more specific rule lets everything through up to DEBUG, the parent one applies from INFO
+        assertEquals(FilterReply.NEUTRAL, decide("com.example.orders.Orders", Level.DEBUG));
+        assertEquals(FilterReply.DENY, decide("com.example.orders.Orders", Level.INFO));
+        assertEquals(FilterReply.DENY, decide("com.example.orders.Retry", Level.TRACE));
+        assertEquals(FilterReply.NEUTRAL, decide("com.example.orders.Retry", Level.DEBUG));
+        // a prefix that is not a parent logger
+        assertEquals(FilterReply.NEUTRAL, decide("com.examples.Other", Level.INFO));
+        assertEquals(4, filter.getSuppressedCount());
+    }
+
+    @Test
+    void bucketLetsThroughABurstThenOneEventPerInterval() {
+        SamplingTurboFilter.Bucket bucket = new SamplingTurboFilter.Bucket("test");
+        long interval = 10;
+        long tolerance = 2 * interval;
+
+        assertEquals(3, acquired(bucket, 0, interval, tolerance, 10));
+        assertEquals(1, acquired(bucket, 10, interval, tolerance, 10));
+        assertEquals(0, acquired(bucket, 15, interval, tolerance, 10));
+        assertEquals(2, acquired(bucket, 30, interval, tolerance, 10));
+        // an idle bucket refills up to the burst, no more
+        assertEquals(3, acquired(bucket, 1_000, interval, tolerance, 10));
+    }
+
+    @Test
+    void bucketIsSharedExactlyUnderContention() throws Exception {
+        SamplingTurboFilter.Bucket bucket = new SamplingTurboFilter.Bucket("test");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(executor.submit(() -> {
+                start.await();
+                return acquired(bucket, 0, 10, 99 * 10, 10_000);
+            }));
+        }
+        start.countDown();
+        int acquired = 0;
+        for (Future<Integer> thread : threads) {
+            acquired += thread.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, acquired);
+    }
+
+    @Test
+    void everyClientKeepsItsOwnBucket() {
+        filter.addRule(rule("com.example", "DEBUG", 1, 0.001, ContextKeys.API_CLIENT_ID));
+        filter.setMaxKeys(10);
+        filter.start();
+
+        // far more clients than maxKeys, each may log once
+        for (int client = 0; client < 1_000; client++) {
+            Context.getScopedContext().put(ContextKeys.API_CLIENT_ID, "client-" + client);
+            assertEquals(FilterReply.NEUTRAL, decide("com.example.Orders", Level.DEBUG), "client-" + client);
+            assertEquals(FilterReply.DENY, decide("com.example.Orders", Level.DEBUG), "client-" + client);
+        }
+        // without a summary interval, the evicted buckets are forgotten right away too
+        // the keyed buckets of DEBUG plus the shared ones of TRACE and DEBUG
+        assertTrue(filter.trackedBuckets() <= 10 + 2, "tracked " + filter.trackedBuckets());
+        // without a client, the shared bucket
+        Context.clearScopedContext();
+        assertEquals(FilterReply.NEUTRAL, decide("com.example.Orders", Level.DEBUG));
+        assertEquals(FilterReply.DENY, decide("com.example.Orders", Level.DEBUG));
+
+        assertEquals(1_001, filter.getSuppressedCount());
+        filter.stop();
+        assertEquals(1_001, filter.getSuppressedCount());
+    }
+
+    private FilterReply decide(String loggerName, Level level) {
+        return filter.decide(null, loggerContext.getLogger(loggerName), level, "message", null, null);
+    }
+
+    private static int acquired(SamplingTurboFilter.Bucket bucket, long now, long interval, long tolerance, int attempts) {
+        int acquired = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (bucket.acquire(now, interval, tolerance)) {
+                acquired++;
+            }
+        }
+        return acquired;
+    }
+
+    private static SamplingRule rule(String logger, String level, double sampleRate, double ratePerSecond, String key) {
+        SamplingRule rule = new SamplingRule();
+        rule.setLogger(logger);
+        rule.setLevel(level);
+        rule.setSampleRate(sampleRate);
+        rule.setRatePerSecond(ratePerSecond);
+        rule.setKey(key);
+        return rule;
+    }
+}
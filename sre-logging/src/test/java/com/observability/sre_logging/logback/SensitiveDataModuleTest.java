@@ -0,0 +1,187 @@
+package com.observability.sre_logging.logback;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import com.observability.sre_logging.core.logging.AlphaNumericMasker;
+import com.observability.sre_logging.core.logging.Masked;
+import com.observability.sre_logging.sensitive.Hashed;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An object written through an {@link ObjectMapper} with the {@link SensitiveDataModule} must never contain the
+ * value of a {@link Masked} or {@link Hashed} property, on fields as well as getters, while nulls and
+ * {@link JsonInclude} keep the meaning Jackson gives them.
+ */
+class SensitiveDataModuleTest {
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new SensitiveDataModule());
+
+    @Test
+    void masksFieldsAndGetters() throws Exception {
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(new Account("4111111111111111", "1234-5678", 123456789, "visible")));
+
+        assertEquals("****1111", json.get("card").asText());
+        assertEquals("####5678", json.get("iban").asText());
+        // non-string values are masked through their string form
+        assertEquals("****6789", json.get("pin").asText());
+        assertEquals("visible", json.get("name").asText());
+        assertEquals("{\"alias\":\"****-****\"}", objectMapper.writeValueAsString(new Alias("Ab-12")));
+    }
+
+    @Test
+    void hashesWithTheConfiguredAlgorithm() throws Exception {
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(new Hashes("alice")));
+
+        assertEquals(Hashing.sha256().hashString("alice", StandardCharsets.UTF_8).toString(), json.get("sha256").asText());
+        assertEquals(Hashing.sha384().hashString("alice", StandardCharsets.UTF_8).toString(), json.get("sha384").asText());
+        assertEquals(Hashing.sha512().hashString("alice", StandardCharsets.UTF_8).toString(), json.get("sha512").asText());
+        assertEquals(Hashing.murmur3_128().hashString("alice", StandardCharsets.UTF_8).toString(), json.get("murmur3").asText());
+        // getters are hashed like fields, with the default algorithm
+        assertEquals(Hashing.sha256().hashString("alice", StandardCharsets.UTF_8).toString(), json.get("user").asText());
+    }
+
+    @Test
+    void hashesWithTheKeyWhenGiven() throws Exception {
+        ObjectMapper keyed = new ObjectMapper().registerModule(new SensitiveDataModule(KEY));
+        JsonNode json = keyed.readTree(keyed.writeValueAsString(new KeyedHashes("alice")));
+
+        assertEquals(hmac("HmacSHA256", "alice"), json.get("sha256").asText());
+        assertEquals(hmac("HmacSHA512", "alice"), json.get("sha512").asText());
+        // a keyed hash is not the plain one
+        assertFalse(json.get("sha256").asText().equals(Hashing.sha256().hashString("alice", StandardCharsets.UTF_8).toString()));
+
+        JsonMappingException error = assertThrows(JsonMappingException.class, () -> keyed.writeValueAsString(new Hashes("alice")));
+        assertTrue(error.getMessage().contains("MURMUR_3 does not support a keyed mode"), error.getMessage());
+    }
+
+    @Test
+    void writesNullsAsJacksonDoes() throws Exception {
+        assertEquals("{\"card\":null,\"iban\":null,\"pin\":null,\"name\":null}",
+                objectMapper.writeValueAsString(new Account(null, null, null, null)));
+        assertEquals("{\"sha256\":null,\"sha384\":null,\"sha512\":null,\"murmur3\":null,\"user\":null}",
+                objectMapper.writeValueAsString(new Hashes(null)));
+    }
+
+    @Test
+    void honoursJsonInclude() throws Exception {
+        assertEquals("{}", objectMapper.writeValueAsString(new Included(null, null)));
+        // empty values are left out before they are masked or hashed, the hash of "" is not empty
+        assertEquals("{}", objectMapper.writeValueAsString(new Included("", "")));
+        assertEquals("{\"card\":\"****1111\",\"user\":\"" + Hashing.sha256().hashString("alice", StandardCharsets.UTF_8) + "\"}",
+                objectMapper.writeValueAsString(new Included("4111111111111111", "alice")));
+        assertEquals("{\"user\":null}", objectMapper.writeValueAsString(new NonNullCard(null, null)));
+    }
+
+    private static String hmac(String algorithm, String value) throws Exception {
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(KEY, algorithm));
+        return HexFormat.of().formatHex(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static class Account {
+        @Masked
+        public final String card;
+        private final String iban;
+        @Masked
+        public final Integer pin;
+        public final String name;
+
+        Account(String card, String iban, Integer pin, String name) {
+            this.card = card;
+            this.iban = iban;
+            this.pin = pin;
+            this.name = name;
+        }
+
+        @Masked(maskingCharacter = '#')
+        public String getIban() {
+            return iban;
+        }
+    }
+
+    static class Alias {
+        @Masked(transformer = AlphaNumericMasker.class)
+        public final String alias;
+
+        Alias(String alias) {
+            this.alias = alias;
+        }
+    }
+
+    static class Hashes {
+        @Hashed
+        public final String sha256;
+        @Hashed(Hashed.Algorithm.SHA_384)
+        public final String sha384;
+        @Hashed(Hashed.Algorithm.SHA_512)
+        public final String sha512;
+        @Hashed(Hashed.Algorithm.MURMUR_3)
+        public final String murmur3;
+        private final String user;
+
+        Hashes(String value) {
+            this.sha256 = value;
+            this.sha384 = value;
+            this.sha512 = value;
+            this.murmur3 = value;
+            this.user = value;
+        }
+
+        @Hashed
+        public String getUser() {
+            return user;
+        }
+    }
+
+    static class KeyedHashes {
+        @Hashed
+        public final String sha256;
+        @Hashed(Hashed.Algorithm.SHA_512)
+        public final String sha512;
+
+        KeyedHashes(String value) {
+            this.sha256 = value;
+            this.sha512 = value;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    static class Included {
+        @Masked
+        public final String card;
+        @Hashed
+        public final String user;
+
+        Included(String card, String user) {
+            this.card = card;
+            this.user = user;
+        }
+    }
+
+    static class NonNullCard {
+        @Masked
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public final String card;
+        @Hashed
+        public final String user;
+
+        NonNullCard(String card, String user) {
+            this.card = card;
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.observability.sre_logging.sensitive;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The masker must write the lowercase hex of the standard digest or HMAC of the UTF-8 value, whatever the length and
+ * the characters of the value and whatever the reused buffers hold from the previous call.
+ */
+class HashingMaskerTest {
+
+    @Test
+    void hashesKnownVectors() {
+        HashingMasker sha256 = new HashingMasker(Hashed.Algorithm.SHA_256);
+        HashingMasker sha512 = new HashingMasker(Hashed.Algorithm.SHA_512);
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", sha256.apply("abc"));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", sha256.apply(""));
+        assertEquals("ddaf35a193617abacc417349ae20413112e6fa4e89a97ea20a9eeee64b55d39a"
+                + "2192992a274fc1a836ba3c23a3feebbd454d4423643ce80e2a9ac94fa54ca49f", sha512.apply("abc"));
+        // the default is SHA-256
+        assertEquals(sha256.apply("abc"), new HashingMasker().apply("abc"));
+    }
+
+    @Test
+    void hmacsRfc4231Vectors() {
+        // RFC 4231, test case 2
+        byte[] key = "Jefe".getBytes(StandardCharsets.US_ASCII);
+        String data = "what do ya want for nothing?";
+
+        HashingMasker sha256 = new HashingMasker(Hashed.Algorithm.SHA_256, key);
+        assertTrue(sha256.isKeyed());
+        assertEquals("5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843", sha256.apply(data));
+        assertEquals("164b7a7bfcf819e2e395fbe73b56e0a387bd64222e831fd610270cd7ea250554"
+                        + "9758bf75c05a994a6d034f65f8f0e6fdcaeab1a34d4a6b4b636e070a38bce737",
+                new HashingMasker(Hashed.Algorithm.SHA_512, key).apply(data));
+
+        // the key is copied, changing the caller's array does not change the hashes
+        HashingMasker configured = new HashingMasker();
+        byte[] configuredKey = key.clone();
+        configured.configure(Map.of(Hashed.ALGORITHM_CONFIG, "SHA_256", Hashed.HMAC_KEY_CONFIG, configuredKey));
+        configuredKey[0] = 'X';
+        assertEquals(sha256.apply(data), configured.apply(data));
+    }
+
+    @Test
+    void hashesAnyLengthAndCharacters() throws Exception {
+        Random random = new Random(42);
+        for (Hashed.Algorithm algorithm : new Hashed.Algorithm[]{Hashed.Algorithm.SHA_256, Hashed.Algorithm.SHA_384, Hashed.Algorithm.SHA_512}) {
+            HashingMasker masker = new HashingMasker(algorithm);
+            MessageDigest reference = MessageDigest.getInstance(algorithm.getJdkAlgorithm());
+            for (int i = 0; i < 2_000; i++) {
+                // around the scratch buffer limit, and values that only turn non-ASCII at the end
+                int length = random.nextInt(4) == 0 ? 1_000 + random.nextInt(100) : random.nextInt(200);
+                char[] chars = new char[length];
+                boolean ascii = random.nextBoolean();
+                for (int c = 0; c < length; c++) {
+                    chars[c] = ascii || c < length - 1 ? (char) (0x20 + random.nextInt(0x5F)) : (char) (0x80 + random.nextInt(0x2000));
+                }
+                String value = new String(chars);
+
+                String expected = HexFormat.of().formatHex(reference.digest(value.getBytes(StandardCharsets.UTF_8)));
+                assertEquals(expected, masker.apply(value), algorithm + " of " + value);
+            }
+        }
+    }
+
+    @Test
+    void hashesNonAsciiAsUtf8() throws Exception {
+        HashingMasker masker = new HashingMasker(Hashed.Algorithm.SHA_256);
+        for (String value : new String[]{"héllo", "日本語", "emoji 😀", "€"}) {
+            byte[] utf8 = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            assertEquals(HexFormat.of().formatHex(utf8), masker.apply(value));
+        }
+        // not the ISO-8859-1 hash, which the ASCII fast path would produce if it kept the low byte
+        byte[] latin1 = MessageDigest.getInstance("SHA-256").digest("héllo".getBytes(StandardCharsets.ISO_8859_1));
+        assertFalse(HexFormat.of().formatHex(latin1).equals(masker.apply("héllo")));
+    }
+
+    @Test
+    void hashesValuesOverTheScratchLength() throws Exception {
+        HashingMasker masker = new HashingMasker(Hashed.Algorithm.SHA_256, "key".getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("key".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String large = "a".repeat(100_000);
+        String short1 = "abc";
+
+        assertEquals(HexFormat.of().formatHex(mac.doFinal(large.getBytes(StandardCharsets.UTF_8))), masker.apply(large));
+        // the large value did not leave anything behind in the reused buffers
+        assertEquals(HexFormat.of().formatHex(mac.doFinal(short1.getBytes(StandardCharsets.UTF_8))), masker.apply(short1));
+    }
+
+    @Test
+    void rejectsAKeyWithMurmur3() {
+        byte[] key = "key".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> new HashingMasker(Hashed.Algorithm.MURMUR_3, key));
+        assertThrows(IllegalArgumentException.class, () -> new HashingMasker(null));
+
+        HashingMasker masker = new HashingMasker(Hashed.Algorithm.MURMUR_3);
+        assertThrows(IllegalArgumentException.class, () -> masker.configure(Map.of(Hashed.HMAC_KEY_CONFIG, key)));
+        // a rejected configuration leaves the masker as it was
+        assertFalse(masker.isKeyed());
+        HashingMasker keyed = new HashingMasker(Hashed.Algorithm.SHA_256, key);
+        assertThrows(IllegalArgumentException.class, () -> keyed.configure(Map.of(Hashed.ALGORITHM_CONFIG, Hashed.Algorithm.MURMUR_3)));
+        assertEquals(Hashed.Algorithm.MURMUR_3.getHashFunction().hashString("abc", StandardCharsets.UTF_8).toString(),
+                masker.apply("abc"));
+    }
+}